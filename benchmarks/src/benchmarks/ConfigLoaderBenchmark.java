@@ -0,0 +1,28 @@
+package benchmarks;
+
+import model.Game;
+import org.openjdk.jmh.annotations.*;
+import server.configloader.ConfigLoader;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the parsing of the configuration files, done by the server when it starts.
+ * It must be run from the root of the project, where the configuration directory is.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigLoaderBenchmark {
+    private static final String CONFIGURATION_DIRECTORY = "configuration";
+
+    @Benchmark
+    public Game loadConfiguration() throws IOException {
+        ConfigLoader configLoader = new ConfigLoader(CONFIGURATION_DIRECTORY);
+        configLoader.loadConfiguration();
+        return configLoader.getGame();
+    }
+}
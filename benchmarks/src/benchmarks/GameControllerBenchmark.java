@@ -0,0 +1,161 @@
+package benchmarks;
+
+import gamecontroller.GameController;
+import gamecontroller.GameState;
+import gamecontroller.Move;
+import gamecontroller.MoveGenerator;
+import gamecontroller.ValidationResult;
+import gamecontroller.exceptions.ActionNotAllowedException;
+import model.Game;
+import model.board.actionspace.ActionSpace;
+import model.board.actionspace.Floor;
+import model.player.FamilyMemberColor;
+import model.player.Player;
+import model.resource.ObtainableResource;
+import model.resource.ObtainableResourceSet;
+import model.resource.ObtainedResourceSet;
+import model.resource.RequiredResourceSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the rules of the game controller: the validation and the execution of the placement
+ * of a family member, which the server runs for every action of the players, the generation of all the allowed
+ * placements and the final scoring.
+ * <p>
+ * A rejected placement is measured both through the exception thrown to the clients
+ * and through the validation result used by the bots, and a placement is also measured
+ * together with its rollback to a savepoint, as done to evaluate a move without copying the game.
+ * <p>
+ * A placement changes the game, so it's undone after every invocation. JMH warns that fixtures run at every
+ * invocation add some noise to the measurement, which is negligible here because a placement takes microseconds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameControllerBenchmark {
+    private static final FamilyMemberColor FAMILY_MEMBER = FamilyMemberColor.BLACK;
+
+    /**
+     * The first turn of a game, restored after every placement
+     */
+    @State(Scope.Thread)
+    public static class FirstTurn {
+        GameController gameController;
+        Player player;
+
+        Floor floor;
+        RequiredResourceSet payment;
+
+        /**
+         * A floor that needs a higher value than the dice, where the placement is rejected
+         */
+        Floor unreachableFloor;
+
+        ActionSpace councilPalace;
+        List<ObtainableResourceSet> councilPrivileges;
+
+        private ObtainedResourceSet initialResources;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException, ActionNotAllowedException {
+            gameController = GameFixtures.newGameAtFirstTurn();
+            Game game = gameController.getGame();
+            player = game.getCurrentPlayer();
+            initialResources = new ObtainedResourceSet(player.getResources());
+
+            // The highest floor of the venture tower reachable with a die of 6
+            for (Floor<?> ventureFloor : game.getBoard().getVentureTower().getFloors()) {
+                if (ventureFloor.getRequiredFamilyMemberValue() <= 6) floor = ventureFloor;
+                else unreachableFloor = ventureFloor;
+            }
+            payment = gameController.getAllowedPaymentsForCard(floor.getCard()).get(0);
+
+            councilPalace = game.getBoard().getCouncilPalace();
+            int privileges = councilPalace.getBonus().getObtainedAmount(ObtainableResource.COUNCIL_PRIVILEGES);
+            councilPrivileges = game.getAllowedCouncilPrivileges().subList(0, privileges);
+        }
+
+        @TearDown(Level.Invocation)
+        public void undoPlacement() {
+            floor.removeAllOccupants();
+            councilPalace.removeAllOccupants();
+            player.resetAvailableFamilyMembers();
+            player.setSpentServants(0);
+            for (ObtainableResource resource : ObtainableResource.values()) {
+                player.getResources().setResourceQty(resource, initialResources.getAmount(resource));
+            }
+            gameController.setHasCurrentPlayerPlacedFamilyMember(false);
+            gameController.setGameState(GameState.PLAYER_TURN);
+        }
+    }
+
+    /**
+     * A game played to the end, scored again at every invocation
+     */
+    @State(Scope.Thread)
+    public static class FinishedGame {
+        GameController gameController;
+
+        @Setup(Level.Iteration)
+        public void setUp() throws IOException {
+            // A new game at every iteration, so that the victory points added by the scoring don't overflow
+            gameController = new GameController();
+            gameController.setGame(GameFixtures.newFinishedGame());
+        }
+    }
+
+    @Benchmark
+    public GameState goToFloor(FirstTurn turn) throws ActionNotAllowedException {
+        turn.gameController.goToFloor(turn.player.getUsername(), FAMILY_MEMBER, turn.floor.getId(), turn.payment, Collections.emptyList());
+        return turn.gameController.getGameState();
+    }
+
+    @Benchmark
+    public GameState goToActionSpace(FirstTurn turn) throws ActionNotAllowedException {
+        turn.gameController.goToActionSpace(turn.player.getUsername(), turn.councilPalace.getId(), FAMILY_MEMBER, turn.councilPrivileges);
+        return turn.gameController.getGameState();
+    }
+
+    @Benchmark
+    public GameState goToFloorAndRollback(FirstTurn turn) throws ActionNotAllowedException {
+        int savepoint = turn.gameController.savepoint();
+        turn.gameController.goToFloor(turn.player.getUsername(), FAMILY_MEMBER, turn.floor.getId(), turn.payment, Collections.emptyList());
+        GameState gameState = turn.gameController.getGameState();
+        turn.gameController.rollbackTo(savepoint);
+        return gameState;
+    }
+
+    @Benchmark
+    public ActionNotAllowedException goToFloorRejected(FirstTurn turn) {
+        try {
+            turn.gameController.goToFloor(turn.player.getUsername(), FAMILY_MEMBER, turn.unreachableFloor.getId(), turn.payment, Collections.emptyList());
+            throw new IllegalStateException("The placement should have been rejected");
+        }
+        catch (ActionNotAllowedException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public ValidationResult validateGoToFloorRejected(FirstTurn turn) {
+        return turn.gameController.validateGoToFloor(turn.player.getUsername(), FAMILY_MEMBER, turn.unreachableFloor.getId(), turn.payment, Collections.emptyList());
+    }
+
+    @Benchmark
+    public List<Move> generateMoves(FirstTurn turn) {
+        return new MoveGenerator(turn.gameController, turn.player).generateMoves();
+    }
+
+    @Benchmark
+    public Game endGame(FinishedGame finishedGame) {
+        finishedGame.gameController.endGame();
+        return finishedGame.gameController.getGame();
+    }
+}
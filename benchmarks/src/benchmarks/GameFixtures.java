@@ -0,0 +1,151 @@
+package benchmarks;
+
+import gamecontroller.GameController;
+import gamecontroller.exceptions.ActionNotAllowedException;
+import model.Game;
+import model.card.development.DevelopmentCard;
+import model.card.effects.ImmediateResourcesEffect;
+import model.player.Player;
+import model.player.PlayerColor;
+import model.resource.ObtainableResource;
+import model.resource.ObtainableResourceSet;
+import model.resource.RequiredResourceSet;
+import server.configloader.GameCatalog;
+import server.simulation.PlayerPolicy;
+import server.simulation.RandomPolicy;
+import server.simulation.SimulatedGame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * This class builds the games used by the benchmarks from the real configuration,
+ * loaded from the configuration directory of the project (the benchmarks must be run from the root of the project).
+ * <p>
+ * The fixtures are deterministic: the same configuration always gives the same games,
+ * so that the results of different runs can be compared.
+ */
+public class GameFixtures {
+    public static final int PLAYERS = 4;
+
+    /**
+     * The seed of the simulated game played to the end
+     */
+    private static final long SEED = 42;
+
+    private static final int CARDS_PER_TOWER = 4;
+
+    /**
+     * The amount of each resource given to the players of the games at their first turn,
+     * enough to pay for any card of the first period
+     */
+    private static final int INITIAL_RESOURCES = 20;
+
+    /**
+     * This class is not designed to be instantiated
+     */
+    private GameFixtures() {
+    }
+
+    public static GameCatalog getCatalog() throws IOException {
+        return GameCatalog.getInstance();
+    }
+
+    /**
+     * Returns a game at the first turn of the first round: the first cards of the first period are on the towers,
+     * all the dice are 6 and the players have plenty of resources, so that the first player can go anywhere
+     *
+     * @return the controller of the game
+     * @throws IOException if the configuration can't be loaded
+     * @throws ActionNotAllowedException if the cards can't be placed on the towers
+     */
+    public static GameController newGameAtFirstTurn() throws IOException, ActionNotAllowedException {
+        Game game = getCatalog().newGame();
+        PlayerColor[] colors = PlayerColor.values();
+        for (int i = 0; i < PLAYERS; i++) {
+            Player player = new Player("player" + (i + 1));
+            player.setColor(colors[i]);
+            for (ObtainableResource resource : ObtainableResource.values()) {
+                if (resource != ObtainableResource.COUNCIL_PRIVILEGES) {
+                    player.getResources().setResourceQty(resource, INITIAL_RESOURCES);
+                }
+            }
+            game.addPlayer(player);
+        }
+
+        GameController gameController = new GameController();
+        gameController.setGame(game);
+        gameController.prepareNewRound();
+        gameController.setDevelopmentCards(getFirstCards(game.getAvailableTerritoryCards()),
+                getFirstCards(game.getAvailableCharacterCards()),
+                getFirstCards(game.getAvailableBuildingCards()),
+                getFirstCards(game.getAvailableVentureCards()));
+        gameController.setDiceValues(6, 6, 6);
+        gameController.startPlayerTurn(game.getPlayers().get(0).getUsername());
+        return gameController;
+    }
+
+    private static List<UUID> getFirstCards(List<? extends DevelopmentCard> deck) {
+        return deck.stream()
+                   .filter(card -> card.getPeriod() == 1)
+                   .limit(CARDS_PER_TOWER)
+                   .map(DevelopmentCard::getId)
+                   .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns a game played to the end by random players, with the cards and the effects collected in six rounds
+     *
+     * @return the game, already scored
+     * @throws IOException if the configuration can't be loaded
+     */
+    public static Game newFinishedGame() throws IOException {
+        List<PlayerPolicy> policies = new ArrayList<>();
+        for (int i = 0; i < PLAYERS; i++) {
+            policies.add(new RandomPolicy(SEED + i));
+        }
+        return new SimulatedGame(getCatalog().newGame(), policies, SEED).play().getGame();
+    }
+
+    /**
+     * @param game a game
+     * @return the player of the game with the most cards
+     */
+    public static Player getPlayerWithMostCards(Game game) {
+        Player richest = game.getPlayers().get(0);
+        for (Player player : game.getPlayers()) {
+            if (player.getAllPlayedCards().size() > richest.getAllPlayedCards().size()) richest = player;
+        }
+        return richest;
+    }
+
+    /**
+     * @param multipliers true for the resource sets with multipliers (such as one victory point for each territory)
+     * @return the immediate resources given by the development cards of the catalog
+     */
+    public static List<ObtainableResourceSet> getImmediateResources(boolean multipliers) throws IOException {
+        return getDevelopmentCards().flatMap(card -> card.getEffectsContainer().getEffectsImplementing(ImmediateResourcesEffect.class).stream())
+                                    .map(ImmediateResourcesEffect::getObtainableResourceSet)
+                                    .filter(resources -> resources.getResourceMultipliers().isEmpty() != multipliers)
+                                    .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the costs of the development cards of the catalog
+     */
+    public static List<RequiredResourceSet> getCardCosts() throws IOException {
+        return getDevelopmentCards().filter(card -> card.getRequiredResourceSet() != null)
+                                    .flatMap(card -> card.getRequiredResourceSet().stream())
+                                    .collect(Collectors.toList());
+    }
+
+    private static Stream<DevelopmentCard> getDevelopmentCards() throws IOException {
+        GameCatalog catalog = getCatalog();
+        return Stream.of(catalog.getTerritoryCards(), catalog.getCharacterCards(), catalog.getBuildingCards(), catalog.getVentureCards())
+                     .flatMap(List::stream);
+    }
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import model.Game;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the Java serialization of a game at its end, with all the cards taken by the players,
+ * as it's sent to the clients over RMI and sockets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameSerializationBenchmark {
+    private Game game;
+    private byte[] serializedGame;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        game = GameFixtures.newFinishedGame();
+        serializedGame = serialize(game);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return serialize(game);
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serializedGame))) {
+            return in.readObject();
+        }
+    }
+
+    private static byte[] serialize(Game game) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(game);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,47 @@
+package benchmarks;
+
+import model.Game;
+import model.card.effects.ActionValueModifierEffect;
+import model.card.effects.DevelopmentCardRequiredResourceSetModifierEffect;
+import model.card.effects.interfaces.OncePerRoundEffectInterface;
+import model.player.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the lookup of the effects of a player, which the game controller does many times
+ * for every action, on the player with the most cards at the end of a game.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlayerBenchmark {
+    private Player player;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Game game = GameFixtures.newFinishedGame();
+        player = GameFixtures.getPlayerWithMostCards(game);
+    }
+
+    @Benchmark
+    public List<ActionValueModifierEffect> getEffectsImplementingClass() {
+        return player.getEffectsImplementing(ActionValueModifierEffect.class);
+    }
+
+    @Benchmark
+    public List<DevelopmentCardRequiredResourceSetModifierEffect> getEffectsImplementingRareClass() {
+        return player.getEffectsImplementing(DevelopmentCardRequiredResourceSetModifierEffect.class);
+    }
+
+    @Benchmark
+    public List<OncePerRoundEffectInterface> getEffectsImplementingInterface() {
+        return player.getEffectsImplementing(OncePerRoundEffectInterface.class);
+    }
+}
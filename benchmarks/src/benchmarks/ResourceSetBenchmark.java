@@ -0,0 +1,70 @@
+package benchmarks;
+
+import model.Game;
+import model.resource.ObtainableResourceSet;
+import model.resource.ObtainedResourceSet;
+import model.resource.RequiredResourceSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the arithmetic of the resources: adding the resources given by the cards
+ * (with and without multipliers, which count the cards of the player) and checking the costs of the cards.
+ * <p>
+ * Every invocation takes the next set of the catalog, so that the measurement isn't tied to a single card.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResourceSetBenchmark {
+    /**
+     * The resources of the player with the most cards at the end of a game
+     */
+    private ObtainedResourceSet playerResources;
+
+    private List<ObtainableResourceSet> staticResources;
+    private List<ObtainableResourceSet> multipliedResources;
+    private List<RequiredResourceSet> cardCosts;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Game game = GameFixtures.newFinishedGame();
+        playerResources = GameFixtures.getPlayerWithMostCards(game).getResources();
+        staticResources = GameFixtures.getImmediateResources(false);
+        multipliedResources = GameFixtures.getImmediateResources(true);
+        cardCosts = GameFixtures.getCardCosts();
+    }
+
+    @Benchmark
+    public ObtainedResourceSet addStaticResources() {
+        // Added to a copy, or the amounts would grow for the whole trial
+        ObtainedResourceSet resources = new ObtainedResourceSet(playerResources);
+        resources.addResources(next(staticResources));
+        return resources;
+    }
+
+    @Benchmark
+    public ObtainedResourceSet addMultipliedResources() {
+        ObtainedResourceSet resources = new ObtainedResourceSet(playerResources);
+        resources.addResources(next(multipliedResources));
+        return resources;
+    }
+
+    @Benchmark
+    public boolean has() {
+        return playerResources.has(next(cardCosts));
+    }
+
+    private <T> T next(List<T> list) {
+        next = (next + 1) % list.size();
+        return list.get(next);
+    }
+}
@@ -1,8 +1,10 @@
 package client;
 
 import client.rmiclient.RMIClient;
+import client.socketclient.SocketClient;
 import gamecontroller.GameController;
 import gamecontroller.GameEventsInterface;
+import gamecontroller.GameState;
 import gamecontroller.exceptions.ActionNotAllowedException;
 import gamecontroller.exceptions.LoginException;
 import gamecontroller.exceptions.NoAvailableGamesException;
@@ -25,11 +27,13 @@ import ui.UIType;
 import ui.cli.CommandLineUI;
 import ui.cli.contexts.*;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Function;
 
 /**
  * This class bridges the network interface, the UI and the game controller
@@ -59,6 +63,15 @@ public class ClientController implements GameEventsInterface,
         }
     }
 
+    /**
+     * Creates a client controller driven by a UI that is not one of the {@link UIType}s, such as a bot
+     *
+     * @param uiFactory creates the UI for this controller
+     */
+    public ClientController(Function<ClientController, UIInterface> uiFactory) {
+        ui = uiFactory.apply(this);
+    }
+
     /* ---------------------------------------
      * Actions from the UI
      * --------------------------------------- */
@@ -75,7 +88,7 @@ public class ClientController implements GameEventsInterface,
     @Override
     public void connect(ConnectionMethod connectionMethod, String hostname, int port) throws RemoteException {
         if (connectionMethod == ConnectionMethod.SOCKET) {
-            // clientConnection = new SocketClient(hostname, port, this);
+            clientConnection = new SocketClient(hostname, port, this);
         }
         else if (connectionMethod == ConnectionMethod.RMI) {
             clientConnection = new RMIClient(hostname, port, this);
@@ -250,6 +263,17 @@ public class ClientController implements GameEventsInterface,
         }
     }
 
+    /**
+     * Closes the connection to the server, if the connection method supports it
+     *
+     * @throws IOException if the connection can't be closed
+     */
+    public void disconnect() throws IOException {
+        if (clientConnection instanceof Closeable) {
+            ((Closeable) clientConnection).close();
+        }
+    }
+
     /* ---------------------------------------
      * GAME EVENTS
      * --------------------------------------- */
@@ -311,8 +335,27 @@ public class ClientController implements GameEventsInterface,
         ui.onPrepareNewRound();
     }
 
-    public void onSetGameConfiguration(Game game){
-        gameController.setGame(game);
+    /**
+     * Called when the game configuration is received: when the drafts are over,
+     * and again if the player comes back to the game after a restart of the server or has missed some changes
+     *
+     * @param gameController the controller of the game, with the state of the server
+     */
+    public void onSetGameConfiguration(GameController gameController) {
+        this.gameController = gameController;
+
+        // Go on with the choice the game is waiting for, if it has been asked before the configuration was sent again
+        try {
+            if (gameController.getGameState() == GameState.PLAYER_TURN && getGame().getCurrentPlayer().getUsername().equals(ourUsername)) {
+                ui.showMainTurnContext();
+            }
+            else if (gameController.getGameState() == GameState.VATICAN_REPORT && gameController.canPlayerDecideHisExcommunication(ourUsername)) {
+                ui.showDecideExcommunicationContext();
+            }
+        }
+        catch (PlayerDoesNotExistException e) {
+            handleOutOfSyncWithServer(e);
+        }
     }
 
     @Override
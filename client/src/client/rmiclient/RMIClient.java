@@ -2,7 +2,6 @@ package client.rmiclient;
 
 import client.ClientController;
 import gamecontroller.exceptions.*;
-import model.Game;
 import model.card.leader.LeaderCard;
 import model.player.FamilyMemberColor;
 import model.player.PersonalBonusTile;
@@ -11,7 +10,13 @@ import model.resource.RequiredResourceSet;
 import network.ClientToServerInterface;
 import network.RMIServerInterface;
 import network.ServerToClientInterface;
+import network.codec.GameEventDecoder;
+import network.sync.GameConfiguration;
+import network.sync.GameStateSynchronizer;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.rmi.NoSuchObjectException;
 import java.rmi.NotBoundException;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
@@ -24,9 +29,19 @@ import java.util.UUID;
 /**
  * This class implements the ClientToServer and ServerToClient interfaces via RMI
  */
-public class RMIClient implements ClientToServerInterface, ServerToClientInterface, Remote {
+public class RMIClient implements ClientToServerInterface, ServerToClientInterface, Remote, Closeable {
     private ClientController clientController;
 
+    /**
+     * The decoder for the game events, available once the game configuration has been received
+     */
+    private GameEventDecoder eventDecoder;
+
+    /**
+     * Applies the game state deltas, available once the game configuration has been received
+     */
+    private GameStateSynchronizer stateSynchronizer;
+
     private ClientToServerInterface connection;
 
     public RMIClient(String serverHostname, int serverPort, ClientController clientController) throws RemoteException {
@@ -119,6 +134,21 @@ public class RMIClient implements ClientToServerInterface, ServerToClientInterfa
         connection.decideExcommunication(beExcommunicated);
     }
 
+    @Override
+    public void requestResync() throws RemoteException, ActionNotAllowedException {
+        connection.requestResync();
+    }
+
+    /**
+     * Stops receiving the calls from the server, which will find the client unreachable
+     *
+     * @throws NoSuchObjectException if the client has already been closed
+     */
+    @Override
+    public void close() throws NoSuchObjectException {
+        UnicastRemoteObject.unexportObject(this, true);
+    }
+
     /* ----------------------------------------------------------
      * SERVER TO CLIENT INTERFACE
      * ---------------------------------------------------------- */
@@ -153,62 +183,68 @@ public class RMIClient implements ClientToServerInterface, ServerToClientInterfa
     }
 
     @Override
-    public void setGameConfiguration(Game game) throws RemoteException {
-        clientController.onSetGameConfiguration(game);
-    }
-
-    @Override
-    public void onPrepareNewRound() throws RemoteException {
-        clientController.onPrepareNewRound();
-    }
-
-    @Override
-    public void onPlayerTurnStarted(String username) throws RemoteException {
-        clientController.onPlayerTurnStarted(username);
-    }
-
-    @Override
-    public void onCardsDrawn(List<UUID> territoryCards, List<UUID> characterCards, List<UUID> buildingCards, List<UUID> ventureCards) throws RemoteException {
-        clientController.onCardsDrawn(territoryCards, characterCards, buildingCards, ventureCards);
-    }
-
-    @Override
-    public void onDiceThrown(int blackDie, int whiteDie, int orangeDie) throws RemoteException {
-        clientController.onDiceThrown(blackDie, whiteDie, orangeDie);
-    }
-
-    @Override
-    public void onPlayerSpendsServants(String username, int servants) throws RemoteException {
-        clientController.onPlayerSpendsServants(username, servants);
-    }
+    public void setGameConfiguration(byte[] configuration) throws RemoteException {
+        GameConfiguration gameConfiguration;
+        try {
+            gameConfiguration = GameConfiguration.deserialize(configuration);
+        }
+        catch (IOException e) {
+            clientController.handleOutOfSyncWithServer(e);
+            return;
+        }
 
-    @Override
-    public void onPlayerOccupiesActionSpace(String username, UUID actionSpaceId, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> councilPrivileges) throws RemoteException {
-        clientController.onPlayerOccupiesActionSpace(username, actionSpaceId, familyMemberColor, councilPrivileges);
+        // The configuration is sent again after a resync, it replaces the whole game
+        eventDecoder = new GameEventDecoder(gameConfiguration.getIds());
+        stateSynchronizer = new GameStateSynchronizer(gameConfiguration, this::requestResyncInBackground);
+        clientController.onSetGameConfiguration(gameConfiguration.getGameController());
     }
 
     @Override
-    public void onPlayerOccupiesFloor(String username, UUID floorId, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> chosenPrivileges, RequiredResourceSet paymentForCard) throws RemoteException {
-        clientController.onPlayerOccupiesFloor(username, floorId, familyMemberColor, chosenPrivileges, paymentForCard);
-    }
+    public void onGameEvent(byte[] event) throws RemoteException {
+        if (eventDecoder == null) {
+            clientController.handleOutOfSyncWithServer(new IllegalStateException("Game event received before the game configuration"));
+            return;
+        }
 
-    @Override
-    public void onPlayerTakesDevelopmentCard(String username, UUID cardId, List<ObtainableResourceSet> councilPrivileges) throws RemoteException {
-        clientController.onPlayerTakesDevelopmentCard(username, cardId, councilPrivileges);
+        try {
+            eventDecoder.decode(event, clientController);
+        }
+        catch (IOException e) {
+            clientController.handleOutOfSyncWithServer(e);
+        }
     }
 
     @Override
-    public void onStartVaticanReport() throws RemoteException {
-        clientController.onStartVaticanReport();
-    }
+    public void onGameStateDelta(byte[] delta) throws RemoteException {
+        if (stateSynchronizer == null) {
+            clientController.handleOutOfSyncWithServer(new IllegalStateException("Game state received before the game configuration"));
+            return;
+        }
 
-    @Override
-    public void onPlayerDecidesExcommunication(String username, Boolean beExcommunicated) throws RemoteException {
-        clientController.onPlayerDecidesExcommunication(username, beExcommunicated);
+        try {
+            stateSynchronizer.onDelta(delta);
+        }
+        catch (IOException e) {
+            clientController.handleOutOfSyncWithServer(e);
+        }
     }
 
-    @Override
-    public void onGameEnd() throws RemoteException {
-        clientController.onGameEnd();
+    /**
+     * Asks the server for the game configuration again without blocking the caller,
+     * since the response is delivered like any other call of the server
+     */
+    @SuppressWarnings("squid:S1166") // Silence "Log or rethrow this exception", the exceptions are handled by the controller
+    private void requestResyncInBackground() {
+        new Thread(() -> {
+            try {
+                requestResync();
+            }
+            catch (RemoteException e) {
+                clientController.handleNetworkFailure(e);
+            }
+            catch (ActionNotAllowedException e) {
+                clientController.handleOutOfSyncWithServer(e);
+            }
+        }).start();
     }
 }
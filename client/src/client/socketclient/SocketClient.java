@@ -0,0 +1,412 @@
+package client.socketclient;
+
+import client.ClientController;
+import gamecontroller.exceptions.*;
+import model.card.leader.LeaderCard;
+import model.player.FamilyMemberColor;
+import model.player.PersonalBonusTile;
+import model.resource.ObtainableResourceSet;
+import model.resource.RequiredResourceSet;
+import network.ClientToServerInterface;
+import network.ServerToClientInterface;
+import network.codec.GameEventDecoder;
+import network.sync.GameConfiguration;
+import network.sync.GameStateSynchronizer;
+import network.socket.EncodedMessage;
+import network.socket.SocketFrames;
+import network.socket.SocketRequest;
+import network.socket.SocketResponse;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * This class implements the ClientToServer and ServerToClient interfaces via sockets.
+ * <p>
+ * Requests block until the server sends back the outcome, exactly like RMI calls.
+ * Calls from the server are read by a dedicated thread and handed to a single thread executor,
+ * so that they are processed in order and can make requests to the server without deadlocking the reader.
+ */
+public class SocketClient implements ClientToServerInterface, ServerToClientInterface, Closeable {
+    private static final Logger LOGGER = Logger.getLogger("SocketClient");
+
+    private ClientController clientController;
+
+    /**
+     * The decoder for the game events, available once the game configuration has been received
+     */
+    private GameEventDecoder eventDecoder;
+
+    /**
+     * Applies the game state deltas, available once the game configuration has been received
+     */
+    private GameStateSynchronizer stateSynchronizer;
+
+    private final Socket socket;
+
+    private final DataInputStream in;
+
+    private final OutputStream out;
+
+    private final AtomicInteger nextRequestId = new AtomicInteger(SocketRequest.NO_RESPONSE + 1);
+
+    /**
+     * Requests waiting for a response, by id
+     */
+    private final Map<Integer, CompletableFuture<SocketResponse>> pendingRequests = new ConcurrentHashMap<>();
+
+    /**
+     * The thread executing the calls received from the server
+     */
+    private final ExecutorService eventDispatcher = Executors.newSingleThreadExecutor();
+
+    /**
+     * True once the connection has been closed on purpose
+     */
+    private volatile boolean closed = false;
+
+    public SocketClient(String serverHostname, int serverPort, ClientController clientController) throws RemoteException {
+        this.clientController = clientController;
+
+        try {
+            socket = new Socket(serverHostname, serverPort);
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new BufferedOutputStream(socket.getOutputStream());
+        }
+        catch (IOException e) {
+            throw new RemoteException("Can't connect to the server", e);
+        }
+
+        Thread reader = new Thread(this::readLoop, "SocketClientReader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Reads the frames sent by the server until the connection is closed
+     */
+    private void readLoop() {
+        try {
+            while (!socket.isClosed()) {
+                Object message = SocketFrames.read(in);
+                if (message instanceof SocketResponse) {
+                    SocketResponse response = (SocketResponse) message;
+                    CompletableFuture<SocketResponse> request = pendingRequests.remove(response.getRequestId());
+                    if (request != null) request.complete(response);
+                }
+                else if (message instanceof EncodedMessage) {
+                    EncodedMessage encodedMessage = (EncodedMessage) message;
+                    eventDispatcher.execute(() -> dispatch(encodedMessage));
+                }
+                else if (message instanceof SocketRequest) {
+                    SocketRequest request = (SocketRequest) message;
+                    eventDispatcher.execute(() -> dispatch(request));
+                }
+            }
+        }
+        catch (IOException e) {
+            pendingRequests.values().forEach(request -> request.completeExceptionally(e));
+            pendingRequests.clear();
+            if (!closed) eventDispatcher.execute(() -> clientController.handleNetworkFailure(e));
+        }
+        catch (RejectedExecutionException e) {
+            // The client has been closed while the frame was being read
+        }
+    }
+
+    /**
+     * Closes the connection and stops the threads of the client.
+     * The calls from the server already received are still executed.
+     *
+     * @throws IOException if the socket can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        socket.close();
+        eventDispatcher.shutdown();
+    }
+
+    /**
+     * Sends a request to the server and waits for its outcome
+     *
+     * @param allowedException the exception the method is allowed to throw
+     * @param method           the name of the ClientToServerInterface method
+     * @param arguments        the arguments
+     * @param <E>              the type of the exception the method is allowed to throw
+     * @throws E              if the server refused the request
+     * @throws RemoteException if there has been a network error
+     */
+    private <E extends Exception> void call(Class<E> allowedException, String method, Object... arguments) throws E, RemoteException {
+        int id = nextRequestId.getAndIncrement();
+        CompletableFuture<SocketResponse> request = new CompletableFuture<>();
+        pendingRequests.put(id, request);
+
+        SocketResponse response;
+        try {
+            synchronized (out) {
+                SocketFrames.write(out, new SocketRequest(id, method, arguments));
+            }
+            response = request.get();
+        }
+        catch (IOException e) {
+            pendingRequests.remove(id);
+            throw new RemoteException("Can't send the request", e);
+        }
+        catch (ExecutionException e) {
+            throw new RemoteException("Connection lost", e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrupted while waiting for the server", e);
+        }
+
+        Exception exception = response.getException();
+        if (exception == null) return;
+        if (allowedException.isInstance(exception)) throw allowedException.cast(exception);
+        if (exception instanceof RemoteException) throw (RemoteException) exception;
+        throw new RemoteException("The server failed to execute " + method, exception);
+    }
+
+    /**
+     * Executes a call received from the server
+     *
+     * @param request the request
+     */
+    private void dispatch(SocketRequest request) {
+        try {
+            switch (request.getMethod()) {
+                case "pingClient":
+                    pingClient();
+                    break;
+                case "abortGame":
+                    abortGame(request.getArgument(0));
+                    break;
+                case "askToChoosePersonalBonusTile":
+                    askToChoosePersonalBonusTile(request.getArgument(0));
+                    break;
+                case "askToChooseLeaderCard":
+                    askToChooseLeaderCard(request.getArgument(0));
+                    break;
+                case "askWhichImmediateResourcesToTake":
+                    askWhichImmediateResourcesToTake(request.getArgument(0));
+                    break;
+                case "showWaitingMessage":
+                    showWaitingMessage(request.getArgument(0));
+                    break;
+                case "setGameConfiguration":
+                    setGameConfiguration(request.getArgument(0));
+                    break;
+                default:
+                    LOGGER.warning("Received an unknown call from the server: " + request.getMethod());
+            }
+        }
+        catch (RemoteException e) {
+            clientController.handleNetworkFailure(e);
+        }
+    }
+
+    /**
+     * Executes an encoded message received from the server
+     *
+     * @param message the message
+     */
+    private void dispatch(EncodedMessage message) {
+        try {
+            if (message.getType() == EncodedMessage.Type.GAME_EVENT) {
+                onGameEvent(message.getData());
+            }
+            else {
+                onGameStateDelta(message.getData());
+            }
+        }
+        catch (RemoteException e) {
+            clientController.handleNetworkFailure(e);
+        }
+    }
+
+    /* ----------------------------------------------------------
+     * CLIENT TO SERVER INTERFACE
+     * ---------------------------------------------------------- */
+    @Override
+    public void loginPlayer(String name) throws LoginException, RemoteException {
+        call(LoginException.class, "loginPlayer", name);
+    }
+
+    @Override
+    public void joinFirstAvailableGame() throws NoAvailableGamesException, RemoteException {
+        call(NoAvailableGamesException.class, "joinFirstAvailableGame");
+    }
+
+    @Override
+    public void createAndJoinGame() throws RemoteException {
+        call(RemoteException.class, "createAndJoinGame");
+    }
+
+    @Override
+    public void choosePersonalBonusTile(UUID personalBonusTileId) throws RemoteException, ActionNotAllowedException {
+        call(ActionNotAllowedException.class, "choosePersonalBonusTile", personalBonusTileId);
+    }
+
+    @Override
+    public void chooseLeaderCard(UUID leaderCardId) throws RemoteException, ActionNotAllowedException {
+        call(ActionNotAllowedException.class, "chooseLeaderCard", leaderCardId);
+    }
+
+    @Override
+    public void spendServants(int servants) throws RemoteException, ActionNotAllowedException {
+        call(ActionNotAllowedException.class, "spendServants", servants);
+    }
+
+    @Override
+    public void goToActionSpace(UUID actionSpaceId, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> chosenPrivileges) throws RemoteException, ActionNotAllowedException {
+        call(ActionNotAllowedException.class, "goToActionSpace", actionSpaceId, familyMemberColor, chosenPrivileges);
+    }
+
+    @Override
+    public void goToFloor(UUID floorId, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> councilPrivileges, RequiredResourceSet paymentForCard) throws RemoteException, ActionNotAllowedException {
+        call(ActionNotAllowedException.class, "goToFloor", floorId, familyMemberColor, councilPrivileges, paymentForCard);
+    }
+
+    @Override
+    public void takeDevelopmentCard(UUID cardId, List<ObtainableResourceSet> councilPrivileges) throws ActionNotAllowedException, RemoteException {
+        call(ActionNotAllowedException.class, "takeDevelopmentCard", cardId, councilPrivileges);
+    }
+
+    @Override
+    public void discardLeaderCard(UUID leaderCardId, ObtainableResourceSet councilPrivilege) throws RemoteException, ActionNotAllowedException {
+        call(ActionNotAllowedException.class, "discardLeaderCard", leaderCardId, councilPrivilege);
+    }
+
+    @Override
+    public void playLeaderCard(UUID leaderCardId) throws RemoteException, ActionNotAllowedException {
+        call(ActionNotAllowedException.class, "playLeaderCard", leaderCardId);
+    }
+
+    @Override
+    public void endTurn() throws ActionNotAllowedException, RemoteException {
+        call(ActionNotAllowedException.class, "endTurn");
+    }
+
+    @Override
+    public void decideExcommunication(Boolean beExcommunicated) throws RemoteException, ActionNotAllowedException {
+        call(ActionNotAllowedException.class, "decideExcommunication", beExcommunicated);
+    }
+
+    @Override
+    public void requestResync() throws RemoteException, ActionNotAllowedException {
+        call(ActionNotAllowedException.class, "requestResync");
+    }
+
+    /* ----------------------------------------------------------
+     * SERVER TO CLIENT INTERFACE
+     * ---------------------------------------------------------- */
+    @Override
+    public void pingClient() throws RemoteException {
+        LOGGER.fine("Client pinged by the server");
+    }
+
+    @Override
+    public void abortGame(String errorMessage) throws RemoteException {
+        clientController.abortGame(errorMessage);
+    }
+
+    @Override
+    public void askToChoosePersonalBonusTile(List<PersonalBonusTile> personalBonusTiles) throws RemoteException {
+        clientController.showChoosePersonalBonusTile(personalBonusTiles);
+    }
+
+    @Override
+    public void askToChooseLeaderCard(List<LeaderCard> leaderCards) throws RemoteException {
+        clientController.showChooseLeaderCard(leaderCards);
+    }
+
+    @Override
+    public void askWhichImmediateResourcesToTake(UUID cardId) throws RemoteException {
+        clientController.showChooseImmediateCouncilPrivileges(cardId);
+    }
+
+    @Override
+    public void showWaitingMessage(String message) throws RemoteException {
+        clientController.showWaitingMessage(message);
+    }
+
+    @Override
+    public void setGameConfiguration(byte[] configuration) throws RemoteException {
+        GameConfiguration gameConfiguration;
+        try {
+            gameConfiguration = GameConfiguration.deserialize(configuration);
+        }
+        catch (IOException e) {
+            clientController.handleOutOfSyncWithServer(e);
+            return;
+        }
+
+        // The configuration is sent again after a resync, it replaces the whole game
+        eventDecoder = new GameEventDecoder(gameConfiguration.getIds());
+        stateSynchronizer = new GameStateSynchronizer(gameConfiguration, this::requestResyncInBackground);
+        clientController.onSetGameConfiguration(gameConfiguration.getGameController());
+    }
+
+    @Override
+    public void onGameEvent(byte[] event) throws RemoteException {
+        if (eventDecoder == null) {
+            clientController.handleOutOfSyncWithServer(new IllegalStateException("Game event received before the game configuration"));
+            return;
+        }
+
+        try {
+            eventDecoder.decode(event, clientController);
+        }
+        catch (IOException e) {
+            clientController.handleOutOfSyncWithServer(e);
+        }
+    }
+
+    @Override
+    public void onGameStateDelta(byte[] delta) throws RemoteException {
+        if (stateSynchronizer == null) {
+            clientController.handleOutOfSyncWithServer(new IllegalStateException("Game state received before the game configuration"));
+            return;
+        }
+
+        try {
+            stateSynchronizer.onDelta(delta);
+        }
+        catch (IOException e) {
+            clientController.handleOutOfSyncWithServer(e);
+        }
+    }
+
+    /**
+     * Asks the server for the game configuration again without blocking the caller,
+     * since the response is delivered like any other call of the server
+     */
+    @SuppressWarnings("squid:S1166") // Silence "Log or rethrow this exception", the exceptions are handled by the controller
+    private void requestResyncInBackground() {
+        new Thread(() -> {
+            try {
+                requestResync();
+            }
+            catch (RemoteException e) {
+                clientController.handleNetworkFailure(e);
+            }
+            catch (ActionNotAllowedException e) {
+                clientController.handleOutOfSyncWithServer(e);
+            }
+        }).start();
+    }
+}
@@ -310,8 +310,7 @@ public class MainTurnContext extends Context {
      * Asks the player where he wants to go
      */
     private void askWhereToPlaceFamilyMember() {
-        // TODO: filter only action spaces where the player can go
-        List<ActionSpace> actionSpaces = gameController.getAllowedActionSpaces();
+        List<ActionSpace> actionSpaces = gameController.getAllowedActionSpaces(familyMemberColor);
 
         SingleChoiceContext<ActionSpace> choiceContext = new SingleChoiceContext<>(uiContextInterface,
                 actionSpaces,
@@ -6,8 +6,11 @@ import ui.cli.exceptions.InvalidCommandException;
 import java.rmi.RemoteException;
 
 public class NetworkSettingsContext extends Context {
+    private static final int DEFAULT_RMI_PORT = 1099;
+    private static final int DEFAULT_SOCKET_PORT = 8420;
+
     private String hostname = "localhost";
-    private int port = 1099;
+    private int port = DEFAULT_RMI_PORT;
     private ConnectionMethod connectionMethod = ConnectionMethod.RMI;
 
     private Callback callback;
@@ -17,7 +20,7 @@ public class NetworkSettingsContext extends Context {
         this.callback = callback;
         this.addCommand("set-hostname", this::setHostname, "<hostname>");
         this.addCommand("set-port", this::setPort, "<port>");
-        // this.addCommand("set-method", this::setMethod, "<RMI, SOCKET>");
+        this.addCommand("set-method", this::setMethod, "<RMI, SOCKET>");
         this.addCommand("show-settings", this::showSettings, "Show current settings");
         this.addCommand("connect", this::connect, "");
         this.uiContextInterface.println("Network settings");
@@ -56,9 +59,12 @@ public class NetworkSettingsContext extends Context {
         switch (params[0].toLowerCase()) {
             case "socket":
                 this.connectionMethod = ConnectionMethod.SOCKET;
+                // Switch to the default port of the new method, unless the user chose a custom one
+                if (port == DEFAULT_RMI_PORT) port = DEFAULT_SOCKET_PORT;
                 break;
             case "rmi":
                 this.connectionMethod = ConnectionMethod.RMI;
+                if (port == DEFAULT_SOCKET_PORT) port = DEFAULT_RMI_PORT;
                 break;
             default:
                 throw new InvalidCommandException("Invalid connection method");
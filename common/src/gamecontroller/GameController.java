@@ -7,6 +7,8 @@ import model.Game;
 import model.action.Action;
 import model.action.ActionType;
 import model.board.Board;
+import model.board.Occupancy;
+import model.board.Tower;
 import model.board.actionspace.*;
 import model.card.Card;
 import model.card.development.*;
@@ -21,11 +23,14 @@ import model.resource.ObtainableResource;
 import model.resource.ObtainableResourceSet;
 import model.resource.ObtainedResourceSet;
 import model.resource.RequiredResourceSet;
-import model.util.Tuple;
+import model.resource.ResourceModifiers;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -38,12 +43,17 @@ import static model.resource.ObtainableResource.*;
  * The code is shared by the client and the server so that both use the exact same logic
  * for updating the state of the game.
  */
-public class GameController {
+public class GameController implements Serializable {
     /**
      * The game being played
      */
     private Game game;
 
+    /**
+     * The index of the objects of the game, used to find the objects referenced by their id
+     */
+    private GameIndex gameIndex;
+
     /**
      * The state of the game
      */
@@ -66,6 +76,25 @@ public class GameController {
      */
     private List<Player> playersWithPendingExcommunicationDecision = new ArrayList<>();
 
+    /**
+     * The number of turns started in the current round.
+     * Each player has one turn for each of his family members,
+     * even if he decides not to place one.
+     */
+    private int turnsStartedInRound;
+
+    /**
+     * The changes made to the game since the first savepoint, null if the changes are not being recorded
+     */
+    private transient UndoLog undoLog;
+
+    /**
+     * The Zobrist hash of the game (see {@link ZobristHash}), updated by the commands of the players.
+     * The changes between the rounds don't update it: it's computed again the next time it's asked.
+     */
+    private transient long stateHash;
+    private transient boolean stateHashed;
+
     public GameController() {
         this.gameState = GameState.WAITING_FOR_PLAYERS_TO_CONNECT;
     }
@@ -95,6 +124,7 @@ public class GameController {
      * Does the preparation for starting a new round
      */
     public void prepareNewRound() {
+        stateHashed = false;
         game.nextRound();
 
         game.getPlayers().forEach(Player::resetAvailableFamilyMembers);
@@ -102,8 +132,13 @@ public class GameController {
         // Updated the turn order according to the occupations of the council palace
         updateTurnOrder();
 
+        // Free the action spaces occupied in the previous round
+        game.getFloors().forEach(ActionSpace::removeAllOccupants);
+        game.getActionSpaces().forEach(ActionSpace::removeAllOccupants);
+
         // Sets first player
         game.setCurrentPlayer(game.getPlayers().get(0));
+        turnsStartedInRound = 0;
     }
 
     /**
@@ -114,10 +149,20 @@ public class GameController {
      */
     public void startPlayerTurn(String username) throws PlayerDoesNotExistException {
         Player player = getLocalPlayer(username);
-        player.setSpentServants(0);
+        setSpentServants(player, 0);
+        if (game.getCurrentPlayer() != null) toggleStateHash(ZobristHash.currentPlayer(game.getCurrentPlayer()));
         game.setCurrentPlayer(player);
+        toggleStateHash(ZobristHash.currentPlayer(player));
         gameState = GameState.PLAYER_TURN;
         hasCurrentPlayerPlacedFamilyMember = false;
+        turnsStartedInRound++;
+    }
+
+    /**
+     * @return true if the turn being played is the last one of the round
+     */
+    public boolean isLastTurnOfRound() {
+        return turnsStartedInRound >= game.getPlayers().size() * FamilyMemberColor.values().length;
     }
 
     /**
@@ -136,14 +181,15 @@ public class GameController {
         else throw new ActionNotAllowedException("The vatican report starts only after even rounds!");
 
         gameState = GameState.VATICAN_REPORT;
+        stateHashed = false;
 
-        Excommunication excommunication = game.getBoard().getExcommunications()[currentRound/2];
+        Excommunication excommunication = getCurrentPeriodExcommunication();
 
         // Assign excommunication to players that don't have the necessary faith points
         game.getPlayers()
             .stream()
             .filter(player -> !player.getResources().hasAtLeast(faithPointsNeeded, ObtainableResource.FAITH_POINTS))
-            .forEach(player -> player.getExcommunications().add(excommunication));
+            .forEach(player -> player.addExcommunication(excommunication));
 
         playersWithPendingExcommunicationDecision = new ArrayList<>();
 
@@ -165,14 +211,30 @@ public class GameController {
         assertPlayerCanDecideHisExcommunication(player);
 
         if(beExcommunicated) {
-            player.getResources().setResourceQty(ObtainableResource.FAITH_POINTS, 0);
+            Excommunication excommunication = getCurrentPeriodExcommunication();
+            player.addExcommunication(excommunication);
+            toggleStateHash(ZobristHash.excommunication(player, excommunication));
+            if (undoLog != null) undoLog.record(() -> player.removeExcommunication(excommunication));
         }
         else {
-            int currentRound = game.getCurrentRound();
-            Excommunication excommunication = game.getBoard().getExcommunications()[currentRound/2];
-            player.getExcommunications().add(excommunication);
+            // The player supports the church and loses his faith points
+            recordResources(player);
+            long resourcesHash = hashResources(player);
+            player.getResources().setResourceQty(ObtainableResource.FAITH_POINTS, 0);
+            rehashResources(player, resourcesHash);
         }
-        playersWithPendingExcommunicationDecision.remove(player);
+
+        List<Player> pendingDecisions = playersWithPendingExcommunicationDecision;
+        int index = pendingDecisions.indexOf(player);
+        pendingDecisions.remove(index);
+        if (undoLog != null) undoLog.record(() -> pendingDecisions.add(index, player));
+    }
+
+    /**
+     * @return the excommunication of the current period (the vatican report is held at the end of each period)
+     */
+    private Excommunication getCurrentPeriodExcommunication() {
+        return game.getBoard().getExcommunications()[game.getCurrentPeriod() - 1];
     }
 
     /**
@@ -182,6 +244,7 @@ public class GameController {
      */
     public void setCurrentPlayer(String username) throws PlayerDoesNotExistException {
         game.setCurrentPlayer(getLocalPlayer(username));
+        stateHashed = false;
     }
 
     public void setDevelopmentCards(List<UUID> territoryCardsIds, List<UUID> characterCardsIds, List<UUID> buildingCardsIds, List<UUID> ventureCardsIds) throws ActionNotAllowedException {
@@ -192,10 +255,27 @@ public class GameController {
         List<BuildingCard> buildingCards = getLocalAvailableBuildingCards(buildingCardsIds);
         List<VentureCard> ventureCards = getLocalAvailableVentureCards(ventureCardsIds);
 
-        board.getTerritoryTower().setCards(territoryCards);
-        board.getCharacterTower().setCards(characterCards);
-        board.getBuildingTower().setCards(buildingCards);
-        board.getVentureTower().setCards(ventureCards);
+        placeCards(board.getTerritoryTower(), territoryCards, getGame().getAvailableTerritoryCards());
+        placeCards(board.getCharacterTower(), characterCards, getGame().getAvailableCharacterCards());
+        placeCards(board.getBuildingTower(), buildingCards, getGame().getAvailableBuildingCards());
+        placeCards(board.getVentureTower(), ventureCards, getGame().getAvailableVentureCards());
+        stateHashed = false;
+    }
+
+    /**
+     * Places the drawn cards on a tower and removes them from the deck they have been drawn from
+     *
+     * @param tower
+     * @param cards
+     * @param deck
+     * @param <T>
+     */
+    private <T extends DevelopmentCard> void placeCards(Tower<T> tower, List<T> cards, List<T> deck) {
+        tower.setCards(cards);
+        deck.removeAll(cards);
+        for (int i = 0; i < cards.size(); i++) {
+            gameIndex.onCardPlaced(tower.getFloors().get(i), cards.get(i));
+        }
     }
 
     /**
@@ -208,11 +288,10 @@ public class GameController {
     public void spendServants(String username, int servants) throws ActionNotAllowedException {
         if(servants < 0) throw new ActionNotAllowedException("Servants must be positive");
         Player player = getLocalPlayer(username);
-        player.setSpentServants(servants);
-
-        // TODO: check if the player has the servants he wants to commit.
-        // Not urgent since the number of servants will be checked
-        // when he will try to do an action
+        if (!player.getResources().hasAtLeast(servants, ObtainableResource.SERVANTS)) {
+            throw new ActionNotAllowedException("You don't have enough servants");
+        }
+        setSpentServants(player, servants);
     }
 
     /**
@@ -227,50 +306,32 @@ public class GameController {
     public void goToActionSpace(String username, UUID actionSpaceId, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> chosenPrivileges) throws ActionNotAllowedException {
         Player player = getLocalPlayer(username);
         ActionSpace actionSpace = getLocalActionSpace(actionSpaceId);
-        assertPlayerTurn(player);
-        assertGameState(GameState.PLAYER_TURN);
-        assertPlayerHasNotPlacedFamilyMember();
-        assertFamilyMemberAvailable(player, familyMemberColor);
+        assertAllowed(checkGoToActionSpace(player, actionSpace, familyMemberColor, chosenPrivileges));
 
         ObtainableResourceSet bonus = getEffectiveActionSpaceBonus(actionSpace, player);
+        recordResources(player);
+        long resourcesHash = hashResources(player);
 
-        int allowedCouncilPrivileges = bonus.getObtainedAmount(ObtainableResource.COUNCIL_PRIVILEGES);
-        assertValidCouncilPrivilegesChoice(chosenPrivileges, allowedCouncilPrivileges);
-
-        if (actionSpace instanceof MarketActionSpace) {
-            assertSmallActionSpaceOccupiableBy(actionSpace, player, familyMemberColor);
-            assertFamilyMemberValueIsAtLeast(player, familyMemberColor, 1);
-        }
-        else if (actionSpace instanceof CouncilPalace) {
-            assertBigActionSpaceOccupiableBy(actionSpace, player, familyMemberColor);
-            assertFamilyMemberValueIsAtLeast(player, familyMemberColor, 1);
-        }
-        else if (actionSpace instanceof SmallProductionArea) {
-            assertSmallActionSpaceOccupiableBy(actionSpace, player, familyMemberColor);
-            assertEffectiveActionValueIsAtLeast(player, ActionType.PRODUCTION, familyMemberColor, 1);
+        if (actionSpace instanceof SmallProductionArea || actionSpace instanceof BigProductionArea) {
             startProduction(player);
         }
-        else if (actionSpace instanceof BigProductionArea) {
-            assertBigActionSpaceOccupiableBy(actionSpace, player, familyMemberColor);
-            assertEffectiveActionValueIsAtLeast(player, ActionType.HARVEST, familyMemberColor, 1);
-            startProduction(player);
-        }
-        else if (actionSpace instanceof SmallHarvestArea) {
-            assertSmallActionSpaceOccupiableBy(actionSpace, player, familyMemberColor);
-            assertEffectiveActionValueIsAtLeast(player, ActionType.HARVEST, familyMemberColor, 1);
-            startHarvest(player);
-        }
-        else if (actionSpace instanceof BigHarvestArea) {
-            assertBigActionSpaceOccupiableBy(actionSpace, player, familyMemberColor);
-            assertEffectiveActionValueIsAtLeast(player, ActionType.HARVEST, familyMemberColor, 1);
+        else if (actionSpace instanceof SmallHarvestArea || actionSpace instanceof BigHarvestArea) {
             startHarvest(player);
         }
 
+        // Spend servants and reset spent servants count
+        player.getResources().subtractResource(ObtainableResource.SERVANTS, player.getSpentServants());
+        setSpentServants(player, 0);
+
         player.addResources(bonus);
         player.addResources(chosenPrivileges);
+        rehashResources(player, resourcesHash);
 
-        actionSpace.addOccupant(player, familyMemberColor);
+        occupy(actionSpace, player, familyMemberColor);
         hasCurrentPlayerPlacedFamilyMember = true;
+
+        // Activating the cards of a production or harvest is not supported yet, the turn goes on
+        gameState = GameState.PLAYER_TURN;
     }
 
     /**
@@ -285,16 +346,13 @@ public class GameController {
     public void goToFloor(String username, FamilyMemberColor familyMemberColor, UUID floorId, RequiredResourceSet paymentForCard, List<ObtainableResourceSet> chosenPrivileges) throws ActionNotAllowedException {
         Player player = getLocalPlayer(username);
         Floor floor = getLocalFloor(floorId);
-        assertPlayerTurn(player);
-        assertGameState(GameState.PLAYER_TURN);
-        assertPlayerHasNotPlacedFamilyMember();
-        assertFamilyMemberAvailable(player, familyMemberColor);
-        assertEffectiveActionValueIsAtLeast(player, floor.getCard().getCardTakingActionType(), familyMemberColor, floor.getRequiredFamilyMemberValue());
-        assertFloorOccupiableBy(floor, player, familyMemberColor, paymentForCard, chosenPrivileges);
+        assertAllowed(checkGoToFloor(player, familyMemberColor, floor, paymentForCard, chosenPrivileges));
+        recordResources(player);
+        long resourcesHash = hashResources(player);
 
         // Spend servants and reset spent servants count
         player.getResources().subtractResource(ObtainableResource.SERVANTS, player.getSpentServants());
-        player.setSpentServants(0);
+        setSpentServants(player, 0);
 
         // Pay resources needed to occupy the floor
         if (player.getEffectsImplementing(DoubleOccupationCostIgnoreEffect.class).isEmpty()) {
@@ -302,38 +360,19 @@ public class GameController {
             player.getResources().subtractResources(cost);
         }
 
-        // Add bonus resources to the player
-        ObtainableResourceSet actionSpaceBonus = floor.getBonus();
-        for (ObtainableResourceSet privilege : chosenPrivileges) {
-            actionSpaceBonus.addResources(privilege);
-        }
+        // Add bonus resources to the player, modified by his effects (such as the Preacher)
+        ResourceModifiers resourceModifiers = player.getResourceModifiers();
+        resourceModifiers.addEffectiveBonus(player.getResources(), getFloorBonus(floor, chosenPrivileges));
 
-        // Apply action space bonus setter effect (Preacher)
-        for (FloorBonusResourcesSetterEffect e : player.getEffectsImplementing(FloorBonusResourcesSetterEffect.class)) {
-            actionSpaceBonus = e.setObtainedResourceSet();
-        }
-
-        // Apply obtained resource set modifier effects
-        for (ObtainableResourceSetModifierEffect e : player.getEffectsImplementing(ObtainableResourceSetModifierEffect.class)) {
-            actionSpaceBonus = e.modifyResources(actionSpaceBonus);
-        }
-
-        player.addResources(actionSpaceBonus);
-
-        // Pay the card
-        // Apply effects that modify the cost of the card
-        for (DevelopmentCardRequiredResourceSetModifierEffect e : player.getEffectsImplementing(DevelopmentCardRequiredResourceSetModifierEffect.class)) {
-            paymentForCard = e.modifyResources(paymentForCard, floor.getCard());
-        }
-        player.getResources().subtractResources(paymentForCard);
+        // Pay the card, applying the effects that modify its cost
+        resourceModifiers.pay(player.getResources(), paymentForCard, floor.getCard());
+        rehashResources(player, resourcesHash);
 
         // Set the floor as occupied
-        floor.addOccupant(player, familyMemberColor);
+        occupy(floor, player, familyMemberColor);
 
         hasCurrentPlayerPlacedFamilyMember = true;
 
-        player.getAvailableFamilyMembers().remove(familyMemberColor);
-
         developmentCardBeingTaken = floor.getCard();
 
         gameState = GameState.TAKING_CARD;
@@ -356,6 +395,8 @@ public class GameController {
         assertPlayerTurn(player);
         assertGameState(GameState.TAKING_CARD);
         assertValidCouncilPrivilegesChoiceForCard(card, councilPrivileges);
+        recordResources(player);
+        long resourcesHash = hashResources(player);
 
         // Add immediate resources
         for (ImmediateResourcesEffect e : card.getEffectsContainer().getEffectsImplementing(ImmediateResourcesEffect.class)) {
@@ -366,10 +407,19 @@ public class GameController {
         for (ObtainableResourceSet councilPrivilege : councilPrivileges) {
             player.addResources(councilPrivilege);
         }
+        rehashResources(player, resourcesHash);
 
         player.addDevelopmentCard(card);
+        toggleStateHash(ZobristHash.playerCard(player, card));
 
-        game.getBoard().removeDevelopmentCardFromFloor(card);
+        Floor floor = game.getBoard().removeDevelopmentCardFromFloor(card);
+        if (floor != null) toggleStateHash(ZobristHash.floorCard(floor, card));
+        if (undoLog != null) {
+            undoLog.record(() -> {
+                player.removeDevelopmentCard(card);
+                if (floor != null) floor.setCard(card);
+            });
+        }
 
         gameState = GameState.PLAYER_TURN;
     }
@@ -384,18 +434,31 @@ public class GameController {
     }
 
     public void endGame() {
+        stateHashed = false;
         for (Player player : game.getPlayers()) {
-            int victoryPoints = 0;
+            player.getResources().addResource(ObtainableResource.VICTORY_POINTS, getEndOfGameVictoryPoints(player));
+        }
 
-            victoryPoints += computeVictoryPointsFromConqueredTerritories(player);
-            victoryPoints += computeVictoryPointsFromInfluencedCharacters(player);
-            victoryPoints += computeVictoryPointsFromEncouragedVentures(player);
-            victoryPoints += computeVictoryPointsFromCollectedResources(player);
+        computeVictoryPointsFromMilitaryStrength();
+    }
 
-            player.getResources().addResource(ObtainableResource.VICTORY_POINTS, victoryPoints);
+    /**
+     * Returns the victory points the player would get from his cards and his resources if the game ended now,
+     * without modifying the game. The victory points for the military strength are not included,
+     * as they depend on the other players.
+     *
+     * @param player
+     * @return the victory points
+     */
+    public int getEndOfGameVictoryPoints(Player player) {
+        int victoryPoints = 0;
 
-            computeVictoryPointsFromMilitaryStrength();
-        }
+        victoryPoints += computeVictoryPointsFromConqueredTerritories(player);
+        victoryPoints += computeVictoryPointsFromInfluencedCharacters(player);
+        victoryPoints += computeVictoryPointsFromEncouragedVentures(player);
+        victoryPoints += computeVictoryPointsFromCollectedResources(player);
+
+        return victoryPoints;
     }
 
     /**
@@ -430,12 +493,168 @@ public class GameController {
 
     private void startProduction(Player player) {
         setGameState(GameState.PRODUCTION);
-        player.getBuildings().forEach(buildingCard -> buildingCard.setActivated(false));
+        for (BuildingCard buildingCard : player.getBuildings()) {
+            boolean hasBeenActivated = player.hasActivated(buildingCard);
+            if (undoLog != null) undoLog.record(() -> player.setActivated(buildingCard, hasBeenActivated));
+            player.setActivated(buildingCard, false);
+        }
     }
 
     private void startHarvest(Player player) {
         setGameState(GameState.HARVEST);
-        player.getTerritories().forEach(territoryCard -> territoryCard.setActivated(false));
+        for (TerritoryCard territoryCard : player.getTerritories()) {
+            boolean hasBeenActivated = player.hasActivated(territoryCard);
+            if (undoLog != null) undoLog.record(() -> player.setActivated(territoryCard, hasBeenActivated));
+            player.setActivated(territoryCard, false);
+        }
+    }
+
+    /* --------------------------------------------------------------------------------------
+     * Savepoints
+     * The commands of a player (starting his turn, spending servants, going to an action space or
+     * to a floor, taking a card, deciding his excommunication) record how to undo their changes
+     * after a savepoint, so that a move can be applied, inspected and rolled back without copying the game.
+     * The changes between rounds (new round, vatican report, cards placed on the towers, end of the game)
+     * are not recorded.
+     * -------------------------------------------------------------------------------------- */
+
+    /**
+     * Starts recording the changes made to the game, so that they can be rolled back.
+     * Savepoints can be nested: rolling back to a savepoint undoes the changes made after it.
+     *
+     * @return the savepoint, to be passed to rollbackTo()
+     */
+    public int savepoint() {
+        if (undoLog == null) {
+            undoLog = new UndoLog();
+        }
+        int savepoint = undoLog.size();
+
+        GameState savedGameState = gameState;
+        boolean savedHasCurrentPlayerPlacedFamilyMember = hasCurrentPlayerPlacedFamilyMember;
+        DevelopmentCard savedDevelopmentCardBeingTaken = developmentCardBeingTaken;
+        List<Player> savedPlayersWithPendingExcommunicationDecision = playersWithPendingExcommunicationDecision;
+        int savedTurnsStartedInRound = turnsStartedInRound;
+        Player savedCurrentPlayer = game.getCurrentPlayer();
+        long savedStateHash = stateHash;
+        boolean savedStateHashed = stateHashed;
+        undoLog.record(() -> {
+            gameState = savedGameState;
+            hasCurrentPlayerPlacedFamilyMember = savedHasCurrentPlayerPlacedFamilyMember;
+            developmentCardBeingTaken = savedDevelopmentCardBeingTaken;
+            playersWithPendingExcommunicationDecision = savedPlayersWithPendingExcommunicationDecision;
+            turnsStartedInRound = savedTurnsStartedInRound;
+            game.setCurrentPlayer(savedCurrentPlayer);
+            stateHash = savedStateHash;
+            stateHashed = savedStateHashed;
+        });
+        return savepoint;
+    }
+
+    /**
+     * Undoes the changes made to the game after the savepoint.
+     * Rolling back to the first savepoint also stops recording the changes.
+     *
+     * @param savepoint a savepoint returned by savepoint()
+     */
+    public void rollbackTo(int savepoint) {
+        if (undoLog == null || savepoint > undoLog.size()) {
+            throw new IllegalStateException("The savepoint has already been rolled back or committed");
+        }
+        undoLog.rollbackTo(savepoint);
+        if (savepoint == 0) {
+            undoLog = null;
+        }
+    }
+
+    /**
+     * Keeps all the changes made to the game and stops recording them
+     */
+    public void commit() {
+        undoLog = null;
+    }
+
+    /**
+     * Records the resources of the player before a command changes them
+     *
+     * @param player
+     */
+    private void recordResources(Player player) {
+        if (undoLog == null) return;
+
+        ObtainedResourceSet savedResources = new ObtainedResourceSet(player.getResources());
+        undoLog.record(() -> player.getResources().setResources(savedResources));
+    }
+
+    private void setSpentServants(Player player, int spentServants) {
+        if (undoLog != null) {
+            int savedSpentServants = player.getSpentServants();
+            undoLog.record(() -> player.setSpentServants(savedSpentServants));
+        }
+        player.setSpentServants(spentServants);
+    }
+
+    /**
+     * Places the family member of the player in the action space
+     *
+     * @param actionSpace
+     * @param player
+     * @param familyMemberColor
+     */
+    private void occupy(ActionSpace actionSpace, Player player, FamilyMemberColor familyMemberColor) {
+        Set<FamilyMemberColor> availableFamilyMembers = player.getAvailableFamilyMembers();
+        // The members are put back in the same order: the order of a hash set also depends on the insertions,
+        // when two members fall in the same bucket
+        List<FamilyMemberColor> savedAvailableFamilyMembers = undoLog != null ? new ArrayList<>(availableFamilyMembers) : null;
+
+        actionSpace.addOccupant(player, familyMemberColor);
+        boolean wasAvailable = availableFamilyMembers.remove(familyMemberColor);
+
+        toggleStateHash(ZobristHash.occupant(actionSpace, player, familyMemberColor));
+        if (wasAvailable) toggleStateHash(ZobristHash.availableFamilyMember(player, familyMemberColor));
+
+        if (undoLog != null) {
+            undoLog.record(() -> {
+                actionSpace.removeLastOccupant();
+                if (wasAvailable) {
+                    availableFamilyMembers.clear();
+                    availableFamilyMembers.addAll(savedAvailableFamilyMembers);
+                }
+            });
+        }
+    }
+
+    /* --------------------------------------------------------------------------------------
+     * State hash
+     * -------------------------------------------------------------------------------------- */
+
+    /**
+     * Returns the Zobrist hash of the game (see {@link ZobristHash}).
+     * Two games in the same state have the same hash, on the client and on the server.
+     *
+     * @return the hash
+     */
+    public long getStateHash() {
+        if (!stateHashed) {
+            stateHash = ZobristHash.of(game);
+            stateHashed = true;
+        }
+        return stateHash;
+    }
+
+    private void toggleStateHash(long key) {
+        if (stateHashed) stateHash ^= key;
+    }
+
+    /**
+     * @return the hash of the resources of the player before a command changes them, to be passed to rehashResources()
+     */
+    private long hashResources(Player player) {
+        return stateHashed ? ZobristHash.resources(player) : 0;
+    }
+
+    private void rehashResources(Player player, long resourcesHash) {
+        if (stateHashed) stateHash ^= resourcesHash ^ ZobristHash.resources(player);
     }
 
     /* --------------------------------------------------------------------------------------
@@ -472,7 +691,7 @@ public class GameController {
         if (ignore) return 0;
 
         int victoryPoints = 0;
-        int influencedCharacters = player.getTerritories().size();
+        int influencedCharacters = player.getCharacters().size();
         if (influencedCharacters == 1) {
             victoryPoints = 1;
         }
@@ -503,12 +722,22 @@ public class GameController {
         int victoryPoints = 0;
 
         for (EndOfGameResourcesEffect e : player.getEffectsImplementing(EndOfGameResourcesEffect.class)) {
-            victoryPoints += e.getResourceSet().getObtainedAmount(VICTORY_POINTS);
+            victoryPoints += computeObtainedVictoryPoints(player, e.getResourceSet());
         }
 
         return victoryPoints;
     }
 
+    /**
+     * Returns the victory points a player gets from a resource set,
+     * accounting for its multipliers (e.g. one victory point less for each military point)
+     */
+    private int computeObtainedVictoryPoints(Player player, ObtainableResourceSet resourceSet) {
+        ObtainedResourceSet resources = new ObtainedResourceSet(player.getResources());
+        resources.addResources(resourceSet);
+        return resources.getAmount(VICTORY_POINTS) - player.getResources().getAmount(VICTORY_POINTS);
+    }
+
     private void computeVictoryPointsFromMilitaryStrength() {
         List<Player> sortedPlayers = new ArrayList<>();
         sortedPlayers.addAll(game.getPlayers());
@@ -521,7 +750,7 @@ public class GameController {
             sortedPlayers.get(i).getResources().addResource(VICTORY_POINTS, 5);
             i--;
         }
-        while (sortedPlayers.get(i).getResources().getAmount(MILITARY_POINTS) == currentMilitaryPoints && i >= 0);
+        while (i >= 0 && sortedPlayers.get(i).getResources().getAmount(MILITARY_POINTS) == currentMilitaryPoints);
 
         if (i < 0) return;
 
@@ -530,7 +759,7 @@ public class GameController {
             sortedPlayers.get(i).getResources().addResource(VICTORY_POINTS, 2);
             i--;
         }
-        while (sortedPlayers.get(i).getResources().getAmount(MILITARY_POINTS) == currentMilitaryPoints && i >= 0);
+        while (i >= 0 && sortedPlayers.get(i).getResources().getAmount(MILITARY_POINTS) == currentMilitaryPoints);
     }
 
     private int computeVictoryPointsFromCollectedResources(Player player) {
@@ -547,66 +776,142 @@ public class GameController {
 
     /* --------------------------------------------------------------------------------------
      * Validations and assertions
-     * These methods are used to verify preconditions when players want to do something
+     * These methods are used to verify preconditions when players want to do something.
+     * The check methods return the reason why an action is not allowed, the assert methods
+     * wrap them for the actions and throw an ActionNotAllowedException
      * -------------------------------------------------------------------------------------- */
 
     /**
-     * Asserts that the game is in a given state or throw an ActionNotAllowedException
+     * Validates the placement of a family member on a floor, without performing it
      *
-     * @param gameState
-     * @throws ActionNotAllowedException
+     * @param username the username of the player
+     * @param familyMemberColor the family member the player wants to use
+     * @param floorId the floor the player wants to occupy
+     * @param paymentForCard the resources chosen to pay for the card
+     * @param chosenPrivileges the council privileges chosen as bonus of the floor
+     * @return ALLOWED, or the reason why the player can't go to the floor
      */
-    public void assertGameState(GameState gameState) throws ActionNotAllowedException {
-        if (this.gameState != gameState) {
-            throw new ActionNotAllowedException();
-        }
+    public ValidationResult validateGoToFloor(String username, FamilyMemberColor familyMemberColor, UUID floorId, RequiredResourceSet paymentForCard, List<ObtainableResourceSet> chosenPrivileges) {
+        Player player = gameIndex.getPlayer(username);
+        if (player == null) return ValidationResult.UNKNOWN_PLAYER;
+        Floor floor = gameIndex.getFloor(floorId);
+        if (floor == null) return ValidationResult.UNKNOWN_FLOOR;
+        return checkGoToFloor(player, familyMemberColor, floor, paymentForCard, chosenPrivileges);
     }
 
     /**
-     * Asserts that the current player is the provided one or throws an ActionNotAllowedException
+     * Validates the placement of a family member on an action space, without performing it
      *
-     * @param player
-     * @throws ActionNotAllowedException
+     * @param username the username of the player
+     * @param actionSpaceId the action space the player wants to occupy
+     * @param familyMemberColor the family member the player wants to use
+     * @param chosenPrivileges the council privileges chosen as bonus of the action space
+     * @return ALLOWED, or the reason why the player can't go to the action space
      */
-    public void assertPlayerTurn(Player player) throws ActionNotAllowedException {
-        if (!game.getCurrentPlayer().equals(player)) throw new ActionNotAllowedException("It's not your turn!");
+    public ValidationResult validateGoToActionSpace(String username, UUID actionSpaceId, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> chosenPrivileges) {
+        Player player = gameIndex.getPlayer(username);
+        if (player == null) return ValidationResult.UNKNOWN_PLAYER;
+        ActionSpace actionSpace = gameIndex.getActionSpace(actionSpaceId);
+        if (actionSpace == null) return ValidationResult.UNKNOWN_ACTION_SPACE;
+        return checkGoToActionSpace(player, actionSpace, familyMemberColor, chosenPrivileges);
+    }
+
+    private ValidationResult checkGoToFloor(Player player, FamilyMemberColor familyMemberColor, Floor floor, RequiredResourceSet paymentForCard, List<ObtainableResourceSet> chosenPrivileges) {
+        ValidationResult result = checkPlacement(player, familyMemberColor);
+        if (!result.isAllowed()) return result;
+
+        result = checkFloorHasCard(floor);
+        if (!result.isAllowed()) return result;
+
+        result = checkEffectiveActionValueIsAtLeast(player, floor.getCard().getCardTakingActionType(), familyMemberColor, floor.getRequiredFamilyMemberValue());
+        if (!result.isAllowed()) return result;
+
+        return checkFloorOccupiableBy(floor, player, familyMemberColor, paymentForCard, chosenPrivileges);
+    }
+
+    private ValidationResult checkGoToActionSpace(Player player, ActionSpace actionSpace, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> chosenPrivileges) {
+        ValidationResult result = checkPlacement(player, familyMemberColor);
+        if (!result.isAllowed()) return result;
+
+        int allowedCouncilPrivileges = countCouncilPrivileges(getEffectiveActionSpaceBonus(actionSpace, player));
+        result = checkValidCouncilPrivilegesChoice(chosenPrivileges, allowedCouncilPrivileges);
+        if (!result.isAllowed()) return result;
+
+        if (isSmallActionSpace(actionSpace)) {
+            result = checkSmallActionSpaceOccupiableBy(actionSpace, player, familyMemberColor);
+        }
+        else if (isBigActionSpace(actionSpace)) {
+            result = checkBigActionSpaceOccupiableBy(actionSpace, player, familyMemberColor);
+        }
+        else {
+            return ValidationResult.ALLOWED;
+        }
+        if (!result.isAllowed()) return result;
+
+        ActionType actionType = getActionType(actionSpace);
+        if (actionType == null) return checkFamilyMemberValueIsAtLeast(player, familyMemberColor, 1);
+        return checkEffectiveActionValueIsAtLeast(player, actionType, familyMemberColor, 1);
     }
 
     /**
-     * Asserts that the player can use the provided family member
+     * Checks the preconditions shared by all the placements of a family member
      *
      * @param player
      * @param familyMemberColor
+     * @return
+     */
+    private ValidationResult checkPlacement(Player player, FamilyMemberColor familyMemberColor) {
+        if (!game.getCurrentPlayer().equals(player)) return ValidationResult.NOT_PLAYER_TURN;
+        if (gameState != GameState.PLAYER_TURN) return ValidationResult.WRONG_GAME_STATE;
+        if (hasCurrentPlayerPlacedFamilyMember) return ValidationResult.FAMILY_MEMBER_ALREADY_PLACED;
+        if (!player.getAvailableFamilyMembers().contains(familyMemberColor)) return ValidationResult.FAMILY_MEMBER_NOT_AVAILABLE;
+        return ValidationResult.ALLOWED;
+    }
+
+    /**
+     * Throws an ActionNotAllowedException with the message of the result if the action is not allowed
+     *
+     * @param result
      * @throws ActionNotAllowedException
      */
-    private void assertFamilyMemberAvailable(Player player, FamilyMemberColor familyMemberColor) throws ActionNotAllowedException {
-        if (!player.getAvailableFamilyMembers().contains(familyMemberColor)) {
-            throw new ActionNotAllowedException("You have already used that family member");
+    private static void assertAllowed(ValidationResult result) throws ActionNotAllowedException {
+        if (!result.isAllowed()) {
+            throw new ActionNotAllowedException(result.getMessage());
         }
     }
 
     /**
-     * Asserts that the player has not yet placed his family member in his turn
+     * Asserts that the game is in a given state or throw an ActionNotAllowedException
      *
+     * @param gameState
      * @throws ActionNotAllowedException
      */
-    private void assertPlayerHasNotPlacedFamilyMember() throws ActionNotAllowedException {
-        if (hasCurrentPlayerPlacedFamilyMember) {
-            throw new ActionNotAllowedException("You have already placed a family member");
+    public void assertGameState(GameState gameState) throws ActionNotAllowedException {
+        if (this.gameState != gameState) {
+            throw new ActionNotAllowedException();
         }
     }
 
-    private void assertActionSpaceIsEnabled(ActionSpace actionSpace) throws ActionNotAllowedException {
-        if (!actionSpace.isEnabled()) {
-            throw new ActionNotAllowedException("That action space is disabled in this game");
-        }
+    /**
+     * Asserts that the current player is the provided one or throws an ActionNotAllowedException
+     *
+     * @param player
+     * @throws ActionNotAllowedException
+     */
+    public void assertPlayerTurn(Player player) throws ActionNotAllowedException {
+        if (!game.getCurrentPlayer().equals(player)) throw new ActionNotAllowedException(ValidationResult.NOT_PLAYER_TURN.getMessage());
     }
 
-    private void assertPlayerIsNotInhibitedFromGoingTo(Player player, ActionSpace actionSpace) throws ActionNotAllowedException {
-        if (player.getEffectsImplementing(InhibitActionSpaceEffect.class).stream()
-                  .anyMatch(e -> e.isInhibited(actionSpace))) {
-            throw new ActionNotAllowedException("You are prohibited from going to that action space");
+    private ValidationResult checkActionSpaceIsEnabled(ActionSpace actionSpace) {
+        if (!actionSpace.isEnabled()) return ValidationResult.ACTION_SPACE_DISABLED;
+        return ValidationResult.ALLOWED;
+    }
+
+    private ValidationResult checkPlayerIsNotInhibitedFromGoingTo(Player player, ActionSpace actionSpace) {
+        if (isInhibited(player.getEffectsImplementing(InhibitActionSpaceEffect.class), actionSpace)) {
+            return ValidationResult.ACTION_SPACE_INHIBITED;
         }
+        return ValidationResult.ALLOWED;
     }
 
     private void assertValidCouncilPrivilegesChoiceForCard(Card card, List<ObtainableResourceSet> councilPrivileges) throws ActionNotAllowedException {
@@ -616,86 +921,78 @@ public class GameController {
         for (ImmediateResourcesEffect e : effects) {
             allowedCouncilPrivileges += e.getObtainableResourceSet().getObtainedAmount(ObtainableResource.COUNCIL_PRIVILEGES);
         }
-        assertValidCouncilPrivilegesChoice(councilPrivileges, allowedCouncilPrivileges);
+        assertAllowed(checkValidCouncilPrivilegesChoice(councilPrivileges, allowedCouncilPrivileges));
     }
 
     /**
-     * Asserts that a small action space is occupiable by a given player with a given family member
+     * Checks that a small action space is occupiable by a given player with a given family member
      *
      * @param actionSpace
      * @param player
      * @param familyMemberColor
      */
-    private void assertSmallActionSpaceOccupiableBy(ActionSpace actionSpace, Player player, FamilyMemberColor familyMemberColor) throws ActionNotAllowedException {
+    private ValidationResult checkSmallActionSpaceOccupiableBy(ActionSpace actionSpace, Player player, FamilyMemberColor familyMemberColor) {
         // Check if action space is enabled in current game
-        assertActionSpaceIsEnabled(actionSpace);
+        ValidationResult result = checkActionSpaceIsEnabled(actionSpace);
+        if (!result.isAllowed()) return result;
 
         // Check if player has an excommunication that prohibits going to action space
-        assertPlayerIsNotInhibitedFromGoingTo(player, actionSpace);
+        result = checkPlayerIsNotInhibitedFromGoingTo(player, actionSpace);
+        if (!result.isAllowed()) return result;
 
         // If the player cannot double occupy the action space we just check if it is occupied
-        if (player.getEffectsImplementing(SkipOccupationCheckEffect.class).isEmpty()
-                && !actionSpace.getOccupants().isEmpty()) {
-
-            throw new ActionNotAllowedException("That action space is already occupied");
+        if (isTakenByOccupation(actionSpace, player.hasEffectsImplementing(SkipOccupationCheckEffect.class))) {
+            return ValidationResult.ACTION_SPACE_OCCUPIED;
         }
 
         // Otherwise he can occupy it twice, but one of the family members must be neutral
-        for (Tuple<Player, FamilyMemberColor> occupation : actionSpace.getOccupants()) {
-            Player occupant = occupation.first;
-            FamilyMemberColor occupantFamilyMemberColor = occupation.second;
-
-            // If the player already occupies the market with a colored family member
-            // he can occupy it again but only with his neutral family member
-            if (occupant.equals(player)) {
-                // So if we find a colored family member AND the player is trying to use another colored one
-                // we deny the action
-                if (occupantFamilyMemberColor != FamilyMemberColor.NEUTRAL
-                        && familyMemberColor != FamilyMemberColor.NEUTRAL) {
-                    throw new ActionNotAllowedException("You cannot place two colored family members in that action space");
-                }
-            }
-        }
+        return checkColoredFamilyMembers(actionSpace.getOccupancy(), player, familyMemberColor, ValidationResult.TWO_COLORED_FAMILY_MEMBERS_IN_ACTION_SPACE);
     }
 
     /**
-     * Asserts that a big action space is occupiable by a given player with a given family member
+     * Checks that a big action space is occupiable by a given player with a given family member
      *
      * @param actionSpace
      * @param player
      * @param familyMemberColor
      */
-    private void assertBigActionSpaceOccupiableBy(ActionSpace actionSpace, Player player, FamilyMemberColor familyMemberColor) throws ActionNotAllowedException {
-        assertActionSpaceIsEnabled(actionSpace);
+    private ValidationResult checkBigActionSpaceOccupiableBy(ActionSpace actionSpace, Player player, FamilyMemberColor familyMemberColor) {
+        ValidationResult result = checkActionSpaceIsEnabled(actionSpace);
+        if (!result.isAllowed()) return result;
 
-        assertPlayerIsNotInhibitedFromGoingTo(player, actionSpace);
+        result = checkPlayerIsNotInhibitedFromGoingTo(player, actionSpace);
+        if (!result.isAllowed()) return result;
 
         // A player can occupy the action space twice, but one of the family members must be neutral
-        for (Tuple<Player, FamilyMemberColor> occupation : actionSpace.getOccupants()) {
-            Player occupant = occupation.first;
-            FamilyMemberColor occupantFamilyMemberColor = occupation.second;
-
-            // If the player already occupies the market with a colored family member
-            // he can occupy it again but only with his neutral family member
-            if (occupant.equals(player)) {
-                // So if we find a colored family member AND the player is trying to use another colored one
-                // we deny the action
-                if (occupantFamilyMemberColor != FamilyMemberColor.NEUTRAL
-                        && familyMemberColor != FamilyMemberColor.NEUTRAL) {
-                    throw new ActionNotAllowedException("You cannot place two colored family members in that action space");
-                }
-            }
-        }
+        return checkColoredFamilyMembers(actionSpace.getOccupancy(), player, familyMemberColor, ValidationResult.TWO_COLORED_FAMILY_MEMBERS_IN_ACTION_SPACE);
     }
 
-    private void assertFloorHasCard(Floor floor) throws ActionNotAllowedException {
-        if (floor.getCard() == null) {
-            throw new ActionNotAllowedException("The card of that floor has already been taken");
-        }
+    /**
+     * Checks that the player isn't trying to place a second colored family member
+     * among the given occupants
+     *
+     * @param occupancy the occupants, as a bitboard (see {@link Occupancy})
+     * @param player
+     * @param familyMemberColor
+     * @param rejection the result returned if he is
+     */
+    private static ValidationResult checkColoredFamilyMembers(long occupancy,
+                                                              Player player,
+                                                              FamilyMemberColor familyMemberColor,
+                                                              ValidationResult rejection) {
+        // If the player already occupies the action space with a colored family member
+        // he can occupy it again but only with his neutral family member
+        if (Occupancy.breaksColorRule(occupancy, player, familyMemberColor)) return rejection;
+        return ValidationResult.ALLOWED;
+    }
+
+    private ValidationResult checkFloorHasCard(Floor floor) {
+        if (floor.getCard() == null) return ValidationResult.FLOOR_WITHOUT_CARD;
+        return ValidationResult.ALLOWED;
     }
 
     /**
-     * Asserts that a floor is occupiable by a given player with a given family member
+     * Checks that a floor is occupiable by a given player with a given family member
      *
      * @param floor
      * @param player
@@ -703,256 +1000,141 @@ public class GameController {
      * @param paymentForCard
      * @param chosenPrivileges
      */
-    private void assertFloorOccupiableBy(Floor floor,
-                                         Player player,
-                                         FamilyMemberColor familyMemberColor,
-                                         RequiredResourceSet paymentForCard,
-                                         List<ObtainableResourceSet> chosenPrivileges) throws ActionNotAllowedException {
-        assertFloorHasCard(floor);
-        assertActionSpaceIsEnabled(floor);
-        assertPlayerIsNotInhibitedFromGoingTo(player, floor);
-        assertFamilyMemberColorRule(floor, player, familyMemberColor);
-        assertMilitaryRequirement(player, floor.getCard());
-        assertPlayerCanTakeAnotherCard(player, floor.getCard().getClass());
+    private ValidationResult checkFloorOccupiableBy(Floor floor,
+                                                    Player player,
+                                                    FamilyMemberColor familyMemberColor,
+                                                    RequiredResourceSet paymentForCard,
+                                                    List<ObtainableResourceSet> chosenPrivileges) {
+        ValidationResult result = checkFloorHasCard(floor);
+        if (!result.isAllowed()) return result;
 
-        // check that the player can cover the cost of occupying the floor
-        ObtainedResourceSet playerClonedResourceSet = new ObtainedResourceSet(player.getResources());
+        result = checkActionSpaceIsEnabled(floor);
+        if (!result.isAllowed()) return result;
 
-        // Double occupation cost
-        if (!player.hasEffectsImplementing(DoubleOccupationCostIgnoreEffect.class)) {
-            RequiredResourceSet doubleOccupationCost = floor.getDoubleOccupationCost();
-            if (!player.getResources().has(doubleOccupationCost)) {
-                throw new ActionNotAllowedException("You don't have the resources to occupy an already occupied tower");
-            }
-            playerClonedResourceSet.subtractResources(doubleOccupationCost);
-        }
+        result = checkPlayerIsNotInhibitedFromGoingTo(player, floor);
+        if (!result.isAllowed()) return result;
 
-        // Floor bonus
-        ObtainableResourceSet actionSpaceBonus = floor.getBonus();
-        for (ObtainableResourceSet privilege : chosenPrivileges) {
-            actionSpaceBonus.addResources(privilege);
-        }
+        result = checkFamilyMemberColorRule(floor, player, familyMemberColor);
+        if (!result.isAllowed()) return result;
 
-        // Apply action space bonus setter effect (Preacher)
-        for (FloorBonusResourcesSetterEffect e : player.getEffectsImplementing(FloorBonusResourcesSetterEffect.class)) {
-            actionSpaceBonus = e.setObtainedResourceSet();
-        }
+        result = checkMilitaryRequirement(player, floor.getCard());
+        if (!result.isAllowed()) return result;
+
+        result = checkPlayerCanTakeAnotherCard(player, floor.getCard());
+        if (!result.isAllowed()) return result;
 
-        // Apply obtained resource set modifier effects
-        for (ObtainableResourceSetModifierEffect e : player.getEffectsImplementing(ObtainableResourceSetModifierEffect.class)) {
-            actionSpaceBonus = e.modifyResources(actionSpaceBonus);
+        // check that the player can cover the cost of occupying the floor
+        ObtainedResourceSet playerClonedResourceSet = new ObtainedResourceSet(player.getResources());
+        playerClonedResourceSet.subtractResource(ObtainableResource.SERVANTS, player.getSpentServants());
+
+        // Double occupation cost
+        if (!payDoubleOccupationCost(player, floor, player.hasEffectsImplementing(DoubleOccupationCostIgnoreEffect.class), playerClonedResourceSet)) {
+            return ValidationResult.CANNOT_PAY_DOUBLE_OCCUPATION;
         }
 
-        playerClonedResourceSet.addResources(actionSpaceBonus);
+        // Floor bonus, modified by the effects of the player (such as the Preacher)
+        ResourceModifiers resourceModifiers = player.getResourceModifiers();
+        resourceModifiers.addEffectiveBonus(playerClonedResourceSet, getFloorBonus(floor, chosenPrivileges));
 
         // STEP 3: check the requirements chosen to pay for the card
-        paymentForCard = new RequiredResourceSet(paymentForCard);
         if (!floor.getCard().isPayableWith(paymentForCard)) {
-            throw new ActionNotAllowedException("You cannot pay that price to take that card");
+            return ValidationResult.INVALID_PAYMENT;
         }
 
-        // Apply effects that modify the cost of the card
-        for (DevelopmentCardRequiredResourceSetModifierEffect e : player.getEffectsImplementing(DevelopmentCardRequiredResourceSetModifierEffect.class)) {
-            paymentForCard = e.modifyResources(paymentForCard, floor.getCard());
-        }
-
-        if (!playerClonedResourceSet.has(paymentForCard)) {
-            throw new ActionNotAllowedException("You don't have the resources necessary to take that card");
+        // The cost of the card is modified by the effects of the player
+        if (!resourceModifiers.canPay(playerClonedResourceSet, paymentForCard, floor.getCard())) {
+            return ValidationResult.CANNOT_PAY_CARD;
         }
+        return ValidationResult.ALLOWED;
     }
 
     /**
-     * Asserts that the player can place his family member on the floor and
+     * Checks that the player can place his family member on the floor and
      * is not trying to place two colored family members in the same tower
      *
      * @param floor
      * @param player
      * @param familyMemberColor
-     * @throws ActionNotAllowedException
      */
-    private void assertFamilyMemberColorRule(Floor floor, Player player, FamilyMemberColor familyMemberColor) throws ActionNotAllowedException {
-        List<Tuple<Player, FamilyMemberColor>> occupations = new ArrayList<>();
-        List<Floor> floors = floor.getTower().getFloors();
-        for (Floor f : floors) {
-            occupations.addAll(f.getOccupants());
-        }
-
+    private ValidationResult checkFamilyMemberColorRule(Floor floor, Player player, FamilyMemberColor familyMemberColor) {
         // A player can occupy a tower twice, but one of the family members must be neutral
-        for (Tuple<Player, FamilyMemberColor> occupation : occupations) {
-            Player occupant = occupation.first;
-            FamilyMemberColor occupantFamilyMemberColor = occupation.second;
-
-            // If the player already occupies the market with a colored family member
-            // he can occupy it again but only with his neutral family member
-            if (occupant.equals(player)) {
-                // So if we find a colored family member AND the player is trying to use another colored one
-                // we deny the action
-                if (occupantFamilyMemberColor != FamilyMemberColor.NEUTRAL
-                        && familyMemberColor != FamilyMemberColor.NEUTRAL) {
-                    throw new ActionNotAllowedException("You cannot place two colored family members in the same tower");
-                }
-            }
-        }
+        return checkColoredFamilyMembers(floor.getTower().getOccupancy(), player, familyMemberColor, ValidationResult.TWO_COLORED_FAMILY_MEMBERS_IN_TOWER);
     }
 
     /**
-     * Asserts that the player has the necessary military points
+     * Checks that the player has the necessary military points
      * to take another card (applies only to territory cards)
      *
      * @param player
      * @param card
      */
-    private void assertMilitaryRequirement(Player player, DevelopmentCard card) throws ActionNotAllowedException {
-        if (!(card instanceof TerritoryCard)) return;
-
-        // If the card is a territory check military points requirement
-        if (!player.hasEffectsImplementing(SkipMilitaryPointsRequirementEffect.class)) {
-
-            int currentTerritories = player.getTerritories().size();
-            int requiredMilitaryPoints = 0;
-
-            if (currentTerritories == 5) {
-                requiredMilitaryPoints = 18;
-            }
-            else if (currentTerritories == 4) {
-                requiredMilitaryPoints = 12;
-            }
-            else if (currentTerritories == 3) {
-                requiredMilitaryPoints = 7;
-            }
-            else if (currentTerritories == 2) requiredMilitaryPoints = 3;
-
-            if (!player.getResources().hasAtLeast(requiredMilitaryPoints, ObtainableResource.MILITARY_POINTS)) {
-                throw new ActionNotAllowedException("You don't have the military points to take another territory");
-            }
+    private ValidationResult checkMilitaryRequirement(Player player, DevelopmentCard card) {
+        if (!meetsMilitaryRequirement(player, card, player.hasEffectsImplementing(SkipMilitaryPointsRequirementEffect.class))) {
+            return ValidationResult.NOT_ENOUGH_MILITARY_POINTS;
         }
+        return ValidationResult.ALLOWED;
     }
 
     /**
-     * Asserts that the player can take another card (he can't have more than 6 of the same kind)
+     * Checks that the player can take another card (he can't have more than 6 of the same kind)
      *
      * @param player
-     * @param cardType
-     * @throws ActionNotAllowedException
+     * @param card
      */
-    private void assertPlayerCanTakeAnotherCard(Player player, Class<? extends DevelopmentCard> cardType) throws ActionNotAllowedException {
-        int currentCards;
-
-        if (cardType == TerritoryCard.class) {
-            currentCards = player.getTerritories().size();
-        }
-        else if (cardType == CharacterCard.class) {
-            currentCards = player.getCharacters().size();
-        }
-        else if (cardType == BuildingCard.class) {
-            currentCards = player.getBuildings().size();
-        }
-        else {
-            currentCards = player.getVentures().size();
-        }
-
-        if (currentCards > 5) {
-            throw new ActionNotAllowedException("You cannot take another development card of that kind");
-        }
-
-        // If the card is a territory check military points requirement
-        if (!player.hasEffectsImplementing(SkipMilitaryPointsRequirementEffect.class)
-                && cardType == TerritoryCard.class) {
-
-            int currentTerritories = player.getTerritories().size();
-            int requiredMilitaryPoints = 0;
-
-            if (currentTerritories == 5) {
-                requiredMilitaryPoints = 18;
-            }
-            else if (currentTerritories == 4) {
-                requiredMilitaryPoints = 12;
-            }
-            else if (currentTerritories == 3) {
-                requiredMilitaryPoints = 7;
-            }
-            else if (currentTerritories == 2) requiredMilitaryPoints = 3;
-
-            if (!player.getResources().hasAtLeast(requiredMilitaryPoints, ObtainableResource.MILITARY_POINTS)) {
-                throw new ActionNotAllowedException("You don't have the military points to take another territory");
-            }
+    private ValidationResult checkPlayerCanTakeAnotherCard(Player player, DevelopmentCard card) {
+        if (!canTakeAnotherCard(player, card)) {
+            return ValidationResult.TOO_MANY_CARDS;
         }
+        return ValidationResult.ALLOWED;
     }
 
     /**
-     * Asserts that the effective family member value is sufficient.
+     * Checks that the effective family member value is sufficient.
      * Warning: does not account for action-specific effects!
      *
      * @param player
      * @param familyMember
      * @param minimumValue
-     * @throws ActionNotAllowedException
      */
-    private void assertFamilyMemberValueIsAtLeast(Player player, FamilyMemberColor familyMember, int minimumValue) throws ActionNotAllowedException {
-        int value = game.getInitialValueForFamilyMember(familyMember);
-
-        for (FamilyMemberValueSetterEffectInterface e : player.getEffectsImplementing(FamilyMemberValueSetterEffectInterface.class)) {
-            value = e.setValue(value, familyMember);
-        }
-
-        for (FamilyMemberValueModifierEffect e : player.getEffectsImplementing(FamilyMemberValueModifierEffect.class)) {
-            value = e.modifyFamilyMemberValue(familyMember, value);
-        }
-
-        int spentServantsValue = player.getSpentServants();
-        for (ServantsValueMultiplierEffect e : player.getEffectsImplementing(ServantsValueMultiplierEffect.class)) {
-            spentServantsValue = e.multiplyServantValue(spentServantsValue);
-        }
+    private ValidationResult checkFamilyMemberValueIsAtLeast(Player player, FamilyMemberColor familyMember, int minimumValue) {
+        int value = getFamilyMemberValue(game, player, familyMember);
+        int spentServantsValue = getServantsValue(player, player.getSpentServants());
 
         if (value + spentServantsValue < minimumValue) {
-            throw new ActionNotAllowedException("Family member value is too low");
+            return ValidationResult.FAMILY_MEMBER_VALUE_TOO_LOW;
         }
+        return ValidationResult.ALLOWED;
     }
 
     /**
-     * Asserts that the effective value of the action is sufficient
+     * Checks that the effective value of the action is sufficient
      *
      * @param player
      * @param actionType
      * @param familyMember
      * @param minimumValue
      */
-    private void assertEffectiveActionValueIsAtLeast(Player player, ActionType actionType, FamilyMemberColor familyMember, int minimumValue) throws ActionNotAllowedException {
-        int value = game.getInitialValueForFamilyMember(familyMember);
-
-        for (FamilyMemberValueSetterEffectInterface e : player.getEffectsImplementing(FamilyMemberValueSetterEffectInterface.class)) {
-            value = e.setValue(value, familyMember);
-        }
-
-        for (FamilyMemberValueModifierEffect e : player.getEffectsImplementing(FamilyMemberValueModifierEffect.class)) {
-            value = e.modifyFamilyMemberValue(familyMember, value);
-        }
-
-        for (ActionValueModifierEffect e : player.getEffectsImplementing(ActionValueModifierEffect.class)) {
-            value = e.modifyValue(value, actionType);
-        }
-
-        int spentServantsValue = player.getSpentServants();
-        for (ServantsValueMultiplierEffect e : player.getEffectsImplementing(ServantsValueMultiplierEffect.class)) {
-            spentServantsValue = e.multiplyServantValue(spentServantsValue);
-        }
+    private ValidationResult checkEffectiveActionValueIsAtLeast(Player player, ActionType actionType, FamilyMemberColor familyMember, int minimumValue) {
+        int value = getActionValue(player, actionType, getFamilyMemberValue(game, player, familyMember));
+        int spentServantsValue = getServantsValue(player, player.getSpentServants());
 
         if (value + spentServantsValue < minimumValue) {
-            throw new ActionNotAllowedException("Family member value is too low");
+            return ValidationResult.FAMILY_MEMBER_VALUE_TOO_LOW;
         }
+        return ValidationResult.ALLOWED;
     }
 
     /**
-     * Asserts that the chosen council privileges are valid
+     * Checks that the chosen council privileges are valid
      *
      * @param chosenCouncilPrivileges
      * @param allowedCouncilPrivileges
-     * @throws ActionNotAllowedException
      */
-    private void assertValidCouncilPrivilegesChoice(List<ObtainableResourceSet> chosenCouncilPrivileges, int allowedCouncilPrivileges) throws ActionNotAllowedException {
+    private ValidationResult checkValidCouncilPrivilegesChoice(List<ObtainableResourceSet> chosenCouncilPrivileges, int allowedCouncilPrivileges) {
         if (!validateCouncilPrivileges(chosenCouncilPrivileges, allowedCouncilPrivileges)) {
-            throw new ActionNotAllowedException("Invalid privileges choice");
+            return ValidationResult.INVALID_COUNCIL_PRIVILEGES;
         }
+        return ValidationResult.ALLOWED;
     }
 
     /**
@@ -1001,6 +1183,191 @@ public class GameController {
         return playersWithPendingExcommunicationDecision.contains(player);
     }
 
+    /* --------------------------------------------------------------------------------------
+     * Placement rules
+     * Each rule of the placements of the family members, shared by the checks above and by the
+     * MoveGenerator, which computes their inputs (the effects of the player, the values of the
+     * family members and of the servants) once for all the candidate moves
+     * -------------------------------------------------------------------------------------- */
+
+    /**
+     * @param inhibitEffects the inhibiting effects of the player (e.g. excommunications)
+     * @param actionSpace
+     * @return true if one of the effects prohibits the player from going to the action space
+     */
+    static boolean isInhibited(List<InhibitActionSpaceEffect> inhibitEffects, ActionSpace actionSpace) {
+        for (InhibitActionSpaceEffect e : inhibitEffects) {
+            if (e.isInhibited(actionSpace)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param actionSpace
+     * @return true if the action space can be occupied by a single family member (a market or a small area)
+     */
+    static boolean isSmallActionSpace(ActionSpace actionSpace) {
+        return actionSpace instanceof MarketActionSpace
+                || actionSpace instanceof SmallHarvestArea
+                || actionSpace instanceof SmallProductionArea;
+    }
+
+    /**
+     * @param actionSpace
+     * @return true if the action space can be occupied by any number of family members (the council palace or a big area)
+     */
+    static boolean isBigActionSpace(ActionSpace actionSpace) {
+        return actionSpace instanceof CouncilPalace
+                || actionSpace instanceof BigHarvestArea
+                || actionSpace instanceof BigProductionArea;
+    }
+
+    /**
+     * @param actionSpace a small or big action space
+     * @return the action started by occupying the action space, whose effects modify the value of the family member,
+     * or null for the markets and the council palace, where the value of the family member alone is checked
+     */
+    static ActionType getActionType(ActionSpace actionSpace) {
+        if (actionSpace instanceof SmallProductionArea || actionSpace instanceof BigProductionArea) {
+            return ActionType.PRODUCTION;
+        }
+        else if (actionSpace instanceof SmallHarvestArea || actionSpace instanceof BigHarvestArea) {
+            return ActionType.HARVEST;
+        }
+        return null;
+    }
+
+    /**
+     * @param actionSpace a small action space
+     * @param skipsOccupationCheck true if the player has an effect that lets him go to occupied action spaces
+     * @return true if the action space is already occupied for the player
+     */
+    static boolean isTakenByOccupation(ActionSpace actionSpace, boolean skipsOccupationCheck) {
+        return !skipsOccupationCheck && actionSpace.isOccupied();
+    }
+
+    /**
+     * Returns the value of a family member of the player, with the family member value effects applied
+     * (the ones that set it first, then the ones that modify it), but not the effects of the actions
+     *
+     * @param game
+     * @param player
+     * @param familyMember
+     * @return the value
+     */
+    static int getFamilyMemberValue(Game game, Player player, FamilyMemberColor familyMember) {
+        int value = game.getInitialValueForFamilyMember(familyMember);
+
+        for (FamilyMemberValueSetterEffectInterface e : player.getEffectsImplementing(FamilyMemberValueSetterEffectInterface.class)) {
+            value = e.setValue(value, familyMember);
+        }
+
+        for (FamilyMemberValueModifierEffect e : player.getEffectsImplementing(FamilyMemberValueModifierEffect.class)) {
+            value = e.modifyFamilyMemberValue(familyMember, value);
+        }
+        return value;
+    }
+
+    /**
+     * @param player
+     * @param actionType
+     * @param familyMemberValue the value of the family member performing the action
+     * @return the value of the action, with the action value effects of the player applied
+     */
+    static int getActionValue(Player player, ActionType actionType, int familyMemberValue) {
+        int value = familyMemberValue;
+        for (ActionValueModifierEffect e : player.getEffectsImplementing(ActionValueModifierEffect.class)) {
+            value = e.modifyValue(value, actionType);
+        }
+        return value;
+    }
+
+    /**
+     * @param player
+     * @param servants the servants spent
+     * @return the value they add to the family member, with the servants value effects of the player applied
+     */
+    static int getServantsValue(Player player, int servants) {
+        int value = servants;
+        for (ServantsValueMultiplierEffect e : player.getEffectsImplementing(ServantsValueMultiplierEffect.class)) {
+            value = e.multiplyServantValue(value);
+        }
+        return value;
+    }
+
+    /**
+     * @param player
+     * @param card
+     * @return true if the player has less than 6 cards of the kind of the card
+     */
+    static boolean canTakeAnotherCard(Player player, DevelopmentCard card) {
+        int currentCards;
+        if (card instanceof TerritoryCard) {
+            currentCards = player.getTerritories().size();
+        }
+        else if (card instanceof CharacterCard) {
+            currentCards = player.getCharacters().size();
+        }
+        else if (card instanceof BuildingCard) {
+            currentCards = player.getBuildings().size();
+        }
+        else {
+            currentCards = player.getVentures().size();
+        }
+        return currentCards <= 5;
+    }
+
+    /**
+     * @param player
+     * @param card
+     * @param skipsMilitaryRequirement true if the player has an effect that ignores the requirement
+     * @return true if the card is not a territory, or the player has the military points to take another territory
+     */
+    static boolean meetsMilitaryRequirement(Player player, DevelopmentCard card, boolean skipsMilitaryRequirement) {
+        if (!(card instanceof TerritoryCard) || skipsMilitaryRequirement) return true;
+
+        int requiredMilitaryPoints = getRequiredMilitaryPointsForTerritory(player.getTerritories().size());
+        return player.getResources().hasAtLeast(requiredMilitaryPoints, ObtainableResource.MILITARY_POINTS);
+    }
+
+    /**
+     * @param currentTerritories the territories the player already has
+     * @return the military points a player needs to take another territory
+     */
+    static int getRequiredMilitaryPointsForTerritory(int currentTerritories) {
+        if (currentTerritories == 5) return 18;
+        else if (currentTerritories == 4) return 12;
+        else if (currentTerritories == 3) return 7;
+        else if (currentTerritories == 2) return 3;
+        else return 0;
+    }
+
+    /**
+     * Pays the cost of occupying a tower that is already occupied, unless the player ignores it
+     *
+     * @param player
+     * @param floor
+     * @param ignoresDoubleOccupationCost true if the player has an effect that ignores the cost
+     * @param resources the resources the cost is subtracted from
+     * @return false if the player can't pay the cost
+     */
+    static boolean payDoubleOccupationCost(Player player, Floor floor, boolean ignoresDoubleOccupationCost, ObtainedResourceSet resources) {
+        if (ignoresDoubleOccupationCost) return true;
+
+        RequiredResourceSet doubleOccupationCost = floor.getDoubleOccupationCost();
+        if (!player.getResources().has(doubleOccupationCost)) return false;
+        resources.subtractResources(doubleOccupationCost);
+        return true;
+    }
+
+    /**
+     * @param bonus the effective bonus of an action space, can be null
+     * @return the council privileges the player can choose
+     */
+    static int countCouncilPrivileges(ObtainableResourceSet bonus) {
+        return bonus == null ? 0 : bonus.getObtainedAmount(ObtainableResource.COUNCIL_PRIVILEGES);
+    }
+
     /* --------------------------------------------------------------------------------------
      * Getters for valid moves, etc
      * These methods are used mostly by the UI for getting which actions the player can perform
@@ -1036,6 +1403,33 @@ public class GameController {
                            .collect(Collectors.toList());
     }
 
+    /**
+     * Returns the moves the current player can make, see {@link MoveGenerator}
+     *
+     * @return the allowed moves, only the pass if it's not the time to place a family member
+     */
+    public List<Move> getAllowedMoves() {
+        if (gameState != GameState.PLAYER_TURN || hasCurrentPlayerPlacedFamilyMember) {
+            return Collections.singletonList(Move.pass());
+        }
+        return new MoveGenerator(this, game.getCurrentPlayer()).generateMoves();
+    }
+
+    /**
+     * Returns the action spaces where the current player can place a family member,
+     * spending the servants he has already committed or more
+     *
+     * @param familyMemberColor the family member the player wants to place
+     * @return the action spaces
+     */
+    public List<ActionSpace> getAllowedActionSpaces(FamilyMemberColor familyMemberColor) {
+        return getAllowedMoves().stream()
+                                .filter(move -> move.getFamilyMember() == familyMemberColor)
+                                .map(Move::getActionSpace)
+                                .distinct()
+                                .collect(Collectors.toList());
+    }
+
     public List<LeaderCard> getAllowedLeaderCards() {
         Player player = game.getCurrentPlayer();
         // TODO: account for card effects
@@ -1077,15 +1471,24 @@ public class GameController {
      * @return
      */
     public ObtainableResourceSet getEffectiveActionSpaceBonus(ActionSpace actionSpace, Player player) {
-        ObtainableResourceSet bonus = actionSpace.getBonus();
-        // Apply action space bonus setter effect (Preacher)
-        for (FloorBonusResourcesSetterEffect e : player.getEffectsImplementing(FloorBonusResourcesSetterEffect.class)) {
-            bonus = e.setObtainedResourceSet();
-        }
+        return player.getResourceModifiers().getEffectiveBonus(actionSpace.getBonus());
+    }
 
-        // Apply obtained resource set modifier effects
-        for (ObtainableResourceSetModifierEffect e : player.getEffectsImplementing(ObtainableResourceSetModifierEffect.class)) {
-            bonus = e.modifyResources(bonus);
+    /**
+     * Return the bonus of a floor with the council privileges chosen by the player,
+     * before the effects of the player are applied
+     *
+     * @param floor
+     * @param chosenPrivileges
+     * @return the bonus of the floor itself if no privileges were chosen
+     */
+    static ObtainableResourceSet getFloorBonus(Floor floor, List<ObtainableResourceSet> chosenPrivileges) {
+        if (chosenPrivileges.isEmpty()) return floor.getBonus();
+
+        // Copied, the privileges must not be added to the floor
+        ObtainableResourceSet bonus = new ObtainableResourceSet(floor.getBonus());
+        for (ObtainableResourceSet privilege : chosenPrivileges) {
+            bonus.addResources(privilege);
         }
         return bonus;
     }
@@ -1103,81 +1506,61 @@ public class GameController {
      * @throws PlayerDoesNotExistException
      */
     public Player getLocalPlayer(String username) throws PlayerDoesNotExistException {
-        return game
-                .getPlayers()
-                .stream()
-                .filter(p -> p.getUsername().equals(username))
-                .findFirst()
-                .orElseThrow(PlayerDoesNotExistException::new);
+        Player player = gameIndex.getPlayer(username);
+        if (player == null) throw new PlayerDoesNotExistException();
+        return player;
     }
 
     public PersonalBonusTile getLocalAvailablePersonalBonusTile(UUID personalBonusTileId) throws ActionNotAllowedException {
-        return game.getAvailablePersonalBonusTiles().stream()
-                   .filter(tile -> tile.getId().equals(personalBonusTileId))
-                   .findFirst()
-                   .orElseThrow(() -> new ActionNotAllowedException("Unrecognized ID for personal bonus tile"));
+        PersonalBonusTile bonusTile = gameIndex.getPersonalBonusTile(personalBonusTileId);
+        if (bonusTile == null || !game.getAvailablePersonalBonusTiles().contains(bonusTile)) {
+            throw new ActionNotAllowedException("Unrecognized ID for personal bonus tile");
+        }
+        return bonusTile;
     }
 
     public Floor getLocalFloor(UUID floorId) throws ActionNotAllowedException {
-        return game.getFloors().stream()
-                   .filter(floor -> floor.getId().equals(floorId))
-                   .findFirst()
-                   .orElseThrow(() -> new ActionNotAllowedException("Unrecognized floor ID"));
+        Floor floor = gameIndex.getFloor(floorId);
+        if (floor == null) throw new ActionNotAllowedException("Unrecognized floor ID");
+        return floor;
     }
 
     public List<TerritoryCard> getLocalAvailableTerritoryCards(List<UUID> ids) throws ActionNotAllowedException {
-        List cards = game.getAvailableTerritoryCards().stream()
-                         .filter(card -> ids.contains(card.getId()))
-                         .collect(Collectors.toList());
-
-        if (ids.size() != cards.size()) throw new ActionNotAllowedException("Card ID not recognized");
-        return cards;
+        return getLocalAvailableCards(ids, TerritoryCard.class);
     }
 
     public List<BuildingCard> getLocalAvailableBuildingCards(List<UUID> ids) throws ActionNotAllowedException {
-        List cards = game.getAvailableBuildingCards().stream()
-                         .filter(card -> ids.contains(card.getId()))
-                         .collect(Collectors.toList());
-
-        if (ids.size() != cards.size()) throw new ActionNotAllowedException("Card ID not recognized");
-        return cards;
+        return getLocalAvailableCards(ids, BuildingCard.class);
     }
 
     public List<CharacterCard> getLocalAvailableCharacterCards(List<UUID> ids) throws ActionNotAllowedException {
-        List cards = game.getAvailableCharacterCards().stream()
-                         .filter(card -> ids.contains(card.getId()))
-                         .collect(Collectors.toList());
-
-        if (ids.size() != cards.size()) throw new ActionNotAllowedException("Card ID not recognized");
-        return cards;
+        return getLocalAvailableCards(ids, CharacterCard.class);
     }
 
-    public List<VentureCard> getLocalAvailableVentureCards(List<UUID> Ids) throws ActionNotAllowedException {
-        List cards = game.getAvailableVentureCards().stream()
-                         .filter(card -> Ids.contains(card.getId()))
-                         .collect(Collectors.toList());
+    public List<VentureCard> getLocalAvailableVentureCards(List<UUID> ids) throws ActionNotAllowedException {
+        return getLocalAvailableCards(ids, VentureCard.class);
+    }
 
-        if (Ids.size() != cards.size()) throw new ActionNotAllowedException("Card ID not recognized");
+    private <T extends DevelopmentCard> List<T> getLocalAvailableCards(List<UUID> ids, Class<T> cardType) throws ActionNotAllowedException {
+        List<T> cards = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            DevelopmentCard card = gameIndex.getAvailableCard(id);
+            if (!cardType.isInstance(card) || cards.contains(card)) throw new ActionNotAllowedException("Card ID not recognized");
+            cards.add(cardType.cast(card));
+        }
         return cards;
     }
 
     public ActionSpace getLocalActionSpace(UUID actionSpaceId) throws ActionNotAllowedException {
-        return game.getActionSpaces().stream()
-                   .filter(actionSpace -> actionSpace.getId().equals(actionSpaceId))
-                   .findFirst()
-                   .orElseThrow(() -> new ActionNotAllowedException("Unrecognized action space ID"));
+        ActionSpace actionSpace = gameIndex.getActionSpace(actionSpaceId);
+        if (actionSpace == null) throw new ActionNotAllowedException("Unrecognized action space ID");
+        return actionSpace;
     }
 
     public DevelopmentCard getLocalCardFromTowers(UUID cardId) throws ActionNotAllowedException {
-        List<DevelopmentCard> cards = game.getBoard().getTerritoryTower().getCards();
-        cards.addAll(game.getBoard().getBuildingTower().getCards());
-        cards.addAll(game.getBoard().getCharacterTower().getCards());
-        cards.addAll(game.getBoard().getVentureTower().getCards());
-
-        return cards.stream()
-                    .filter(card -> card.getId().equals(cardId))
-                    .findFirst()
-                    .orElseThrow(() -> new ActionNotAllowedException("Card ID not recognized"));
+        DevelopmentCard card = gameIndex.getCardOnTowers(cardId);
+        if (card == null) throw new ActionNotAllowedException("Card ID not recognized");
+        return card;
     }
 
     /*
@@ -1189,7 +1572,13 @@ public class GameController {
     }
 
     public void setGame(Game game) {
+        stateHashed = false;
         this.game = game;
+        this.gameIndex = game == null ? null : new GameIndex(game);
+    }
+
+    public GameIndex getGameIndex() {
+        return gameIndex;
     }
 
     public DevelopmentCard getDevelopmentCardBeingTaken() {
@@ -1201,11 +1590,16 @@ public class GameController {
     }
 
     public void setDiceValues(int blackDie, int whiteDie, int orangeDie) {
+        stateHashed = false;
         game.setBlackDie(blackDie);
         game.setWhiteDie(whiteDie);
         game.setOrangeDie(orangeDie);
     }
 
+    public int getTurnsStartedInRound() {
+        return turnsStartedInRound;
+    }
+
     public boolean hasCurrentPlayerPlacedFamilyMember() {
         return hasCurrentPlayerPlacedFamilyMember;
     }
@@ -1223,6 +1617,7 @@ public class GameController {
     }
 
     public void addPlayer(Player player) {
+        stateHashed = false;
         game.addPlayer(player);
     }
 }
@@ -0,0 +1,277 @@
+package gamecontroller;
+
+import model.Game;
+import model.board.actionspace.ActionSpace;
+import model.board.actionspace.Floor;
+import model.card.development.DevelopmentCard;
+import model.player.PersonalBonusTile;
+import model.player.Player;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * This class indexes the objects of a game by their id, so that the objects referenced by the clients
+ * can be found without scanning the game.
+ * <p>
+ * Each object also gets a dense integer index (its position in the index), which can be used
+ * to keep per-object data in arrays.
+ * <p>
+ * Floors, action spaces, development cards and bonus tiles never change during a game,
+ * so they are indexed once. The players are indexed again when a username is not found,
+ * as they are added to the game after it's created.
+ * The position of the development cards (available or on a floor) is updated by the game controller
+ * when the cards are drawn.
+ */
+public class GameIndex implements Serializable {
+    private final Game game;
+
+    private final Map<String, Integer> playerIndexes = new HashMap<>();
+    private final List<Player> playersByIndex = new ArrayList<>();
+
+    private final Map<UUID, Integer> floorIndexes = new HashMap<>();
+    private final List<Floor> floorsByIndex = new ArrayList<>();
+
+    private final Map<UUID, Integer> actionSpaceIndexes = new HashMap<>();
+    private final List<ActionSpace> actionSpacesByIndex = new ArrayList<>();
+
+    private final Map<UUID, Integer> cardIndexes = new HashMap<>();
+    private final List<DevelopmentCard> cardsByIndex = new ArrayList<>();
+
+    private final Map<UUID, PersonalBonusTile> bonusTiles = new HashMap<>();
+
+    /**
+     * True if the card with the given index is still in the deck of available cards
+     */
+    private boolean[] availableCards;
+
+    /**
+     * The floor where the card with the given index has been placed, null if it has never been placed
+     */
+    private Floor[] cardFloors;
+
+    public GameIndex(Game game) {
+        this.game = game;
+
+        indexPlayers();
+
+        for (Floor floor : game.getFloors()) {
+            floorIndexes.put(floor.getId(), floorsByIndex.size());
+            floorsByIndex.add(floor);
+        }
+
+        for (ActionSpace actionSpace : game.getActionSpaces()) {
+            actionSpaceIndexes.put(actionSpace.getId(), actionSpacesByIndex.size());
+            actionSpacesByIndex.add(actionSpace);
+        }
+
+        for (PersonalBonusTile bonusTile : game.getAvailablePersonalBonusTiles()) {
+            bonusTiles.put(bonusTile.getId(), bonusTile);
+        }
+
+        // Available cards first, then the cards already on the board or owned by the players
+        List<DevelopmentCard> availableDevelopmentCards = new ArrayList<>();
+        availableDevelopmentCards.addAll(game.getAvailableTerritoryCards());
+        availableDevelopmentCards.addAll(game.getAvailableCharacterCards());
+        availableDevelopmentCards.addAll(game.getAvailableBuildingCards());
+        availableDevelopmentCards.addAll(game.getAvailableVentureCards());
+        availableDevelopmentCards.forEach(this::indexCard);
+
+        floorsByIndex.stream()
+                     .map(Floor::getCard)
+                     .filter(Objects::nonNull)
+                     .forEach(card -> indexCard((DevelopmentCard) card));
+        for (Player player : game.getPlayers()) {
+            player.getTerritories().forEach(this::indexCard);
+            player.getCharacters().forEach(this::indexCard);
+            player.getBuildings().forEach(this::indexCard);
+            player.getVentures().forEach(this::indexCard);
+        }
+
+        availableCards = new boolean[cardsByIndex.size()];
+        cardFloors = new Floor[cardsByIndex.size()];
+        for (DevelopmentCard card : availableDevelopmentCards) {
+            availableCards[cardIndexes.get(card.getId())] = true;
+        }
+        for (Floor floor : floorsByIndex) {
+            if (floor.getCard() != null) {
+                cardFloors[cardIndexes.get(floor.getCard().getId())] = floor;
+            }
+        }
+    }
+
+    private void indexCard(DevelopmentCard card) {
+        if (cardIndexes.containsKey(card.getId())) return;
+
+        cardIndexes.put(card.getId(), cardsByIndex.size());
+        cardsByIndex.add(card);
+    }
+
+    private void indexPlayers() {
+        for (Player player : game.getPlayers()) {
+            if (playerIndexes.putIfAbsent(player.getUsername(), playersByIndex.size()) == null) {
+                playersByIndex.add(player);
+            }
+        }
+    }
+
+    /* ----------------------------------------------------------------
+     * Lookups by id
+     * ---------------------------------------------------------------- */
+
+    /**
+     * @param username the username of the player
+     * @return the player, null if there's no player with the given username
+     */
+    public Player getPlayer(String username) {
+        int index = getPlayerIndex(username);
+        return index < 0 ? null : playersByIndex.get(index);
+    }
+
+    /**
+     * @param floorId the id of the floor
+     * @return the floor, null if there's no floor with the given id
+     */
+    public Floor getFloor(UUID floorId) {
+        Integer index = floorIndexes.get(floorId);
+        return index == null ? null : floorsByIndex.get(index);
+    }
+
+    /**
+     * @param actionSpaceId the id of the action space
+     * @return the action space, null if there's no action space with the given id
+     */
+    public ActionSpace getActionSpace(UUID actionSpaceId) {
+        Integer index = actionSpaceIndexes.get(actionSpaceId);
+        return index == null ? null : actionSpacesByIndex.get(index);
+    }
+
+    /**
+     * @param bonusTileId the id of the personal bonus tile
+     * @return the bonus tile, null if there's no bonus tile with the given id
+     */
+    public PersonalBonusTile getPersonalBonusTile(UUID bonusTileId) {
+        return bonusTiles.get(bonusTileId);
+    }
+
+    /**
+     * @param cardId the id of the development card
+     * @return the development card, null if there's no development card with the given id
+     */
+    public DevelopmentCard getCard(UUID cardId) {
+        Integer index = cardIndexes.get(cardId);
+        return index == null ? null : cardsByIndex.get(index);
+    }
+
+    /**
+     * @param cardId the id of the development card
+     * @return the available (not drawn) development card, null if the card doesn't exist or has been drawn
+     */
+    public DevelopmentCard getAvailableCard(UUID cardId) {
+        Integer index = cardIndexes.get(cardId);
+        return index == null || !availableCards[index] ? null : cardsByIndex.get(index);
+    }
+
+    /**
+     * @param cardId the id of the development card
+     * @return the development card, null if the card isn't on any floor of the towers
+     */
+    public DevelopmentCard getCardOnTowers(UUID cardId) {
+        Integer index = cardIndexes.get(cardId);
+        if (index == null) return null;
+
+        DevelopmentCard card = cardsByIndex.get(index);
+        Floor floor = cardFloors[index];
+        if (floor != null && floor.getCard() == card) return card;
+
+        // The card has been taken, or the towers have been changed without telling the index (e.g. by a resync)
+        for (Floor otherFloor : floorsByIndex) {
+            if (otherFloor.getCard() == card) {
+                cardFloors[index] = otherFloor;
+                return card;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Called when cards are drawn from the decks and placed on the towers
+     *
+     * @param floor the floor where the card has been placed
+     * @param card the card
+     */
+    void onCardPlaced(Floor floor, DevelopmentCard card) {
+        Integer index = cardIndexes.get(card.getId());
+        if (index == null) return;
+
+        availableCards[index] = false;
+        cardFloors[index] = floor;
+    }
+
+    /* ----------------------------------------------------------------
+     * Dense indexes
+     * ---------------------------------------------------------------- */
+
+    public int getPlayersCount() {
+        if (playersByIndex.size() != game.getPlayers().size()) {
+            indexPlayers();
+        }
+        return playersByIndex.size();
+    }
+
+    /**
+     * @param username the username of the player
+     * @return the index of the player, -1 if there's no player with the given username
+     */
+    public int getPlayerIndex(String username) {
+        Integer index = playerIndexes.get(username);
+        if (index == null && playerIndexes.size() != game.getPlayers().size()) {
+            indexPlayers();
+            index = playerIndexes.get(username);
+        }
+        return index == null ? -1 : index;
+    }
+
+    public Player getPlayer(int index) {
+        return playersByIndex.get(index);
+    }
+
+    public int getFloorsCount() {
+        return floorsByIndex.size();
+    }
+
+    public int getFloorIndex(UUID floorId) {
+        Integer index = floorIndexes.get(floorId);
+        return index == null ? -1 : index;
+    }
+
+    public Floor getFloor(int index) {
+        return floorsByIndex.get(index);
+    }
+
+    public int getActionSpacesCount() {
+        return actionSpacesByIndex.size();
+    }
+
+    public int getActionSpaceIndex(UUID actionSpaceId) {
+        Integer index = actionSpaceIndexes.get(actionSpaceId);
+        return index == null ? -1 : index;
+    }
+
+    public ActionSpace getActionSpace(int index) {
+        return actionSpacesByIndex.get(index);
+    }
+
+    public int getCardsCount() {
+        return cardsByIndex.size();
+    }
+
+    public int getCardIndex(UUID cardId) {
+        Integer index = cardIndexes.get(cardId);
+        return index == null ? -1 : index;
+    }
+
+    public DevelopmentCard getCard(int index) {
+        return cardsByIndex.get(index);
+    }
+}
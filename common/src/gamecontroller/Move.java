@@ -0,0 +1,91 @@
+package gamecontroller;
+
+import model.board.actionspace.ActionSpace;
+import model.board.actionspace.Floor;
+import model.player.FamilyMemberColor;
+import model.resource.ObtainableResourceSet;
+import model.resource.RequiredResourceSet;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents a move of a player in his turn:
+ * placing a family member (after spending some servants) or passing.
+ */
+public class Move {
+    private static final Move PASS = new Move(null, null, 0, null, Collections.emptyList());
+
+    private final ActionSpace actionSpace;
+    private final FamilyMemberColor familyMember;
+    private final int servants;
+
+    /**
+     * The resources used to pay for the card, only for floors
+     */
+    private final RequiredResourceSet payment;
+
+    /**
+     * The council privileges chosen as bonus of the action space
+     */
+    private final List<ObtainableResourceSet> councilPrivileges;
+
+    private Move(ActionSpace actionSpace, FamilyMemberColor familyMember, int servants, RequiredResourceSet payment, List<ObtainableResourceSet> councilPrivileges) {
+        this.actionSpace = actionSpace;
+        this.familyMember = familyMember;
+        this.servants = servants;
+        this.payment = payment;
+        this.councilPrivileges = councilPrivileges;
+    }
+
+    /**
+     * @return the move of a player that ends his turn without placing a family member
+     */
+    public static Move pass() {
+        return PASS;
+    }
+
+    public static Move goToFloor(Floor floor, FamilyMemberColor familyMember, int servants, RequiredResourceSet payment, List<ObtainableResourceSet> councilPrivileges) {
+        return new Move(floor, familyMember, servants, payment, councilPrivileges);
+    }
+
+    public static Move goToActionSpace(ActionSpace actionSpace, FamilyMemberColor familyMember, int servants, List<ObtainableResourceSet> councilPrivileges) {
+        return new Move(actionSpace, familyMember, servants, null, councilPrivileges);
+    }
+
+    public boolean isPass() {
+        return actionSpace == null;
+    }
+
+    public boolean isFloor() {
+        return actionSpace instanceof Floor;
+    }
+
+    public ActionSpace getActionSpace() {
+        return actionSpace;
+    }
+
+    public FamilyMemberColor getFamilyMember() {
+        return familyMember;
+    }
+
+    public int getServants() {
+        return servants;
+    }
+
+    public RequiredResourceSet getPayment() {
+        return payment;
+    }
+
+    public List<ObtainableResourceSet> getCouncilPrivileges() {
+        return councilPrivileges;
+    }
+
+    @Override
+    public String toString() {
+        if (isPass()) return "Pass";
+
+        return String.format("%s family member to %s (%d servants)",
+                familyMember, isFloor() ? ((Floor) actionSpace).getShortDescriptionForChoosing() : actionSpace.getClass().getSimpleName(), servants);
+    }
+}
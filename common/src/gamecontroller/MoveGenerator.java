@@ -0,0 +1,275 @@
+package gamecontroller;
+
+import model.Game;
+import model.action.ActionType;
+import model.board.Occupancy;
+import model.board.actionspace.*;
+import model.card.development.*;
+import model.card.effects.*;
+import model.player.FamilyMemberColor;
+import model.player.Player;
+import model.resource.ObtainableResource;
+import model.resource.ObtainableResourceSet;
+import model.resource.ObtainedResourceSet;
+import model.resource.RequiredResourceSet;
+import model.resource.ResourceModifiers;
+
+import java.util.*;
+
+/**
+ * This class enumerates the moves a player can make in his turn, in a single pass over the board.
+ * <p>
+ * The checks are the rules of the placements of {@link GameController}, the same ones checked by
+ * {@link GameController#goToFloor} and {@link GameController#goToActionSpace}, but the values that don't depend
+ * on the action space (the effective value of each family member for each action, the value of the servants,
+ * the effects of the player) are computed once and shared between the candidates,
+ * and a candidate that isn't allowed is just skipped instead of throwing an exception.
+ * <p>
+ * Each move spends the fewest servants needed, starting from the ones the player has already committed:
+ * more servants never make a move allowed and leave fewer resources to pay for the card.
+ * The moves are generated for every payment of the cards and every choice of the council privileges
+ * given by the action spaces.
+ * <p>
+ * The generator doesn't check whose turn it is, or if the player has already placed a family member:
+ * see {@link GameController#getAllowedMoves()} for that.
+ */
+public class MoveGenerator {
+    private static final ActionType[] ACTION_TYPES = ActionType.values();
+
+    private final GameController gameController;
+    private final Game game;
+    private final Player player;
+
+    private final FamilyMemberColor[] familyMembers;
+
+    /**
+     * The value of each family member for each action, indexed by action type and family member,
+     * not counting the servants
+     */
+    private final int[][] familyMemberValues;
+
+    /**
+     * The value added by spending a number of servants, indexed by the number of servants
+     */
+    private final int[] servantValues;
+    private final int committedServants;
+
+    private final List<InhibitActionSpaceEffect> inhibitEffects;
+    private final ResourceModifiers resourceModifiers;
+    private final boolean skipsOccupationCheck;
+    private final boolean ignoresDoubleOccupationCost;
+    private final boolean skipsMilitaryRequirement;
+
+    /**
+     * The choices of council privileges, by number of privileges
+     */
+    private final Map<Integer, List<List<ObtainableResourceSet>>> privilegesChoices = new HashMap<>();
+
+    /**
+     * @param gameController the controller of the game
+     * @param player the player making the moves, whose turn it is
+     */
+    public MoveGenerator(GameController gameController, Player player) {
+        this.gameController = gameController;
+        this.game = gameController.getGame();
+        this.player = player;
+
+        inhibitEffects = player.getEffectsImplementing(InhibitActionSpaceEffect.class);
+        resourceModifiers = player.getResourceModifiers();
+        skipsOccupationCheck = player.hasEffectsImplementing(SkipOccupationCheckEffect.class);
+        ignoresDoubleOccupationCost = player.hasEffectsImplementing(DoubleOccupationCostIgnoreEffect.class);
+        skipsMilitaryRequirement = player.hasEffectsImplementing(SkipMilitaryPointsRequirementEffect.class);
+
+        // In the order of the colors: the set of the player is a hash set and its order changes between runs
+        familyMembers = Arrays.stream(FamilyMemberColor.values())
+                              .filter(player.getAvailableFamilyMembers()::contains)
+                              .toArray(FamilyMemberColor[]::new);
+        familyMemberValues = computeFamilyMemberValues();
+
+        int servants = player.getResources().getAmount(ObtainableResource.SERVANTS);
+        committedServants = player.getSpentServants();
+        servantValues = new int[Math.max(servants, committedServants) + 1];
+        for (int i = 0; i < servantValues.length; i++) {
+            servantValues[i] = GameController.getServantsValue(player, i);
+        }
+    }
+
+    /**
+     * The values of the family members computed by the game controller,
+     * the family member value effects first and then the ones of the actions
+     */
+    private int[][] computeFamilyMemberValues() {
+        int[] values = new int[familyMembers.length];
+        for (int i = 0; i < familyMembers.length; i++) {
+            values[i] = GameController.getFamilyMemberValue(game, player, familyMembers[i]);
+        }
+
+        // The last row is the value without the action effects
+        int[][] actionValues = new int[ACTION_TYPES.length + 1][];
+        for (ActionType actionType : ACTION_TYPES) {
+            int[] row = new int[values.length];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = GameController.getActionValue(player, actionType, values[i]);
+            }
+            actionValues[actionType.ordinal()] = row;
+        }
+        actionValues[ACTION_TYPES.length] = values;
+        return actionValues;
+    }
+
+    /**
+     * @return the allowed moves of the player, the last one is always {@link Move#pass()}
+     */
+    public List<Move> generateMoves() {
+        GameIndex gameIndex = gameController.getGameIndex();
+        List<Move> moves = new ArrayList<>(familyMembers.length * (gameIndex.getFloorsCount() + gameIndex.getActionSpacesCount()) + 1);
+
+        for (int i = 0; i < gameIndex.getFloorsCount(); i++) {
+            addFloorMoves(gameIndex.getFloor(i), moves);
+        }
+        for (int i = 0; i < gameIndex.getActionSpacesCount(); i++) {
+            addActionSpaceMoves(gameIndex.getActionSpace(i), moves);
+        }
+
+        moves.add(Move.pass());
+        return moves;
+    }
+
+    /* ----------------------------------------------------------------
+     * Floors
+     * ---------------------------------------------------------------- */
+
+    private void addFloorMoves(Floor floor, List<Move> moves) {
+        DevelopmentCard card = floor.getCard();
+        if (card == null || !floor.isEnabled() || GameController.isInhibited(inhibitEffects, floor)) return;
+        if (!GameController.meetsMilitaryRequirement(player, card, skipsMilitaryRequirement)) return;
+        if (!GameController.canTakeAnotherCard(player, card)) return;
+
+        long towerOccupancy = floor.getTower().getOccupancy();
+        int[] values = familyMemberValues[card.getCardTakingActionType().ordinal()];
+
+        // The resources the player has without spending servants, after paying the cost of an occupied tower
+        ObtainedResourceSet resources = new ObtainedResourceSet(player.getResources());
+        if (!GameController.payDoubleOccupationCost(player, floor, ignoresDoubleOccupationCost, resources)) return;
+
+        List<RequiredResourceSet> payments = getPayments(card);
+        int councilPrivileges = GameController.countCouncilPrivileges(gameController.getEffectiveActionSpaceBonus(floor, player));
+        List<List<ObtainableResourceSet>> privilegesChoices = getPrivilegesChoices(councilPrivileges);
+
+        for (int i = 0; i < familyMembers.length; i++) {
+            if (Occupancy.breaksColorRule(towerOccupancy, player, familyMembers[i])) continue;
+
+            int servants = getNeededServants(values[i], floor.getRequiredFamilyMemberValue());
+            if (servants < 0) continue;
+
+            ObtainedResourceSet resourcesAfterServants = new ObtainedResourceSet(resources);
+            resourcesAfterServants.subtractResource(ObtainableResource.SERVANTS, servants);
+
+            for (List<ObtainableResourceSet> privileges : privilegesChoices) {
+                ObtainedResourceSet resourcesAfterBonus = new ObtainedResourceSet(resourcesAfterServants);
+                resourceModifiers.addEffectiveBonus(resourcesAfterBonus, GameController.getFloorBonus(floor, privileges));
+
+                for (RequiredResourceSet payment : payments) {
+                    if (resourceModifiers.canPay(resourcesAfterBonus, payment, card)) {
+                        moves.add(Move.goToFloor(floor, familyMembers[i], servants, payment, privileges));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the payments of the card, an empty one if the card is free
+     */
+    private static List<RequiredResourceSet> getPayments(DevelopmentCard card) {
+        List<RequiredResourceSet> payments = card.getRequiredResourceSet();
+        if (payments == null || payments.isEmpty()) {
+            return Collections.singletonList(new RequiredResourceSet());
+        }
+        return payments;
+    }
+
+    /* ----------------------------------------------------------------
+     * Other action spaces
+     * ---------------------------------------------------------------- */
+
+    private void addActionSpaceMoves(ActionSpace actionSpace, List<Move> moves) {
+        boolean small = GameController.isSmallActionSpace(actionSpace);
+        boolean big = GameController.isBigActionSpace(actionSpace);
+
+        if (small || big) {
+            if (!actionSpace.isEnabled() || GameController.isInhibited(inhibitEffects, actionSpace)) return;
+            if (small && GameController.isTakenByOccupation(actionSpace, skipsOccupationCheck)) return;
+        }
+        long occupancy = actionSpace.getOccupancy();
+
+        int[] values = getFamilyMemberValues(actionSpace);
+        int councilPrivileges = GameController.countCouncilPrivileges(gameController.getEffectiveActionSpaceBonus(actionSpace, player));
+        List<List<ObtainableResourceSet>> privilegesChoices = getPrivilegesChoices(councilPrivileges);
+
+        for (int i = 0; i < familyMembers.length; i++) {
+            if ((small || big) && Occupancy.breaksColorRule(occupancy, player, familyMembers[i])) continue;
+
+            // The game controller requires a value of 1, whatever the action space
+            int servants = values == null ? committedServants : getNeededServants(values[i], 1);
+            if (servants < 0) continue;
+
+            for (List<ObtainableResourceSet> privileges : privilegesChoices) {
+                moves.add(Move.goToActionSpace(actionSpace, familyMembers[i], servants, privileges));
+            }
+        }
+    }
+
+    /**
+     * @return the values of the family members checked by the game controller for the action space,
+     * null if it checks none
+     */
+    private int[] getFamilyMemberValues(ActionSpace actionSpace) {
+        if (!GameController.isSmallActionSpace(actionSpace) && !GameController.isBigActionSpace(actionSpace)) return null;
+
+        ActionType actionType = GameController.getActionType(actionSpace);
+        return familyMemberValues[actionType == null ? ACTION_TYPES.length : actionType.ordinal()];
+    }
+
+    /* ----------------------------------------------------------------
+     * Shared checks
+     * ---------------------------------------------------------------- */
+
+    /**
+     * @param value the value of the family member
+     * @param requiredValue the value required by the action space
+     * @return the fewest servants to spend, -1 if the player doesn't have enough
+     */
+    private int getNeededServants(int value, int requiredValue) {
+        for (int servants = committedServants; servants < servantValues.length; servants++) {
+            if (value + servantValues[servants] >= requiredValue) return servants;
+        }
+        return -1;
+    }
+
+    /**
+     * @param count the council privileges given by the action space
+     * @return every choice of that many different privileges (or all of them, if there are fewer)
+     */
+    private List<List<ObtainableResourceSet>> getPrivilegesChoices(int count) {
+        return privilegesChoices.computeIfAbsent(count, c -> {
+            List<ObtainableResourceSet> allowedPrivileges = game.getAllowedCouncilPrivileges();
+            List<List<ObtainableResourceSet>> choices = new ArrayList<>();
+            addPrivilegesChoices(allowedPrivileges, 0, Math.min(c, allowedPrivileges.size()), new ArrayList<>(), choices);
+            return choices;
+        });
+    }
+
+    private static void addPrivilegesChoices(List<ObtainableResourceSet> allowedPrivileges, int first, int count,
+                                             List<ObtainableResourceSet> chosen, List<List<ObtainableResourceSet>> choices) {
+        if (chosen.size() == count) {
+            choices.add(Collections.unmodifiableList(new ArrayList<>(chosen)));
+            return;
+        }
+        for (int i = first; i < allowedPrivileges.size(); i++) {
+            chosen.add(allowedPrivileges.get(i));
+            addPrivilegesChoices(allowedPrivileges, i + 1, count, chosen, choices);
+            chosen.remove(chosen.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package gamecontroller;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * This class records how to undo the changes made to a game by the commands of the game controller.
+ * <p>
+ * Each entry restores what a single change modified (the resources of a player, the occupants of an action space,
+ * the card of a floor...), so that rolling back costs as much as the changes being undone,
+ * instead of a copy of the whole game.
+ * The entries are undone in the reverse order they were recorded.
+ */
+class UndoLog {
+    private final Deque<Runnable> entries = new ArrayDeque<>();
+
+    /**
+     * @return the number of entries recorded
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Records how to undo a change
+     *
+     * @param undo restores what the change modified
+     */
+    void record(Runnable undo) {
+        entries.push(undo);
+    }
+
+    /**
+     * Undoes the changes recorded after the given number of entries
+     *
+     * @param size the number of entries to keep
+     */
+    void rollbackTo(int size) {
+        while (entries.size() > size) {
+            entries.pop().run();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package gamecontroller;
+
+/**
+ * This enum represents the outcome of the validation of an action by the game controller:
+ * either the action is allowed, or the reason why it's not.
+ * <p>
+ * The validation methods of the game controller return these constants instead of throwing an exception,
+ * so that probing many actions (as the bots do) doesn't allocate anything for the rejected ones.
+ * The methods performing the actions throw an {@link gamecontroller.exceptions.ActionNotAllowedException}
+ * with the message of the reason.
+ */
+public enum ValidationResult {
+    ALLOWED(null),
+
+    UNKNOWN_PLAYER(null),
+    UNKNOWN_FLOOR("Unrecognized floor ID"),
+    UNKNOWN_ACTION_SPACE("Unrecognized action space ID"),
+
+    WRONG_GAME_STATE(null),
+    NOT_PLAYER_TURN("It's not your turn!"),
+    FAMILY_MEMBER_ALREADY_PLACED("You have already placed a family member"),
+    FAMILY_MEMBER_NOT_AVAILABLE("You have already used that family member"),
+    FAMILY_MEMBER_VALUE_TOO_LOW("Family member value is too low"),
+    INVALID_COUNCIL_PRIVILEGES("Invalid privileges choice"),
+
+    ACTION_SPACE_DISABLED("That action space is disabled in this game"),
+    ACTION_SPACE_INHIBITED("You are prohibited from going to that action space"),
+    ACTION_SPACE_OCCUPIED("That action space is already occupied"),
+    TWO_COLORED_FAMILY_MEMBERS_IN_ACTION_SPACE("You cannot place two colored family members in that action space"),
+
+    FLOOR_WITHOUT_CARD("The card of that floor has already been taken"),
+    TWO_COLORED_FAMILY_MEMBERS_IN_TOWER("You cannot place two colored family members in the same tower"),
+    NOT_ENOUGH_MILITARY_POINTS("You don't have the military points to take another territory"),
+    TOO_MANY_CARDS("You cannot take another development card of that kind"),
+    CANNOT_PAY_DOUBLE_OCCUPATION("You don't have the resources to occupy an already occupied tower"),
+    INVALID_PAYMENT("You cannot pay that price to take that card"),
+    CANNOT_PAY_CARD("You don't have the resources necessary to take that card");
+
+    private final String message;
+
+    ValidationResult(String message) {
+        this.message = message;
+    }
+
+    public boolean isAllowed() {
+        return this == ALLOWED;
+    }
+
+    /**
+     * @return the message shown to the player, null if the action is allowed or the reason has no message
+     */
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,184 @@
+package gamecontroller;
+
+import model.Excommunication;
+import model.Game;
+import model.board.Occupancy;
+import model.board.actionspace.ActionSpace;
+import model.board.actionspace.Floor;
+import model.card.development.DevelopmentCard;
+import model.player.FamilyMemberColor;
+import model.player.Player;
+import model.resource.ObtainableResource;
+import model.resource.ObtainedResourceSet;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This class computes the Zobrist hash of the state of a game: the cards on the floors, the occupants
+ * of the action spaces, the resources, the development cards, the excommunications and the available family
+ * members of the players, the turn order, the current player, the dice and the round.
+ * <p>
+ * Every element of the state has a 64 bit key and the hash is the xor of the keys of the elements in the state,
+ * so when an element changes the hash is updated by xoring its key (the {@link GameController} does it
+ * in the commands of the players). A quantity, such as a resource of a player or a die, has a key for each value.
+ * <p>
+ * The keys are not drawn from a random table: they're mixed from the ids of the objects and the colors
+ * of the players, so the client and the server compute the same hash for the same state.
+ * The leader cards and the personal bonus tiles are not hashed, they don't change after the drafts.
+ */
+public final class ZobristHash {
+    private static final long SEED = 0x3C6EF372FE94F82BL;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final ObtainableResource[] RESOURCES = ObtainableResource.values();
+
+    /*
+     * The kinds of elements of the state
+     */
+    private static final int ROUND = 1;
+    private static final int DIE = 2;
+    private static final int CURRENT_PLAYER = 3;
+    private static final int TURN_ORDER = 4;
+    private static final int RESOURCE = 5;
+    private static final int AVAILABLE_FAMILY_MEMBER = 6;
+    private static final int PLAYER_CARD = 7;
+    private static final int EXCOMMUNICATION = 8;
+    private static final int FLOOR_CARD = 9;
+    private static final int OCCUPANT = 10;
+    private static final int TURNS_STARTED = 11;
+
+    /**
+     * This class is not designed to be instantiated
+     */
+    private ZobristHash() {
+    }
+
+    /**
+     * Computes the hash of a game from scratch
+     *
+     * @param game the game
+     * @return the hash
+     */
+    public static long of(Game game) {
+        long hash = key(ROUND, 0, game.getCurrentRound())
+                ^ key(DIE, 0, game.getBlackDie())
+                ^ key(DIE, 1, game.getWhiteDie())
+                ^ key(DIE, 2, game.getOrangeDie());
+
+        if (game.getCurrentPlayer() != null) {
+            hash ^= currentPlayer(game.getCurrentPlayer());
+        }
+
+        List<Player> players = game.getPlayers();
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            hash ^= key(TURN_ORDER, color(player), i);
+            hash ^= resources(player);
+
+            for (FamilyMemberColor familyMember : player.getAvailableFamilyMembers()) {
+                hash ^= availableFamilyMember(player, familyMember);
+            }
+            for (DevelopmentCard card : player.getTerritories()) hash ^= playerCard(player, card);
+            for (DevelopmentCard card : player.getCharacters()) hash ^= playerCard(player, card);
+            for (DevelopmentCard card : player.getBuildings()) hash ^= playerCard(player, card);
+            for (DevelopmentCard card : player.getVentures()) hash ^= playerCard(player, card);
+            for (Excommunication excommunication : player.getExcommunications()) {
+                hash ^= excommunication(player, excommunication);
+            }
+        }
+
+        for (Floor<?> floor : game.getFloors()) {
+            if (floor.getCard() != null) hash ^= floorCard(floor, floor.getCard());
+            hash ^= occupants(floor);
+        }
+        for (ActionSpace actionSpace : game.getActionSpaces()) {
+            hash ^= occupants(actionSpace);
+        }
+
+        return hash;
+    }
+
+    /**
+     * Returns the key of the number of turns started in the round. It's not part of the hash of the game,
+     * the searches add it to tell apart the same position reached with a different number of turns left
+     *
+     * @param turnsStartedInRound the turns started in the round
+     * @return the key
+     */
+    public static long turnsStarted(int turnsStartedInRound) {
+        return key(TURNS_STARTED, 0, turnsStartedInRound);
+    }
+
+    static long currentPlayer(Player player) {
+        return key(CURRENT_PLAYER, color(player), 0);
+    }
+
+    /**
+     * @return the xor of the keys of the amounts of all the resources of the player
+     */
+    static long resources(Player player) {
+        ObtainedResourceSet resources = player.getResources();
+        long hash = 0;
+        for (ObtainableResource resource : RESOURCES) {
+            hash ^= key(RESOURCE, color(player) * RESOURCES.length + resource.ordinal(), resources.getAmount(resource));
+        }
+        return hash;
+    }
+
+    static long availableFamilyMember(Player player, FamilyMemberColor familyMember) {
+        return key(AVAILABLE_FAMILY_MEMBER, color(player), familyMember.ordinal());
+    }
+
+    static long playerCard(Player player, DevelopmentCard card) {
+        return key(PLAYER_CARD, id(card.getId()), color(player));
+    }
+
+    static long excommunication(Player player, Excommunication excommunication) {
+        return key(EXCOMMUNICATION, color(player), excommunication.getPeriod());
+    }
+
+    static long floorCard(Floor<?> floor, DevelopmentCard card) {
+        return key(FLOOR_CARD, id(floor.getId()), id(card.getId()));
+    }
+
+    /**
+     * The value of the key is the index of the bit of the occupant in the bitboard of the action space
+     */
+    static long occupant(ActionSpace actionSpace, Player player, FamilyMemberColor familyMember) {
+        return key(OCCUPANT, id(actionSpace.getId()), Long.numberOfTrailingZeros(Occupancy.of(player, familyMember)));
+    }
+
+    private static long occupants(ActionSpace actionSpace) {
+        long hash = 0;
+        long spaceId = id(actionSpace.getId());
+        for (long occupancy = actionSpace.getOccupancy(); occupancy != 0; occupancy &= occupancy - 1) {
+            hash ^= key(OCCUPANT, spaceId, Long.numberOfTrailingZeros(occupancy));
+        }
+        return hash;
+    }
+
+    /**
+     * The players are told apart by their color, which is the same on the client and the server
+     */
+    private static int color(Player player) {
+        return player.getColor() == null ? -1 : player.getColor().ordinal();
+    }
+
+    private static long id(UUID id) {
+        return id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits());
+    }
+
+    private static long key(int kind, long element, long value) {
+        return mix(mix(SEED ^ kind * GOLDEN_GAMMA ^ element) + value * GOLDEN_GAMMA);
+    }
+
+    /**
+     * The SplitMix64 finalizer
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,6 +1,5 @@
 package gamecontroller.utils;
 
-import java.util.Collections;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -11,12 +10,25 @@ public class CollectorUtils {
      *
      * Code snippet taken from https://stackoverflow.com/a/35512753
      *
+     * @param random the random of the game
      * @param <T>
      * @return
      */
-    public static <T> Collector<T, ?, Stream<T>> toShuffledStream() {
+    public static <T> Collector<T, ?, Stream<T>> toShuffledStream(GameRandom random) {
+        return toShuffledStream(random, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Collects a stream and shuffles only the first elements, to be used when only those are taken
+     *
+     * @param random the random of the game
+     * @param count how many elements are shuffled
+     * @param <T>
+     * @return
+     */
+    public static <T> Collector<T, ?, Stream<T>> toShuffledStream(GameRandom random, int count) {
         return Collectors.collectingAndThen(Collectors.toList(), collected -> {
-            Collections.shuffle(collected);
+            random.shuffle(collected, count);
             return collected.stream();
         });
     }
@@ -0,0 +1,139 @@
+package gamecontroller.utils;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * This class is the source of every random decision of a game (dice, decks, drafts, turn order).
+ * <p>
+ * It's seeded with a seed that is kept, so that a game can be replayed from its seed and the inputs of the players.
+ * It's backed by a {@link SplittableRandom}, which has no shared state:
+ * each game owns its instance, and games played in parallel never contend on it.
+ * <p>
+ * Like {@link SplittableRandom}, an instance must be used by one thread at a time.
+ */
+public class GameRandom {
+    private final long seed;
+    private SplittableRandom random;
+
+    public GameRandom(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Recreates a game random that has been reseeded
+     *
+     * @param seed the seed the random was created with
+     * @param reseed the seed returned by the last call to {@link #reseed()}
+     * @return a game random in the same state as the one reseeded
+     */
+    public static GameRandom restore(long seed, long reseed) {
+        GameRandom gameRandom = new GameRandom(seed);
+        gameRandom.random = new SplittableRandom(reseed);
+        return gameRandom;
+    }
+
+    /**
+     * @return a game random with an unpredictable seed
+     */
+    public static GameRandom withRandomSeed() {
+        return new GameRandom(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * @return the seed this random was created with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param bound the upper bound (exclusive), must be positive
+     * @return a random number between 0 (inclusive) and bound (exclusive)
+     */
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    public boolean nextBoolean() {
+        return random.nextBoolean();
+    }
+
+    /**
+     * @return the value of a die, between 1 and 6
+     */
+    public int throwDie() {
+        return random.nextInt(6) + 1;
+    }
+
+    /**
+     * @param list a non empty list
+     * @return a random element of the list
+     */
+    public <T> T pick(List<T> list) {
+        return list.get(random.nextInt(list.size()));
+    }
+
+    /**
+     * Removes a random element from a list
+     *
+     * @param list a non empty list
+     * @return the removed element
+     */
+    public <T> T remove(List<T> list) {
+        return list.remove(random.nextInt(list.size()));
+    }
+
+    /**
+     * Shuffles a list in place (Fisher-Yates)
+     *
+     * @param list the list to shuffle
+     */
+    public <T> void shuffle(List<T> list) {
+        shuffle(list, list.size());
+    }
+
+    /**
+     * Moves some random elements of a list to its beginning, in random order.
+     * Only the elements to take are drawn, the rest of the list is left in any order.
+     *
+     * @param list the list
+     * @param count how many elements to draw, the whole list is shuffled if it's larger than the list
+     */
+    public <T> void shuffle(List<T> list, int count) {
+        int size = list.size();
+        int limit = Math.min(count, size - 1);
+        for (int i = 0; i < limit; i++) {
+            int j = i + random.nextInt(size - i);
+            list.set(i, list.set(j, list.get(i)));
+        }
+    }
+
+    /**
+     * Draws a new seed and restarts from it.
+     * The state of a {@link SplittableRandom} can't be saved, this is used when the state of the game is saved:
+     * the random can then be recreated with {@link #restore(long, long)}.
+     *
+     * @return the new seed
+     */
+    public long reseed() {
+        long reseed = random.nextLong();
+        random = new SplittableRandom(reseed);
+        return reseed;
+    }
+
+    /**
+     * Creates a new game random, with a seed taken from this one.
+     * Useful to give an independent random to a part of a game (e.g. a player policy) while keeping it replayable.
+     *
+     * @return the new game random
+     */
+    public GameRandom split() {
+        return new GameRandom(random.nextLong());
+    }
+}
@@ -3,8 +3,8 @@ package gamecontroller.utils;
 import java.util.stream.Stream;
 
 public class StreamUtils {
-    public static <T> Stream<T> takeRandomElements(Stream<T> stream, int limit) {
-        return stream.collect(CollectorUtils.toShuffledStream())
+    public static <T> Stream<T> takeRandomElements(Stream<T> stream, int limit, GameRandom random) {
+        return stream.collect(CollectorUtils.toShuffledStream(random, limit))
                      .limit(limit);
     }
 }
@@ -1,5 +1,6 @@
 package model;
 
+import com.google.gson.annotations.SerializedName;
 import model.card.effects.EffectsContainer;
 
 import java.io.Serializable;
@@ -10,6 +11,7 @@ import java.io.Serializable;
 public class Excommunication implements Serializable {
     private int period;
 
+    @SerializedName("effects")
     private EffectsContainer effectsContainer;
 
     public Excommunication(int period) {
@@ -33,6 +33,36 @@ public class Board implements Serializable {
     public Board() {
     }
 
+    /**
+     * Returns a copy of the board: action spaces and towers are copied,
+     * the excommunications and the faith track bonuses are shared
+     *
+     * @return the copy of the board
+     */
+    public Board copy() {
+        Board copy = new Board();
+        copy.councilPalace = copyOf(councilPalace);
+        copy.smallProductionArea = copyOf(smallProductionArea);
+        copy.bigProductionArea = copyOf(bigProductionArea);
+        copy.smallHarvestArea = copyOf(smallHarvestArea);
+        copy.bigHarvestArea = copyOf(bigHarvestArea);
+        copy.market1 = copyOf(market1);
+        copy.market2 = copyOf(market2);
+        copy.market3 = copyOf(market3);
+        copy.market4 = copyOf(market4);
+        copy.territoryTower = territoryTower.copy();
+        copy.characterTower = characterTower.copy();
+        copy.buildingTower = buildingTower.copy();
+        copy.ventureTower = ventureTower.copy();
+        copy.excommunications = excommunications == null ? null : excommunications.clone();
+        copy.faithTrackBonus = faithTrackBonus == null ? null : faithTrackBonus.clone();
+        return copy;
+    }
+
+    private static ActionSpace copyOf(ActionSpace actionSpace) {
+        return actionSpace == null ? null : actionSpace.copy();
+    }
+
     public ActionSpace getSmallProductionArea() {
         return smallProductionArea;
     }
@@ -153,7 +183,13 @@ public class Board implements Serializable {
         this.faithTrackBonus = faithTrackBonus;
     }
 
-    public void removeDevelopmentCardFromFloor(DevelopmentCard card) {
+    /**
+     * Removes a development card from the floor it's placed on
+     *
+     * @param card
+     * @return the floor the card was placed on, null if the card is not on the towers
+     */
+    public Floor removeDevelopmentCardFromFloor(DevelopmentCard card) {
         Tower tower;
 
         if(card instanceof TerritoryCard) tower = territoryTower;
@@ -168,5 +204,6 @@ public class Board implements Serializable {
                                       .findFirst();
 
         floor.ifPresent(f -> f.setCard(null));
+        return floor.orElse(null);
     }
 }
@@ -0,0 +1,75 @@
+package model.board;
+
+import model.player.FamilyMemberColor;
+import model.player.Player;
+import model.player.PlayerColor;
+
+/**
+ * This class builds the bitboards of the occupants of the action spaces.
+ * <p>
+ * The occupants of an action space (or of a whole tower) are kept in a long with a bit for each family member
+ * of each player: the bits of a player are the four starting from his color ordinal * 4,
+ * in the order of {@link FamilyMemberColor}. So checking whether a player occupies a space,
+ * or occupies it with a colored family member, is a single mask operation.
+ */
+public final class Occupancy {
+    private static final int FAMILY_MEMBERS = FamilyMemberColor.values().length;
+
+    /**
+     * The bits of the family members of the first player
+     */
+    private static final long PLAYER_BITS = (1L << FAMILY_MEMBERS) - 1;
+
+    /**
+     * The bits of the colored family members of the first player
+     */
+    private static final long COLORED_BITS = PLAYER_BITS & ~(1L << FamilyMemberColor.NEUTRAL.ordinal());
+
+    /**
+     * This class is not designed to be instantiated
+     */
+    private Occupancy() {
+    }
+
+    /**
+     * @param player the player, who must have a color
+     * @param familyMemberColor the family member
+     * @return the bit of the family member of the player
+     */
+    public static long of(Player player, FamilyMemberColor familyMemberColor) {
+        return 1L << (shift(player.getColor()) + familyMemberColor.ordinal());
+    }
+
+    /**
+     * @param player the player, who must have a color
+     * @return the bits of all the family members of the player
+     */
+    public static long of(Player player) {
+        return PLAYER_BITS << shift(player.getColor());
+    }
+
+    /**
+     * @param player the player, who must have a color
+     * @return the bits of the colored family members of the player
+     */
+    public static long coloredOf(Player player) {
+        return COLORED_BITS << shift(player.getColor());
+    }
+
+    /**
+     * Checks whether placing a family member of a player would give him two colored family members
+     * in an action space or a tower (the other family member must be the neutral one)
+     *
+     * @param occupancy the occupancy of the action space or of the tower
+     * @param player the player
+     * @param familyMemberColor the family member the player wants to place
+     * @return true if the player would occupy it with two colored family members
+     */
+    public static boolean breaksColorRule(long occupancy, Player player, FamilyMemberColor familyMemberColor) {
+        return familyMemberColor != FamilyMemberColor.NEUTRAL && (occupancy & coloredOf(player)) != 0;
+    }
+
+    private static int shift(PlayerColor color) {
+        return color.ordinal() * FAMILY_MEMBERS;
+    }
+}
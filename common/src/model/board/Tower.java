@@ -37,18 +37,39 @@ public class Tower<T extends DevelopmentCard> implements Serializable {
      * @return true if the player is occupying the tower with any of his family members
      */
     public boolean isOccupiedBy(Player player) {
-        return floors.stream().anyMatch(
-                floor -> floor.getOccupants().stream().map(occupation -> occupation.first).equals(player)
-        );
+        return (getOccupancy() & Occupancy.of(player)) != 0;
     }
 
     /**
-     * @return true if no players are occupying any floor
+     * @return true if any player is occupying any floor
      */
     public boolean isOccupied() {
-        return floors.stream().noneMatch(
-                floor -> floor.getOccupants().isEmpty()
-        );
+        return getOccupancy() != 0;
+    }
+
+    /**
+     * @return the occupants of all the floors as a bitboard, see {@link Occupancy}
+     */
+    public long getOccupancy() {
+        long occupancy = 0;
+        for (Floor<T> floor : floors) {
+            occupancy |= floor.getOccupancy();
+        }
+        return occupancy;
+    }
+
+    /**
+     * @return a copy of the tower, with copies of the floors
+     */
+    @SuppressWarnings("unchecked")
+    public Tower<T> copy() {
+        Tower<T> copy = new Tower<>();
+        for (Floor<T> floor : floors) {
+            Floor<T> floorCopy = (Floor<T>) floor.copy();
+            floorCopy.setTower(copy);
+            copy.floors.add(floorCopy);
+        }
+        return copy;
     }
 
     public void setFloors(List<Floor<T>> floors) {
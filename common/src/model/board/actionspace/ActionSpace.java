@@ -1,5 +1,6 @@
 package model.board.actionspace;
 
+import model.board.Occupancy;
 import model.player.FamilyMemberColor;
 import model.player.Player;
 import model.resource.ObtainableResourceSet;
@@ -14,7 +15,7 @@ import java.util.UUID;
 /**
  * This class represents an action space
  */
-public abstract class ActionSpace implements Serializable, Choosable {
+public abstract class ActionSpace implements Serializable, Cloneable, Choosable {
     /**
      * A unique id of the action space
      */
@@ -31,6 +32,11 @@ public abstract class ActionSpace implements Serializable, Choosable {
      */
     private ArrayList<Tuple<Player, FamilyMemberColor>> occupants = new ArrayList<>();
 
+    /**
+     * The occupants as a bitboard (see {@link Occupancy}), kept along the list which holds their order
+     */
+    private long occupancy;
+
     /**
      * The bonus resources obtained when occupying the action space (e.g. top floors and market bonuses)
      */
@@ -69,6 +75,13 @@ public abstract class ActionSpace implements Serializable, Choosable {
         return occupants;
     }
 
+    /**
+     * @return the occupants of the action space as a bitboard, see {@link Occupancy}
+     */
+    public long getOccupancy() {
+        return occupancy;
+    }
+
     public String getOccupantsString() {
         StringBuilder sb = new StringBuilder();
 
@@ -92,12 +105,39 @@ public abstract class ActionSpace implements Serializable, Choosable {
         return sb.toString();
     }
 
+    /**
+     * Returns a copy of the action space, with the same id and its own occupants (the bitboard is copied by clone()).
+     * The bonus is shared, as it's never modified.
+     *
+     * @return the copy of the action space
+     */
+    public ActionSpace copy() {
+        try {
+            ActionSpace copy = (ActionSpace) super.clone();
+            copy.occupants = new ArrayList<>(occupants);
+            return copy;
+        }
+        catch (CloneNotSupportedException e) {
+            throw new AssertionError("Action spaces are cloneable", e);
+        }
+    }
+
     public void addOccupant(Player player, FamilyMemberColor color) {
         this.occupants.add(new Tuple<>(player, color));
+        this.occupancy |= Occupancy.of(player, color);
+    }
+
+    /**
+     * Removes the occupant added last
+     */
+    public void removeLastOccupant() {
+        Tuple<Player, FamilyMemberColor> occupant = this.occupants.remove(occupants.size() - 1);
+        this.occupancy &= ~Occupancy.of(occupant.first, occupant.second);
     }
 
     public void removeAllOccupants() {
         this.occupants.clear();
+        this.occupancy = 0;
     }
 
     public ObtainableResourceSet getBonus() {
@@ -117,7 +157,7 @@ public abstract class ActionSpace implements Serializable, Choosable {
     }
 
     public boolean isOccupied() {
-        return !occupants.isEmpty();
+        return occupancy != 0;
     }
 
     public UUID getId() {
@@ -51,6 +51,17 @@ public class Card implements Serializable {
         this.requiredResourceSet = new ArrayList<>(requiredResourceSet);
     }
 
+    /**
+     * Copy constructor
+     * The copy has the same id, and its own copy of the effects that can be activated
+     */
+    protected Card(Card card) {
+        this.id = card.id;
+        this.name = card.name;
+        this.requiredResourceSet = new ArrayList<>(card.requiredResourceSet);
+        this.effectsContainer = card.effectsContainer == null ? null : card.effectsContainer.copy();
+    }
+
     /**
      * Returns a list of resources that the player can pay to get the card.
      * Only one of them is required (e.g. 2 gold OR (1 wood and 1 stone))
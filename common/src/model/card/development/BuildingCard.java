@@ -22,11 +22,6 @@ public class BuildingCard extends DevelopmentCard {
      */
     private int requiredValueForProduction;
 
-    /**
-     * True if this card has been activated during harvest
-     */
-    private boolean hasBeenActivated;
-
     public BuildingCard(String name, RequiredResourceSet requiredResourceSet, int period,
                         List<Tuple<RequiredResourceSet, ObtainableResourceSet>> productions,
                         int requiredValueForProduction) {
@@ -102,12 +97,4 @@ public class BuildingCard extends DevelopmentCard {
     public ActionType getCardTakingActionType() {
         return ActionType.TAKE_BUILDING_CARD;
     }
-
-    public boolean hasBeenActivated() {
-        return hasBeenActivated;
-    }
-
-    public void setActivated(boolean hasBeenActivated) {
-        this.hasBeenActivated = hasBeenActivated;
-    }
 }
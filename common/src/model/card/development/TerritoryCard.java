@@ -22,11 +22,6 @@ public class TerritoryCard extends DevelopmentCard {
      */
     private int requiredValueForHarvest;
 
-    /**
-     * True if this card has been activated during harvest
-     */
-    private boolean hasBeenActivated;
-
     private TerritoryCard() {
         super();
     }
@@ -81,14 +76,6 @@ public class TerritoryCard extends DevelopmentCard {
         return string.toString();
     }
 
-    public boolean hasBeenActivated() {
-        return hasBeenActivated;
-    }
-
-    public void setActivated(boolean hasBeenActivated) {
-        this.hasBeenActivated = hasBeenActivated;
-    }
-
     public static class InstanceCreator implements com.google.gson.InstanceCreator<TerritoryCard> {
         @Override
         public TerritoryCard createInstance(Type type) {
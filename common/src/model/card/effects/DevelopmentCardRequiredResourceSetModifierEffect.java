@@ -68,6 +68,14 @@ public class DevelopmentCardRequiredResourceSetModifierEffect implements EffectI
         }
     }
 
+    public RequiredResourceSet getDiscount() {
+        return discount;
+    }
+
+    public Class<? extends DevelopmentCard> getCardType() {
+        return cardType;
+    }
+
     @Override
     public String toString() {
         return "you get a discount of " + discount + " when you take a " + cardType.getSimpleName();
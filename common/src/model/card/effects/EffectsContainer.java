@@ -1,6 +1,7 @@
 package model.card.effects;
 
 import model.card.effects.interfaces.EffectInterface;
+import model.card.effects.interfaces.OncePerRoundEffectInterface;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -28,6 +29,25 @@ public class EffectsContainer implements Serializable {
         effects.add(effect);
     }
 
+    /**
+     * Returns a copy of the container: the effects that keep track of their activations are copied,
+     * the others (which are never modified) are shared
+     *
+     * @return the copy of the container
+     */
+    public EffectsContainer copy() {
+        EffectsContainer copy = new EffectsContainer();
+        for (EffectInterface effect : effects) {
+            if (effect instanceof OncePerRoundEffectInterface) {
+                copy.addEffect(((OncePerRoundEffectInterface) effect).copy());
+            }
+            else {
+                copy.addEffect(effect);
+            }
+        }
+        return copy;
+    }
+
     /**
      * Returns all the effects
      * @return
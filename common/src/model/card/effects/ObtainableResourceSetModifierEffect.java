@@ -49,6 +49,14 @@ public class ObtainableResourceSetModifierEffect implements EffectInterface {
         return clonedResourceSet;
     }
 
+    public ObtainableResource getResourceToModify() {
+        return resourceToModify;
+    }
+
+    public int getModifier() {
+        return modifier;
+    }
+
     @Override
     public String toString() {
         if (modifier > 0) {
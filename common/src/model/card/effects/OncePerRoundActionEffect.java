@@ -47,6 +47,11 @@ public class OncePerRoundActionEffect implements OncePerRoundEffectInterface {
         lastActivatedAt = currentTurn;
     }
 
+    @Override
+    public OncePerRoundActionEffect copy() {
+        return new OncePerRoundActionEffect(actionType, actionValue);
+    }
+
     @Override
     public String toString() {
         return "once per round perform a " + actionType + " with value " + actionValue + " without placing a Family Member";
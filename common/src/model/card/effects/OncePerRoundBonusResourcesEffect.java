@@ -32,6 +32,11 @@ public class OncePerRoundBonusResourcesEffect implements OncePerRoundEffectInter
         lastActivatedAt = currentTurn;
     }
 
+    @Override
+    public OncePerRoundBonusResourcesEffect copy() {
+        return new OncePerRoundBonusResourcesEffect(resources);
+    }
+
     @Override
     public String toString() {
         return "once per round receive " + resources;
@@ -58,6 +58,11 @@ public class OncePerRoundFamilyMemberValueSetterEffect implements OncePerRoundEf
         lastActivatedAt = currentTurn;
     }
 
+    @Override
+    public OncePerRoundFamilyMemberValueSetterEffect copy() {
+        return new OncePerRoundFamilyMemberValueSetterEffect(allowedFamilyMemberColor, value);
+    }
+
     @Override
     public String toString() {
         return "once per round choose one of the " + allowedFamilyMemberColor.toString() + " Family Members to have value of " + value + ", regardless of its die";
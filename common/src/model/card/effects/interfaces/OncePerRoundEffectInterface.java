@@ -18,4 +18,12 @@ public interface OncePerRoundEffectInterface extends EffectInterface {
      * @param currentTurn
      */
     void markActivated(int currentTurn);
+
+    /**
+     * Returns a copy of the effect that has not been activated yet,
+     * so that each game can track the activations of its own cards
+     *
+     * @return the copy of the effect
+     */
+    OncePerRoundEffectInterface copy();
 }
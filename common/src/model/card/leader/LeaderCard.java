@@ -16,6 +16,13 @@ public class LeaderCard extends Card implements Serializable {
         super(name, requiredResourceSet);
     }
 
+    /**
+     * Copy constructor
+     */
+    public LeaderCard(LeaderCard leaderCard) {
+        super(leaderCard);
+    }
+
     @Override
     public String toString() {
         StringBuilder string = new StringBuilder(getName());
@@ -0,0 +1,92 @@
+package model.player;
+
+import model.card.effects.interfaces.EffectInterface;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * This class indexes the effects of a player by the interface they implement.
+ * <p>
+ * The list of effects implementing an interface is built the first time it's requested,
+ * so that every following lookup is a map access that doesn't allocate.
+ * The effects are always in the order of {@link Player#getAllEffects()}, which matters to the effects
+ * applied in sequence, like the modifiers of the resources: when the player gets new effects
+ * (from cards, leader cards or excommunications) or loses them (when a move is rolled back) only the lists
+ * of the interfaces they implement are discarded, and built again in that order when requested.
+ * The returned lists are never modified, so it's safe to keep iterating a list while the player gets new effects.
+ */
+class EffectIndex {
+    private final Map<Class<?>, List<EffectInterface>> effectsByInterface = new HashMap<>();
+
+    /**
+     * Supplies all the effects of the player, called the first time an interface is requested
+     */
+    private final Supplier<List<EffectInterface>> allEffects;
+
+    EffectIndex(Supplier<List<EffectInterface>> allEffects) {
+        this.allEffects = allEffects;
+    }
+
+    /**
+     * Returns the effects implementing the given interface
+     *
+     * @param effectInterface the interface
+     * @param <T> the interface
+     * @return an unmodifiable list of the effects implementing the interface
+     */
+    @SuppressWarnings("unchecked")
+    <T extends EffectInterface> List<T> get(Class<T> effectInterface) {
+        List<EffectInterface> effects = effectsByInterface.get(effectInterface);
+        if (effects == null) {
+            List<EffectInterface> matching = new ArrayList<>();
+            for (EffectInterface effect : allEffects.get()) {
+                if (effectInterface.isInstance(effect)) {
+                    matching.add(effect);
+                }
+            }
+            effects = matching.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(matching);
+            effectsByInterface.put(effectInterface, effects);
+        }
+        return (List<T>) effects;
+    }
+
+    /**
+     * Discards the lists the new effects of the player belong to.
+     * Appending the effects would put them out of order when the player
+     * gets a card of a kind that comes before others in {@link Player#getAllEffects()}.
+     *
+     * @param newEffects the effects the player just got
+     */
+    void add(List<EffectInterface> newEffects) {
+        discardListsOf(newEffects);
+    }
+
+    /**
+     * Discards the lists the removed effects of the player belonged to,
+     * the lists of the other interfaces are still valid
+     *
+     * @param removedEffects the effects the player just lost
+     */
+    void remove(List<EffectInterface> removedEffects) {
+        discardListsOf(removedEffects);
+    }
+
+    private void discardListsOf(List<EffectInterface> effects) {
+        if (effects.isEmpty()) return;
+
+        effectsByInterface.keySet().removeIf(effectInterface -> {
+            for (EffectInterface effect : effects) {
+                if (effectInterface.isInstance(effect)) return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Discards all the lists, they will be built again when requested
+     */
+    void clear() {
+        effectsByInterface.clear();
+    }
+}
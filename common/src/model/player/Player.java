@@ -3,17 +3,22 @@ package model.player;
 import model.Excommunication;
 import model.card.Card;
 import model.card.development.*;
+import model.card.effects.DevelopmentCardRequiredResourceSetModifierEffect;
+import model.card.effects.FloorBonusResourcesSetterEffect;
+import model.card.effects.ObtainableResourceSetModifierEffect;
 import model.card.effects.interfaces.EffectInterface;
 import model.card.leader.LeaderCard;
 import model.resource.ObtainableResourceSet;
 import model.resource.ObtainedResourceSet;
 import model.resource.RequiredResourceSet;
+import model.resource.ResourceModifiers;
 
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 /**
  * This class represents the player state
@@ -58,6 +63,22 @@ public class Player implements Serializable {
      */
     private List<Excommunication> excommunications = new ArrayList<>();
 
+    /**
+     * The ids of the buildings and territories activated in the current production or harvest.
+     * The flags are kept here because the cards are shared between games
+     */
+    private HashSet<UUID> activatedCards = new HashSet<>();
+
+    /**
+     * The index of the effects of the player, built lazily (it's not sent over the network)
+     */
+    private transient EffectIndex effectIndex;
+
+    /**
+     * The effects of the player that modify the resources he obtains and pays, built lazily like the effect index
+     */
+    private transient ResourceModifiers resourceModifiers;
+
     public Player(String username) {
         this.username = username;
     }
@@ -92,6 +113,7 @@ public class Player implements Serializable {
 
     public void setPlayedLeaderCards(List<LeaderCard> playedLeaderCards) {
         this.playedLeaderCards = new ArrayList<>(playedLeaderCards);
+        clearEffects();
     }
 
     public List<TerritoryCard> getTerritories() {
@@ -100,6 +122,7 @@ public class Player implements Serializable {
 
     public void setTerritories(List<TerritoryCard> territories) {
         this.territories = new ArrayList<>(territories);
+        clearEffects();
     }
 
     public List<VentureCard> getVentures() {
@@ -108,6 +131,7 @@ public class Player implements Serializable {
 
     public void setVentures(List<VentureCard> ventures) {
         this.ventures = new ArrayList<>(ventures);
+        clearEffects();
     }
 
     public List<BuildingCard> getBuildings() {
@@ -116,6 +140,7 @@ public class Player implements Serializable {
 
     public void setBuildings(List<BuildingCard> buildings) {
         this.buildings = new ArrayList<>(buildings);
+        clearEffects();
     }
 
     public List<CharacterCard> getCharacters() {
@@ -124,6 +149,7 @@ public class Player implements Serializable {
 
     public void setCharacters(List<CharacterCard> characters) {
         this.characters = new ArrayList<>(characters);
+        clearEffects();
     }
 
     public PersonalBonusTile getBonusTile() {
@@ -140,6 +166,7 @@ public class Player implements Serializable {
 
     public void setExcommunications(List<Excommunication> excommunications) {
         this.excommunications = new ArrayList<>(excommunications);
+        clearEffects();
     }
 
     public int getSpentServants() {
@@ -150,6 +177,19 @@ public class Player implements Serializable {
         this.spentServants = spentServants;
     }
 
+    public boolean hasActivated(DevelopmentCard card) {
+        return activatedCards.contains(card.getId());
+    }
+
+    public void setActivated(DevelopmentCard card, boolean activated) {
+        if (activated) {
+            activatedCards.add(card.getId());
+        }
+        else {
+            activatedCards.remove(card.getId());
+        }
+    }
+
     public ObtainedResourceSet getResources() {
         return resources;
     }
@@ -194,20 +234,17 @@ public class Player implements Serializable {
     }
 
     /**
-     * Shortcut to get all the effects implementing a given interface
+     * Shortcut to get all the effects implementing a given interface.
+     * The effects are indexed, so this method is cheap to call repeatedly.
+     * The index is updated by addDevelopmentCard(), addExcommunication(), playLeaderCard() and the setters:
+     * cards or excommunications added by modifying the lists returned by the getters are not seen.
+     *
      * @param effectInterface
      * @param <T>
-     * @return
+     * @return an unmodifiable list of the effects implementing the interface
      */
     public <T extends EffectInterface> List<T> getEffectsImplementing(Class<T> effectInterface) {
-        List<T> effects = new ArrayList<>();
-        excommunications.forEach(excommunication -> effects.addAll(excommunication.getEffectsContainer().getEffectsImplementing(effectInterface)));
-        playedLeaderCards.forEach(card -> effects.addAll(card.getEffectsContainer().getEffectsImplementing(effectInterface)));
-        territories.forEach(card -> effects.addAll(card.getEffectsContainer().getEffectsImplementing(effectInterface)));
-        characters.forEach(card -> effects.addAll(card.getEffectsContainer().getEffectsImplementing(effectInterface)));
-        buildings.forEach(card -> effects.addAll(card.getEffectsContainer().getEffectsImplementing(effectInterface)));
-        ventures.forEach(card -> effects.addAll(card.getEffectsContainer().getEffectsImplementing(effectInterface)));
-        return effects;
+        return getEffectIndex().get(effectInterface);
     }
 
     /**
@@ -275,5 +312,97 @@ public class Player implements Serializable {
         else if(card instanceof BuildingCard) buildings.add((BuildingCard)card);
         else if(card instanceof CharacterCard) characters.add((CharacterCard)card);
         else if(card instanceof VentureCard) ventures.add((VentureCard)card);
+        addEffects(card.getEffectsContainer().getEffects());
+    }
+
+    /**
+     * Removes a development card from the player
+     * @param card
+     */
+    public void removeDevelopmentCard(DevelopmentCard card) {
+        if(card instanceof TerritoryCard) territories.remove(card);
+        else if(card instanceof BuildingCard) buildings.remove(card);
+        else if(card instanceof CharacterCard) characters.remove(card);
+        else if(card instanceof VentureCard) ventures.remove(card);
+        removeEffects(card.getEffectsContainer().getEffects());
+    }
+
+    /**
+     * Adds an excommunication to the player
+     * @param excommunication
+     */
+    public void addExcommunication(Excommunication excommunication) {
+        excommunications.add(excommunication);
+        addEffects(excommunication.getEffectsContainer().getEffects());
+    }
+
+    /**
+     * Removes an excommunication from the player
+     * @param excommunication
+     */
+    public void removeExcommunication(Excommunication excommunication) {
+        excommunications.remove(excommunication);
+        removeEffects(excommunication.getEffectsContainer().getEffects());
+    }
+
+    /**
+     * Moves a leader card from the available to the played leader cards
+     * @param leaderCard
+     */
+    public void playLeaderCard(LeaderCard leaderCard) {
+        availableLeaderCards.remove(leaderCard);
+        playedLeaderCards.add(leaderCard);
+        addEffects(leaderCard.getEffectsContainer().getEffects());
+    }
+
+    /**
+     * Returns the modifiers of the bonuses and of the card costs given by the effects of the player.
+     * Like the effect index, they're built again only when the player gets or loses effects that modify resources.
+     *
+     * @return the resource modifiers of the player
+     */
+    public ResourceModifiers getResourceModifiers() {
+        if (resourceModifiers == null) {
+            resourceModifiers = ResourceModifiers.of(getEffectsImplementing(FloorBonusResourcesSetterEffect.class),
+                                                     getEffectsImplementing(ObtainableResourceSetModifierEffect.class),
+                                                     getEffectsImplementing(DevelopmentCardRequiredResourceSetModifierEffect.class));
+        }
+        return resourceModifiers;
+    }
+
+    private void addEffects(List<EffectInterface> newEffects) {
+        getEffectIndex().add(newEffects);
+        discardResourceModifiers(newEffects);
+    }
+
+    private void removeEffects(List<EffectInterface> removedEffects) {
+        getEffectIndex().remove(removedEffects);
+        discardResourceModifiers(removedEffects);
+    }
+
+    /**
+     * Discards the resource modifiers only if one of the effects is folded into them
+     */
+    private void discardResourceModifiers(List<EffectInterface> effects) {
+        for (EffectInterface effect : effects) {
+            if (effect instanceof FloorBonusResourcesSetterEffect
+                    || effect instanceof ObtainableResourceSetModifierEffect
+                    || effect instanceof DevelopmentCardRequiredResourceSetModifierEffect) {
+                resourceModifiers = null;
+                return;
+            }
+        }
+    }
+
+    private void clearEffects() {
+        getEffectIndex().clear();
+        resourceModifiers = null;
+    }
+
+    private EffectIndex getEffectIndex() {
+        if (effectIndex == null) {
+            effectIndex = new EffectIndex(this::getAllEffects);
+        }
+        return effectIndex;
     }
 }
\ No newline at end of file
@@ -1,6 +1,6 @@
 package model.resource;
 
-import java.io.Serializable;
+import java.io.*;
 import java.util.*;
 
 /**
@@ -8,22 +8,32 @@ import java.util.*;
  */
 public class ObtainableResourceSet implements Serializable {
     /**
-     * The set of static resources
+     * Same as the one of the map based implementation, so that the serialized form stays compatible
      */
-    private Map<ObtainableResource, Integer> obtainedResources = new HashMap<>();
+    private static final long serialVersionUID = -6336253615633216983L;
+
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("obtainedResources", Map.class),
+            new ObjectStreamField("resourceMultipliers", HashMap.class)
+    };
+
+    /**
+     * The set of static resources, indexed by ObtainableResource ordinal
+     */
+    private transient int[] obtainedAmounts = new int[ResourceIndex.OBTAINABLE_COUNT];
 
     /**
      * The set of multiplied obtainedResources.
      * The player gets an ObtainableResourceSet for each RequiredResourceSet he/she has
      */
-    private HashMap<RequiredResourceSet, ObtainableResourceSet> resourceMultipliers = new HashMap<>();
+    private transient HashMap<RequiredResourceSet, ObtainableResourceSet> resourceMultipliers = new HashMap<>();
 
     public ObtainableResourceSet(Map<ObtainableResource, Integer> obtainedResources) {
-        this.obtainedResources = new HashMap<>(obtainedResources);
+        setObtainedResources(obtainedResources);
     }
 
     public ObtainableResourceSet(Map<ObtainableResource, Integer> obtainedResources, Map<RequiredResourceSet, ObtainableResourceSet> resourceMultipliers) {
-        this.obtainedResources = new HashMap<>(obtainedResources);
+        setObtainedResources(obtainedResources);
         this.resourceMultipliers = new HashMap<>(resourceMultipliers);
     }
 
@@ -37,36 +47,27 @@ public class ObtainableResourceSet implements Serializable {
      * @param obtainableResourceSet
      */
     public ObtainableResourceSet(ObtainableResourceSet obtainableResourceSet) {
-        this.obtainedResources = new HashMap<>(obtainableResourceSet.obtainedResources);
+        this.obtainedAmounts = obtainableResourceSet.obtainedAmounts.clone();
         // TODO: 5/25/17 this works until nothing modifies multipliers. Implement proper deep cloning.
         this.resourceMultipliers = new HashMap<>(obtainableResourceSet.resourceMultipliers);
     }
 
-    /*
-    public ObtainableResourceSet(int gold, int wood, int stone, int servants, int councilPrivileges, int militaryPoints,
-                                 int faithPoints, int victoryPoints) {
-        obtainedResources.put(ObtainableResource.GOLD, gold);
-        obtainedResources.put(ObtainableResource.WOOD, wood);
-        obtainedResources.put(ObtainableResource.STONE, stone);
-        obtainedResources.put(ObtainableResource.SERVANTS, servants);
-        obtainedResources.put(ObtainableResource.COUNCIL_PRIVILEGES, councilPrivileges);
-        obtainedResources.put(ObtainableResource.MILITARY_POINTS, militaryPoints);
-        obtainedResources.put(ObtainableResource.FAITH_POINTS, faithPoints);
-        obtainedResources.put(ObtainableResource.VICTORY_POINTS, victoryPoints);
-    }
-    */
-
     public boolean isEmpty() {
-        return (obtainedResources.isEmpty() && resourceMultipliers.isEmpty());
+        if (!resourceMultipliers.isEmpty()) return false;
+        for (int amount : obtainedAmounts) {
+            if (amount != 0) return false;
+        }
+        return true;
     }
 
     @Override
     public String toString() {
         StringBuilder string = new StringBuilder();
-        for (Map.Entry<ObtainableResource, Integer> resource : obtainedResources.entrySet()) {
-            string.append(resource.getValue())
+        for (ObtainableResource resource : ResourceIndex.OBTAINABLE_RESOURCES) {
+            if (obtainedAmounts[resource.ordinal()] == 0) continue;
+            string.append(obtainedAmounts[resource.ordinal()])
                   .append(" ")
-                  .append(resource.getKey())
+                  .append(resource)
                   .append(", ");
         }
         for (Map.Entry<RequiredResourceSet, ObtainableResourceSet> required : resourceMultipliers.entrySet()) {
@@ -87,27 +88,34 @@ public class ObtainableResourceSet implements Serializable {
 
         ObtainableResourceSet otherResourceSet = (ObtainableResourceSet) o;
 
-        // Ensure static obtainedResources are equal
-        Set<ObtainableResource> allResources = new HashSet<>(obtainedResources.keySet());
-        allResources.addAll(otherResourceSet.obtainedResources.keySet());
-        for (ObtainableResource r : allResources) {
-            Integer qty1 = obtainedResources.getOrDefault(r, 0);
-            Integer qty2 = otherResourceSet.obtainedResources.getOrDefault(r, 0);
-            if (!qty1.equals(qty2)) {
-                return false;
-            }
-        }
+        return Arrays.equals(obtainedAmounts, otherResourceSet.obtainedAmounts)
+                && this.resourceMultipliers.equals(otherResourceSet.resourceMultipliers);
+    }
 
-        // Check multipliers
-        return this.resourceMultipliers.equals(otherResourceSet.resourceMultipliers);
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(obtainedAmounts) + resourceMultipliers.hashCode();
     }
 
+    /**
+     * Returns the static resources as a map.
+     * The map is a copy: use setObtainedAmount() or addResource() to modify the set.
+     *
+     * @return a map containing the resources with a non-zero amount
+     */
     public Map<ObtainableResource, Integer> getObtainedResources() {
+        Map<ObtainableResource, Integer> obtainedResources = new EnumMap<>(ObtainableResource.class);
+        for (ObtainableResource resource : ResourceIndex.OBTAINABLE_RESOURCES) {
+            if (obtainedAmounts[resource.ordinal()] != 0) {
+                obtainedResources.put(resource, obtainedAmounts[resource.ordinal()]);
+            }
+        }
         return obtainedResources;
     }
 
     public void setObtainedResources(Map<ObtainableResource, Integer> obtainedResources) {
-        this.obtainedResources = new HashMap<>(obtainedResources);
+        this.obtainedAmounts = new int[ResourceIndex.OBTAINABLE_COUNT];
+        obtainedResources.forEach(this::setObtainedAmount);
     }
 
     public Map<RequiredResourceSet, ObtainableResourceSet> getResourceMultipliers() {
@@ -120,11 +128,20 @@ public class ObtainableResourceSet implements Serializable {
     }
 
     public int getObtainedAmount(ResourceType resourceType) {
-        return obtainedResources.getOrDefault(resourceType, 0);
+        if (!(resourceType instanceof ObtainableResource)) return 0;
+        return obtainedAmounts[((ObtainableResource) resourceType).ordinal()];
     }
 
     public void setObtainedAmount(ObtainableResource resourceType, int requirement) {
-        obtainedResources.put(resourceType, requirement);
+        obtainedAmounts[resourceType.ordinal()] = requirement;
+    }
+
+    /**
+     * @param index an ObtainableResource ordinal
+     * @return the obtained amount of the resource with the given ordinal (multipliers excluded)
+     */
+    int getObtainedAmount(int index) {
+        return obtainedAmounts[index];
     }
 
     /**
@@ -133,8 +150,7 @@ public class ObtainableResourceSet implements Serializable {
      * @param qty
      */
     public void addResource(ObtainableResource resource, int qty) {
-        int newQty = obtainedResources.getOrDefault(resource, 0) + qty;
-        obtainedResources.put(resource, newQty);
+        obtainedAmounts[resource.ordinal()] += qty;
     }
 
     /**
@@ -143,8 +159,7 @@ public class ObtainableResourceSet implements Serializable {
      * @param qty
      */
     public void subtractResource(ObtainableResource resource, int qty) {
-        int newQty = obtainedResources.getOrDefault(resource, 0) - qty;
-        obtainedResources.put(resource, newQty);
+        obtainedAmounts[resource.ordinal()] -= qty;
     }
 
     /**
@@ -153,13 +168,13 @@ public class ObtainableResourceSet implements Serializable {
      */
     public void addResources(ObtainableResourceSet resources) {
         // Add static resources
-        for(ObtainableResource obtainableResource : resources.getObtainedResources().keySet()) {
-            addResource(obtainableResource, resources.getObtainedAmount(obtainableResource));
+        for (int i = 0; i < obtainedAmounts.length; i++) {
+            obtainedAmounts[i] += resources.obtainedAmounts[i];
         }
 
         // Add multipliers
-        for(Map.Entry<RequiredResourceSet, ObtainableResourceSet> multiplier : resources.getResourceMultipliers().entrySet()) {
-            this.resourceMultipliers.put(multiplier.getKey(), multiplier.getValue());
+        if (!resources.resourceMultipliers.isEmpty()) {
+            this.resourceMultipliers.putAll(resources.resourceMultipliers);
         }
     }
 
@@ -169,13 +184,34 @@ public class ObtainableResourceSet implements Serializable {
      */
     public void subtractResources(RequiredResourceSet resources) {
         // Subtract static resources
-        for(ResourceType resourceType : resources.getRequiredResources().keySet()) {
-            if(resourceType instanceof ObtainableResource){
-                ObtainableResource obtainableResource = (ObtainableResource) resourceType;
-                subtractResource(obtainableResource, resources.getRequiredAmount(obtainableResource));
-            }
+        for (int i = 0; i < obtainedAmounts.length; i++) {
+            obtainedAmounts[i] -= resources.getRequiredAmount(i);
         }
 
         // TODO: Remove matching multipliers
     }
+
+    /* ----------------------------------------------------------------
+     * Serialization (same form as the map based implementation)
+     * ---------------------------------------------------------------- */
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("obtainedResources", new HashMap<>(getObtainedResources()));
+        fields.put("resourceMultipliers", resourceMultipliers);
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        Map<ObtainableResource, Integer> obtainedResources = (Map<ObtainableResource, Integer>) fields.get("obtainedResources", null);
+        HashMap<RequiredResourceSet, ObtainableResourceSet> multipliers = (HashMap<RequiredResourceSet, ObtainableResourceSet>) fields.get("resourceMultipliers", null);
+
+        obtainedAmounts = new int[ResourceIndex.OBTAINABLE_COUNT];
+        if (obtainedResources != null) {
+            obtainedResources.forEach(this::setObtainedAmount);
+        }
+        resourceMultipliers = multipliers != null ? multipliers : new HashMap<>();
+    }
 }
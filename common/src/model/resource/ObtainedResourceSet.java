@@ -2,9 +2,7 @@ package model.resource;
 
 import model.player.Player;
 
-import java.io.Serializable;
-import java.util.Arrays;
-import java.util.Comparator;
+import java.io.*;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -12,13 +10,47 @@ import java.util.Map;
  * This class represents a set of resources obtained by a player
  */
 public class ObtainedResourceSet implements Serializable {
+    /**
+     * Same as the one of the map based implementation, so that the serialized form stays compatible
+     */
+    private static final long serialVersionUID = -7287584765225327871L;
+
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("player", Player.class),
+            new ObjectStreamField("resources", Map.class)
+    };
+
+    /**
+     * Maps each RequiredResource (by ordinal) to the ObtainableResource (ordinal) used to fulfill it,
+     * or to NOT_A_RESOURCE if the requirement is on the cards owned by the player
+     */
+    private static final int[] REQUIRED_TO_OBTAINABLE = new int[ResourceIndex.REQUIRED_RESOURCES.length];
+
+    private static final int NOT_A_RESOURCE = -1;
+
+    static {
+        for (RequiredResource requiredResource : ResourceIndex.REQUIRED_RESOURCES) {
+            REQUIRED_TO_OBTAINABLE[requiredResource.ordinal()] = NOT_A_RESOURCE;
+        }
+        REQUIRED_TO_OBTAINABLE[RequiredResource.REQUIRED_MILITARY_POINTS.ordinal()] = ObtainableResource.MILITARY_POINTS.ordinal();
+        REQUIRED_TO_OBTAINABLE[RequiredResource.REQUIRED_FAITH_POINTS.ordinal()] = ObtainableResource.FAITH_POINTS.ordinal();
+        REQUIRED_TO_OBTAINABLE[RequiredResource.REQUIRED_VICTORY_POINTS.ordinal()] = ObtainableResource.VICTORY_POINTS.ordinal();
+        REQUIRED_TO_OBTAINABLE[RequiredResource.REQUIRED_GOLD.ordinal()] = ObtainableResource.GOLD.ordinal();
+        REQUIRED_TO_OBTAINABLE[RequiredResource.REQUIRED_WOOD.ordinal()] = ObtainableResource.WOOD.ordinal();
+        REQUIRED_TO_OBTAINABLE[RequiredResource.REQUIRED_STONE.ordinal()] = ObtainableResource.STONE.ordinal();
+        REQUIRED_TO_OBTAINABLE[RequiredResource.REQUIRED_SERVANTS.ordinal()] = ObtainableResource.SERVANTS.ordinal();
+    }
+
     /**
      * The player owning this resource set.
      * Needed when working with multipliers and requirements
      */
-    private Player player;
+    private transient Player player;
 
-    private Map<ObtainableResource, Integer> resources = new HashMap<>();
+    /**
+     * The amount of each resource, indexed by ObtainableResource ordinal
+     */
+    private transient int[] resources = new int[ResourceIndex.OBTAINABLE_COUNT];
 
     public ObtainedResourceSet(Player player) {
         this.player = player;
@@ -26,7 +58,7 @@ public class ObtainedResourceSet implements Serializable {
 
     public ObtainedResourceSet(Player player, Map<ObtainableResource, Integer> resources) {
         this.player = player;
-        this.resources = new HashMap<>(resources);
+        resources.forEach(this::setResourceQty);
     }
 
     /**
@@ -37,11 +69,11 @@ public class ObtainedResourceSet implements Serializable {
      */
     public ObtainedResourceSet(ObtainedResourceSet otherObtainedResourceSet) {
         this.player = otherObtainedResourceSet.player;
-        this.resources = new HashMap<>(otherObtainedResourceSet.resources);
+        this.resources = otherObtainedResourceSet.resources.clone();
     }
 
     public int getAmount (ObtainableResource resource) {
-        return resources.getOrDefault(resource, 0);
+        return resources[resource.ordinal()];
     }
 
     /**
@@ -50,10 +82,9 @@ public class ObtainedResourceSet implements Serializable {
      * @param qty
      */
     public void addResource(ObtainableResource resource, int qty) {
-        if(resource.equals(ObtainableResource.COUNCIL_PRIVILEGES)) return;
+        if(resource == ObtainableResource.COUNCIL_PRIVILEGES) return;
 
-        int newQty = resources.getOrDefault(resource, 0) + qty;
-        resources.put(resource, newQty);
+        resources[resource.ordinal()] += qty;
     }
 
     /**
@@ -62,10 +93,9 @@ public class ObtainedResourceSet implements Serializable {
      * @param qty
      */
     public void subtractResource(ObtainableResource resource, int qty) {
-        if(resource.equals(ObtainableResource.COUNCIL_PRIVILEGES)) return;
+        if(resource == ObtainableResource.COUNCIL_PRIVILEGES) return;
 
-        int newQty = resources.getOrDefault(resource, 0) - qty;
-        resources.put(resource, newQty);
+        resources[resource.ordinal()] -= qty;
     }
 
     /**
@@ -75,7 +105,7 @@ public class ObtainedResourceSet implements Serializable {
      * @return true if the set has at least the required quantity of the specified resource
      */
     public boolean hasAtLeast(int qty, ObtainableResource resource) {
-        return resources.getOrDefault(resource, 0) >= qty;
+        return resources[resource.ordinal()] >= qty;
     }
 
     /**
@@ -92,23 +122,31 @@ public class ObtainedResourceSet implements Serializable {
      * @param resources
      */
     public void addResources(ObtainableResourceSet resources) {
-        // Copy of the original resources needed to perform calculations on the multipliers
-        Map<ObtainableResource, Integer> originalResources = new HashMap<>(this.resources);
+        Map<RequiredResourceSet, ObtainableResourceSet> multipliers = resources.getResourceMultipliers();
+        if (multipliers.isEmpty()) {
+            addStaticResources(resources, 1);
+            return;
+        }
+
+        // The multipliers are computed on the resources owned before adding anything
+        int[] quantities = new int[multipliers.size()];
+        int i = 0;
+        for (RequiredResourceSet requirement : multipliers.keySet()) {
+            quantities[i++] = divideBy(requirement);
+        }
 
         // Add static resources
         addStaticResources(resources, 1);
 
         // For each RequiredResourceSet in the current ObtainedResourceSet we add the corresponding ObtainableResourceSet
-        for(Map.Entry<RequiredResourceSet, ObtainableResourceSet> multiplier : resources.getResourceMultipliers().entrySet()) {
-            int qtyToAdd = new ObtainedResourceSet(player, originalResources).divideBy(multiplier.getKey());
-            ObtainableResourceSet obtainableResourceSet = multiplier.getValue();
-
+        i = 0;
+        for (ObtainableResourceSet obtainableResourceSet : multipliers.values()) {
             /*
              * Adding only static resources as multipliers covers any sane game configuration,
              * as nesting multipliers probably does not make much sense.
              * TODO: modify game configuration loader so that it is semantically impossible to nest multipliers
              */
-            addStaticResources(obtainableResourceSet, qtyToAdd);
+            addStaticResources(obtainableResourceSet, quantities[i++]);
         }
     }
 
@@ -117,28 +155,37 @@ public class ObtainedResourceSet implements Serializable {
      * @param obtainableResourceSet
      */
     private void addStaticResources(ObtainableResourceSet obtainableResourceSet, int qtyToAdd) {
-        for (ObtainableResource obtainableResource : obtainableResourceSet.getObtainedResources().keySet()) {
-            if(obtainableResource.equals(ObtainableResource.COUNCIL_PRIVILEGES)) continue;
-            addResource(obtainableResource, obtainableResourceSet.getObtainedAmount(obtainableResource) * qtyToAdd);
+        for (int i = 0; i < resources.length; i++) {
+            if (i == ObtainableResource.COUNCIL_PRIVILEGES.ordinal()) continue;
+            resources[i] += obtainableResourceSet.getObtainedAmount(i) * qtyToAdd;
         }
     }
 
+    /**
+     * Sets the quantity of every resource to the one of another set
+     * @param otherObtainedResourceSet
+     */
+    public void setResources(ObtainedResourceSet otherObtainedResourceSet) {
+        System.arraycopy(otherObtainedResourceSet.resources, 0, resources, 0, resources.length);
+    }
+
     /**
      * Sets a resource quantity
      * @param resource
      * @param qty
      */
     public void setResourceQty(ObtainableResource resource, int qty) {
-        resources.put(resource, 0);
+        resources[resource.ordinal()] = qty;
     }
 
     @Override
     public String toString() {
         StringBuilder string = new StringBuilder();
-        for (Map.Entry<ObtainableResource, Integer> resource : resources.entrySet()) {
-            string.append(resource.getValue())
+        for (ObtainableResource resource : ResourceIndex.OBTAINABLE_RESOURCES) {
+            if (resources[resource.ordinal()] == 0) continue;
+            string.append(resources[resource.ordinal()])
                      .append(" ")
-                     .append(resource.getKey())
+                     .append(resource)
                      .append(", ");
         }
 
@@ -153,14 +200,10 @@ public class ObtainedResourceSet implements Serializable {
      * @param resources
      */
     public void subtractResources(RequiredResourceSet resources) {
-        for(ResourceType resourceType : resources.getRequiredResources().keySet()){
-            // We don't subtract requirements, only costs
-            if(resourceType instanceof ObtainableResource) {
-                ObtainableResource resource = (ObtainableResource) resourceType;
-                if(resource.equals(ObtainableResource.COUNCIL_PRIVILEGES)) continue;
-                int newQty = this.resources.getOrDefault(resource, 0) - resources.getRequiredAmount(resource);
-                this.resources.put(resource, newQty);
-            }
+        // We don't subtract requirements, only costs
+        for (int i = 0; i < this.resources.length; i++) {
+            if (i == ObtainableResource.COUNCIL_PRIVILEGES.ordinal()) continue;
+            this.resources[i] -= resources.getRequiredAmount(i);
         }
     }
 
@@ -172,8 +215,12 @@ public class ObtainedResourceSet implements Serializable {
     private int divideBy(RequiredResourceSet requirement) {
         int quotient = Integer.MAX_VALUE;
 
-        for(ResourceType requiredResource : requirement.getRequiredResources().keySet()){
-            int tmpQuotient = divideBy(requiredResource, requirement.getRequiredAmount(requiredResource));
+        for (int i = 0; i < ResourceIndex.COUNT; i++) {
+            int qty = requirement.getRequiredAmount(i);
+            // Missing (or discounted to zero) requirements are always fulfilled
+            if (qty <= 0) continue;
+
+            int tmpQuotient = getAvailableQty(i) / qty;
             if (tmpQuotient < quotient) {
                 quotient = tmpQuotient;
             }
@@ -182,69 +229,66 @@ public class ObtainedResourceSet implements Serializable {
     }
 
     /**
-     * Computes how many times the requirement can be fulfilled by this set
-     * @param requirement
-     * @param qty
+     * Returns the quantity available to fulfill a requirement
+     * @param index the ResourceIndex index of the required resource
      * @return
      */
-    private int divideBy(ResourceType requirement, int qty) {
-        int resourceQty;
+    int getAvailableQty(int index) {
+        if (index < ResourceIndex.OBTAINABLE_COUNT) {
+            return resources[index];
+        }
 
         // If the resource is just requirement we need to translate to the corresponding resource
-        if(requirement instanceof RequiredResource) {
-            RequiredResource requiredResourceType = (RequiredResource) requirement;
-            if (requiredResourceType == RequiredResource.REQUIRED_MILITARY_POINTS) {
-                resourceQty = resources.getOrDefault(ObtainableResource.MILITARY_POINTS, 0);
-            }
-            else if (requiredResourceType == RequiredResource.REQUIRED_FAITH_POINTS) {
-                resourceQty = resources.getOrDefault(ObtainableResource.FAITH_POINTS, 0);
-            }
-            else if (requiredResourceType == RequiredResource.REQUIRED_VICTORY_POINTS) {
-                resourceQty = resources.getOrDefault(ObtainableResource.VICTORY_POINTS, 0);
-            }
-            else if (requiredResourceType == RequiredResource.REQUIRED_GOLD) {
-                resourceQty = resources.getOrDefault(ObtainableResource.GOLD, 0);
-            }
-            else if (requiredResourceType == RequiredResource.REQUIRED_WOOD) {
-                resourceQty = resources.getOrDefault(ObtainableResource.WOOD, 0);
-            }
-            else if (requiredResourceType == RequiredResource.REQUIRED_STONE) {
-                resourceQty = resources.getOrDefault(ObtainableResource.STONE, 0);
-            }
-            else if (requiredResourceType == RequiredResource.REQUIRED_SERVANTS) {
-                resourceQty = resources.getOrDefault(ObtainableResource.SERVANTS, 0);
-            }
-            else if (requiredResourceType == RequiredResource.REQUIRED_BUILDING_CARDS) {
-                resourceQty = player.getBuildings().size();
-            }
-            else if (requiredResourceType == RequiredResource.REQUIRED_CHARACTER_CARDS) {
-                resourceQty = player.getCharacters().size();
-            }
-            else if (requiredResourceType == RequiredResource.REQUIRED_TERRITORY_CARDS) {
-                resourceQty = player.getTerritories().size();
-            }
-            else if (requiredResourceType == RequiredResource.REQUIRED_VENTURE_CARDS) {
-                resourceQty = player.getVentures().size();
-            }
-            else if (requiredResourceType == RequiredResource.REQUIRED_SAME_TYPE_CARDS) {
-                resourceQty = Arrays.asList(player.getBuildings().size(),
-                        player.getCharacters().size(),
-                        player.getTerritories().size(),
-                        player.getVentures().size())
-                                    .stream()
-                                    .max(Comparator.naturalOrder())
-                                    .orElse(0);
-            }
-            else {
-                resourceQty = 0;
-            }
+        RequiredResource requiredResourceType = ResourceIndex.REQUIRED_RESOURCES[index - ResourceIndex.OBTAINABLE_COUNT];
+        int obtainableResource = REQUIRED_TO_OBTAINABLE[requiredResourceType.ordinal()];
+        if (obtainableResource != NOT_A_RESOURCE) {
+            return resources[obtainableResource];
+        }
+
+        switch (requiredResourceType) {
+            case REQUIRED_BUILDING_CARDS:
+                return player.getBuildings().size();
+            case REQUIRED_CHARACTER_CARDS:
+                return player.getCharacters().size();
+            case REQUIRED_TERRITORY_CARDS:
+                return player.getTerritories().size();
+            case REQUIRED_VENTURE_CARDS:
+                return player.getVentures().size();
+            case REQUIRED_SAME_TYPE_CARDS:
+                return Math.max(Math.max(player.getBuildings().size(), player.getCharacters().size()),
+                                Math.max(player.getTerritories().size(), player.getVentures().size()));
+            default:
+                return 0;
         }
-        else {
-            resourceQty = resources.getOrDefault(requirement, 0);
+    }
+
+    /* ----------------------------------------------------------------
+     * Serialization (same form as the map based implementation)
+     * ---------------------------------------------------------------- */
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        Map<ObtainableResource, Integer> resourcesMap = new HashMap<>();
+        for (ObtainableResource resource : ResourceIndex.OBTAINABLE_RESOURCES) {
+            if (resources[resource.ordinal()] != 0) {
+                resourcesMap.put(resource, resources[resource.ordinal()]);
+            }
         }
 
-        return resourceQty / qty;
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("player", player);
+        fields.put("resources", resourcesMap);
+        out.writeFields();
     }
 
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        player = (Player) fields.get("player", null);
+        Map<ObtainableResource, Integer> resourcesMap = (Map<ObtainableResource, Integer>) fields.get("resources", null);
 
+        resources = new int[ResourceIndex.OBTAINABLE_COUNT];
+        if (resourcesMap != null) {
+            resourcesMap.forEach(this::setResourceQty);
+        }
+    }
 }
@@ -1,17 +1,31 @@
 package model.resource;
 
-import java.io.Serializable;
+import java.io.*;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * This interface represents a set of required resources
  */
 public class RequiredResourceSet implements Serializable {
-    private Map<ResourceType, Integer> requiredResources = new HashMap<>();
+    /**
+     * Same as the one of the map based implementation, so that the serialized form stays compatible
+     */
+    private static final long serialVersionUID = -860592093036700162L;
+
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("requiredResources", Map.class)
+    };
+
+    /**
+     * The required amount of each resource, indexed by ResourceIndex
+     */
+    private transient int[] requiredAmounts = new int[ResourceIndex.COUNT];
 
     public RequiredResourceSet(Map<ResourceType, Integer> requiredResources) {
-        this.requiredResources = new HashMap<>(requiredResources);
+        setRequiredResources(requiredResources);
     }
 
     /**
@@ -23,24 +37,27 @@ public class RequiredResourceSet implements Serializable {
      * Copy constructor
      */
     public RequiredResourceSet(RequiredResourceSet requiredResourceSet) {
-        this.requiredResources = new HashMap<>(requiredResourceSet.requiredResources);
-        // TODO: 5/25/17 this works until nothing modifies multipliers. Implement proper deep cloning.
+        this.requiredAmounts = requiredResourceSet.requiredAmounts.clone();
     }
 
     /**
      * @return true if the resource set is empty
      */
     public boolean isEmpty() {
-        return requiredResources.values().stream().allMatch(val -> val.equals(0));
+        for (int amount : requiredAmounts) {
+            if (amount != 0) return false;
+        }
+        return true;
     }
 
     @Override
     public String toString() {
         StringBuilder string = new StringBuilder();
-        for (ResourceType resource : requiredResources.keySet()) {
-            string.append(requiredResources.get(resource).toString())
+        for (int i = 0; i < requiredAmounts.length; i++) {
+            if (requiredAmounts[i] == 0) continue;
+            string.append(requiredAmounts[i])
                      .append(" ")
-                     .append(resource.toString())
+                     .append(ResourceIndex.typeAt(i).toString())
                      .append(", ");
         }
         if (string.lastIndexOf(", ") != -1) {
@@ -55,22 +72,70 @@ public class RequiredResourceSet implements Serializable {
 
         RequiredResourceSet otherResourceSet = (RequiredResourceSet) o;
 
-        return requiredResources.equals(otherResourceSet.requiredResources);
+        return Arrays.equals(requiredAmounts, otherResourceSet.requiredAmounts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(requiredAmounts);
     }
 
+    /**
+     * Returns the required resources as a map.
+     * The map is a copy: use setRequiredAmount() to modify the set.
+     *
+     * @return a map containing the resources with a non-zero amount
+     */
     public Map<ResourceType, Integer> getRequiredResources() {
+        Map<ResourceType, Integer> requiredResources = new LinkedHashMap<>();
+        for (int i = 0; i < requiredAmounts.length; i++) {
+            if (requiredAmounts[i] != 0) {
+                requiredResources.put(ResourceIndex.typeAt(i), requiredAmounts[i]);
+            }
+        }
         return requiredResources;
     }
 
     public void setRequiredResources(Map<ResourceType, Integer> requiredResources) {
-        this.requiredResources = new HashMap<>(requiredResources);
+        this.requiredAmounts = new int[ResourceIndex.COUNT];
+        requiredResources.forEach(this::setRequiredAmount);
     }
 
     public int getRequiredAmount(ResourceType resourceType) {
-        return requiredResources.getOrDefault(resourceType, 0);
+        int index = ResourceIndex.of(resourceType);
+        return index < 0 ? 0 : requiredAmounts[index];
     }
 
     public void setRequiredAmount(ResourceType resourceType, int requirement) {
-        requiredResources.put(resourceType, requirement);
+        requiredAmounts[ResourceIndex.of(resourceType)] = requirement;
+    }
+
+    /**
+     * @param index a ResourceIndex index
+     * @return the required amount of the resource with the given index
+     */
+    int getRequiredAmount(int index) {
+        return requiredAmounts[index];
+    }
+
+    /* ----------------------------------------------------------------
+     * Serialization (same form as the map based implementation)
+     * ---------------------------------------------------------------- */
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("requiredResources", new HashMap<>(getRequiredResources()));
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        Map<ResourceType, Integer> requiredResources = (Map<ResourceType, Integer>) fields.get("requiredResources", null);
+
+        requiredAmounts = new int[ResourceIndex.COUNT];
+        if (requiredResources != null) {
+            requiredResources.forEach(this::setRequiredAmount);
+        }
     }
 }
@@ -0,0 +1,44 @@
+package model.resource;
+
+/**
+ * This class maps resource types to the indexes of the arrays used by the resource sets.
+ * Obtainable resources come first, followed by the required resources.
+ */
+final class ResourceIndex {
+    static final ObtainableResource[] OBTAINABLE_RESOURCES = ObtainableResource.values();
+    static final RequiredResource[] REQUIRED_RESOURCES = RequiredResource.values();
+
+    static final int OBTAINABLE_COUNT = OBTAINABLE_RESOURCES.length;
+    static final int COUNT = OBTAINABLE_COUNT + REQUIRED_RESOURCES.length;
+
+    /**
+     * This class is not designed to be instantiated
+     */
+    private ResourceIndex() {
+    }
+
+    /**
+     * @param resourceType a resource type
+     * @return the index of the resource type, -1 if it's not a known resource type
+     */
+    static int of(ResourceType resourceType) {
+        if (resourceType instanceof ObtainableResource) {
+            return ((ObtainableResource) resourceType).ordinal();
+        }
+        if (resourceType instanceof RequiredResource) {
+            return OBTAINABLE_COUNT + ((RequiredResource) resourceType).ordinal();
+        }
+        return -1;
+    }
+
+    /**
+     * @param index an index returned by of()
+     * @return the corresponding resource type
+     */
+    static ResourceType typeAt(int index) {
+        if (index < OBTAINABLE_COUNT) {
+            return OBTAINABLE_RESOURCES[index];
+        }
+        return REQUIRED_RESOURCES[index - OBTAINABLE_COUNT];
+    }
+}
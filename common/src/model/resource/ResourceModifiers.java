@@ -0,0 +1,171 @@
+package model.resource;
+
+import model.card.development.DevelopmentCard;
+import model.card.effects.DevelopmentCardRequiredResourceSetModifierEffect;
+import model.card.effects.FloorBonusResourcesSetterEffect;
+import model.card.effects.ObtainableResourceSetModifierEffect;
+
+import java.util.*;
+
+/**
+ * This class folds the effects of a player that modify the resources he obtains and pays
+ * (FloorBonusResourcesSetterEffect, ObtainableResourceSetModifierEffect and DevelopmentCardRequiredResourceSetModifierEffect)
+ * into arrays indexed like the resource sets, so that applying all of them to a bonus or to a cost
+ * is a single pass that doesn't allocate, instead of a copy of the resource set for each effect.
+ * <p>
+ * The result is the same as applying the effects one by one in the order of the player effects:
+ * the last bonus setter replaces the bonus, then all the obtainable resource modifiers are added,
+ * and each discount on a card type changes only the resources still required by the cost.
+ * <p>
+ * The modifiers are immutable: the player builds them again when he gets new effects.
+ */
+public final class ResourceModifiers {
+    private static final int[] NO_DISCOUNTS = new int[0];
+
+    /**
+     * The bonus obtained instead of the one of the floors, null if the bonus is not replaced
+     */
+    private final ObtainableResourceSet bonusReplacement;
+
+    /**
+     * The sum of the modifiers of each obtainable resource, indexed by ObtainableResource ordinal,
+     * null if no resource is modified
+     */
+    private final int[] obtainedModifiers;
+
+    /**
+     * The discounts for each card type: for each ResourceIndex index, the non-zero discounts in the order of the effects
+     */
+    private final Map<Class<? extends DevelopmentCard>, int[][]> discountsByCardType;
+
+    private ResourceModifiers(ObtainableResourceSet bonusReplacement, int[] obtainedModifiers,
+                              Map<Class<? extends DevelopmentCard>, int[][]> discountsByCardType) {
+        this.bonusReplacement = bonusReplacement;
+        this.obtainedModifiers = obtainedModifiers;
+        this.discountsByCardType = discountsByCardType;
+    }
+
+    /**
+     * Builds the modifiers from the effects of a player
+     *
+     * @param bonusSetterEffects the floor bonus setter effects, in the order of the player effects
+     * @param obtainedModifierEffects the obtainable resource modifier effects
+     * @param costModifierEffects the development card cost modifier effects, in the order of the player effects
+     * @return the modifiers
+     */
+    public static ResourceModifiers of(List<FloorBonusResourcesSetterEffect> bonusSetterEffects,
+                                       List<ObtainableResourceSetModifierEffect> obtainedModifierEffects,
+                                       List<DevelopmentCardRequiredResourceSetModifierEffect> costModifierEffects) {
+        ObtainableResourceSet bonusReplacement = null;
+        for (FloorBonusResourcesSetterEffect e : bonusSetterEffects) {
+            bonusReplacement = e.setObtainedResourceSet();
+        }
+
+        int[] obtainedModifiers = null;
+        for (ObtainableResourceSetModifierEffect e : obtainedModifierEffects) {
+            if (obtainedModifiers == null) obtainedModifiers = new int[ResourceIndex.OBTAINABLE_COUNT];
+            obtainedModifiers[e.getResourceToModify().ordinal()] += e.getModifier();
+        }
+
+        Map<Class<? extends DevelopmentCard>, int[][]> discountsByCardType = new HashMap<>();
+        for (DevelopmentCardRequiredResourceSetModifierEffect e : costModifierEffects) {
+            int[][] discounts = discountsByCardType.computeIfAbsent(e.getCardType(), cardType -> {
+                int[][] empty = new int[ResourceIndex.COUNT][];
+                Arrays.fill(empty, NO_DISCOUNTS);
+                return empty;
+            });
+            for (int i = 0; i < ResourceIndex.COUNT; i++) {
+                int discount = e.getDiscount().getRequiredAmount(i);
+                if (discount == 0) continue;
+                discounts[i] = Arrays.copyOf(discounts[i], discounts[i].length + 1);
+                discounts[i][discounts[i].length - 1] = discount;
+            }
+        }
+
+        return new ResourceModifiers(bonusReplacement, obtainedModifiers, discountsByCardType);
+    }
+
+    /**
+     * Returns the bonus a player actually obtains instead of the given one
+     *
+     * @param bonus the bonus of an action space
+     * @return the modified bonus, the bonus itself if it's not modified
+     */
+    public ObtainableResourceSet getEffectiveBonus(ObtainableResourceSet bonus) {
+        ObtainableResourceSet effectiveBonus = bonusReplacement != null ? bonusReplacement : bonus;
+        if (obtainedModifiers == null) return effectiveBonus;
+
+        effectiveBonus = new ObtainableResourceSet(effectiveBonus);
+        for (int i = 0; i < obtainedModifiers.length; i++) {
+            if (obtainedModifiers[i] != 0) {
+                effectiveBonus.addResource(ResourceIndex.OBTAINABLE_RESOURCES[i], obtainedModifiers[i]);
+            }
+        }
+        return effectiveBonus;
+    }
+
+    /**
+     * Adds the bonus a player actually obtains to a resource set, without building the modified bonus
+     *
+     * @param resources the resources of the player
+     * @param bonus the bonus of an action space
+     */
+    public void addEffectiveBonus(ObtainedResourceSet resources, ObtainableResourceSet bonus) {
+        resources.addResources(bonusReplacement != null ? bonusReplacement : bonus);
+        if (obtainedModifiers == null) return;
+
+        for (int i = 0; i < obtainedModifiers.length; i++) {
+            if (obtainedModifiers[i] != 0) {
+                resources.addResource(ResourceIndex.OBTAINABLE_RESOURCES[i], obtainedModifiers[i]);
+            }
+        }
+    }
+
+    /**
+     * @param resources the resources of the player
+     * @param cost a cost of the card
+     * @param card the card
+     * @return true if the resources cover the cost of the card after the discounts
+     */
+    public boolean canPay(ObtainedResourceSet resources, RequiredResourceSet cost, DevelopmentCard card) {
+        int[][] discounts = discountsByCardType.get(card.getClass());
+        if (discounts == null) return resources.has(cost);
+
+        for (int i = 0; i < ResourceIndex.COUNT; i++) {
+            int qty = applyDiscounts(cost.getRequiredAmount(i), discounts[i]);
+            // Missing (or discounted to zero) requirements are always fulfilled
+            if (qty > 0 && resources.getAvailableQty(i) < qty) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Subtracts the cost of the card after the discounts from the resources
+     *
+     * @param resources the resources of the player
+     * @param cost a cost of the card
+     * @param card the card
+     */
+    public void pay(ObtainedResourceSet resources, RequiredResourceSet cost, DevelopmentCard card) {
+        int[][] discounts = discountsByCardType.get(card.getClass());
+        if (discounts == null) {
+            resources.subtractResources(cost);
+            return;
+        }
+
+        // We don't subtract requirements, only costs
+        for (int i = 0; i < ResourceIndex.OBTAINABLE_COUNT; i++) {
+            resources.subtractResource(ResourceIndex.OBTAINABLE_RESOURCES[i], applyDiscounts(cost.getRequiredAmount(i), discounts[i]));
+        }
+    }
+
+    /**
+     * A discount changes only the resources that are still required, as the effects do
+     */
+    private static int applyDiscounts(int amount, int[] discounts) {
+        for (int discount : discounts) {
+            if (amount != 0) amount += discount;
+        }
+        return amount;
+    }
+}
@@ -98,5 +98,14 @@ public interface ClientToServerInterface extends Remote {
 
     void decideExcommunication(Boolean beExcommunicated) throws RemoteException, ActionNotAllowedException;
 
+    /**
+     * Ask the server to send the game configuration again, with the game as it is now,
+     * used when the client detects it missed a state delta (and the events sent with it)
+     *
+     * @throws RemoteException
+     * @throws ActionNotAllowedException if the game has not started yet
+     */
+    void requestResync() throws RemoteException, ActionNotAllowedException;
+
     // void activateOncePerRoundEffect(Card card, OncePerRoundEffectInterface effect) throws RemoteException, ActionNotAllowedException;
 }
@@ -1,7 +1,5 @@
 package network;
 
-import gamecontroller.GameEventsInterface;
-import model.Game;
 import model.card.leader.LeaderCard;
 import model.player.PersonalBonusTile;
 
@@ -11,9 +9,12 @@ import java.util.List;
 import java.util.UUID;
 
 /**
- * This interface specifies the server to client methods
+ * This interface specifies the server to client methods.
+ * <p>
+ * The game events are not sent as method calls: they are encoded with {@link network.codec.GameEventEncoder}
+ * and delivered through {@link #onGameEvent(byte[])}.
  */
-public interface ServerToClientInterface extends GameEventsInterface, Remote {
+public interface ServerToClientInterface extends Remote {
     /**
      * Used to ping the clients periodically to check it's alive and avoid connection loss due to NATs
      *
@@ -63,9 +64,27 @@ public interface ServerToClientInterface extends GameEventsInterface, Remote {
     void showWaitingMessage(String message) throws RemoteException;
 
     /**
-     * Called when the server sends game configuration to a player
-     * @param game
+     * Called when the server sends game configuration to a player, when the game starts
+     * and again when the player has to get the whole game (after a missed state delta or a reconnection)
+     *
+     * @param configuration the game, serialized with {@link network.sync.GameConfiguration#serialize}
+     * @throws RemoteException
+     */
+    void setGameConfiguration(byte[] configuration) throws RemoteException;
+
+    /**
+     * Called when a game event happens
+     *
+     * @param event the event, encoded with {@link network.codec.GameEventEncoder}
+     * @throws RemoteException
+     */
+    void onGameEvent(byte[] event) throws RemoteException;
+
+    /**
+     * Called when the mutable parts of the game state change
+     *
+     * @param delta the changes, encoded with {@link network.sync.GameStateDelta#encode()}
      * @throws RemoteException
      */
-    void setGameConfiguration(Game game) throws RemoteException;
+    void onGameStateDelta(byte[] delta) throws RemoteException;
 }
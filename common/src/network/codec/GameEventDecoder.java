@@ -0,0 +1,129 @@
+package network.codec;
+
+import gamecontroller.GameEventsInterface;
+import model.player.FamilyMemberColor;
+import model.resource.ObtainableResourceSet;
+
+import java.io.IOException;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This class decodes the events encoded by {@link GameEventEncoder}
+ * and calls the corresponding method of a {@link GameEventsInterface}
+ */
+public class GameEventDecoder {
+    private final GameObjectIds ids;
+
+    public GameEventDecoder(GameObjectIds ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * Decodes an event and forwards it to the listener
+     *
+     * @param event    the encoded event
+     * @param listener the object handling the event
+     * @throws IOException     if the event is not valid or has been encoded with a different protocol version
+     * @throws RemoteException if thrown by the listener
+     */
+    public void decode(byte[] event, GameEventsInterface listener) throws IOException {
+        WireReader reader = new WireReader(event);
+
+        int version = reader.readByte();
+        if (version != GameEventEncoder.VERSION) {
+            throw new IOException("Unsupported protocol version " + version);
+        }
+
+        GameEventType eventType = reader.readEnum(GameEventType.values());
+        try {
+            dispatch(eventType, reader, listener);
+        }
+        catch (IllegalArgumentException e) {
+            throw new IOException("Invalid id in " + eventType + " event", e);
+        }
+    }
+
+    private void dispatch(GameEventType eventType, WireReader reader, GameEventsInterface listener) throws IOException {
+        switch (eventType) {
+            case PREPARE_NEW_ROUND:
+                listener.onPrepareNewRound();
+                break;
+
+            case CARDS_DRAWN:
+                listener.onCardsDrawn(readCards(reader), readCards(reader), readCards(reader), readCards(reader));
+                break;
+
+            case DICE_THROWN:
+                listener.onDiceThrown(reader.readVarInt(), reader.readVarInt(), reader.readVarInt());
+                break;
+
+            case PLAYER_TURN_STARTED:
+                listener.onPlayerTurnStarted(readUsername(reader));
+                break;
+
+            case PLAYER_OCCUPIES_ACTION_SPACE: {
+                String username = readUsername(reader);
+                UUID actionSpaceId = ids.getActionSpace(reader.readVarInt());
+                FamilyMemberColor familyMemberColor = reader.readEnum(FamilyMemberColor.values());
+                List<ObtainableResourceSet> councilPrivileges = reader.readObtainableResourceSets();
+                listener.onPlayerOccupiesActionSpace(username, actionSpaceId, familyMemberColor, councilPrivileges);
+                break;
+            }
+
+            case PLAYER_OCCUPIES_FLOOR: {
+                String username = readUsername(reader);
+                UUID floorId = ids.getFloor(reader.readVarInt());
+                FamilyMemberColor familyMemberColor = reader.readEnum(FamilyMemberColor.values());
+                List<ObtainableResourceSet> chosenPrivileges = reader.readObtainableResourceSets();
+                listener.onPlayerOccupiesFloor(username, floorId, familyMemberColor, chosenPrivileges, reader.readRequiredResourceSet());
+                break;
+            }
+
+            case PLAYER_TAKES_DEVELOPMENT_CARD: {
+                String username = readUsername(reader);
+                UUID cardId = ids.getCard(reader.readVarInt());
+                listener.onPlayerTakesDevelopmentCard(username, cardId, reader.readObtainableResourceSets());
+                break;
+            }
+
+            case PLAYER_SPENDS_SERVANTS: {
+                String username = readUsername(reader);
+                listener.onPlayerSpendsServants(username, reader.readSignedVarInt());
+                break;
+            }
+
+            case START_VATICAN_REPORT:
+                listener.onStartVaticanReport();
+                break;
+
+            case PLAYER_DECIDES_EXCOMMUNICATION: {
+                String username = readUsername(reader);
+                listener.onPlayerDecidesExcommunication(username, reader.readBoolean());
+                break;
+            }
+
+            case GAME_END:
+                listener.onGameEnd();
+                break;
+
+            default:
+                throw new IOException("Unknown event " + eventType);
+        }
+    }
+
+    private String readUsername(WireReader reader) throws IOException {
+        return ids.getUsername(reader.readVarInt());
+    }
+
+    private List<UUID> readCards(WireReader reader) throws IOException {
+        int size = reader.readVarInt();
+        List<UUID> cards = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            cards.add(ids.getCard(reader.readVarInt()));
+        }
+        return cards;
+    }
+}
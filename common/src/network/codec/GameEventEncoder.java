@@ -0,0 +1,109 @@
+package network.codec;
+
+import model.player.FamilyMemberColor;
+import model.resource.ObtainableResourceSet;
+import model.resource.RequiredResourceSet;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This class encodes the game events in a compact binary format.
+ * <p>
+ * Every message starts with the protocol version and the event type,
+ * followed by the event arguments. Players, floors, action spaces and cards are referenced
+ * by the ids assigned by {@link GameObjectIds} instead of their UUIDs.
+ * <p>
+ * The encoded events don't depend on the recipient, so the server encodes each event once
+ * and sends the same bytes to all the players.
+ */
+public class GameEventEncoder {
+    /**
+     * The version of the wire format, incremented on incompatible changes
+     */
+    public static final int VERSION = 1;
+
+    private final GameObjectIds ids;
+
+    public GameEventEncoder(GameObjectIds ids) {
+        this.ids = ids;
+    }
+
+    public byte[] prepareNewRound() {
+        return header(GameEventType.PREPARE_NEW_ROUND).toByteArray();
+    }
+
+    public byte[] cardsDrawn(List<UUID> territoryCards, List<UUID> characterCards, List<UUID> buildingCards, List<UUID> ventureCards) {
+        WireWriter writer = header(GameEventType.CARDS_DRAWN);
+        writeCards(writer, territoryCards);
+        writeCards(writer, characterCards);
+        writeCards(writer, buildingCards);
+        writeCards(writer, ventureCards);
+        return writer.toByteArray();
+    }
+
+    public byte[] diceThrown(int blackDie, int whiteDie, int orangeDie) {
+        return header(GameEventType.DICE_THROWN).writeVarInt(blackDie)
+                                                 .writeVarInt(whiteDie)
+                                                 .writeVarInt(orangeDie)
+                                                 .toByteArray();
+    }
+
+    public byte[] playerTurnStarted(String username) {
+        return header(GameEventType.PLAYER_TURN_STARTED).writeVarInt(ids.getPlayerId(username))
+                                                         .toByteArray();
+    }
+
+    public byte[] playerOccupiesActionSpace(String username, UUID actionSpaceId, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> councilPrivileges) {
+        return header(GameEventType.PLAYER_OCCUPIES_ACTION_SPACE).writeVarInt(ids.getPlayerId(username))
+                                                                  .writeVarInt(ids.getActionSpaceId(actionSpaceId))
+                                                                  .writeByte(familyMemberColor.ordinal())
+                                                                  .writeObtainableResourceSets(councilPrivileges)
+                                                                  .toByteArray();
+    }
+
+    public byte[] playerOccupiesFloor(String username, UUID floorId, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> chosenPrivileges, RequiredResourceSet paymentForCard) {
+        return header(GameEventType.PLAYER_OCCUPIES_FLOOR).writeVarInt(ids.getPlayerId(username))
+                                                           .writeVarInt(ids.getFloorId(floorId))
+                                                           .writeByte(familyMemberColor.ordinal())
+                                                           .writeObtainableResourceSets(chosenPrivileges)
+                                                           .writeRequiredResourceSet(paymentForCard)
+                                                           .toByteArray();
+    }
+
+    public byte[] playerTakesDevelopmentCard(String username, UUID cardId, List<ObtainableResourceSet> councilPrivileges) {
+        return header(GameEventType.PLAYER_TAKES_DEVELOPMENT_CARD).writeVarInt(ids.getPlayerId(username))
+                                                                   .writeVarInt(ids.getCardId(cardId))
+                                                                   .writeObtainableResourceSets(councilPrivileges)
+                                                                   .toByteArray();
+    }
+
+    public byte[] playerSpendsServants(String username, int servants) {
+        return header(GameEventType.PLAYER_SPENDS_SERVANTS).writeVarInt(ids.getPlayerId(username))
+                                                            .writeSignedVarInt(servants)
+                                                            .toByteArray();
+    }
+
+    public byte[] startVaticanReport() {
+        return header(GameEventType.START_VATICAN_REPORT).toByteArray();
+    }
+
+    public byte[] playerDecidesExcommunication(String username, Boolean beExcommunicated) {
+        return header(GameEventType.PLAYER_DECIDES_EXCOMMUNICATION).writeVarInt(ids.getPlayerId(username))
+                                                                    .writeBoolean(beExcommunicated)
+                                                                    .toByteArray();
+    }
+
+    public byte[] gameEnd() {
+        return header(GameEventType.GAME_END).toByteArray();
+    }
+
+    private static WireWriter header(GameEventType eventType) {
+        return new WireWriter().writeByte(VERSION).writeByte(eventType.ordinal());
+    }
+
+    private void writeCards(WireWriter writer, List<UUID> cards) {
+        writer.writeVarInt(cards.size());
+        cards.forEach(card -> writer.writeVarInt(ids.getCardId(card)));
+    }
+}
@@ -0,0 +1,19 @@
+package network.codec;
+
+/**
+ * The game events that can be encoded by {@link GameEventEncoder}.
+ * The ordinal is used as the event tag on the wire, so new events must be added at the end.
+ */
+public enum GameEventType {
+    PREPARE_NEW_ROUND,
+    CARDS_DRAWN,
+    DICE_THROWN,
+    PLAYER_TURN_STARTED,
+    PLAYER_OCCUPIES_ACTION_SPACE,
+    PLAYER_OCCUPIES_FLOOR,
+    PLAYER_TAKES_DEVELOPMENT_CARD,
+    PLAYER_SPENDS_SERVANTS,
+    START_VATICAN_REPORT,
+    PLAYER_DECIDES_EXCOMMUNICATION,
+    GAME_END
+}
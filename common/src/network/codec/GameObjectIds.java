@@ -0,0 +1,147 @@
+package network.codec;
+
+import model.Game;
+import model.board.actionspace.ActionSpace;
+import model.board.actionspace.Floor;
+import model.card.development.DevelopmentCard;
+import model.player.Player;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * This class assigns small integer ids to the players, floors, action spaces and development cards of a game.
+ * <p>
+ * The ids are the positions of the objects in the game when it starts, before any card is drawn.
+ * The table is sent to the clients with the game configuration (see {@link network.sync.GameConfiguration}),
+ * so the ids stay the same when the configuration is sent again in the middle of the game.
+ * <p>
+ * The table also keeps the objects of the game it has been built from,
+ * so that the objects referenced by an id can be retrieved without scanning the game.
+ */
+public class GameObjectIds implements Serializable {
+    private final IdTable<String, Player> players;
+
+    private final IdTable<UUID, Floor> floors;
+
+    private final IdTable<UUID, ActionSpace> actionSpaces;
+
+    private final IdTable<UUID, DevelopmentCard> cards;
+
+    public GameObjectIds(Game game) {
+        players = new IdTable<>(game.getPlayers(), Player::getUsername);
+        floors = new IdTable<>(game.getFloors(), floor -> floor.getId());
+        actionSpaces = new IdTable<>(game.getActionSpaces(), actionSpace -> actionSpace.getId());
+
+        List<DevelopmentCard> developmentCards = new ArrayList<>();
+        developmentCards.addAll(game.getAvailableTerritoryCards());
+        developmentCards.addAll(game.getAvailableCharacterCards());
+        developmentCards.addAll(game.getAvailableBuildingCards());
+        developmentCards.addAll(game.getAvailableVentureCards());
+        cards = new IdTable<>(developmentCards, DevelopmentCard::getId);
+    }
+
+    public int getPlayerId(String username) {
+        return players.getId(username);
+    }
+
+    public String getUsername(int playerId) {
+        return players.get(playerId);
+    }
+
+    public int getFloorId(UUID floorId) {
+        return floors.getId(floorId);
+    }
+
+    public UUID getFloor(int id) {
+        return floors.get(id);
+    }
+
+    public int getActionSpaceId(UUID actionSpaceId) {
+        return actionSpaces.getId(actionSpaceId);
+    }
+
+    public UUID getActionSpace(int id) {
+        return actionSpaces.get(id);
+    }
+
+    public int getCardId(UUID cardId) {
+        return cards.getId(cardId);
+    }
+
+    public UUID getCard(int id) {
+        return cards.get(id);
+    }
+
+    public Player getLocalPlayer(int playerId) {
+        return players.getObject(playerId);
+    }
+
+    public Floor getLocalFloor(int id) {
+        return floors.getObject(id);
+    }
+
+    public ActionSpace getLocalActionSpace(int id) {
+        return actionSpaces.getObject(id);
+    }
+
+    public DevelopmentCard getLocalCard(int id) {
+        return cards.getObject(id);
+    }
+
+    public int getPlayersCount() {
+        return players.size();
+    }
+
+    public int getFloorsCount() {
+        return floors.size();
+    }
+
+    public int getActionSpacesCount() {
+        return actionSpaces.size();
+    }
+
+    /**
+     * A bidirectional mapping between objects and their position in a list
+     *
+     * @param <K> the type of the key identifying the objects
+     * @param <T> the type of the objects
+     */
+    private static class IdTable<K, T> implements Serializable {
+        private final List<K> keys = new ArrayList<>();
+
+        private final List<T> objects = new ArrayList<>();
+
+        private final Map<K, Integer> ids = new HashMap<>();
+
+        <S extends T> IdTable(List<S> objects, Function<S, K> keyExtractor) {
+            for (S object : objects) {
+                K key = keyExtractor.apply(object);
+                ids.put(key, keys.size());
+                keys.add(key);
+                this.objects.add(object);
+            }
+        }
+
+        int getId(K key) {
+            Integer id = ids.get(key);
+            if (id == null) throw new IllegalArgumentException("Unknown object " + key);
+            return id;
+        }
+
+        K get(int id) {
+            if (id < 0 || id >= keys.size()) throw new IllegalArgumentException("Unknown id " + id);
+            return keys.get(id);
+        }
+
+        T getObject(int id) {
+            if (id < 0 || id >= objects.size()) throw new IllegalArgumentException("Unknown id " + id);
+            return objects.get(id);
+        }
+
+        int size() {
+            return keys.size();
+        }
+    }
+}
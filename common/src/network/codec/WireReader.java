@@ -0,0 +1,143 @@
+package network.codec;
+
+import model.resource.ObtainableResource;
+import model.resource.ObtainableResourceSet;
+import model.resource.RequiredResource;
+import model.resource.RequiredResourceSet;
+import model.resource.ResourceType;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class reads the primitive types written by {@link WireWriter}
+ */
+public class WireReader {
+    private final byte[] data;
+
+    private int position;
+
+    public WireReader(byte[] data) {
+        this.data = data;
+    }
+
+    public int readByte() throws IOException {
+        if (position >= data.length) throw new EOFException("Truncated message");
+        return data[position++] & 0xFF;
+    }
+
+    public int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+
+    public int readSignedVarInt() throws IOException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public Boolean readBoolean() throws IOException {
+        int value = readByte();
+        if (value == 2) return null;
+        return value == 1;
+    }
+
+    public long readLong() throws IOException {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | readByte();
+        }
+        return value;
+    }
+
+    public String readString() throws IOException {
+        int length = readVarInt();
+        if (length > data.length - position) throw new EOFException("Truncated message");
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * Reads a length written by {@link WireWriter#writeNullableLength(boolean, int)}
+     *
+     * @return the length, or -1 if the object is null
+     * @throws IOException
+     */
+    public int readNullableLength() throws IOException {
+        return readVarInt() - 1;
+    }
+
+    public <E extends Enum<E>> E readEnum(E[] values) throws IOException {
+        int ordinal = readByte();
+        if (ordinal >= values.length) throw new IOException("Unknown enum value " + ordinal);
+        return values[ordinal];
+    }
+
+    public ResourceType readResourceType() throws IOException {
+        int value = readByte();
+        if ((value & WireWriter.REQUIRED_RESOURCE_FLAG) != 0) {
+            int ordinal = value & ~WireWriter.REQUIRED_RESOURCE_FLAG;
+            if (ordinal >= RequiredResource.values().length) throw new IOException("Unknown resource " + value);
+            return RequiredResource.values()[ordinal];
+        }
+        if (value >= ObtainableResource.values().length) throw new IOException("Unknown resource " + value);
+        return ObtainableResource.values()[value];
+    }
+
+    public ObtainableResourceSet readObtainableResourceSet() throws IOException {
+        int size = readNullableLength();
+        if (size < 0) return null;
+
+        Map<ObtainableResource, Integer> resources = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            ObtainableResource resource = readEnum(ObtainableResource.values());
+            resources.put(resource, readSignedVarInt());
+        }
+
+        int multipliersCount = readVarInt();
+        Map<RequiredResourceSet, ObtainableResourceSet> multipliers = new HashMap<>();
+        for (int i = 0; i < multipliersCount; i++) {
+            RequiredResourceSet multiplier = readRequiredResourceSet();
+            multipliers.put(multiplier, readObtainableResourceSet());
+        }
+        return new ObtainableResourceSet(resources, multipliers);
+    }
+
+    public RequiredResourceSet readRequiredResourceSet() throws IOException {
+        int size = readNullableLength();
+        if (size < 0) return null;
+
+        Map<ResourceType, Integer> resources = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            ResourceType resource = readResourceType();
+            resources.put(resource, readSignedVarInt());
+        }
+        return new RequiredResourceSet(resources);
+    }
+
+    public List<ObtainableResourceSet> readObtainableResourceSets() throws IOException {
+        int size = readNullableLength();
+        if (size < 0) return null;
+
+        List<ObtainableResourceSet> resourceSets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            resourceSets.add(readObtainableResourceSet());
+        }
+        return resourceSets;
+    }
+
+    public boolean hasRemaining() {
+        return position < data.length;
+    }
+}
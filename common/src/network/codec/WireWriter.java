@@ -0,0 +1,145 @@
+package network.codec;
+
+import model.resource.ObtainableResource;
+import model.resource.ObtainableResourceSet;
+import model.resource.RequiredResource;
+import model.resource.RequiredResourceSet;
+import model.resource.ResourceType;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class writes the primitive types of the binary wire format.
+ * <p>
+ * Integers are written as variable length quantities (7 bits per byte), so that the small numbers
+ * used in the game (ids, dice values, resource amounts) take a single byte.
+ * Resources are written using their enum ordinal.
+ */
+public class WireWriter {
+    /**
+     * Added to the ordinal of required resources to tell them apart from obtainable resources
+     */
+    static final int REQUIRED_RESOURCE_FLAG = 0x40;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+
+    public WireWriter writeByte(int value) {
+        out.write(value);
+        return this;
+    }
+
+    /**
+     * Writes a non negative integer using as few bytes as possible
+     *
+     * @param value the value
+     * @return this writer
+     */
+    public WireWriter writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+        return this;
+    }
+
+    /**
+     * Writes an integer that may be negative (zig-zag encoded)
+     *
+     * @param value the value
+     * @return this writer
+     */
+    public WireWriter writeSignedVarInt(int value) {
+        return writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public WireWriter writeBoolean(Boolean value) {
+        if (value == null) return writeByte(2);
+        return writeByte(value ? 1 : 0);
+    }
+
+    public WireWriter writeLong(long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+        return this;
+    }
+
+    public WireWriter writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        out.write(bytes, 0, bytes.length);
+        return this;
+    }
+
+    /**
+     * Writes the length of something that could be null.
+     * Null is written as 0, any other length is incremented by one.
+     *
+     * @param isNull true if the object is null
+     * @param length the length of the object
+     * @return this writer
+     */
+    public WireWriter writeNullableLength(boolean isNull, int length) {
+        return writeVarInt(isNull ? 0 : length + 1);
+    }
+
+    public WireWriter writeResourceType(ResourceType resourceType) {
+        if (resourceType instanceof RequiredResource) {
+            return writeByte(REQUIRED_RESOURCE_FLAG | ((RequiredResource) resourceType).ordinal());
+        }
+        return writeByte(((ObtainableResource) resourceType).ordinal());
+    }
+
+    public WireWriter writeObtainableResourceSet(ObtainableResourceSet resourceSet) {
+        if (resourceSet == null) return writeNullableLength(true, 0);
+
+        Map<ObtainableResource, Integer> resources = resourceSet.getObtainedResources();
+        long nonZero = resources.values().stream().filter(qty -> qty != 0).count();
+        writeNullableLength(false, (int) nonZero);
+        resources.forEach((resource, qty) -> {
+            if (qty != 0) {
+                writeByte(resource.ordinal());
+                writeSignedVarInt(qty);
+            }
+        });
+
+        Map<RequiredResourceSet, ObtainableResourceSet> multipliers = resourceSet.getResourceMultipliers();
+        writeVarInt(multipliers.size());
+        multipliers.forEach((multiplier, multiplied) -> {
+            writeRequiredResourceSet(multiplier);
+            writeObtainableResourceSet(multiplied);
+        });
+        return this;
+    }
+
+    public WireWriter writeRequiredResourceSet(RequiredResourceSet resourceSet) {
+        if (resourceSet == null) return writeNullableLength(true, 0);
+
+        Map<ResourceType, Integer> resources = resourceSet.getRequiredResources();
+        long nonZero = resources.values().stream().filter(qty -> qty != 0).count();
+        writeNullableLength(false, (int) nonZero);
+        resources.forEach((resource, qty) -> {
+            if (qty != 0) {
+                writeResourceType(resource);
+                writeSignedVarInt(qty);
+            }
+        });
+        return this;
+    }
+
+    public WireWriter writeObtainableResourceSets(List<ObtainableResourceSet> resourceSets) {
+        if (resourceSets == null) return writeNullableLength(true, 0);
+
+        writeNullableLength(false, resourceSets.size());
+        resourceSets.forEach(this::writeObtainableResourceSet);
+        return this;
+    }
+
+    public byte[] toByteArray() {
+        return out.toByteArray();
+    }
+}
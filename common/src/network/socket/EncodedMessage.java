@@ -0,0 +1,36 @@
+package network.socket;
+
+/**
+ * This class represents a message that is already encoded in a compact binary format,
+ * and is sent on the socket as it is instead of being serialized
+ */
+public class EncodedMessage {
+    public enum Type {
+        /**
+         * A game event encoded by {@link network.codec.GameEventEncoder}
+         */
+        GAME_EVENT,
+
+        /**
+         * A game state delta encoded by {@link network.sync.GameStateDelta#encode()}
+         */
+        STATE_DELTA
+    }
+
+    private final Type type;
+
+    private final byte[] data;
+
+    public EncodedMessage(Type type, byte[] data) {
+        this.type = type;
+        this.data = data;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+}
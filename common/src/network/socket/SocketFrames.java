@@ -0,0 +1,149 @@
+package network.socket;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Helper methods for the socket protocol.
+ * <p>
+ * Every message is sent as a frame made of a 4 bytes length header, a byte telling the kind of message
+ * and the message itself.
+ * The length prefix allows the non blocking server to know when a whole message has been received
+ * without having to deserialize partial data.
+ * <p>
+ * Game events and state deltas are already encoded in a compact format, so they're sent as they are
+ * instead of being wrapped in a serialized {@link SocketRequest}.
+ */
+public class SocketFrames {
+    /**
+     * The size of the length header
+     */
+    public static final int HEADER_SIZE = 4;
+
+    /**
+     * The payload is a serialized Java object
+     */
+    private static final byte KIND_OBJECT = 0;
+
+    /**
+     * Payloads of other kinds are an {@link EncodedMessage}, the kind is the message type ordinal plus this offset
+     */
+    private static final byte KIND_ENCODED_MESSAGE = 1;
+
+    /**
+     * Frames bigger than this are refused, as they are certainly corrupted or malicious
+     */
+    public static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * This class is not designed to be instantiated
+     */
+    private SocketFrames() {
+    }
+
+    /**
+     * Serializes an object and wraps it in a frame
+     *
+     * @param object the object to send
+     * @return a buffer ready to be written on a channel
+     * @throws IOException if the object cannot be serialized
+     */
+    public static ByteBuffer encode(Serializable object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        // Reserve space for the header, it will be overwritten once the length is known
+        bytes.write(new byte[HEADER_SIZE]);
+        bytes.write(KIND_OBJECT);
+
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+
+        ByteBuffer frame = ByteBuffer.wrap(bytes.toByteArray());
+        frame.putInt(0, frame.limit() - HEADER_SIZE);
+        return frame;
+    }
+
+    /**
+     * Wraps an encoded message in a frame
+     *
+     * @param message the message
+     * @return a buffer ready to be written on a channel
+     */
+    public static ByteBuffer encode(EncodedMessage message) {
+        byte[] data = message.getData();
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + 1 + data.length);
+        frame.putInt(1 + data.length)
+             .put((byte) (KIND_ENCODED_MESSAGE + message.getType().ordinal()))
+             .put(data);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Decodes the payload of a frame
+     *
+     * @param payload the payload, without the length header
+     * @return the object contained in the frame, or an {@link EncodedMessage}
+     * @throws IOException if the payload cannot be decoded
+     */
+    public static Object decode(byte[] payload) throws IOException {
+        int kind = payload[0];
+        if (kind >= KIND_ENCODED_MESSAGE) {
+            EncodedMessage.Type[] types = EncodedMessage.Type.values();
+            if (kind - KIND_ENCODED_MESSAGE >= types.length) throw new IOException("Unknown frame kind " + kind);
+            return new EncodedMessage(types[kind - KIND_ENCODED_MESSAGE], Arrays.copyOfRange(payload, 1, payload.length));
+        }
+        if (kind != KIND_OBJECT) {
+            throw new IOException("Unknown frame kind " + kind);
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload, 1, payload.length - 1))) {
+            return in.readObject();
+        }
+        catch (ClassNotFoundException e) {
+            throw new IOException("Received an unknown object", e);
+        }
+    }
+
+    /**
+     * Writes a frame on a blocking stream
+     *
+     * @param out    the stream
+     * @param object the object to send
+     * @throws IOException
+     */
+    public static void write(OutputStream out, Serializable object) throws IOException {
+        ByteBuffer frame = encode(object);
+        out.write(frame.array(), 0, frame.limit());
+        out.flush();
+    }
+
+    /**
+     * Reads a frame from a blocking stream
+     *
+     * @param in the stream
+     * @return the object contained in the frame, or an {@link EncodedMessage}
+     * @throws IOException if the stream is closed or the frame is not valid
+     */
+    public static Object read(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        checkLength(length);
+
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return decode(payload);
+    }
+
+    /**
+     * Checks that a frame length read from the network is acceptable
+     *
+     * @param length the length read from the header
+     * @throws IOException if the length is not valid
+     */
+    public static void checkLength(int length) throws IOException {
+        if (length <= 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package network.socket;
+
+import java.io.Serializable;
+
+/**
+ * This class represents a method call sent over a socket connection.
+ * It's used in both directions: the client uses it to perform actions on the server
+ * and the server uses it to deliver {@link network.ServerToClientInterface} calls to the client.
+ */
+public class SocketRequest implements Serializable {
+    /**
+     * Requests with this id don't expect a response (e.g. calls from the server to the client)
+     */
+    public static final int NO_RESPONSE = 0;
+
+    /**
+     * The id used to match the response with the request
+     */
+    private final int id;
+
+    /**
+     * The name of the method being called
+     */
+    private final String method;
+
+    /**
+     * The arguments of the call
+     */
+    private final Object[] arguments;
+
+    public SocketRequest(int id, String method, Object... arguments) {
+        this.id = id;
+        this.method = method;
+        this.arguments = arguments;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public Object[] getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Utility method to get an argument already casted to the right type
+     *
+     * @param index the index of the argument
+     * @param <T>   the type of the argument
+     * @return the argument
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getArgument(int index) {
+        return (T) arguments[index];
+    }
+
+    public boolean expectsResponse() {
+        return id != NO_RESPONSE;
+    }
+}
@@ -0,0 +1,33 @@
+package network.socket;
+
+import java.io.Serializable;
+
+/**
+ * This class represents the outcome of a {@link SocketRequest} sent by the client.
+ * If the server refused the action the exception is sent back so that the client
+ * can throw it exactly as it would happen with RMI.
+ */
+public class SocketResponse implements Serializable {
+    /**
+     * The id of the request this response refers to
+     */
+    private final int requestId;
+
+    /**
+     * The exception thrown while serving the request, or null if the request was successful
+     */
+    private final Exception exception;
+
+    public SocketResponse(int requestId, Exception exception) {
+        this.requestId = requestId;
+        this.exception = exception;
+    }
+
+    public int getRequestId() {
+        return requestId;
+    }
+
+    public Exception getException() {
+        return exception;
+    }
+}
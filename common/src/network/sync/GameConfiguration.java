@@ -0,0 +1,78 @@
+package network.sync;
+
+import gamecontroller.GameController;
+import model.Game;
+import network.codec.GameObjectIds;
+
+import java.io.*;
+
+/**
+ * This class represents the game configuration sent to the clients: the whole game with the state of its controller,
+ * the ids of its objects and the sequence number of the last state delta the game includes.
+ * <p>
+ * The configuration is sent when the game starts, serialized once and with the same bytes for all the players,
+ * instead of serializing the whole game graph once per player. After the configuration only
+ * {@link GameStateDelta}s and game events are sent. When a client misses a delta it has missed the events
+ * sent with it too, so the server sends it the configuration of the game as it is at that moment,
+ * which replaces the whole copy of the client. The ids are sent with the game, because they're assigned
+ * when the game starts and can't be computed again from a game whose cards have been drawn.
+ * The state of the controller (the phase of the game, the decisions still pending) is sent with the game,
+ * so that a client that gets the configuration in the middle of a turn or of a vatican report
+ * (e.g. after a restart of the server) goes on with it.
+ */
+public class GameConfiguration {
+    private final GameController gameController;
+
+    private final GameObjectIds ids;
+
+    private final int sequence;
+
+    private GameConfiguration(GameController gameController, GameObjectIds ids, int sequence) {
+        this.gameController = gameController;
+        this.ids = ids;
+        this.sequence = sequence;
+    }
+
+    /**
+     * @param gameController the controller of the game
+     * @param ids the ids of the objects of the game, referencing the objects of the same game
+     * @param sequence the sequence number of the last state delta published before the configuration
+     * @return the serialized configuration
+     * @throws IOException if the game can't be serialized
+     */
+    public static byte[] serialize(GameController gameController, GameObjectIds ids, int sequence) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            // The game and the ids are written to the same stream, so the ids still reference the objects of the game
+            out.writeObject(gameController);
+            out.writeObject(ids);
+            out.writeInt(sequence);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static GameConfiguration deserialize(byte[] configuration) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(configuration))) {
+            return new GameConfiguration((GameController) in.readObject(), (GameObjectIds) in.readObject(), in.readInt());
+        }
+        catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Invalid game configuration", e);
+        }
+    }
+
+    public GameController getGameController() {
+        return gameController;
+    }
+
+    public Game getGame() {
+        return gameController.getGame();
+    }
+
+    public GameObjectIds getIds() {
+        return ids;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,245 @@
+package network.sync;
+
+import model.Game;
+import model.board.actionspace.ActionSpace;
+import model.board.actionspace.Floor;
+import model.player.FamilyMemberColor;
+import model.player.Player;
+import model.resource.ObtainableResource;
+import network.codec.GameObjectIds;
+import network.codec.WireReader;
+import network.codec.WireWriter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class represents the changes of the mutable parts of a game between two {@link GameStateSnapshot}s.
+ * <p>
+ * A delta contains the new values (not the differences), so applying it more than once
+ * or on a game that is already up to date has no effect.
+ * Deltas are numbered: a client that receives a delta whose sequence number isn't the next one
+ * knows it has missed something (the game events sent with the missing delta too)
+ * and asks the server for the game configuration again (see {@link GameConfiguration}).
+ */
+public class GameStateDelta {
+    /**
+     * The version of the wire format, incremented on incompatible changes
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The card id used for floors without a card
+     */
+    public static final int NO_CARD = -1;
+
+    private final int sequence;
+
+    /**
+     * True if the delta contains the whole state, and not just the parts that changed
+     */
+    private final boolean full;
+
+    private final Map<Integer, int[]> playerResources;
+
+    private final Map<Integer, int[]> spaceOccupants;
+
+    private final Map<Integer, Integer> floorCards;
+
+    private final int[] dice;
+
+    private GameStateDelta(Builder builder) {
+        this.sequence = builder.sequence;
+        this.full = builder.full;
+        this.playerResources = Collections.unmodifiableMap(builder.playerResources);
+        this.spaceOccupants = Collections.unmodifiableMap(builder.spaceOccupants);
+        this.floorCards = Collections.unmodifiableMap(builder.floorCards);
+        this.dice = builder.dice;
+    }
+
+    /**
+     * Encodes an occupant of a space as a single number
+     *
+     * @param playerId          the id of the player
+     * @param familyMemberColor the family member used
+     * @return the encoded occupant
+     */
+    static int encodeOccupant(int playerId, FamilyMemberColor familyMemberColor) {
+        return playerId * FamilyMemberColor.values().length + familyMemberColor.ordinal();
+    }
+
+    /**
+     * @return true if nothing changed
+     */
+    public boolean isEmpty() {
+        return playerResources.isEmpty() && spaceOccupants.isEmpty() && floorCards.isEmpty() && dice == null;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    /**
+     * Updates a game with the values contained in the delta
+     *
+     * @param game the game
+     * @param ids  the ids of the game objects, built from the same game
+     */
+    @SuppressWarnings("unchecked") // Floors are generic on the card type, the card ids are assigned from the right decks
+    public void applyTo(Game game, GameObjectIds ids) {
+        ObtainableResource[] resources = ObtainableResource.values();
+        playerResources.forEach((playerId, amounts) -> {
+            Player player = ids.getLocalPlayer(playerId);
+            for (ObtainableResource resource : resources) {
+                player.getResources().setResourceQty(resource, amounts[resource.ordinal()]);
+            }
+        });
+
+        int actionSpaces = ids.getActionSpacesCount();
+        FamilyMemberColor[] familyMemberColors = FamilyMemberColor.values();
+        spaceOccupants.forEach((spaceId, occupants) -> {
+            ActionSpace actionSpace = spaceId < actionSpaces ? ids.getLocalActionSpace(spaceId)
+                                                             : ids.getLocalFloor(spaceId - actionSpaces);
+            actionSpace.removeAllOccupants();
+            for (int occupant : occupants) {
+                actionSpace.addOccupant(ids.getLocalPlayer(occupant / familyMemberColors.length),
+                                        familyMemberColors[occupant % familyMemberColors.length]);
+            }
+        });
+
+        floorCards.forEach((floorId, cardId) -> {
+            Floor floor = ids.getLocalFloor(floorId);
+            floor.setCard(cardId == NO_CARD ? null : ids.getLocalCard(cardId));
+        });
+
+        if (dice != null) {
+            game.setBlackDie(dice[0]);
+            game.setWhiteDie(dice[1]);
+            game.setOrangeDie(dice[2]);
+        }
+    }
+
+    public byte[] encode() {
+        WireWriter writer = new WireWriter().writeByte(VERSION)
+                                            .writeVarInt(sequence)
+                                            .writeBoolean(full);
+
+        writer.writeVarInt(playerResources.size());
+        playerResources.forEach((playerId, amounts) -> {
+            writer.writeVarInt(playerId);
+            writeArray(writer, amounts);
+        });
+
+        writer.writeVarInt(spaceOccupants.size());
+        spaceOccupants.forEach((spaceId, occupants) -> {
+            writer.writeVarInt(spaceId);
+            writeArray(writer, occupants);
+        });
+
+        writer.writeVarInt(floorCards.size());
+        floorCards.forEach((floorId, cardId) -> writer.writeVarInt(floorId).writeSignedVarInt(cardId));
+
+        writer.writeBoolean(dice != null);
+        if (dice != null) writeArray(writer, dice);
+
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decodes a delta encoded by {@link #encode()}
+     *
+     * @param encoded the encoded delta
+     * @return the delta
+     * @throws IOException if the delta is not valid or has been encoded with a different protocol version
+     */
+    public static GameStateDelta decode(byte[] encoded) throws IOException {
+        WireReader reader = new WireReader(encoded);
+
+        int version = reader.readByte();
+        if (version != VERSION) throw new IOException("Unsupported protocol version " + version);
+
+        Builder builder = new Builder(reader.readVarInt(), reader.readBoolean());
+
+        int count = reader.readVarInt();
+        for (int i = 0; i < count; i++) {
+            builder.setPlayerResources(reader.readVarInt(), readArray(reader));
+        }
+
+        count = reader.readVarInt();
+        for (int i = 0; i < count; i++) {
+            builder.setSpaceOccupants(reader.readVarInt(), readArray(reader));
+        }
+
+        count = reader.readVarInt();
+        for (int i = 0; i < count; i++) {
+            builder.setFloorCard(reader.readVarInt(), reader.readSignedVarInt());
+        }
+
+        if (reader.readBoolean()) builder.setDice(readArray(reader));
+
+        return builder.build();
+    }
+
+    private static void writeArray(WireWriter writer, int[] values) {
+        writer.writeVarInt(values.length);
+        for (int value : values) {
+            writer.writeSignedVarInt(value);
+        }
+    }
+
+    private static int[] readArray(WireReader reader) throws IOException {
+        int[] values = new int[reader.readVarInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = reader.readSignedVarInt();
+        }
+        return values;
+    }
+
+    /**
+     * Builder for the deltas, used when comparing snapshots and when decoding
+     */
+    static class Builder {
+        private final int sequence;
+
+        private final boolean full;
+
+        private final Map<Integer, int[]> playerResources = new TreeMap<>();
+
+        private final Map<Integer, int[]> spaceOccupants = new TreeMap<>();
+
+        private final Map<Integer, Integer> floorCards = new TreeMap<>();
+
+        private int[] dice;
+
+        Builder(int sequence, boolean full) {
+            this.sequence = sequence;
+            this.full = full;
+        }
+
+        void setPlayerResources(int playerId, int[] amounts) {
+            playerResources.put(playerId, amounts);
+        }
+
+        void setSpaceOccupants(int spaceId, int[] occupants) {
+            spaceOccupants.put(spaceId, occupants);
+        }
+
+        void setFloorCard(int floorId, int cardId) {
+            floorCards.put(floorId, cardId);
+        }
+
+        void setDice(int[] dice) {
+            this.dice = dice;
+        }
+
+        GameStateDelta build() {
+            return new GameStateDelta(this);
+        }
+    }
+}
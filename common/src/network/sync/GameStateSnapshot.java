@@ -0,0 +1,125 @@
+package network.sync;
+
+import model.Game;
+import model.board.actionspace.ActionSpace;
+import model.board.actionspace.Floor;
+import model.player.FamilyMemberColor;
+import model.player.Player;
+import model.resource.ObtainableResource;
+import model.util.Tuple;
+import network.codec.GameObjectIds;
+
+import java.util.Arrays;
+
+/**
+ * This class is an immutable copy of the mutable parts of a game:
+ * the resources of the players, the occupants of the action spaces and floors,
+ * the cards in the towers and the dice.
+ * <p>
+ * Everything is referenced by the ids assigned by {@link GameObjectIds}, so snapshots are cheap
+ * to take and to compare. The difference between two snapshots is a {@link GameStateDelta}.
+ * The rest of the game (round, turn order, current player, cards taken, family members placed)
+ * is changed by the game events, so a client that misses a delta gets the whole {@link GameConfiguration} again.
+ */
+public class GameStateSnapshot {
+    /**
+     * The resources of each player, indexed by player id and resource ordinal
+     */
+    private final int[][] playerResources;
+
+    /**
+     * The occupants of each space (action spaces first, then floors), see {@link GameStateDelta#encodeOccupant(int, FamilyMemberColor)}
+     */
+    private final int[][] spaceOccupants;
+
+    /**
+     * The id of the card on each floor, or {@link GameStateDelta#NO_CARD}
+     */
+    private final int[] floorCards;
+
+    private final int[] dice;
+
+    private GameStateSnapshot(int[][] playerResources, int[][] spaceOccupants, int[] floorCards, int[] dice) {
+        this.playerResources = playerResources;
+        this.spaceOccupants = spaceOccupants;
+        this.floorCards = floorCards;
+        this.dice = dice;
+    }
+
+    /**
+     * Takes a snapshot of a game
+     *
+     * @param game the game
+     * @param ids  the ids of the game objects, built from the same game
+     * @return the snapshot
+     */
+    public static GameStateSnapshot capture(Game game, GameObjectIds ids) {
+        ObtainableResource[] resources = ObtainableResource.values();
+        int[][] playerResources = new int[ids.getPlayersCount()][resources.length];
+        for (int playerId = 0; playerId < playerResources.length; playerId++) {
+            Player player = ids.getLocalPlayer(playerId);
+            for (ObtainableResource resource : resources) {
+                playerResources[playerId][resource.ordinal()] = player.getResources().getAmount(resource);
+            }
+        }
+
+        int actionSpaces = ids.getActionSpacesCount();
+        int[][] spaceOccupants = new int[actionSpaces + ids.getFloorsCount()][];
+        int[] floorCards = new int[ids.getFloorsCount()];
+        for (int i = 0; i < actionSpaces; i++) {
+            spaceOccupants[i] = captureOccupants(ids.getLocalActionSpace(i), ids);
+        }
+        for (int i = 0; i < floorCards.length; i++) {
+            Floor floor = ids.getLocalFloor(i);
+            spaceOccupants[actionSpaces + i] = captureOccupants(floor, ids);
+            floorCards[i] = floor.getCard() == null ? GameStateDelta.NO_CARD : ids.getCardId(floor.getCard().getId());
+        }
+
+        int[] dice = {game.getBlackDie(), game.getWhiteDie(), game.getOrangeDie()};
+
+        return new GameStateSnapshot(playerResources, spaceOccupants, floorCards, dice);
+    }
+
+    private static int[] captureOccupants(ActionSpace actionSpace, GameObjectIds ids) {
+        return actionSpace.getOccupants().stream()
+                          .mapToInt(occupant -> encodeOccupant(occupant, ids))
+                          .toArray();
+    }
+
+    private static int encodeOccupant(Tuple<Player, FamilyMemberColor> occupant, GameObjectIds ids) {
+        return GameStateDelta.encodeOccupant(ids.getPlayerId(occupant.first.getUsername()), occupant.second);
+    }
+
+    /**
+     * Computes the changes from a previous snapshot to this one
+     *
+     * @param previous the previous snapshot, or null to get a delta containing the whole state
+     * @param sequence the sequence number of the delta
+     * @return the delta
+     */
+    public GameStateDelta diff(GameStateSnapshot previous, int sequence) {
+        boolean full = previous == null;
+        GameStateDelta.Builder delta = new GameStateDelta.Builder(sequence, full);
+
+        for (int i = 0; i < playerResources.length; i++) {
+            if (full || !Arrays.equals(playerResources[i], previous.playerResources[i])) {
+                delta.setPlayerResources(i, playerResources[i]);
+            }
+        }
+        for (int i = 0; i < spaceOccupants.length; i++) {
+            if (full || !Arrays.equals(spaceOccupants[i], previous.spaceOccupants[i])) {
+                delta.setSpaceOccupants(i, spaceOccupants[i]);
+            }
+        }
+        for (int i = 0; i < floorCards.length; i++) {
+            if (full || floorCards[i] != previous.floorCards[i]) {
+                delta.setFloorCard(i, floorCards[i]);
+            }
+        }
+        if (full || !Arrays.equals(dice, previous.dice)) {
+            delta.setDice(dice);
+        }
+
+        return delta.build();
+    }
+}
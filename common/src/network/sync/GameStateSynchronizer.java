@@ -0,0 +1,82 @@
+package network.sync;
+
+import model.Game;
+import network.codec.GameObjectIds;
+
+import java.io.IOException;
+import java.util.logging.Logger;
+
+/**
+ * This class keeps the client copy of the game in sync with the deltas sent by the server.
+ * <p>
+ * When a delta is missing (the sequence number is not the expected one) the events sent with it
+ * are missing too, so the synchronizer asks the server for the game configuration again, which replaces
+ * the whole game and this synchronizer. The partial deltas are still applied in the meantime,
+ * since they're newer than the local state.
+ */
+public class GameStateSynchronizer {
+    private static final Logger LOGGER = Logger.getLogger("GameStateSynchronizer");
+
+    private final Game game;
+
+    private final GameObjectIds ids;
+
+    /**
+     * Called when the client has to ask the server for the game configuration again.
+     * It must not block waiting for the response, since the response is delivered like any other call of the server.
+     */
+    private final Runnable resyncRequester;
+
+    /**
+     * The sequence number of the last delta applied
+     */
+    private int lastSequence;
+
+    /**
+     * True if the game configuration has been requested again
+     */
+    private boolean resyncPending = false;
+
+    /**
+     * @param configuration the game configuration received from the server
+     * @param resyncRequester called when a delta has been missed
+     */
+    public GameStateSynchronizer(GameConfiguration configuration, Runnable resyncRequester) {
+        this.game = configuration.getGame();
+        this.ids = configuration.getIds();
+        this.lastSequence = configuration.getSequence();
+        this.resyncRequester = resyncRequester;
+    }
+
+    /**
+     * Called when a delta is received
+     *
+     * @param encodedDelta the delta, encoded with {@link GameStateDelta#encode()}
+     * @throws IOException if the delta is not valid
+     */
+    public synchronized void onDelta(byte[] encodedDelta) throws IOException {
+        GameStateDelta delta = GameStateDelta.decode(encodedDelta);
+
+        // Already covered by a full delta or by the configuration
+        if (delta.getSequence() <= lastSequence) return;
+
+        // A full delta (the initial state of a new game) has the whole state, nothing is missing before it
+        if (!delta.isFull() && delta.getSequence() != lastSequence + 1 && !resyncPending) {
+            LOGGER.warning(String.format("Missed game state deltas (expected %d, got %d), asking for a resync", lastSequence + 1, delta.getSequence()));
+            resyncPending = true;
+            resyncRequester.run();
+        }
+
+        try {
+            delta.applyTo(game, ids);
+        }
+        catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Invalid game state delta", e);
+        }
+        lastSequence = delta.getSequence();
+    }
+
+    public synchronized int getLastSequence() {
+        return lastSequence;
+    }
+}
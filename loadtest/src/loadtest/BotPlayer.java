@@ -0,0 +1,455 @@
+package loadtest;
+
+import client.ClientController;
+import client.ConnectionMethod;
+import gamecontroller.Move;
+import gamecontroller.exceptions.ActionNotAllowedException;
+import gamecontroller.exceptions.LoginException;
+import model.board.actionspace.ActionSpace;
+import model.board.actionspace.Floor;
+import model.card.leader.LeaderCard;
+import model.player.FamilyMemberColor;
+import model.player.PersonalBonusTile;
+import model.resource.ObtainableResourceSet;
+import model.resource.RequiredResourceSet;
+import ui.UIInterface;
+
+import java.io.IOException;
+import java.rmi.RemoteException;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is a simulated player: it takes the place of the user interface of a real client,
+ * and answers every question of the server with a random legal choice.
+ * <p>
+ * A bot plays a single game: it connects, logs in, joins a game (or creates one if none is waiting for players)
+ * and disconnects when the game is over. The time the server takes to answer every action is recorded.
+ * <p>
+ * The questions of the server arrive on the network threads of the client, which must not be blocked:
+ * the bot queues its answers and runs them one at a time on a shared executor.
+ */
+public class BotPlayer implements UIInterface {
+    private static final Logger LOGGER = Logger.getLogger("BotPlayer");
+
+    private final String username;
+    private final LoadTestStatistics statistics;
+    private final Executor executor;
+    private final Random random;
+
+    private final BotClientController controller;
+
+    /**
+     * Called once when the bot is done, whether its game is over or something went wrong
+     */
+    private volatile Runnable sessionOverListener = () -> { };
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * True if a thread is running the tasks of the bot
+     */
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    /**
+     * True once the game of the bot has ended or has been aborted
+     */
+    private final AtomicBoolean gameOver = new AtomicBoolean(false);
+
+    /**
+     * True once the bot has disconnected
+     */
+    private final AtomicBoolean over = new AtomicBoolean(false);
+
+    /**
+     * True if the bot has placed a family member in the current turn, used only by the tasks of the bot
+     */
+    private boolean placedFamilyMember = false;
+
+    /**
+     * @param username the username of the bot
+     * @param statistics where the bot records the outcome of its actions
+     * @param executor the threads running the tasks of the bots
+     * @param seed the seed of the random choices of the bot
+     */
+    public BotPlayer(String username, LoadTestStatistics statistics, Executor executor, long seed) {
+        this.username = username;
+        this.statistics = statistics;
+        this.executor = executor;
+        this.random = new Random(seed);
+        this.controller = new BotClientController();
+    }
+
+    public void setSessionOverListener(Runnable sessionOverListener) {
+        this.sessionOverListener = sessionOverListener;
+    }
+
+    /**
+     * Connects to the server and joins a game, without waiting
+     *
+     * @param connectionMethod the connection method
+     * @param hostname the hostname of the server
+     * @param port the port of the server
+     */
+    @SuppressWarnings("squid:S1166") // Silence "log or rethrow this exception": the failure is counted
+    public void start(ConnectionMethod connectionMethod, String hostname, int port) {
+        act(() -> {
+            try {
+                controller.connect(connectionMethod, hostname, port);
+                controller.login(username);
+                statistics.recordLogin();
+            }
+            catch (LoginException | RemoteException | RuntimeException e) {
+                LOGGER.fine(() -> username + " can't join a game: " + e);
+                statistics.recordLoginFailure();
+                endSession();
+            }
+        });
+    }
+
+    /* ----------------------------------------------------------------
+     * Questions from the client controller
+     * ---------------------------------------------------------------- */
+
+    @Override
+    public void showChoosePersonalBonusTile(List<PersonalBonusTile> personalBonusTiles) {
+        statistics.recordGameStarted();
+        act(() -> attempt(() -> controller.chooseBonusTile(pick(personalBonusTiles))));
+    }
+
+    @Override
+    public void showChooseLeaderCard(List<LeaderCard> leaderCards) {
+        act(() -> attempt(() -> controller.chooseLeaderCard(pick(leaderCards))));
+    }
+
+    /**
+     * Called at the start of the turn of the bot and after each of its placements
+     */
+    @Override
+    public void showMainTurnContext() {
+        act(this::playTurn);
+    }
+
+    @Override
+    public void showChooseCouncilPrivileges(List<ObtainableResourceSet> allowedPrivileges, int councilPrivilegesAmount) {
+        act(() -> attempt(() -> controller.chooseDevelopmentCardCouncilPrivileges(pickCouncilPrivileges(allowedPrivileges, councilPrivilegesAmount))));
+    }
+
+    @Override
+    public void showDecideExcommunicationContext() {
+        act(() -> controller.decideExcommunication(random.nextBoolean()));
+    }
+
+    /**
+     * Called when the server aborts the game.
+     * The players that disconnect after the end of a game make the server abort it, which doesn't count.
+     */
+    @Override
+    public void showFatalError(String errorMessage) {
+        if (!gameOver.compareAndSet(false, true)) return;
+
+        LOGGER.fine(() -> "The game of " + username + " has been aborted: " + errorMessage);
+        statistics.recordGameAborted();
+        act(this::endSession);
+    }
+
+    @Override
+    public void onGameEnd() {
+        if (!gameOver.compareAndSet(false, true)) return;
+
+        statistics.recordGameEnded();
+        act(this::endSession);
+    }
+
+    /* ----------------------------------------------------------------
+     * Playing a turn
+     * ---------------------------------------------------------------- */
+
+    /**
+     * Places a family member, or ends the turn if the family member has already been placed
+     */
+    private void playTurn() {
+        if (!placedFamilyMember) {
+            placedFamilyMember = placeFamilyMember();
+
+            // After a placement the client controller asks again what to do
+            if (placedFamilyMember) return;
+        }
+
+        placedFamilyMember = false;
+        attempt(controller::endTurn);
+    }
+
+    /**
+     * Places a family member with a random move among the ones allowed by the game controller,
+     * so that the server refuses it only if the bot is out of sync
+     *
+     * @return true if a family member has been placed
+     */
+    private boolean placeFamilyMember() {
+        List<Move> moves = controller.getGameController().getAllowedMoves();
+
+        // The last move is the pass
+        if (moves.size() == 1) return false;
+        Move move = moves.get(random.nextInt(moves.size() - 1));
+
+        try {
+            if (move.getServants() > 0) {
+                controller.spendServants(move.getServants());
+            }
+            if (move.isFloor()) {
+                controller.goToFloor((Floor) move.getActionSpace(), move.getFamilyMember(), move.getCouncilPrivileges(), move.getPayment());
+            }
+            else {
+                controller.goToActionSpace(move.getActionSpace(), move.getFamilyMember(), move.getCouncilPrivileges());
+            }
+            return true;
+        }
+        catch (ActionNotAllowedException e) {
+            LOGGER.fine(() -> "The server refused a placement of " + username + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return the given amount of different council privileges
+     */
+    private List<ObtainableResourceSet> pickCouncilPrivileges(List<ObtainableResourceSet> allowedPrivileges, int amount) {
+        List<ObtainableResourceSet> privileges = new ArrayList<>(allowedPrivileges);
+        Collections.shuffle(privileges, random);
+        return new ArrayList<>(privileges.subList(0, Math.min(amount, privileges.size())));
+    }
+
+    private <T> T pick(List<T> choices) {
+        return choices.get(random.nextInt(choices.size()));
+    }
+
+    /**
+     * Sends an action whose refusal is already counted by the client controller
+     */
+    @SuppressWarnings("squid:S1166") // Silence "log or rethrow this exception"
+    private void attempt(Action action) {
+        try {
+            action.execute();
+        }
+        catch (ActionNotAllowedException e) {
+            LOGGER.fine(() -> "The server refused an action of " + username + ": " + e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface Action {
+        void execute() throws ActionNotAllowedException;
+    }
+
+    /* ----------------------------------------------------------------
+     * Tasks of the bot
+     * ---------------------------------------------------------------- */
+
+    /**
+     * Queues a task of the bot. The tasks of a bot run one at a time, in order.
+     *
+     * @param task the task
+     */
+    private void act(Runnable task) {
+        tasks.add(task);
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (!tasks.isEmpty() && draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            }
+            catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "A task of " + username + " failed", e);
+            }
+        }
+        draining.set(false);
+
+        // Tasks may have arrived after the queue was found empty
+        scheduleDrain();
+    }
+
+    /**
+     * Disconnects the bot, only the first time it's called
+     */
+    private void endSession() {
+        if (!over.compareAndSet(false, true)) return;
+
+        try {
+            controller.disconnect();
+        }
+        catch (IOException e) {
+            LOGGER.fine(() -> username + " can't disconnect: " + e);
+        }
+        sessionOverListener.run();
+    }
+
+    /* ----------------------------------------------------------------
+     * Events with nothing to answer
+     * ---------------------------------------------------------------- */
+
+    @Override
+    public void showWaitingMessage(String message) {
+        // Nothing to answer
+    }
+
+    @Override
+    public void setOurUsername(String username) {
+        // The bot knows its username
+    }
+
+    @Override
+    public void onNetworkError() {
+        // Network errors are reported to the client controller
+    }
+
+    @Override
+    public void showLoginPrompt() {
+        // The bot logs in as soon as it's connected
+    }
+
+    @Override
+    public void onPrepareNewRound() {
+        // Nothing to answer
+    }
+
+    @Override
+    public void onCardsDrawn(List<UUID> territoryCards, List<UUID> characterCards, List<UUID> buildingCards, List<UUID> ventureCards) {
+        // Nothing to answer
+    }
+
+    @Override
+    public void onDiceThrown(int blackDie, int whiteDie, int orangeDie) {
+        // Nothing to answer
+    }
+
+    @Override
+    public void onPlayerTurnStarted(String username) {
+        // Nothing to answer
+    }
+
+    @Override
+    public void onPlayerOccupiesActionSpace(String username, UUID actionSpaceId, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> councilPrivileges) {
+        // Nothing to answer
+    }
+
+    @Override
+    public void onPlayerOccupiesFloor(String username, UUID floorId, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> chosenPrivileges, RequiredResourceSet paymentForCard) {
+        // Nothing to answer
+    }
+
+    @Override
+    public void onPlayerTakesDevelopmentCard(String username, UUID cardId, List<ObtainableResourceSet> councilPrivileges) {
+        // Nothing to answer
+    }
+
+    @Override
+    public void onPlayerSpendsServants(String username, int servants) {
+        // Nothing to answer
+    }
+
+    @Override
+    public void onStartVaticanReport() {
+        // The client controller asks the excommunication decision if needed
+    }
+
+    @Override
+    public void onPlayerDecidesExcommunication(String username, Boolean beExcommunicated) {
+        // Nothing to answer
+    }
+
+    /**
+     * The client controller of the bot: it times every action sent to the server,
+     * and ends the session of the bot instead of terminating the process when something goes wrong
+     */
+    private class BotClientController extends ClientController {
+        BotClientController() {
+            super(clientController -> BotPlayer.this);
+        }
+
+        @Override
+        public void chooseBonusTile(PersonalBonusTile bonusTile) throws ActionNotAllowedException {
+            timed(() -> super.chooseBonusTile(bonusTile));
+        }
+
+        @Override
+        public void chooseLeaderCard(LeaderCard leaderCard) throws ActionNotAllowedException {
+            timed(() -> super.chooseLeaderCard(leaderCard));
+        }
+
+        @Override
+        public void spendServants(int servants) throws ActionNotAllowedException {
+            timed(() -> super.spendServants(servants));
+        }
+
+        @Override
+        public void goToFloor(Floor floor, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> councilPrivileges, RequiredResourceSet paymentForCard) throws ActionNotAllowedException {
+            timed(() -> super.goToFloor(floor, familyMemberColor, councilPrivileges, paymentForCard));
+        }
+
+        @Override
+        public void chooseDevelopmentCardCouncilPrivileges(List<ObtainableResourceSet> councilPrivileges) throws ActionNotAllowedException {
+            timed(() -> super.chooseDevelopmentCardCouncilPrivileges(councilPrivileges));
+        }
+
+        @Override
+        public void goToActionSpace(ActionSpace actionSpace, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> chosenPrivileges) throws ActionNotAllowedException {
+            timed(() -> super.goToActionSpace(actionSpace, familyMemberColor, chosenPrivileges));
+        }
+
+        @Override
+        public void endTurn() throws ActionNotAllowedException {
+            timed(super::endTurn);
+        }
+
+        @Override
+        public void decideExcommunication(Boolean beExcommunicated) {
+            long start = System.nanoTime();
+            super.decideExcommunication(beExcommunicated);
+            statistics.recordAction(System.nanoTime() - start);
+        }
+
+        private void timed(Action action) throws ActionNotAllowedException {
+            long start = System.nanoTime();
+            try {
+                action.execute();
+                statistics.recordAction(System.nanoTime() - start);
+            }
+            catch (ActionNotAllowedException e) {
+                statistics.recordRefusedAction(System.nanoTime() - start);
+                throw e;
+            }
+        }
+
+        @Override
+        public void handleNetworkFailure(IOException e) {
+            if (over.get()) return;
+
+            LOGGER.fine(() -> username + " lost the connection: " + e);
+            statistics.recordNetworkFailure();
+            endSession();
+        }
+
+        @Override
+        public void handleOutOfSyncWithServer(Exception e) {
+            if (over.get()) return;
+
+            LOGGER.log(Level.WARNING, username + " is out of sync with the server", e);
+            statistics.recordOutOfSync();
+            endSession();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package loadtest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class counts latencies in buckets whose width grows with the latency, so that the percentiles
+ * can be read with a relative error of about 3% from a fixed amount of memory.
+ * <p>
+ * The latencies are counted in microseconds: below 32 µs every value has its own bucket, above that
+ * every power of two is split in 32 buckets. Recording a latency is a single atomic increment,
+ * so all the bots can share a histogram.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS);
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param nanos the latency, in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        counts.incrementAndGet(getBucket(micros));
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 1 (0.99 for the 99th percentile)
+     * @return the latency below which the given fraction of the latencies falls, in microseconds,
+     * 0 if nothing has been recorded
+     */
+    public long getPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(getHighestValue(i), getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * @return the mean latency in microseconds, 0 if nothing has been recorded
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) totalMicros.sum() / count;
+    }
+
+    /**
+     * @return the highest latency in microseconds
+     */
+    public long getMax() {
+        return maxMicros.get();
+    }
+
+    /* ----------------------------------------------------------------
+     * Buckets
+     * ---------------------------------------------------------------- */
+
+    private static int getBucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        // The SUB_BUCKET_BITS bits after the highest one select the bucket within the power of two
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    private static long getHighestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = bucket % SUB_BUCKETS + (long) SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,182 @@
+package loadtest;
+
+import client.ConnectionMethod;
+import server.Server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class measures how many players a server handles, by playing games with many bots at once.
+ * <p>
+ * Every bot is a real client (a {@link client.ClientController} with a {@link BotPlayer} in place of the UI)
+ * connected through RMI or sockets, so the server sees exactly the traffic of human players,
+ * only much faster. When the game of a bot is over another bot takes its place, until the end of the test.
+ * The bots log in gradually during the ramp up, so that they fill the games waiting for players
+ * instead of each creating a game.
+ * <p>
+ * At the end it reports the throughput and the latency percentiles of the actions,
+ * and the fraction of the games aborted by the server.
+ * <p>
+ * It can be run from the command line:
+ * LoadTestRunner [bots] [seconds] [rmi|socket] [ramp up seconds] [server hostname]
+ * Without a hostname the server is started in the same process.
+ */
+public class LoadTestRunner {
+    private static final Logger LOGGER = Logger.getLogger("LoadTestRunner");
+
+    /**
+     * The bots wait for the server most of the time, so they can share a thread for every few bots
+     */
+    private static final int BOTS_PER_THREAD = 4;
+    private static final int MAX_THREADS = 256;
+
+    private static final int RMI_PORT = 1099;
+    private static final int SOCKET_PORT = 8420;
+
+    private static final long REPORT_INTERVAL_MILLIS = 10000;
+
+    private final ConnectionMethod connectionMethod;
+    private final String hostname;
+    private final int port;
+
+    private final LoadTestStatistics statistics = new LoadTestStatistics();
+    private final ExecutorService executor;
+
+    /**
+     * Gives every bot a different username and seed
+     */
+    private final AtomicLong nextBot = new AtomicLong();
+
+    private final long seed;
+
+    private volatile boolean running = false;
+
+    /**
+     * @param connectionMethod how the bots connect to the server
+     * @param hostname the hostname of the server
+     * @param port the port of the server
+     * @param threads the threads running the bots
+     * @param seed the seed of the random choices of the bots
+     */
+    public LoadTestRunner(ConnectionMethod connectionMethod, String hostname, int port, int threads, long seed) {
+        this.connectionMethod = connectionMethod;
+        this.hostname = hostname;
+        this.port = port;
+        this.seed = seed;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "BotPlayer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Plays with the bots for the given time
+     *
+     * @param bots the number of bots playing at the same time
+     * @param durationMillis the duration of the test
+     * @param rampUpMillis the time over which the bots log in for the first time
+     * @return the statistics of the test
+     * @throws InterruptedException if the thread is interrupted during the test
+     */
+    public LoadTestStatistics run(int bots, long durationMillis, long rampUpMillis) throws InterruptedException {
+        running = true;
+        long start = System.currentTimeMillis();
+        long end = start + durationMillis;
+
+        for (int i = 0; i < bots && running; i++) {
+            startBot();
+            long nextBotTime = start + rampUpMillis * (i + 1) / bots;
+            sleepUntil(Math.min(nextBotTime, end));
+        }
+
+        long lastReport = System.currentTimeMillis();
+        long lastActions = statistics.getActions();
+        while (System.currentTimeMillis() < end) {
+            sleepUntil(Math.min(lastReport + REPORT_INTERVAL_MILLIS, end));
+
+            long now = System.currentTimeMillis();
+            long actions = statistics.getActions();
+            LOGGER.info(String.format("%d actions/s, %d games ended, %d aborted",
+                    (actions - lastActions) * 1000 / Math.max(1, now - lastReport),
+                    statistics.getGamesEnded(), statistics.getGamesAborted()));
+            lastReport = now;
+            lastActions = actions;
+        }
+
+        running = false;
+        return statistics;
+    }
+
+    /**
+     * Starts a bot, that is replaced by a new one when it's done
+     */
+    private void startBot() {
+        long bot = nextBot.getAndIncrement();
+        BotPlayer botPlayer = new BotPlayer("bot" + bot, statistics, executor, seed + bot);
+        botPlayer.setSessionOverListener(() -> {
+            if (running) startBot();
+        });
+        botPlayer.start(connectionMethod, hostname, port);
+    }
+
+    private static void sleepUntil(long time) throws InterruptedException {
+        long millis = time - System.currentTimeMillis();
+        if (millis > 0) Thread.sleep(millis);
+    }
+
+    private static void report(LoadTestStatistics statistics, long durationMillis) {
+        LatencyHistogram latency = statistics.getActionLatency();
+
+        LOGGER.info(String.format("%d actions (%d refused) in %d s: %.0f actions/s",
+                statistics.getActions(), statistics.getRefusedActions(), durationMillis / 1000,
+                statistics.getActions() * 1000.0 / durationMillis));
+        LOGGER.info(String.format("Action latency: mean %.2f ms, p50 %.2f ms, p99 %.2f ms, p999 %.2f ms, max %.2f ms",
+                latency.getMean() / 1000, latency.getPercentile(0.5) / 1000.0, latency.getPercentile(0.99) / 1000.0,
+                latency.getPercentile(0.999) / 1000.0, latency.getMax() / 1000.0));
+        LOGGER.info(String.format("%d logins, %d games started, %d ended, %d aborted: abort rate %.2f%%",
+                statistics.getLogins(), statistics.getGamesStarted(), statistics.getGamesEnded(),
+                statistics.getGamesAborted(), statistics.getAbortRate() * 100));
+        LOGGER.info(String.format("Failures: %d logins, %d network, %d out of sync with the server",
+                statistics.getLoginFailures(), statistics.getNetworkFailures(), statistics.getOutOfSync()));
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        int bots = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 60;
+        ConnectionMethod connectionMethod = args.length > 2 ? ConnectionMethod.valueOf(args[2].toUpperCase()) : ConnectionMethod.RMI;
+        long rampUpSeconds = args.length > 3 ? Long.parseLong(args[3]) : Math.min(10, seconds / 4);
+        String hostname = args.length > 4 ? args[4] : null;
+
+        if (hostname == null) {
+            // Only the warnings of the server, not every game event
+            Logger.getLogger("").setLevel(Level.WARNING);
+            LOGGER.setLevel(Level.INFO);
+
+            // The games still being played at the end must not be recovered by the next real server
+            Server server = new Server();
+            server.setJournalDirectory(Files.createTempDirectory("loadtest-journal").toString());
+            server.start();
+            hostname = "localhost";
+        }
+
+        int port = connectionMethod == ConnectionMethod.RMI ? RMI_PORT : SOCKET_PORT;
+        int threads = Math.max(1, Math.min(MAX_THREADS, bots / BOTS_PER_THREAD));
+        LoadTestRunner runner = new LoadTestRunner(connectionMethod, hostname, port, threads, System.nanoTime());
+
+        LOGGER.info(String.format("Playing with %d bots for %d s over %s to %s:%d", bots, seconds, connectionMethod, hostname, port));
+
+        long durationMillis = TimeUnit.SECONDS.toMillis(seconds);
+        report(runner.run(bots, durationMillis, TimeUnit.SECONDS.toMillis(rampUpSeconds)), durationMillis);
+
+        // The in-process server and the connections of the bots still playing would keep the process alive
+        System.exit(0);
+    }
+}
@@ -0,0 +1,134 @@
+package loadtest;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class collects what the bots of a load test have seen: the latency of the actions sent to the server,
+ * and how their games have gone.
+ * <p>
+ * Everything is counted with atomic counters, so that the bots record their outcomes without locking.
+ */
+public class LoadTestStatistics {
+    private final LatencyHistogram actionLatency = new LatencyHistogram();
+
+    private final LongAdder actions = new LongAdder();
+    private final LongAdder refusedActions = new LongAdder();
+
+    private final LongAdder logins = new LongAdder();
+    private final LongAdder gamesStarted = new LongAdder();
+    private final LongAdder gamesEnded = new LongAdder();
+    private final LongAdder gamesAborted = new LongAdder();
+
+    private final LongAdder loginFailures = new LongAdder();
+    private final LongAdder networkFailures = new LongAdder();
+    private final LongAdder outOfSync = new LongAdder();
+
+    /**
+     * Records an action accepted by the server
+     *
+     * @param nanos the time the server took to answer
+     */
+    public void recordAction(long nanos) {
+        actions.increment();
+        actionLatency.record(nanos);
+    }
+
+    /**
+     * Records an action refused by the server
+     *
+     * @param nanos the time the server took to answer
+     */
+    public void recordRefusedAction(long nanos) {
+        refusedActions.increment();
+        recordAction(nanos);
+    }
+
+    public void recordLogin() {
+        logins.increment();
+    }
+
+    public void recordGameStarted() {
+        gamesStarted.increment();
+    }
+
+    public void recordGameEnded() {
+        gamesEnded.increment();
+    }
+
+    public void recordGameAborted() {
+        gamesAborted.increment();
+    }
+
+    public void recordLoginFailure() {
+        loginFailures.increment();
+    }
+
+    public void recordNetworkFailure() {
+        networkFailures.increment();
+    }
+
+    public void recordOutOfSync() {
+        outOfSync.increment();
+    }
+
+    public LatencyHistogram getActionLatency() {
+        return actionLatency;
+    }
+
+    /**
+     * @return the actions sent to the server, including the refused ones
+     */
+    public long getActions() {
+        return actions.sum();
+    }
+
+    public long getRefusedActions() {
+        return refusedActions.sum();
+    }
+
+    public long getLogins() {
+        return logins.sum();
+    }
+
+    /**
+     * @return the games started, counted once for every bot playing them
+     */
+    public long getGamesStarted() {
+        return gamesStarted.sum();
+    }
+
+    /**
+     * @return the games ended normally, counted once for every bot playing them
+     */
+    public long getGamesEnded() {
+        return gamesEnded.sum();
+    }
+
+    /**
+     * @return the games aborted by the server, counted once for every bot playing them
+     */
+    public long getGamesAborted() {
+        return gamesAborted.sum();
+    }
+
+    /**
+     * @return the fraction of the games over that have been aborted, 0 if no game is over
+     */
+    public double getAbortRate() {
+        long aborted = getGamesAborted();
+        long over = getGamesEnded() + aborted;
+        return over == 0 ? 0 : (double) aborted / over;
+    }
+
+    public long getLoginFailures() {
+        return loginFailures.sum();
+    }
+
+    public long getNetworkFailures() {
+        return networkFailures.sum();
+    }
+
+    public long getOutOfSync() {
+        return outOfSync.sum();
+    }
+}
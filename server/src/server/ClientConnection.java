@@ -6,18 +6,25 @@ import gamecontroller.exceptions.ActionNotAllowedException;
 import model.player.FamilyMemberColor;
 import model.resource.ObtainableResourceSet;
 import model.resource.RequiredResourceSet;
-import server.exceptions.GameNotJoinableException;
 import gamecontroller.exceptions.LoginException;
 import gamecontroller.exceptions.NoAvailableGamesException;
 
 import java.rmi.RemoteException;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 /**
  * This class provides an abstraction of a client connection.
  * It's meant to be extended by other classes implementing a network protocol.
+ * <p>
+ * The commands of the player, and joining a game, are queued in the mailbox of the game. The methods of the
+ * ClientToServerInterface wait for the outcome, while the protocols that can reply later
+ * use {@link #submit(GameCommand)}, {@link #login(String)} and {@link #joinGame(boolean)} and don't block.
  */
 public abstract class ClientConnection implements ServerToClientInterface, ClientToServerInterface {
     private static final Logger LOGGER = Logger.getLogger("ClientConnection");
@@ -25,22 +32,50 @@ public abstract class ClientConnection implements ServerToClientInterface, Clien
     /**
      * The player's username, used when the Player object is not yet ready
      */
-    private String username;
+    private volatile String username;
 
     /**
-     * The game the player is playing
+     * The game the player is playing, set and cleared by the game itself
      */
-    private ServerGameController serverGameController;
+    private volatile ServerGameController serverGameController;
 
     /**
-     * The list of games being played.
-     * Needed when the player connects for joining (or creating) one
+     * The players and the games of the server.
+     * Needed when the player logs in and when he joins (or creates) a game
      */
-    private List<ServerGameController> gameControllers;
+    private final Lobby lobby;
 
-    public ClientConnection(List<ServerGameController> gameControllers) {
+    /**
+     * The messages the server has to send to this client
+     */
+    private final OutboundQueue outboundQueue = new OutboundQueue(this);
+
+    /**
+     * True while the player is waiting to be added to a game
+     */
+    private final AtomicBoolean joining = new AtomicBoolean(false);
+
+    /**
+     * A command of the player on his game
+     */
+    @FunctionalInterface
+    protected interface GameCommand {
+        void execute(ServerGameController game) throws ActionNotAllowedException;
+    }
+
+    public ClientConnection(Lobby lobby) {
         LOGGER.fine("New player connection!");
-        this.gameControllers = gameControllers;
+        this.lobby = lobby;
+    }
+
+    /**
+     * Creates the connection of a player that doesn't log in through the lobby, such as a bot
+     *
+     * @param username the username of the player
+     */
+    protected ClientConnection(String username) {
+        this.lobby = null;
+        this.username = username;
     }
 
     /**
@@ -51,16 +86,7 @@ public abstract class ClientConnection implements ServerToClientInterface, Clien
      */
     @Override
     public void loginPlayer(String username) throws LoginException, RemoteException {
-        LOGGER.fine(String.format("Player %s is logging in", username));
-
-        // check if the same username is already used on the server
-        boolean alreadyUsedUsername = gameControllers.stream()
-                                                     .flatMap(gameController -> gameController.getConnections().stream())
-                                                     .anyMatch(connection -> connection.getUsername().equals(username));
-
-        if(alreadyUsedUsername) throw new LoginException("This username is already taken");
-
-        this.username = username;
+        awaitLobby(login(username));
     }
 
     /**
@@ -71,21 +97,13 @@ public abstract class ClientConnection implements ServerToClientInterface, Clien
      */
     @Override
     public void joinFirstAvailableGame() throws NoAvailableGamesException, RemoteException {
-        LOGGER.fine(String.format("Player %s is trying to join a game", username));
-        for (ServerGameController game : gameControllers) {
-            if (game.isJoinable()) {
-                try {
-                    game.addPlayer(this);
-                    this.serverGameController = game;
-                }
-                catch (GameNotJoinableException e) {
-                    LOGGER.warning("Probable race condition, failed to join a joinable game");
-                    // Don't do anything, just go to the next game
-                }
-                return;
-            }
+        try {
+            awaitLobby(joinGame(false));
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof NoAvailableGamesException) throw (NoAvailableGamesException) e.getCause();
+            throw e;
         }
-        throw new NoAvailableGamesException();
     }
 
     /**
@@ -95,10 +113,71 @@ public abstract class ClientConnection implements ServerToClientInterface, Clien
      */
     @Override
     public void createAndJoinGame() throws RemoteException {
-        LOGGER.fine(String.format("Player %s is trying to create a new game", username));
-        serverGameController = new ServerGameController();
-        serverGameController.addPlayer(this);
-        gameControllers.add(serverGameController);
+        awaitLobby(joinGame(true));
+    }
+
+    /* ----------------------------------------------------------------------
+     * Lobby
+     * ---------------------------------------------------------------------- */
+
+    /**
+     * Login the player, without waiting for him to be put back in his game
+     * if it has been recovered after a restart of the server
+     *
+     * @param username the username chosen by the user
+     * @return completed when the player is back in his game, or right away if he has none
+     * @throws LoginException thrown if the name provided is already used or invalid
+     */
+    protected CompletableFuture<Void> login(String username) throws LoginException {
+        LOGGER.fine(String.format("Player %s is logging in", username));
+
+        if (this.username != null) throw new LoginException("You are already logged in as " + this.username);
+
+        // The lobby refuses a username already used on the server
+        lobby.login(username, this);
+        this.username = username;
+
+        // Put the player back in his game if it has been recovered after a restart of the server
+        ServerGameController game = lobby.takeRecoveredGame(username);
+        if (game == null) return CompletableFuture.completedFuture(null);
+
+        return game.submit(() -> game.reattachPlayer(this));
+    }
+
+    /**
+     * Join a game, without waiting for the mailbox of the game to add the player
+     *
+     * @param createGame true to create a game, false to join the first available one
+     * @return completed when the player has joined the game,
+     * with a NoAvailableGamesException if there's no game to join
+     */
+    protected CompletableFuture<Void> joinGame(boolean createGame) {
+        LOGGER.fine(String.format("Player %s is trying to %s a game", username, createGame ? "create" : "join"));
+
+        // The player is already in a game (maybe back in his recovered game), or is joining one
+        if (serverGameController != null || !joining.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<ServerGameController> joined = createGame ? lobby.createAndJoinGame(this) : lobby.joinFirstAvailableGame(this);
+        return joined.whenComplete((game, exception) -> joining.set(false))
+                     .thenApply(game -> null);
+    }
+
+    /**
+     * Waits for the outcome of a login or a join
+     *
+     * @param result the outcome
+     * @throws CompletionException wrapping the checked exception the lobby failed with
+     */
+    private static void awaitLobby(CompletableFuture<Void> result) {
+        try {
+            result.join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
     }
 
     /**
@@ -109,7 +188,7 @@ public abstract class ClientConnection implements ServerToClientInterface, Clien
      */
     @Override
     public void choosePersonalBonusTile(UUID personalBonusTileId) throws RemoteException, ActionNotAllowedException {
-        serverGameController.choosePersonalBonusTile(username, personalBonusTileId);
+        await(submit(game -> game.choosePersonalBonusTile(username, personalBonusTileId)));
     }
 
     /**
@@ -121,12 +200,12 @@ public abstract class ClientConnection implements ServerToClientInterface, Clien
      */
     @Override
     public void chooseLeaderCard(UUID leaderCardId) throws RemoteException, ActionNotAllowedException {
-        serverGameController.chooseLeaderCard(username, leaderCardId);
+        await(submit(game -> game.chooseLeaderCard(username, leaderCardId)));
     }
 
     @Override
     public void spendServants(int servants) throws RemoteException, ActionNotAllowedException {
-        serverGameController.spendServants(username, servants);
+        await(submit(game -> game.spendServants(username, servants)));
     }
 
     /**
@@ -140,17 +219,17 @@ public abstract class ClientConnection implements ServerToClientInterface, Clien
      */
     @Override
     public void goToActionSpace(UUID actionSpaceId, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> chosenPrivileges) throws RemoteException, ActionNotAllowedException {
-        serverGameController.goToActionSpace(username, actionSpaceId, familyMemberColor, chosenPrivileges);
+        await(submit(game -> game.goToActionSpace(username, actionSpaceId, familyMemberColor, chosenPrivileges)));
     }
 
     @Override
     public void goToFloor(UUID floorId, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> councilPrivileges, RequiredResourceSet paymentForCard) throws RemoteException, ActionNotAllowedException {
-        serverGameController.goToFloor(username, floorId, familyMemberColor, paymentForCard, councilPrivileges);
+        await(submit(game -> game.goToFloor(username, floorId, familyMemberColor, paymentForCard, councilPrivileges)));
     }
 
     @Override
     public void takeDevelopmentCard(UUID cardId, List<ObtainableResourceSet> councilPrivileges) throws RemoteException, ActionNotAllowedException {
-        serverGameController.takeDevelopmentCard(username, cardId, councilPrivileges);
+        await(submit(game -> game.takeDevelopmentCard(username, cardId, councilPrivileges)));
     }
 
     @Override
@@ -165,12 +244,104 @@ public abstract class ClientConnection implements ServerToClientInterface, Clien
 
     @Override
     public void endTurn() throws RemoteException, ActionNotAllowedException {
-        serverGameController.endTurn(username);
+        await(submit(game -> game.endTurn(username)));
     }
 
     @Override
     public void decideExcommunication(Boolean beExcommunicated) throws RemoteException, ActionNotAllowedException {
-        serverGameController.decideExcommunication(username, beExcommunicated);
+        await(submit(game -> game.decideExcommunication(username, beExcommunicated)));
+    }
+
+    @Override
+    public void requestResync() throws RemoteException, ActionNotAllowedException {
+        await(submit(game -> game.sendGameConfiguration(username)));
+    }
+
+    /* ----------------------------------------------------------------------
+     * Mailbox of the game
+     * ---------------------------------------------------------------------- */
+
+    /**
+     * Queues a command of the player in the mailbox of his game
+     *
+     * @param command the command
+     * @return the outcome of the command, completed when the game has run it
+     */
+    protected CompletableFuture<Void> submit(GameCommand command) {
+        ServerGameController game = serverGameController;
+        if (game == null) {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            result.completeExceptionally(new ActionNotAllowedException("You are not playing a game"));
+            return result;
+        }
+
+        return game.submit(() -> command.execute(game));
+    }
+
+    /**
+     * Waits for the outcome of a command
+     *
+     * @param result the outcome of the command
+     * @throws ActionNotAllowedException if the game refused the command
+     */
+    private static void await(CompletableFuture<Void> result) throws ActionNotAllowedException {
+        try {
+            result.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ActionNotAllowedException("Interrupted while waiting for the game");
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof ActionNotAllowedException) throw (ActionNotAllowedException) e.getCause();
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+
+    /**
+     * Queue a message for this client, without waiting for it to be sent.
+     * Messages are delivered in the order they are queued.
+     *
+     * @param message the message
+     */
+    public void send(OutboundQueue.Message message) {
+        outboundQueue.enqueue(message);
+    }
+
+    /**
+     * Called by a game when the player has joined it (or has been put back in it after a restart of the server)
+     *
+     * @param game the game
+     */
+    void enterGame(ServerGameController game) {
+        serverGameController = game;
+    }
+
+    /**
+     * Called by a game when it's over, or when a bot has taken the seat of the player,
+     * so that the player can join another game
+     *
+     * @param game the game the player leaves
+     */
+    void leaveGame(ServerGameController game) {
+        // The player can't be in another game yet: he joins one only when he's not in a game
+        if (serverGameController != game) return;
+
+        serverGameController = null;
+        outboundQueue.setDropListener(reason -> { });
+    }
+
+    /**
+     * Called when the connection has been closed, frees the username of the player
+     */
+    public void onDisconnected() {
+        lobby.logout(username, this);
+    }
+
+    public OutboundQueue getOutboundQueue() {
+        return outboundQueue;
     }
 
     public String getUsername() {
@@ -0,0 +1,503 @@
+package server;
+
+import gamecontroller.GameController;
+import gamecontroller.GameState;
+import gamecontroller.exceptions.ActionNotAllowedException;
+import gamecontroller.exceptions.LeaderCardNotAvailableException;
+import gamecontroller.exceptions.PlayerDoesNotExistException;
+import gamecontroller.utils.GameRandom;
+import gamecontroller.utils.StreamUtils;
+import model.Excommunication;
+import model.Game;
+import model.card.development.DevelopmentCard;
+import model.card.leader.LeaderCard;
+import model.player.Player;
+import model.player.PlayerColor;
+import model.resource.ObtainableResource;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * This class drives the flow of a game: the setup, the drafts, the rounds with the cards and the dice,
+ * the vatican reports and the end of the game.
+ * <p>
+ * The rules are applied by the {@link GameController}, every random decision comes from a {@link GameRandom}.
+ * The flow doesn't talk to the players: it tells a {@link Listener} what happens and whose choice
+ * it's waiting for, and goes on when the choice is made through the public methods.
+ * The same flow is used by the {@link ServerGameController} and by the simulated games,
+ * so that a simulation plays the same game as the server.
+ */
+public class GameFlow {
+    public static final int MAX_PLAYERS = 4;
+    public static final int ROUNDS = 6;
+    public static final int LEADER_CARDS_PER_PLAYER = 4;
+    public static final int CARDS_PER_TOWER = 4;
+
+    /**
+     * This interface receives the events of the flow.
+     * A choice accepted by the flow is notified before the flow goes on, so that it can be recorded
+     * before what it causes.
+     */
+    public interface Listener {
+        /**
+         * The current player has to choose a personal bonus tile
+         *
+         * @param player the current player
+         */
+        void onPersonalBonusTileDraftTurn(Player player);
+
+        void onPersonalBonusTileChosen(Player player, UUID personalBonusTileId);
+
+        /**
+         * The players that have to draft have to choose a leader card
+         * among {@link GameFlow#getLeaderCardsToChooseFrom(Player)}
+         */
+        void onLeaderCardsDraftTurn();
+
+        void onLeaderCardChosen(Player player, LeaderCard leaderCard);
+
+        /**
+         * The drafts are over and the initial resources have been assigned, the first round is about to start
+         */
+        void onDraftsConcluded();
+
+        void onNewRound();
+
+        void onDevelopmentCardsDrawn(List<UUID> territoryCardsIds, List<UUID> characterCardsIds, List<UUID> buildingCardsIds, List<UUID> ventureCardsIds);
+
+        void onDiceThrown(int blackDie, int whiteDie, int orangeDie);
+
+        void onPlayerTurnStarted(Player player);
+
+        /**
+         * The round has been prepared and the turn of its first player has started
+         */
+        void onRoundStarted();
+
+        void onTurnEnded(Player player);
+
+        /**
+         * The vatican report has started, the players with a pending decision have to decide whether to be excommunicated
+         */
+        void onVaticanReportStarted();
+
+        void onExcommunicationDecided(Player player, boolean beExcommunicated);
+
+        void onGameEnded();
+    }
+
+    private final GameController gameController;
+    private final GameRandom random;
+    private final Listener listener;
+
+    /**
+     * At the beginning of the game each player is given 4 leader cards.
+     * They choose 1 card to keep and pass the others to the next player.
+     * This object is used to manage the groups of cards during the draft.
+     */
+    private Map<Player, List<LeaderCard>> leaderCardsDraft = new HashMap<>();
+
+    /**
+     * This object is used to track which players have not yet made a choice
+     * in situations which require all of them to choose simultaneously
+     * (such as during the leader cards draft)
+     */
+    private List<Player> playersThatHaveToDraft = new ArrayList<>();
+
+    /**
+     * @param gameController the controller of the game, with a new game
+     * @param random the source of the random decisions of the game
+     * @param listener the listener of the events of the flow
+     */
+    public GameFlow(GameController gameController, GameRandom random, Listener listener) {
+        this.gameController = gameController;
+        this.random = random;
+        this.listener = listener;
+    }
+
+    /* ----------------------------------------------------------------
+     * Setup and drafts
+     * ---------------------------------------------------------------- */
+
+    /**
+     * Starts the game with the players in the order they joined,
+     * up to the turn of the first player of the personal bonus tiles draft
+     *
+     * @param usernames the usernames of the players
+     */
+    public void start(List<String> usernames) {
+        gameController.setGameState(GameState.STARTED);
+
+        // Initialize game
+        initializeGame(usernames.size());
+
+        // Create players and set colors
+        createPlayers(usernames);
+
+        // Extract excommunications
+        drawExcommunications();
+
+        // Set random turn order
+        random.shuffle(getGame().getPlayers());
+
+        // Start personal bonus tile draft phase (in reverse turn order)
+        gameController.setGameState(GameState.DRAFTING_BONUS_TILES);
+        Player nextPlayer = getGame().getPlayers().get(getGame().getPlayers().size() - 1);
+        getGame().setCurrentPlayer(nextPlayer);
+        listener.onPersonalBonusTileDraftTurn(nextPlayer);
+    }
+
+    /**
+     * Disable some action spaces if players are less than four
+     */
+    private void initializeGame(int players) {
+        if (players < 4) {
+            getGame().getBoard().getMarket4().setEnabled(false);
+        }
+        if (players < 3) {
+            getGame().getBoard().getMarket3().setEnabled(false);
+            getGame().getBoard().getBigHarvestArea().setEnabled(false);
+            getGame().getBoard().getBigProductionArea().setEnabled(false);
+        }
+    }
+
+    /**
+     * Create players and assign colors
+     */
+    private void createPlayers(List<String> usernames) {
+        PlayerColor[] colors = PlayerColor.values();
+        int i = 0;
+        for (String username : usernames) {
+            Player player = new Player(username);
+            player.setColor(colors[i]);
+
+            // Add player to the game
+            getGame().addPlayer(player);
+
+            i++;
+        }
+    }
+
+    /**
+     * Draw a random excommunication for each period
+     */
+    private void drawExcommunications() {
+        Excommunication[] chosenExcommunications = new Excommunication[3];
+        for (int period = 1; period <= chosenExcommunications.length; period++) {
+            int excommunicationPeriod = period;
+            List<Excommunication> periodExcommunications = getGame().getAvailableExcommunications().stream()
+                                                                    .filter(e -> e.getPeriod() == excommunicationPeriod)
+                                                                    .collect(Collectors.toList());
+            chosenExcommunications[period - 1] = random.pick(periodExcommunications);
+        }
+        getGame().getBoard().setExcommunications(chosenExcommunications);
+    }
+
+    /**
+     * Called when a player chooses his personal bonus tile
+     * TODO: keep track of whick players have drafted like in the leader cards draft
+     *
+     * @param username
+     * @param personalBonusTileId
+     */
+    public void choosePersonalBonusTile(String username, UUID personalBonusTileId) throws ActionNotAllowedException {
+        gameController.setPersonalBonusTile(username, personalBonusTileId);
+
+        Player player = gameController.getLocalPlayer(username);
+        listener.onPersonalBonusTileChosen(player, personalBonusTileId);
+
+        // Draft next bonus tile
+        int currentPlayerIndex = getGame().getPlayers().indexOf(player);
+        if (currentPlayerIndex > 0) {
+            Player nextPlayer = getGame().getPlayers().get(currentPlayerIndex - 1);
+            getGame().setCurrentPlayer(nextPlayer);
+            listener.onPersonalBonusTileDraftTurn(nextPlayer);
+        }
+        else {
+            startLeaderCardsDraft();
+        }
+    }
+
+    /**
+     * Start drafting the leader cards
+     */
+    private void startLeaderCardsDraft() {
+        gameController.setGameState(GameState.DRAFTING_LEADER_CARDS);
+
+        // Draw 4 leader cards for each player
+        leaderCardsDraft = new HashMap<>();
+        List<LeaderCard> availableLeaderCards = getGame().getAvailableLeaderCards();
+        for (Player player : getGame().getPlayers()) {
+            List<LeaderCard> playerLeaderCards = new ArrayList<>();
+            for (int i = 0; i < LEADER_CARDS_PER_PLAYER; i++) {
+                playerLeaderCards.add(random.remove(availableLeaderCards));
+            }
+            leaderCardsDraft.put(player, playerLeaderCards);
+        }
+
+        draftNextLeaderCard();
+    }
+
+    /**
+     * Draft the next leader card
+     */
+    private void draftNextLeaderCard() {
+        // Rotate the available leader cards choices
+        List<Player> players = getGame().getPlayers();
+
+        List<LeaderCard> firstPlayerBackup = leaderCardsDraft.get(players.get(0));
+        for (int i = 0; i < players.size() - 1; i++) {
+            leaderCardsDraft.put(players.get(i), leaderCardsDraft.get(players.get(i + 1)));
+        }
+        // Pass the first player's cards to the last
+        leaderCardsDraft.put(players.get(players.size() - 1), firstPlayerBackup);
+
+        // All the players have to draft
+        playersThatHaveToDraft = new ArrayList<>(players);
+
+        listener.onLeaderCardsDraftTurn();
+    }
+
+    /**
+     * Called when a player chooses his leader card
+     *
+     * @param username
+     * @param leaderCardId
+     */
+    public void chooseLeaderCard(String username, UUID leaderCardId) throws ActionNotAllowedException {
+        Player player = gameController.getLocalPlayer(username);
+
+        gameController.assertGameState(GameState.DRAFTING_LEADER_CARDS);
+
+        // Check that the player has not chosen a leader card yet
+        if (!playersThatHaveToDraft.contains(player)) {
+            throw new ActionNotAllowedException("You have already chosen a leader card");
+        }
+
+        // Check that the player could choose this leader card
+        Optional<LeaderCard> optChosenLeaderCard = leaderCardsDraft.get(player).stream()
+                                                                   .filter(card -> card.getId().equals(leaderCardId))
+                                                                   .findFirst();
+
+        if (!optChosenLeaderCard.isPresent()) {
+            throw new LeaderCardNotAvailableException();
+        }
+        LeaderCard chosenLeaderCard = optChosenLeaderCard.get();
+
+        // Add the chosen leader card to the player's available ones
+        player.getAvailableLeaderCards().add(chosenLeaderCard);
+
+        // Remove the chosen leader card from the possible choices
+        leaderCardsDraft.get(player).remove(chosenLeaderCard);
+
+        // Remove the player from the ones that have to make a choice
+        playersThatHaveToDraft.remove(player);
+
+        listener.onLeaderCardChosen(player, chosenLeaderCard);
+
+        // Check if all the players have chosen their leader card
+        if (playersThatHaveToDraft.isEmpty()) {
+            // Check if the drafting phase is concluded
+            int remainingChoices = leaderCardsDraft.get(player).size();
+            if (remainingChoices == 0) {
+                leaderCardsDraftConcluded();
+            }
+            else {
+                // Ask the players to draft the next leader card
+                draftNextLeaderCard();
+            }
+        }
+    }
+
+    /**
+     * Called at the end of the leader cards draft
+     */
+    private void leaderCardsDraftConcluded() {
+        assignInitialResourcesToPlayers();
+
+        listener.onDraftsConcluded();
+
+        // Start first round
+        startNewRound();
+    }
+
+    /**
+     * Assign initial resources
+     */
+    private void assignInitialResourcesToPlayers() {
+        for (int i = 0; i < getGame().getPlayers().size(); i++) {
+            Player player = getGame().getPlayers().get(i);
+            player.getResources().addResource(ObtainableResource.WOOD, 2);
+            player.getResources().addResource(ObtainableResource.STONE, 2);
+            player.getResources().addResource(ObtainableResource.SERVANTS, 3);
+            player.getResources().addResource(ObtainableResource.GOLD, 5 + i);
+        }
+    }
+
+    /* ----------------------------------------------------------------
+     * Rounds and vatican reports
+     * ---------------------------------------------------------------- */
+
+    /**
+     * Start new round
+     */
+    private void startNewRound() {
+        if (getGame().getCurrentRound() == ROUNDS) {
+            gameController.endGame();
+            listener.onGameEnded();
+            return;
+        }
+
+        gameController.prepareNewRound();
+        listener.onNewRound();
+
+        drawDevelopmentCards();
+
+        throwDice();
+
+        startPlayerTurn(getGame().getPlayers().get(0));
+
+        listener.onRoundStarted();
+    }
+
+    /**
+     * Place 4 random cards of the current period in each tower
+     */
+    private void drawDevelopmentCards() {
+        List<UUID> territoryCardsIds = drawCards(getGame().getAvailableTerritoryCards());
+        List<UUID> characterCardsIds = drawCards(getGame().getAvailableCharacterCards());
+        List<UUID> buildingCardsIds = drawCards(getGame().getAvailableBuildingCards());
+        List<UUID> ventureCardsIds = drawCards(getGame().getAvailableVentureCards());
+
+        try {
+            gameController.setDevelopmentCards(territoryCardsIds, characterCardsIds, buildingCardsIds, ventureCardsIds);
+        }
+        catch (ActionNotAllowedException e) {
+            // The cards come from the game itself
+            throw new IllegalStateException("Cannot place the cards drawn: " + e.getMessage(), e);
+        }
+
+        listener.onDevelopmentCardsDrawn(territoryCardsIds, characterCardsIds, buildingCardsIds, ventureCardsIds);
+    }
+
+    private List<UUID> drawCards(List<? extends DevelopmentCard> deck) {
+        int period = getGame().getCurrentPeriod();
+        return StreamUtils.takeRandomElements(deck.stream().filter(card -> card.getPeriod() == period), CARDS_PER_TOWER, random)
+                          .map(DevelopmentCard::getId)
+                          .collect(Collectors.toList());
+    }
+
+    private void throwDice() {
+        int blackDie = random.throwDie();
+        int whiteDie = random.throwDie();
+        int orangeDie = random.throwDie();
+
+        gameController.setDiceValues(blackDie, whiteDie, orangeDie);
+
+        listener.onDiceThrown(blackDie, whiteDie, orangeDie);
+    }
+
+    private void startPlayerTurn(Player player) {
+        try {
+            gameController.startPlayerTurn(player.getUsername());
+        }
+        catch (PlayerDoesNotExistException e) {
+            // The player comes from the game itself
+            throw new IllegalStateException("Cannot start the turn of " + player.getUsername(), e);
+        }
+
+        listener.onPlayerTurnStarted(player);
+    }
+
+    /**
+     * Called when a player ends his turn
+     *
+     * @param username
+     * @throws ActionNotAllowedException
+     */
+    public void endTurn(String username) throws ActionNotAllowedException {
+        gameController.assertGameState(GameState.PLAYER_TURN);
+        Player player = gameController.getLocalPlayer(username);
+        gameController.assertPlayerTurn(player);
+        listener.onTurnEnded(player);
+
+        List<Player> turnOrder = getGame().getPlayers();
+
+        // If the player is last in turn order, end round
+        int playerIndex = turnOrder.indexOf(player);
+        if (playerIndex == turnOrder.size() - 1) {
+            // Every player has a turn for each family member, even if he doesn't place it
+            if (gameController.isLastTurnOfRound()) {
+                endRound();
+            }
+            else {
+                startPlayerTurn(turnOrder.get(0));
+            }
+        }
+        // else start next player's turn
+        else {
+            startPlayerTurn(turnOrder.get(playerIndex + 1));
+        }
+    }
+
+    /**
+     * Ends the round, with a vatican report at the end of each period
+     */
+    private void endRound() {
+        if (getGame().getCurrentRound() % 2 == 0) {
+            startVaticanReport();
+        }
+        else {
+            startNewRound();
+        }
+    }
+
+    private void startVaticanReport() {
+        try {
+            gameController.startVaticanReport();
+        }
+        catch (ActionNotAllowedException e) {
+            // The report is started only after even rounds
+            throw new IllegalStateException("Cannot start the vatican report: " + e.getMessage(), e);
+        }
+
+        listener.onVaticanReportStarted();
+
+        if (gameController.getPlayersWithPendingExcommunicationDecision().isEmpty()) {
+            startNewRound();
+        }
+    }
+
+    public void decideExcommunication(String username, boolean beExcommunicated) throws ActionNotAllowedException {
+        gameController.decideExcommunication(username, beExcommunicated);
+        listener.onExcommunicationDecided(gameController.getLocalPlayer(username), beExcommunicated);
+
+        if (gameController.getPlayersWithPendingExcommunicationDecision().isEmpty()) {
+            startNewRound();
+        }
+    }
+
+    /* ----------------------------------------------------------------
+     * Getters
+     * ---------------------------------------------------------------- */
+
+    /**
+     * @return the players that still have to choose a leader card in the current turn of the draft
+     */
+    public List<Player> getPlayersThatHaveToDraft() {
+        return Collections.unmodifiableList(playersThatHaveToDraft);
+    }
+
+    /**
+     * @param player a player of the game
+     * @return the leader cards the player can choose in the current turn of the draft
+     */
+    public List<LeaderCard> getLeaderCardsToChooseFrom(Player player) {
+        return Collections.unmodifiableList(leaderCardsDraft.getOrDefault(player, Collections.emptyList()));
+    }
+
+    private Game getGame() {
+        return gameController.getGame();
+    }
+}
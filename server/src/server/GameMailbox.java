@@ -0,0 +1,124 @@
+package server;
+
+import gamecontroller.exceptions.ActionNotAllowedException;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is the mailbox of a game: everything that touches the game (the commands of the players,
+ * the timeouts, the dropped connections) is queued here and run one at a time, in order.
+ * <p>
+ * The game is never used by two threads at once, so it needs no locks. The mailboxes of all the games
+ * share a small pool of threads: a mailbox borrows a thread while it has tasks, and gives it back after
+ * a batch of tasks so that a busy game doesn't starve the others.
+ */
+public class GameMailbox {
+    private static final Logger LOGGER = Logger.getLogger("GameMailbox");
+
+    /**
+     * The number of tasks run before giving the thread to another game
+     */
+    private static final int BATCH_SIZE = 64;
+
+    /**
+     * The threads running the games, shared by all the mailboxes.
+     * The tasks never block, so there's no need for more threads than processors.
+     */
+    private static final ExecutorService RUNNERS = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+        Thread thread = new Thread(runnable, "GameMailbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A command of a player, that can be refused by the game
+     */
+    @FunctionalInterface
+    public interface Command {
+        void execute() throws ActionNotAllowedException;
+    }
+
+    private final Executor executor;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * True if a thread is running the tasks in the mailbox
+     */
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    public GameMailbox() {
+        this(RUNNERS);
+    }
+
+    /**
+     * @param executor the threads running the tasks
+     */
+    public GameMailbox(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Queues a command
+     *
+     * @param command the command
+     * @return the outcome of the command, completed with the exception if the command fails
+     */
+    public CompletableFuture<Void> submit(Command command) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        tasks.add(() -> {
+            try {
+                command.execute();
+                result.complete(null);
+            }
+            catch (ActionNotAllowedException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        scheduleDrain();
+        return result;
+    }
+
+    /**
+     * Queues a task nobody waits for, its failures are logged
+     *
+     * @param task the task
+     */
+    public void post(Runnable task) {
+        tasks.add(() -> {
+            try {
+                task.run();
+            }
+            catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "A game task failed", e);
+            }
+        });
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (!tasks.isEmpty() && draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Runs a batch of tasks. Only one thread at a time runs this method for a given mailbox.
+     */
+    private void drain() {
+        Runnable task;
+        int executed = 0;
+        while (executed < BATCH_SIZE && (task = tasks.poll()) != null) {
+            task.run();
+            executed++;
+        }
+        draining.set(false);
+
+        // Tasks may be left after the batch, or may have arrived after the mailbox was found empty
+        scheduleDrain();
+    }
+}
@@ -0,0 +1,175 @@
+package server;
+
+import gamecontroller.exceptions.LoginException;
+import gamecontroller.exceptions.NoAvailableGamesException;
+import server.exceptions.GameNotJoinableException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+/**
+ * This class keeps the players logged in and the games being played, and is shared by the RMI and the socket servers.
+ * <p>
+ * Logging in and joining a game don't depend on the number of players and games:
+ * <ul>
+ * <li>the usernames are reserved in a concurrent map</li>
+ * <li>the games waiting for players are in a queue. A game that has filled up or started
+ * is dropped from the queue by the first player that finds it at the head.</li>
+ * <li>the players of the games recovered after a restart are mapped to their game</li>
+ * </ul>
+ * A game is removed when it's over. The usernames stay reserved until the connections are closed,
+ * so that the players can join another game.
+ */
+public class Lobby {
+    private static final Logger LOGGER = Logger.getLogger("Lobby");
+
+    /**
+     * The players logged in, by username
+     */
+    private final ConcurrentMap<String, ClientConnection> players = new ConcurrentHashMap<>();
+
+    private final Set<ServerGameController> games = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The games that may still be joined, in the order they were created
+     */
+    private final Queue<ServerGameController> joinableGames = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The players of the recovered games that have not logged in again, by username
+     */
+    private final ConcurrentMap<String, ServerGameController> recoveredPlayers = new ConcurrentHashMap<>();
+
+    /**
+     * Reserves a username for a connection
+     *
+     * @param username the username
+     * @param connection the connection of the player
+     * @throws LoginException if the username is already used
+     */
+    public void login(String username, ClientConnection connection) throws LoginException {
+        if (players.putIfAbsent(username, connection) != null) {
+            throw new LoginException("This username is already taken");
+        }
+    }
+
+    /**
+     * Frees the username of a connection that has been closed
+     *
+     * @param username the username, null if the player has not logged in
+     * @param connection the connection of the player
+     */
+    public void logout(String username, ClientConnection connection) {
+        if (username != null) players.remove(username, connection);
+    }
+
+    /**
+     * @param username the username of a player that has just logged in
+     * @return the recovered game the player has to go back to, or null if there's none
+     */
+    public ServerGameController takeRecoveredGame(String username) {
+        return recoveredPlayers.remove(username);
+    }
+
+    /**
+     * Adds a player to the oldest game waiting for players.
+     * The player is added by the mailbox of the game, this method doesn't wait for it.
+     *
+     * @param connection the connection of the player
+     * @return the game joined, completed with a NoAvailableGamesException if no game is waiting for players
+     */
+    public CompletableFuture<ServerGameController> joinFirstAvailableGame(ClientConnection connection) {
+        ServerGameController game;
+        while ((game = joinableGames.peek()) != null && !game.isJoinable()) {
+            joinableGames.remove(game);
+        }
+        if (game == null) return failed(new NoAvailableGamesException());
+
+        ServerGameController joinedGame = game;
+        return join(joinedGame, connection).<CompletableFuture<ServerGameController>>handle((ignored, exception) -> {
+            if (exception == null) return CompletableFuture.completedFuture(joinedGame);
+            if (!(exception instanceof GameNotJoinableException)) return failed(exception);
+
+            // The game is dropped from the queue when it's found at the head again
+            LOGGER.fine("The game filled up while joining it, trying the next one");
+            return joinFirstAvailableGame(connection);
+        }).thenCompose(result -> result);
+    }
+
+    /**
+     * Creates a game and adds the player to it.
+     * The player is added by the mailbox of the game, this method doesn't wait for it.
+     *
+     * @param connection the connection of the player
+     * @return the game created
+     */
+    public CompletableFuture<ServerGameController> createAndJoinGame(ClientConnection connection) {
+        ServerGameController game = new ServerGameController();
+        addGame(game);
+        return join(game, connection).thenApply(ignored -> {
+            joinableGames.add(game);
+            return game;
+        });
+    }
+
+    /**
+     * Adds a game recovered after a restart of the server, waiting for its players to log in again
+     *
+     * @param game the game
+     */
+    public void addRecoveredGame(ServerGameController game) {
+        addGame(game);
+        for (String username : game.getUsernames()) {
+            if (!game.isBotSeat(username)) recoveredPlayers.put(username, game);
+        }
+    }
+
+    /**
+     * @return the games being played
+     */
+    public Collection<ServerGameController> getGames() {
+        return Collections.unmodifiableSet(games);
+    }
+
+    private void addGame(ServerGameController game) {
+        games.add(game);
+        game.setGameOverListener(this::removeGame);
+    }
+
+    /**
+     * Queues the player in the mailbox of the game
+     *
+     * @return completed by the mailbox when the player has joined the game,
+     * with a GameNotJoinableException if the game can't be joined anymore
+     */
+    private CompletableFuture<Void> join(ServerGameController game, ClientConnection connection) {
+        return game.submit(() -> game.addPlayer(connection));
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable exception) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        result.completeExceptionally(exception);
+        return result;
+    }
+
+    /**
+     * Removes a game that is over. If it's still in the queue of the joinable games,
+     * it's dropped when it's found at the head, like the games that have filled up.
+     *
+     * @param game the game
+     */
+    private void removeGame(ServerGameController game) {
+        if (!games.remove(game)) return;
+
+        for (String username : game.getUsernames()) {
+            recoveredPlayers.remove(username, game);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package server;
+
+import network.ServerToClientInterface;
+
+import java.rmi.RemoteException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class queues the messages the server sends to a client.
+ * <p>
+ * Enqueuing never blocks: the messages are sent in order by a sender borrowed from a shared pool,
+ * so a slow client doesn't slow down the game or the other players.
+ * A client that doesn't keep up (too many messages queued, or a single send taking too long)
+ * is considered stuck and dropped: its messages are discarded and the drop listener is notified.
+ */
+public class OutboundQueue {
+    private static final Logger LOGGER = Logger.getLogger("OutboundQueue");
+
+    /**
+     * The maximum number of messages waiting to be sent before the client is dropped
+     */
+    static final int MAX_DEPTH = 1000;
+
+    /**
+     * The maximum time (in milliseconds) a single message can take to be sent before the client is dropped
+     */
+    static final long STUCK_TIMEOUT = 30000;
+
+    /**
+     * The threads sending the messages, shared by all the clients.
+     * Sends can block (e.g. RMI calls), so the pool grows with the number of clients being served at the same time.
+     */
+    private static final ExecutorService SENDERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "OutboundQueueSender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ServerToClientInterface client;
+
+    private final Queue<Message> messages = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger depth = new AtomicInteger();
+
+    /**
+     * True if a sender is draining the queue
+     */
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    /**
+     * The time the message being sent was taken from the queue, 0 if no message is being sent
+     */
+    private volatile long sendingSince = 0;
+
+    private final AtomicBoolean dropped = new AtomicBoolean(false);
+
+    /**
+     * Called (once) with the reason when the client is dropped
+     */
+    private volatile Consumer<String> dropListener = reason -> { };
+
+    /* Metrics */
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final AtomicLong sentMessages = new AtomicLong();
+
+    public OutboundQueue(ServerToClientInterface client) {
+        this.client = client;
+    }
+
+    /**
+     * Queues a message for sending. Messages sent after the client has been dropped are discarded.
+     * <p>
+     * The message is sent later on another thread: any mutable object it refers to must be copied by the caller.
+     *
+     * @param message the message
+     */
+    public void enqueue(Message message) {
+        if (dropped.get()) return;
+
+        long since = sendingSince;
+        if (since != 0 && System.currentTimeMillis() - since > STUCK_TIMEOUT) {
+            drop("The client is not receiving messages");
+            return;
+        }
+
+        int currentDepth = depth.incrementAndGet();
+        if (currentDepth > MAX_DEPTH) {
+            drop("Too many messages waiting to be sent");
+            return;
+        }
+        maxDepth.accumulateAndGet(currentDepth, Math::max);
+
+        messages.add(message);
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (!messages.isEmpty() && draining.compareAndSet(false, true)) {
+            SENDERS.execute(this::drain);
+        }
+    }
+
+    /**
+     * Sends the queued messages in order. Only one sender at a time runs this method for a given queue.
+     */
+    private void drain() {
+        try {
+            Message message;
+            while (!dropped.get() && (message = messages.poll()) != null) {
+                depth.decrementAndGet();
+                sendingSince = System.currentTimeMillis();
+                try {
+                    message.sendTo(client);
+                    sentMessages.incrementAndGet();
+                }
+                catch (RemoteException e) {
+                    LOGGER.log(Level.FINE, "Failed to send a message", e);
+                    drop("Connection error: " + e.getMessage());
+                }
+                catch (RuntimeException e) {
+                    // A bug in a message or in the connection: the client would miss the message, so it's dropped
+                    LOGGER.log(Level.SEVERE, "Unexpected error while sending a message", e);
+                    drop("Error while sending a message: " + e);
+                }
+                finally {
+                    sendingSince = 0;
+                }
+            }
+        }
+        finally {
+            draining.set(false);
+        }
+
+        // A message may have been queued after the queue was found empty
+        scheduleDrain();
+    }
+
+    /**
+     * Drops the client, discarding the pending messages
+     *
+     * @param reason the reason the client is dropped
+     */
+    public void drop(String reason) {
+        if (!dropped.compareAndSet(false, true)) return;
+
+        LOGGER.warning(String.format("Dropping client (%s), %d messages discarded", reason, depth.get()));
+        messages.clear();
+        depth.set(0);
+        dropListener.accept(reason);
+    }
+
+    public void setDropListener(Consumer<String> dropListener) {
+        this.dropListener = dropListener;
+    }
+
+    public boolean isDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the number of messages waiting to be sent
+     */
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * @return the highest number of messages that have been waiting at the same time
+     */
+    public int getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    /**
+     * @return the number of messages sent successfully
+     */
+    public long getSentMessages() {
+        return sentMessages.get();
+    }
+
+    /**
+     * A message to send to a client
+     */
+    @FunctionalInterface
+    public interface Message {
+        void sendTo(ServerToClientInterface client) throws RemoteException;
+    }
+}
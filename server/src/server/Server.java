@@ -1,9 +1,12 @@
 package server;
 
+import server.journal.GameJournalStore;
 import server.rmiserver.RMIServer;
+import server.socketserver.SocketServer;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.rmi.RemoteException;
-import java.util.ArrayList;
 import java.util.logging.Logger;
 
 /**
@@ -19,25 +22,56 @@ public class Server {
     private int socketServerPort = 8420;
     private int rmiServerPort = 1099;
 
+    /**
+     * The directory of the journals of the games, used to recover the games after a restart
+     */
+    private String journalDirectory = "journal";
+
     private Thread socketServer;
     private RMIServer rmiServer;
 
-    private ArrayList<ServerGameController> gameControllers = new ArrayList<>();
+    /**
+     * The players and the games, shared by the RMI and the socket servers
+     */
+    private final Lobby lobby = new Lobby();
+
+    /**
+     * @param journalDirectory the directory of the journals of the games
+     */
+    public void setJournalDirectory(String journalDirectory) {
+        this.journalDirectory = journalDirectory;
+    }
 
     public void start() {
+        recoverGames();
+
         if (enableRMIServer) {
             try {
-                rmiServer = new RMIServer(rmiServerPort, gameControllers);
+                rmiServer = new RMIServer(rmiServerPort, lobby);
             }
             catch (RemoteException e) {
                 LOGGER.severe("Error while trying to create the RMI server: " + e.getMessage());
             }
         }
 
+        if (enableSocketServer) {
+            socketServer = new Thread(new SocketServer(socketServerPort, lobby), "SocketServer");
+            socketServer.start();
+        }
+    }
 
-        //if (enableSocketServer) {
-            //socketServer = new Thread(new SocketServer(socketServerPort, gameControllers));
-            //socketServer.start();
-        //}
+    /**
+     * Opens the journals of the games and recovers the games interrupted by the last shutdown,
+     * before the players can connect
+     */
+    private void recoverGames() {
+        try {
+            GameJournalStore journalStore = new GameJournalStore(Paths.get(journalDirectory));
+            GameJournalStore.setDefault(journalStore);
+            journalStore.recoverGames().forEach(lobby::addRecoveredGame);
+        }
+        catch (IOException e) {
+            LOGGER.severe("Cannot open the games journal, the games won't be recovered after a restart: " + e.getMessage());
+        }
     }
 }
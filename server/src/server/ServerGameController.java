@@ -1,42 +1,57 @@
 package server;
 
 import gamecontroller.GameController;
+import gamecontroller.GameIndex;
 import gamecontroller.GameState;
+import gamecontroller.Move;
 import gamecontroller.exceptions.ActionNotAllowedException;
-import gamecontroller.exceptions.PlayerDoesNotExistException;
-import gamecontroller.utils.StreamUtils;
-import model.Excommunication;
+import gamecontroller.utils.GameRandom;
 import model.Game;
-import model.card.development.BuildingCard;
-import model.card.development.CharacterCard;
-import model.card.development.TerritoryCard;
-import model.card.development.VentureCard;
+import model.card.development.DevelopmentCard;
 import model.card.effects.EndOfGameResourcesEffect;
 import model.card.effects.IgnoreEndOfGameVictoryPointsFromDevelopmentCardsEffect;
 import model.card.effects.interfaces.EffectInterface;
 import model.card.leader.LeaderCard;
 import model.player.FamilyMemberColor;
+import model.player.PersonalBonusTile;
 import model.player.Player;
-import model.player.PlayerColor;
-import model.resource.ObtainableResource;
 import model.resource.ObtainableResourceSet;
 import model.resource.RequiredResourceSet;
-import server.configloader.ConfigLoader;
+import network.codec.GameEventEncoder;
+import network.codec.GameObjectIds;
+import network.sync.GameConfiguration;
+import network.sync.GameStateDelta;
+import network.sync.GameStateSnapshot;
+import server.bot.BotConnection;
+import server.bot.BotSettings;
+import server.bot.MctsSearch;
+import server.configloader.GameCatalog;
 import server.exceptions.GameNotJoinableException;
-import gamecontroller.exceptions.LeaderCardNotAvailableException;
+import server.journal.GameJournal;
+import server.journal.GameJournalStore;
+import server.journal.GameSnapshot;
+import server.journal.JournalCommand;
+import server.timer.HashedWheelTimer;
 
 import java.io.IOException;
-import java.rmi.RemoteException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static model.resource.ObtainableResource.*;
 
 /**
  * This class provides the server specific logic for the game,
- * and uses the {@link GameController} class for logic shared with the clients
+ * and uses the {@link GameController} class for logic shared with the clients.
+ * <p>
+ * The game is not thread safe: the commands of the players, the timeouts and the dropped connections
+ * go through the {@link GameMailbox} of the game, which runs them one at a time.
  */
 public class ServerGameController {
     private static final Logger LOGGER = Logger.getLogger("ServerGameController");
@@ -49,479 +64,363 @@ public class ServerGameController {
     /**
      * The list of connections to the players
      */
-    private List<ClientConnection> connections = new ArrayList<>();
+    private List<ClientConnection> connections = new CopyOnWriteArrayList<>();
 
     /**
-     * The time to wait (in milliseconds) before starting the game after two players have joined.
+     * Runs everything that touches the game, one task at a time
      */
-    private int gameStartTimeout;
+    private final GameMailbox mailbox = new GameMailbox();
 
     /**
-     * At the beginning of the game each player is given 4 leader cards.
-     * They choose 1 card to keep and pass the others to the next player.
-     * This object is used to manage the groups of cards during the draft.
+     * Called (once) when the game is over, because it has ended or it has been aborted
      */
-    private Map<Player, List<LeaderCard>> leaderCardsDraft;
+    private volatile Consumer<ServerGameController> gameOverListener = game -> { };
 
     /**
-     * This object is used to track which players have not yet made a choice
-     * in situations which require all of them to choose simultaneously
-     * (such as during the leader cards draft)
+     * True while the game is waiting for players and has a free seat.
+     * Written by the mailbox, read by the lobby on the threads of the connections
      */
-    private List<Player> playersThatHaveToDraft;
-
-    public ServerGameController() {
-        loadConfiguration();
-    }
-
-    /* ----------------------------------------------------------------
-     * PRIVATE METHODS THAT CONTROL THE FLOW OF THE GAME
-     * These methods do server-specific actions
-     * (loading configuration, coordinating drafts, throwing the dice, and so on)
-     * ---------------------------------------------------------------- */
+    private volatile boolean joinable = true;
 
     /**
-     * Loads the game configuration
+     * The time to wait (in milliseconds) before starting the game after two players have joined.
      */
-    private void loadConfiguration() {
-        String configDirectory = "configuration";
-
-        ConfigLoader configLoader = new ConfigLoader(configDirectory);
-        try {
-            configLoader.loadConfiguration();
-        }
-        catch (IOException e) {
-            LOGGER.severe("Error while loading game configuration from file, cannot start the game!");
-
-            // Inform all players that the game cannot start
-            for (ClientConnection c : connections) {
-                try {
-                    c.abortGame("Cannot load game configuration!");
-                }
-                catch (RemoteException e1) {
-                    // We're aborting the game, we don't really care for remote exceptions
-                }
-            }
-        }
-
-        gameController.setGame(configLoader.getGame());
-
-        gameStartTimeout = configLoader.getGameStartTimeout();
-    }
+    private int gameStartTimeout;
 
     /**
-     * Callback called when the game timeout expires or 4 players have joined
+     * The time (in milliseconds) a player has for every choice (a move, a draft, an excommunication).
+     * When it expires the server makes the choice for the player.
      */
-    private void startGame() {
-        // Ignore repeated calls (made if 4 players connect before the timeout expires)
-        if (gameController.getGameState() != GameState.WAITING_FOR_PLAYERS_TO_CONNECT) return;
-
-        gameController.setGameState(GameState.STARTED);
-
-        LOGGER.info("Starting game...");
-
-        // Initialize game
-        initializeGame();
-
-        // Create players and set colors
-        createPlayers();
-
-        // Extract excommunications
-        drawExcommunications();
-
-        // Set random turn order
-        shufflePlayers();
-
-        // Start personal bonus tile draft phase (in reverse turn order)
-        startPersonalBonusTileDraft();
-    }
+    private int moveTimeout;
 
     /**
-     * Load the game configuration
+     * The pending timeout of the game, only one at a time: each phase replaces the timeout of the previous one.
+     * The generation tells a timeout that has already been handed to the mailbox from the current one.
      */
-    private void initializeGame() {
-        // Disable some action spaces if players are less than four
-        if (connections.size() < 4) {
-            getGame().getBoard().getMarket4().setEnabled(false);
-        }
-        if (connections.size() < 3) {
-            getGame().getBoard().getMarket3().setEnabled(false);
-            getGame().getBoard().getBigHarvestArea().setEnabled(false);
-            getGame().getBoard().getBigProductionArea().setEnabled(false);
-        }
-    }
+    private HashedWheelTimer.Timeout timeout;
+    private int timeoutGeneration;
 
     /**
-     * Create players and assign colors
+     * The flow of the game: the setup, the drafts, the rounds and the vatican reports.
+     * It's created again with the game controller when a snapshot is restored.
      */
-    private void createPlayers() {
-        PlayerColor[] colors = PlayerColor.values();
-        int i = 0;
-        for (ClientConnection connection : connections) {
-            Player player = new Player(connection.getUsername());
-            player.setColor(colors[i]);
+    private GameFlow flow;
 
-            // Add player to the game
-            getGame().addPlayer(player);
-
-            i++;
-        }
-    }
+    /**
+     * The ids of the game objects, used by the game events and the state deltas.
+     * They're assigned when the game configuration is sent to the players.
+     */
+    private GameObjectIds gameObjectIds;
 
     /**
-     * Draw three random excommunications
+     * The encoder used for the game events sent to the players
      */
-    private void drawExcommunications() {
-        Game game = getGame();
+    private GameEventEncoder eventEncoder;
 
-        // First period
-        List<Excommunication> firstPeriodExcommunications = game.getAvailableExcommunications().stream()
-                                                                .filter(e -> e.getPeriod() == 1).collect(Collectors.toList());
-        Excommunication firstPeriodExcommunication = firstPeriodExcommunications.get(new Random().nextInt(firstPeriodExcommunications.size()));
+    /**
+     * The game state at the time of the last delta sent to the players,
+     * and the sequence number of that delta
+     */
+    private GameStateSnapshot publishedState;
+    private int stateSequence = 0;
 
-        // Second period
-        List<Excommunication> secondPeriodExcommunications = game.getAvailableExcommunications().stream()
-                                                                 .filter(e -> e.getPeriod() == 2).collect(Collectors.toList());
-        Excommunication secondPeriodExcommunication = secondPeriodExcommunications.get(new Random().nextInt(secondPeriodExcommunications.size()));
+    /**
+     * The source of every random decision of the game (excommunications, turn order, drafts, cards and dice).
+     * Its seed is logged when the game starts, so that the game can be replayed.
+     */
+    private GameRandom random;
 
-        // Third period
-        List<Excommunication> thirdPeriodExcommunications = game.getAvailableExcommunications().stream()
-                                                                .filter(e -> e.getPeriod() == 3).collect(Collectors.toList());
-        Excommunication thirdPeriodExcommunication = thirdPeriodExcommunications.get(new Random().nextInt(thirdPeriodExcommunications.size()));
+    /**
+     * Where the journal of the game is created when the game starts, null if the game is not journaled
+     */
+    private final GameJournalStore journalStore;
 
-        // Set chosen excommunications in the game
-        Excommunication[] chosenExcommunications = {firstPeriodExcommunication, secondPeriodExcommunication, thirdPeriodExcommunication};
-        game.getBoard().setExcommunications(chosenExcommunications);
-    }
+    /**
+     * The journal of the game: the commands accepted are appended to it before they're broadcast.
+     * It's null until the game starts, and while the game is being recovered from it.
+     */
+    private GameJournal journal;
 
     /**
-     * Set a random player order and update current player
+     * The catalog the game has been created from
      */
-    private void shufflePlayers() {
-        Collections.shuffle(getGame().getPlayers());
-    }
+    private GameCatalog catalog;
 
     /**
-     * Start the personal bonus tile draft
+     * The settings of the bots taking the empty seats and the seats of the players whose connection has dropped
      */
-    private void startPersonalBonusTileDraft() {
-        gameController.setGameState(GameState.DRAFTING_BONUS_TILES);
-        Player nextPlayer = getGame().getPlayers().get(getGame().getPlayers().size() - 1);
-        getGame().setCurrentPlayer(nextPlayer);
-        draftNextBonusTile();
-    }
+    private final BotSettings botSettings = BotSettings.getDefault();
+    private final MctsSearch botSearch = new MctsSearch(botSettings);
 
     /**
-     * Start drafting the personal bonus tiles
+     * The usernames of the seats taken by bots, journaled so that the bots take them again when the game is recovered
      */
-    private void draftNextBonusTile() {
-        // Ask the current player to choose a bonus tile
-        ClientConnection connection = getConnectionForPlayer(getGame().getCurrentPlayer());
-        try {
-            connection.askToChoosePersonalBonusTile(getGame().getAvailablePersonalBonusTiles());
-        }
-        catch (RemoteException e) {
-            handleRemoteException(e);
-        }
+    private final Set<String> botSeats = new HashSet<>();
 
-        // Put the others to wait
-        getGame().getPlayers().stream()
-                 .filter(player -> !player.equals(getGame().getCurrentPlayer()))
-                 .forEach(player -> {
-                     try {
-                         getConnectionForPlayer(player).showWaitingMessage("Wait for other players to choose a bonus tile");
-                     }
-                     catch (RemoteException e) {
-                         handleRemoteException(e);
-                     }
-                 });
+    public ServerGameController() {
+        this(GameRandom.withRandomSeed(), GameJournalStore.getDefault());
     }
 
     /**
-     * Start drafting the leader cards
+     * @param random the source of the random decisions of the game
+     * @param journalStore where the journal of the game is created (null for no journal)
      */
-    private void startLeaderCardsDraft() {
-        gameController.setGameState(GameState.DRAFTING_LEADER_CARDS);
-
-        // Draw 4 leader cards for each player
-        leaderCardsDraft = new HashMap<>();
-        List<LeaderCard> availableLeaderCards = getGame().getAvailableLeaderCards();
-        for (Player player : getGame().getPlayers()) {
-            List<LeaderCard> playerLeaderCards = new ArrayList<>();
-            for (int i = 0; i < 4; i++) {
-                LeaderCard leaderCard = availableLeaderCards.get(new Random().nextInt(availableLeaderCards.size()));
-                playerLeaderCards.add(leaderCard);
-                availableLeaderCards.remove(leaderCard);
-            }
-            leaderCardsDraft.put(player, playerLeaderCards);
-        }
-
-        playersThatHaveToDraft = new ArrayList<>(getGame().getPlayers());
-
-        draftNextLeaderCard();
+    public ServerGameController(GameRandom random, GameJournalStore journalStore) {
+        this.random = random;
+        this.journalStore = journalStore;
+        loadConfiguration();
+        flow = new GameFlow(gameController, random, new FlowListener());
     }
 
     /**
-     * Draft the next leader card
+     * Recreates a game from its journal, after a restart of the server:
+     * the snapshot taken at the beginning of the last round is restored (if there's one)
+     * and the commands journaled after it are replayed.
+     * The players are not connected, they're reattached when they log in again; the bots take their seats back.
+     *
+     * @param journal the journal of the game
+     * @return the recovered game
+     * @throws IOException if the journal is invalid or doesn't match the game
      */
-    private void draftNextLeaderCard() {
-        // Rotate the available leader cards choices
-        List<Player> players = getGame().getPlayers();
-
-        List<LeaderCard> firstPlayerBackup = leaderCardsDraft.get(players.get(0));
-
-        for (Player p : players.stream()
-                               .limit(players.size() - 1)
-                               .collect(Collectors.toList())) {
-
-            int nextPlayerIndex = players.indexOf(p) + 1;
-            Player nextPlayer = players.get(nextPlayerIndex);
-            leaderCardsDraft.put(p, leaderCardsDraft.get(nextPlayer));
+    public static ServerGameController recover(GameJournal journal) throws IOException {
+        List<byte[]> commands = journal.getRecoveredCommands();
+        if (commands.isEmpty()) throw new IOException("The journal is empty");
+        JournalCommand.GameStart gameStart = JournalCommand.readGameStart(commands.get(0));
+
+        ServerGameController serverGameController;
+        int replayFrom;
+        GameSnapshot snapshot = journal.readSnapshot();
+        if (snapshot != null && snapshot.getSeed() == gameStart.getSeed()) {
+            serverGameController = new ServerGameController(GameRandom.restore(snapshot.getSeed(), snapshot.getReseed()), null);
+            serverGameController.restoreSnapshot(snapshot);
+            replayFrom = snapshot.getSequence();
+        }
+        else {
+            serverGameController = new ServerGameController(new GameRandom(gameStart.getSeed()), null);
+            serverGameController.startGame(gameStart.getUsernames());
+            replayFrom = 1;
         }
-        // Pass the first player's cards to the last
-        leaderCardsDraft.put(players.get(players.size() - 1), firstPlayerBackup);
-
-        // All the players have to draft
-        playersThatHaveToDraft = new ArrayList<>(getGame().getPlayers());
-
-        for (Player player : playersThatHaveToDraft) {
-            ClientConnection playerConnection = getConnectionForPlayer(player);
-
-            List<LeaderCard> playerLeaderCards = leaderCardsDraft.get(player);
 
+        GameIndex gameIndex = serverGameController.gameController.getGameIndex();
+        for (int i = replayFrom; i < commands.size(); i++) {
             try {
-                playerConnection.askToChooseLeaderCard(playerLeaderCards);
+                JournalCommand.replay(commands.get(i), serverGameController, gameIndex, serverGameController.catalog);
             }
-            catch (RemoteException e) {
-                handleRemoteException(e);
+            catch (ActionNotAllowedException e) {
+                throw new IOException(String.format("Command %d of the journal is not allowed: %s", i, e.getMessage()), e);
             }
         }
-    }
 
-    /**
-     * Called at the end of the leader cards draft
-     */
-    private void leaderCardsDraftConcluded() {
-        // Assign resources to players
-        assignInitialResourcesToPlayers();
+        serverGameController.journal = journal;
+        serverGameController.updateJoinable();
 
-        // Send game configuration to players
-        sendGameConfigurationToPlayers();
+        // The bots are back right away, the players when they log in
+        for (String username : JournalCommand.readBotSeats(commands)) {
+            serverGameController.botSeats.add(username);
+            serverGameController.connections.add(new BotConnection(username));
+        }
 
-        // Start first round
-        startNewRound();
+        // The players have the whole timeout to come back
+        serverGameController.startPhaseTimeout();
+        return serverGameController;
     }
 
+    /* ----------------------------------------------------------------
+     * PRIVATE METHODS THAT CONTROL THE FLOW OF THE GAME
+     * The flow itself (drafts, rounds, cards, dice and vatican reports) is driven by the {@link GameFlow},
+     * these methods do server-specific actions (loading configuration, journaling, informing the players)
+     * ---------------------------------------------------------------- */
+
     /**
-     * Assign initial resources
+     * Loads the game configuration
      */
-    private void assignInitialResourcesToPlayers() {
-        for (int i = 0; i < getGame().getPlayers().size(); i++) {
-            Player player = getGame().getPlayers().get(i);
-            player.getResources().addResource(ObtainableResource.WOOD, 2);
-            player.getResources().addResource(ObtainableResource.STONE, 2);
-            player.getResources().addResource(ObtainableResource.SERVANTS, 3);
-            player.getResources().addResource(ObtainableResource.GOLD, 5 + i);
+    private void loadConfiguration() {
+        try {
+            catalog = GameCatalog.getInstance();
+            gameController.setGame(catalog.newGame());
+            gameStartTimeout = catalog.getGameStartTimeout();
+            moveTimeout = catalog.getMoveTimeout();
         }
-    }
+        catch (IOException e) {
+            LOGGER.severe("Error while loading game configuration from file, cannot start the game!");
 
-    /**
-     * Send game configuration to the players
-     */
-    private void sendGameConfigurationToPlayers() {
-        getGame().getPlayers().stream().forEach(player -> {
-            try {
-                getConnectionForPlayer(player).setGameConfiguration(getGame());
-            }
-            catch (RemoteException e) {
-                handleRemoteException(e);
-            }
-        });
+            // Inform all players that the game cannot start
+            abortGame("Cannot load game configuration!");
+        }
     }
 
     /**
-     * Start new round
+     * Callback called when the game timeout expires or 4 players have joined
      */
-    private void startNewRound() {
-        if (getGame().getCurrentRound() == 6) {
-            startGameEndPhase();
-        }
-
-        gameController.prepareNewRound();
-
-        connections.forEach(connection -> {
-            try {
-                connection.onPrepareNewRound();
-            }
-            catch (RemoteException e) {
-                handleRemoteException(e);
-            }
-        });
-
-        drawDevelopmentCards();
+    private void startGame() {
+        // Ignore repeated calls (made if 4 players connect before the timeout expires)
+        if (gameController.getGameState() != GameState.WAITING_FOR_PLAYERS_TO_CONNECT) return;
 
-        throwDice();
+        addBots();
 
-        startPlayerTurn(getGame().getPlayers().get(0));
+        List<String> usernames = connections.stream().map(ClientConnection::getUsername).collect(Collectors.toList());
+        startJournal(usernames);
+        startGame(usernames);
     }
 
     /**
-     * Draw development cards and inform the players
-     * <p>
-     * Place 4 random cards of the appropriate era in each tower
+     * Starts the game with the players in the order they joined
+     *
+     * @param usernames the usernames of the players
      */
-    private void drawDevelopmentCards() {
-        Stream<TerritoryCard> currentPeriodTerritoryCards = getGame().getAvailableTerritoryCards()
-                                                                     .stream()
-                                                                     .filter(card -> card.getPeriod() == (getGame().getCurrentPeriod()));
-
-        List<UUID> territoryCardsIds = StreamUtils.takeRandomElements(currentPeriodTerritoryCards, 4)
-                                                  .map(card -> card.getId())
-                                                  .collect(Collectors.toList());
-
-
-        Stream<CharacterCard> currentPeriodCharacterCards = getGame().getAvailableCharacterCards()
-                                                                     .stream()
-                                                                     .filter(card -> card.getPeriod() == (getGame().getCurrentPeriod()));
-
-        List<UUID> characterCardsIds = StreamUtils.takeRandomElements(currentPeriodCharacterCards, 4)
-                                                  .map(card -> card.getId())
-                                                  .collect(Collectors.toList());
+    private void startGame(List<String> usernames) {
+        LOGGER.info("Starting game with seed " + random.getSeed() + "...");
 
+        // The flow goes on up to the personal bonus tile draft
+        flow.start(usernames);
+        updateJoinable();
+    }
 
-        Stream<BuildingCard> currentPeriodBuildingCards = getGame().getAvailableBuildingCards()
-                                                                   .stream()
-                                                                   .filter(card -> card.getPeriod() == (getGame().getCurrentPeriod()));
+    /**
+     * Ask the current player to choose a bonus tile and put the others to wait
+     */
+    private void draftNextBonusTile() {
+        // The list changes as tiles are chosen, send a copy
+        List<PersonalBonusTile> availableBonusTiles = new ArrayList<>(getGame().getAvailablePersonalBonusTiles());
+        sendToPlayer(getGame().getCurrentPlayer().getUsername(), client -> client.askToChoosePersonalBonusTile(availableBonusTiles));
+        startPhaseTimeout();
 
-        List<UUID> buildingCardsIds = StreamUtils.takeRandomElements(currentPeriodBuildingCards, 4)
-                                                 .map(card -> card.getId())
-                                                 .collect(Collectors.toList());
+        // Put the others to wait
+        getGame().getPlayers().stream()
+                 .filter(player -> !player.equals(getGame().getCurrentPlayer()))
+                 .forEach(player -> sendToPlayer(player.getUsername(), client -> client.showWaitingMessage("Wait for other players to choose a bonus tile")));
+    }
 
+    private void askToChooseLeaderCard(Player player) {
+        // The list changes as cards are chosen, send a copy
+        List<LeaderCard> playerLeaderCards = new ArrayList<>(flow.getLeaderCardsToChooseFrom(player));
 
-        Stream<VentureCard> currentPeriodVentureCards = getGame().getAvailableVentureCards()
-                                                                 .stream()
-                                                                 .filter(card -> card.getPeriod() == (getGame().getCurrentPeriod()));
+        sendToPlayer(player.getUsername(), client -> client.askToChooseLeaderCard(playerLeaderCards));
+    }
 
-        List<UUID> ventureCardsIds = StreamUtils.takeRandomElements(currentPeriodVentureCards, 4)
-                                                .map(card -> card.getId())
-                                                .collect(Collectors.toList());
+    /**
+     * Send game configuration to the players
+     */
+    private void sendGameConfigurationToPlayers() {
+        // The ids used by the game events refer to the configuration as it is sent
+        gameObjectIds = new GameObjectIds(getGame());
+        eventEncoder = new GameEventEncoder(gameObjectIds);
 
+        // Serialize the configuration only once, it's the same for all the players
+        byte[] configuration;
         try {
-            gameController.setDevelopmentCards(territoryCardsIds, characterCardsIds, buildingCardsIds, ventureCardsIds);
+            configuration = GameConfiguration.serialize(gameController, gameObjectIds, stateSequence);
         }
-        catch (ActionNotAllowedException e) {
-            // This should never happen as cards IDs are chosen by the server
-            e.printStackTrace();
+        catch (IOException e) {
+            LOGGER.severe("Cannot serialize the game configuration: " + e.getMessage());
+            abortGame("Cannot send the game configuration!");
+            return;
         }
 
-        for (ClientConnection c : connections) {
-            try {
-                c.onCardsDrawn(territoryCardsIds, characterCardsIds, buildingCardsIds, ventureCardsIds);
-            }
-            catch (RemoteException e) {
-                handleRemoteException(e);
-            }
-        }
+        getGame().getPlayers().stream().forEach(player -> sendToPlayer(player.getUsername(), client -> client.setGameConfiguration(configuration)));
+
+        // From now on only the changes are sent, starting from a full delta
+        publishGameStateDelta();
     }
 
     /**
-     * Throws the dice and informs the players
+     * Compute final scoring
      */
-    private void throwDice() {
-        Random r = new Random();
-        int blackDie = r.nextInt(6) + 1;
-        int whiteDie = r.nextInt(6) + 1;
-        int orangeDie = r.nextInt(6) + 1;
-
-        gameController.setDiceValues(blackDie, whiteDie, orangeDie);
+    private void startGameEndPhase() {
+        broadcastGameEvent(eventEncoder.gameEnd());
+        cancelTimeout();
 
-        for (ClientConnection c : connections) {
-            try {
-                c.onDiceThrown(blackDie, whiteDie, orangeDie);
-            }
-            catch (RemoteException e) {
-                handleRemoteException(e);
-            }
-        }
+        // The game is over, there's nothing left to recover
+        deleteJournal();
+        notifyGameOver();
     }
 
     /**
-     * Signals to all players that the turn is changed
-     *
-     * @param player
+     * Journals the choices accepted by the flow of the game, informs the players and waits for the next choice
      */
-    private void startPlayerTurn(Player player) {
-        try {
-            gameController.startPlayerTurn(player.getUsername());
+    private class FlowListener implements GameFlow.Listener {
+        @Override
+        public void onPersonalBonusTileDraftTurn(Player player) {
+            draftNextBonusTile();
         }
-        catch (PlayerDoesNotExistException e) {
-            // This should never happen since the player comes from the server
-            e.printStackTrace();
+
+        @Override
+        public void onPersonalBonusTileChosen(Player player, UUID personalBonusTileId) {
+            journal(JournalCommand.choosePersonalBonusTile(player.getUsername(), getCatalogPosition(catalog.getPersonalBonusTiles(), PersonalBonusTile::getId, personalBonusTileId)));
         }
 
-        for (ClientConnection connection : connections) {
-            try {
-                connection.onPlayerTurnStarted(player.getUsername());
-            }
-            catch (RemoteException e) {
-                handleRemoteException(e);
+        @Override
+        public void onLeaderCardsDraftTurn() {
+            flow.getPlayersThatHaveToDraft().forEach(ServerGameController.this::askToChooseLeaderCard);
+            startPhaseTimeout();
+        }
+
+        @Override
+        public void onLeaderCardChosen(Player player, LeaderCard leaderCard) {
+            journal(JournalCommand.chooseLeaderCard(player.getUsername(), getCatalogPosition(catalog.getLeaderCards(), LeaderCard::getId, leaderCard.getId())));
+
+            if (!flow.getPlayersThatHaveToDraft().isEmpty()) {
+                sendToPlayer(player.getUsername(), client -> client.showWaitingMessage("Waiting for other players to choose..."));
             }
         }
-    }
 
-    /**
-     * Ends the round
-     */
-    private void endRound() throws PlayerDoesNotExistException {
-        if (getGame().getCurrentRound() % 2 == 0) {
-            startVaticanReport();
+        @Override
+        public void onDraftsConcluded() {
+            sendGameConfigurationToPlayers();
         }
-        else {
-            startNewRound();
+
+        @Override
+        public void onNewRound() {
+            broadcastGameEvent(eventEncoder.prepareNewRound());
         }
-    }
 
-    /**
-     * Compute final scoring
-     */
-    private void startGameEndPhase() {
-        gameController.endGame();
+        @Override
+        public void onDevelopmentCardsDrawn(List<UUID> territoryCardsIds, List<UUID> characterCardsIds, List<UUID> buildingCardsIds, List<UUID> ventureCardsIds) {
+            broadcastGameEvent(eventEncoder.cardsDrawn(territoryCardsIds, characterCardsIds, buildingCardsIds, ventureCardsIds));
+        }
 
-        connections.forEach(
-                connection -> {
-                    try {
-                        connection.onGameEnd();
-                    }
-                    catch (RemoteException e) {
-                        handleRemoteException(e);
-                    }
-                }
-        );
-    }
+        @Override
+        public void onDiceThrown(int blackDie, int whiteDie, int orangeDie) {
+            broadcastGameEvent(eventEncoder.diceThrown(blackDie, whiteDie, orangeDie));
+        }
 
-    /**
-     * Starts the vatican report phase
-     */
-    private void startVaticanReport() {
-        try {
-            gameController.startVaticanReport();
+        @Override
+        public void onPlayerTurnStarted(Player player) {
+            broadcastGameEvent(eventEncoder.playerTurnStarted(player.getUsername()));
+            startPhaseTimeout();
         }
-        catch (ActionNotAllowedException e) {
-            // Should never happen since this function is called only by the server
-            e.printStackTrace();
+
+        @Override
+        public void onRoundStarted() {
+            // Starting a round is always the last thing a command does, the state is complete
+            saveSnapshot();
         }
 
-        for (ClientConnection connection : connections) {
-            try {
-                connection.onStartVaticanReport();
-            }
-            catch (RemoteException e) {
-                handleRemoteException(e);
+        @Override
+        public void onTurnEnded(Player player) {
+            journal(JournalCommand.endTurn(player.getUsername()));
+        }
+
+        @Override
+        public void onVaticanReportStarted() {
+            broadcastGameEvent(eventEncoder.startVaticanReport());
+
+            // Without decisions to wait for the flow goes on to the next round
+            if (!gameController.getPlayersWithPendingExcommunicationDecision().isEmpty()) {
+                startPhaseTimeout();
             }
         }
 
-        if(gameController.getPlayersWithPendingExcommunicationDecision().isEmpty()){
-            startNewRound();
+        @Override
+        public void onExcommunicationDecided(Player player, boolean beExcommunicated) {
+            journal(JournalCommand.decideExcommunication(player.getUsername(), beExcommunicated));
+
+            broadcastGameEvent(eventEncoder.playerDecidesExcommunication(player.getUsername(), beExcommunicated));
+        }
+
+        @Override
+        public void onGameEnded() {
+            startGameEndPhase();
         }
     }
 
@@ -532,8 +431,9 @@ public class ServerGameController {
      * and then inform all the players, so that they can update
      * the game state for themselves.
      *
-     * The methods related to the drafts bypass the game controller
-     * and do not forward the actions to the players since
+     * The methods that make the game go on (the drafts, the end of a turn, the excommunications)
+     * forward the actions to the game flow, which informs the players through its listener.
+     * The draft choices are not forwarded to the players since
      * the draft choices should be secret.
      * This is not a problem since after the draft the full game
      * configuration is sent to the players.
@@ -542,26 +442,12 @@ public class ServerGameController {
 
     /**
      * Called when a player chooses his personal bonus tile
-     * TODO: keep track of whick players have drafted like in the leader cards draft
      *
      * @param username
      * @param personalBonusTileId
      */
     public void choosePersonalBonusTile(String username, UUID personalBonusTileId) throws ActionNotAllowedException {
-        gameController.setPersonalBonusTile(username, personalBonusTileId);
-
-        Player player = gameController.getLocalPlayer(username);
-
-        // Draft next bonus tile
-        int currentPlayerIndex = getGame().getPlayers().indexOf(player);
-        if (currentPlayerIndex > 0) {
-            Player nextPlayer = getGame().getPlayers().get(currentPlayerIndex - 1);
-            getGame().setCurrentPlayer(nextPlayer);
-            draftNextBonusTile();
-        }
-        else {
-            startLeaderCardsDraft();
-        }
+        flow.choosePersonalBonusTile(username, personalBonusTileId);
     }
 
     /**
@@ -571,54 +457,7 @@ public class ServerGameController {
      * @param leaderCardId
      */
     public void chooseLeaderCard(String username, UUID leaderCardId) throws ActionNotAllowedException {
-        Player player = gameController.getLocalPlayer(username);
-
-        gameController.assertGameState(GameState.DRAFTING_LEADER_CARDS);
-
-        // Check that the player has not chosen a leader card yet
-        if (!playersThatHaveToDraft.contains(player)) {
-            throw new ActionNotAllowedException("You have already chosen a leader card");
-        }
-
-        // Check that the player could choose this leader card
-        Optional<LeaderCard> optChosenLeaderCard = leaderCardsDraft.get(player).stream()
-                                                                   .filter(card -> card.getId().equals(leaderCardId))
-                                                                   .findFirst();
-
-        if (!optChosenLeaderCard.isPresent()) {
-            throw new LeaderCardNotAvailableException();
-        }
-        LeaderCard chosenLeaderCard = optChosenLeaderCard.get();
-
-        // Add the chosen leader card to the player's available ones
-        player.getAvailableLeaderCards().add(chosenLeaderCard);
-
-        // Remove the chosen leader card from the possible choices
-        leaderCardsDraft.get(player).remove(chosenLeaderCard);
-
-        // Remove the player from the ones that have to make a choice
-        playersThatHaveToDraft.remove(player);
-
-        // Check if all the players have chosen their leader card
-        if (playersThatHaveToDraft.isEmpty()) {
-            // Check if the drafting phase is concluded
-            int remainingChoices = leaderCardsDraft.get(player).size();
-            if (remainingChoices == 0) {
-                leaderCardsDraftConcluded();
-            }
-            else {
-                // Ask the players to draft the next leader card
-                draftNextLeaderCard();
-            }
-        }
-        else {
-            try {
-                getConnectionForPlayer(player).showWaitingMessage("Waiting for other players to choose...");
-            }
-            catch (RemoteException e) {
-                handleRemoteException(e);
-            }
-        }
+        flow.chooseLeaderCard(username, leaderCardId);
     }
 
     /**
@@ -639,40 +478,25 @@ public class ServerGameController {
         // Try to place the family member
         // The controller will throw an exception if the action is not allowed
         gameController.goToFloor(username, familyMember, floorId, paymentForCard, councilPrivileges);
+        journal(JournalCommand.goToFloor(username, gameController.getGameIndex().getFloorIndex(floorId), familyMember, paymentForCard, councilPrivileges));
 
         // Inform all players
-        connections.forEach(connection -> {
-            try {
-                connection.onPlayerOccupiesFloor(username, floorId, familyMember, councilPrivileges, paymentForCard);
-            }
-            catch (RemoteException e) {
-                handleRemoteException(e);
-            }
-        });
+        broadcastGameEvent(eventEncoder.playerOccupiesFloor(username, floorId, familyMember, councilPrivileges, paymentForCard));
+        startPhaseTimeout();
 
 
         // Ask the player to choose immediate resources, if any
         UUID cardId = gameController.getLocalFloor(floorId).getCard().getId();
-        try {
-            getConnectionForPlayer(username).askWhichImmediateResourcesToTake(cardId);
-        }
-        catch (RemoteException e) {
-            handleRemoteException(e);
-        }
+        sendToPlayer(username, client -> client.askWhichImmediateResourcesToTake(cardId));
     }
 
     public void takeDevelopmentCard(String username, UUID cardId, List<ObtainableResourceSet> councilPrivileges) throws ActionNotAllowedException {
         gameController.takeDevelopmentCard(username, cardId, councilPrivileges);
+        journal(JournalCommand.takeDevelopmentCard(username, gameController.getGameIndex().getCardIndex(cardId), councilPrivileges));
 
         // Inform all players
-        connections.forEach(connection -> {
-            try {
-                connection.onPlayerTakesDevelopmentCard(username, cardId, councilPrivileges);
-            }
-            catch (RemoteException e) {
-                handleRemoteException(e);
-            }
-        });
+        broadcastGameEvent(eventEncoder.playerTakesDevelopmentCard(username, cardId, councilPrivileges));
+        startPhaseTimeout();
     }
 
     /**
@@ -686,16 +510,11 @@ public class ServerGameController {
     public void goToActionSpace(String username, UUID actionSpaceId, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> chosenPrivileges) throws ActionNotAllowedException {
         // If the action is not allowed the game controller will throw an exception
         gameController.goToActionSpace(username, actionSpaceId, familyMemberColor, chosenPrivileges);
+        journal(JournalCommand.goToActionSpace(username, gameController.getGameIndex().getActionSpaceIndex(actionSpaceId), familyMemberColor, chosenPrivileges));
 
         // Inform all players
-        connections.forEach(connection -> {
-            try {
-                connection.onPlayerOccupiesActionSpace(username, actionSpaceId, familyMemberColor, chosenPrivileges);
-            }
-            catch (RemoteException e) {
-                handleRemoteException(e);
-            }
-        });
+        broadcastGameEvent(eventEncoder.playerOccupiesActionSpace(username, actionSpaceId, familyMemberColor, chosenPrivileges));
+        startPhaseTimeout();
     }
 
     /**
@@ -707,18 +526,11 @@ public class ServerGameController {
      */
     public void spendServants(String username, int servants) throws ActionNotAllowedException {
         gameController.spendServants(username, servants);
+        journal(JournalCommand.spendServants(username, servants));
 
-        connections.stream().forEach(
-                connection -> {
-                    try {
-                        connection.onPlayerSpendsServants(username, servants);
-                    }
-                    catch (RemoteException e) {
-                        handleRemoteException(e);
-                    }
-                });
+        broadcastGameEvent(eventEncoder.playerSpendsServants(username, servants));
+        startPhaseTimeout();
     }
-
     /**
      * Called when a player ends his turn
      *
@@ -726,54 +538,14 @@ public class ServerGameController {
      * @throws ActionNotAllowedException
      */
     public void endTurn(String username) throws ActionNotAllowedException {
-        gameController.assertGameState(GameState.PLAYER_TURN);
-        Player player = gameController.getLocalPlayer(username);
-        gameController.assertPlayerTurn(player);
-
-        List<Player> turnOrder = getGame().getPlayers();
-
-        // If the player is last in turn order, end round
-        int playerIndex = turnOrder.indexOf(player);
-        if (playerIndex == turnOrder.size() - 1) {
-            /*
-             * TODO: change this, players can skip their first turn because of an effect,
-             * or decide not to place a family member and skip their turn.
-             * This way of checking can make them skip a turn or postpone their turn.
-             * We should keep a counter of how many turns the player has performed instead.
-            */
-            if(player.getAvailableFamilyMembers().isEmpty()) {
-                endRound();
-            }
-            else {
-                startPlayerTurn(turnOrder.get(0));
-            }
-        }
-        // else start next player's turn
-        else {
-            Player nextPlayer = turnOrder.get(playerIndex + 1);
-            startPlayerTurn(nextPlayer);
-        }
+        flow.endTurn(username);
     }
 
     public void decideExcommunication(String username, Boolean beExcommunicated) throws ActionNotAllowedException {
-        gameController.decideExcommunication(username, beExcommunicated);
-
-        connections.forEach(
-                connection -> {
-                    try {
-                        connection.onPlayerDecidesExcommunication(username, beExcommunicated);
-                    }
-                    catch (RemoteException e) {
-                        handleRemoteException(e);
-                    }
-                }
-        );
-
-        if(gameController.getPlayersWithPendingExcommunicationDecision().isEmpty()){
-            startNewRound();
-        }
+        flow.decideExcommunication(username, beExcommunicated);
     }
 
+
     /* ----------------------------------------------------------------
      * Methods related to the player connections, joining, exceptions
      * ---------------------------------------------------------------- */
@@ -782,7 +554,14 @@ public class ServerGameController {
      * @return true if the game can be joined
      */
     public boolean isJoinable() {
-        return (gameController.getGameState() == GameState.WAITING_FOR_PLAYERS_TO_CONNECT && connections.size() < 4);
+        return joinable;
+    }
+
+    /**
+     * Updates the flag read by the lobby, after a player has joined or the game has started
+     */
+    private void updateJoinable() {
+        joinable = gameController.getGameState() == GameState.WAITING_FOR_PLAYERS_TO_CONNECT && connections.size() < GameFlow.MAX_PLAYERS;
     }
 
     /**
@@ -797,15 +576,16 @@ public class ServerGameController {
         }
 
         connections.add(clientConnection);
+        clientConnection.enterGame(this);
+        clientConnection.getOutboundQueue().setDropListener(reason -> mailbox.post(() -> handleConnectionDropped(clientConnection, reason)));
+        updateJoinable();
         if (connections.size() == 2) {
             LOGGER.info("Starting game timeout");
-            new Thread(new GameStartTimeout()).start();
+            scheduleTimeout(this::startGame, gameStartTimeout);
         }
-        if (connections.size() == 4) {
+        if (connections.size() == GameFlow.MAX_PLAYERS) {
+            // The drafts replace the game start timeout
             startGame();
-
-            // startGame ignores repeated calls
-            // not a problem if we don't kill the timeout thread
         }
     }
 
@@ -814,80 +594,575 @@ public class ServerGameController {
     }
 
     /**
-     * Get the connection to the specified player
+     * Queues a command in the mailbox of the game
      *
-     * @param player
-     * @return
+     * @param command the command, calling the methods of this class
+     * @return the outcome of the command
+     */
+    public CompletableFuture<Void> submit(GameMailbox.Command command) {
+        return mailbox.submit(command);
+    }
+
+    /**
+     * @return the seed of the random decisions of the game
      */
-    private ClientConnection getConnectionForPlayer(Player player) {
-        Optional<ClientConnection> connection = connections.stream()
-                                                           .filter(c -> c.getUsername().equals(player.getUsername()))
-                                                           .findFirst();
-        if (connection.isPresent()) {
-            return connection.get();
+    public long getSeed() {
+        return random.getSeed();
+    }
+
+    /**
+     * Send a message to a player.
+     * The message is discarded if the player is not connected (the game has been recovered after a restart
+     * and the player has not logged in again).
+     *
+     * @param username the username of the player
+     * @param message the message
+     */
+    private void sendToPlayer(String username, OutboundQueue.Message message) {
+        for (ClientConnection connection : connections) {
+            if (connection.getUsername().equals(username)) {
+                connection.send(message);
+                return;
+            }
         }
-        else {
-            throw new NoSuchElementException();
+    }
+
+    /**
+     * Send a game event to all the players.
+     * The event is encoded once by the caller and the same bytes are sent to every connection.
+     *
+     * @param event the encoded event
+     */
+    private void broadcastGameEvent(byte[] event) {
+        for (ClientConnection connection : connections) {
+            connection.send(client -> client.onGameEvent(event));
         }
+
+        publishGameStateDelta();
     }
 
-    private ClientConnection getConnectionForPlayer(String username) {
-        Optional<ClientConnection> connection = connections.stream()
-                                                           .filter(c -> c.getUsername().equals(username))
-                                                           .findFirst();
-        if (connection.isPresent()) {
-            return connection.get();
+    /**
+     * Send to all the players the changes to the game state since the last delta, if any
+     */
+    private void publishGameStateDelta() {
+        GameStateSnapshot state = GameStateSnapshot.capture(getGame(), gameObjectIds);
+        GameStateDelta delta = state.diff(publishedState, stateSequence + 1);
+        if (delta.isEmpty()) return;
+
+        publishedState = state;
+        stateSequence = delta.getSequence();
+
+        byte[] encodedDelta = delta.encode();
+        for (ClientConnection connection : connections) {
+            connection.send(client -> client.onGameStateDelta(encodedDelta));
         }
-        else {
-            throw new NoSuchElementException();
+    }
+
+    /**
+     * Send the game configuration again to a player, with the game as it is now
+     * (e.g. if the player missed some deltas, and the events sent with them)
+     *
+     * @param username the username of the player
+     * @throws ActionNotAllowedException if the game configuration hasn't been sent yet
+     */
+    public void sendGameConfiguration(String username) throws ActionNotAllowedException {
+        if (publishedState == null) throw new ActionNotAllowedException("The game has not started yet");
+
+        // The configuration covers the deltas up to the last one published
+        publishGameStateDelta();
+        byte[] currentConfiguration;
+        try {
+            currentConfiguration = GameConfiguration.serialize(gameController, gameObjectIds, stateSequence);
         }
+        catch (IOException e) {
+            LOGGER.severe("Cannot serialize the game configuration: " + e.getMessage());
+            return;
+        }
+        sendToPlayer(username, client -> client.setGameConfiguration(currentConfiguration));
     }
 
     /**
-     * Handle a remote exception from a player connection
+     * Handle a player connection that has been dropped
+     * (because of a network error or because it was not keeping up with the messages)
+     *
+     * @param connection the connection
+     * @param reason     the reason the connection was dropped
+     */
+    private void handleConnectionDropped(ClientConnection connection, String reason) {
+        LOGGER.warning(String.format("Lost connection with player %s: %s", connection.getUsername(), reason));
+
+        // The game goes on if there are still players, with a bot in place of the player
+        boolean started = gameController.getGameState() != GameState.WAITING_FOR_PLAYERS_TO_CONNECT;
+        boolean otherPlayers = connections.stream().anyMatch(c -> c != connection && !(c instanceof BotConnection));
+        if (!started || !otherPlayers) {
+            abortGame("One of the clients crashed. Cannot go on.");
+            return;
+        }
+
+        int seat = connections.indexOf(connection);
+        if (seat < 0) return;
+
+        LOGGER.info(String.format("A bot takes the seat of player %s", connection.getUsername()));
+        connections.set(seat, new BotConnection(connection.getUsername()));
+        botSeats.add(connection.getUsername());
+        journal(JournalCommand.botTookSeat(connection.getUsername()));
+        connection.leaveGame(this);
+        letBotsChoose();
+    }
+
+    /**
+     * Abort the game, informing all the players
+     *
+     * @param errorMessage the reason the game is aborted
      */
-    @SuppressWarnings("squid:S1166") // Suppress "Log or rethrow this exception"
-    private void handleRemoteException(RemoteException e) {
-        connections.forEach(connection -> {
+    private void abortGame(String errorMessage) {
+        connections.forEach(connection -> connection.send(client -> client.abortGame(errorMessage)));
+        cancelTimeout();
+
+        deleteJournal();
+        notifyGameOver();
+    }
+
+    private void notifyGameOver() {
+        joinable = false;
+        connections.forEach(connection -> connection.leaveGame(this));
+
+        Consumer<ServerGameController> listener = gameOverListener;
+        gameOverListener = game -> { };
+        listener.accept(this);
+    }
+
+    public void setGameOverListener(Consumer<ServerGameController> gameOverListener) {
+        this.gameOverListener = gameOverListener;
+    }
+
+    /* ----------------------------------------------------------------
+     * Timeouts
+     * ---------------------------------------------------------------- */
+
+    /**
+     * Starts the timeout of the choice the game is waiting for, replacing the pending one.
+     * When it expires the server makes the choice through the same methods the players call,
+     * so the choice is journaled and broadcast like any other.
+     */
+    private void startPhaseTimeout() {
+        switch (gameController.getGameState()) {
+            case DRAFTING_BONUS_TILES: {
+                String username = getGame().getCurrentPlayer().getUsername();
+                scheduleTimeout(() -> onBonusTileDraftTimeout(username), moveTimeout);
+                break;
+            }
+            case DRAFTING_LEADER_CARDS:
+                scheduleTimeout(this::onLeaderCardsDraftTimeout, moveTimeout);
+                break;
+            case PLAYER_TURN:
+            case TAKING_CARD: {
+                String username = getGame().getCurrentPlayer().getUsername();
+                scheduleTimeout(() -> onMoveTimeout(username), moveTimeout);
+                break;
+            }
+            case VATICAN_REPORT:
+                scheduleTimeout(this::onExcommunicationTimeout, moveTimeout);
+                break;
+            default:
+                cancelTimeout();
+        }
+
+        letBotsChoose();
+    }
+
+    /**
+     * Schedules a timeout on the timer shared by all the games, cancelling the pending one.
+     * A timeout that fires while it's being replaced finds a newer generation and does nothing.
+     *
+     * @param task the task to run when the timeout expires
+     * @param delay the delay in milliseconds, the timeout is disabled if it's not positive
+     */
+    private void scheduleTimeout(Runnable task, int delay) {
+        cancelTimeout();
+        if (delay <= 0) return;
+
+        // The timer thread only hands the task to the mailbox
+        int generation = timeoutGeneration;
+        timeout = HashedWheelTimer.getShared().newTimeout(() -> mailbox.post(() -> {
+            if (generation == timeoutGeneration) task.run();
+        }), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelTimeout() {
+        timeoutGeneration++;
+        if (timeout == null) return;
+
+        timeout.cancel();
+        timeout = null;
+    }
+
+    /**
+     * The player didn't choose a personal bonus tile in time, the first available one is chosen
+     *
+     * @param username the username of the player
+     */
+    private void onBonusTileDraftTimeout(String username) {
+        LOGGER.info(String.format("Player %s didn't choose a personal bonus tile in time", username));
+        try {
+            choosePersonalBonusTile(username, getGame().getAvailablePersonalBonusTiles().get(0).getId());
+        }
+        catch (ActionNotAllowedException e) {
+            LOGGER.warning("Cannot choose a personal bonus tile for " + username + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Some players didn't choose a leader card in time, they get the first card they could choose
+     */
+    private void onLeaderCardsDraftTimeout() {
+        // The last choice starts the next turn of the draft
+        for (Player player : new ArrayList<>(flow.getPlayersThatHaveToDraft())) {
+            LOGGER.info(String.format("Player %s didn't choose a leader card in time", player.getUsername()));
             try {
-                connection.abortGame("One of the clients crashed. Cannot go on.");
+                chooseLeaderCard(player.getUsername(), flow.getLeaderCardsToChooseFrom(player).get(0).getId());
             }
-            catch (RemoteException e1) {
-                // We're aborting the game, nothing to do anyway
+            catch (ActionNotAllowedException e) {
+                LOGGER.warning("Cannot choose a leader card for " + player.getUsername() + ": " + e.getMessage());
             }
-        });
+        }
     }
 
     /**
-     * Utility method to get the game from the game controller
+     * The player didn't end his turn in time: the card he's taking (if any) is taken without council privileges
+     * and the turn is ended
      *
-     * @return
+     * @param username the username of the player
      */
-    private Game getGame() {
-        return gameController.getGame();
+    private void onMoveTimeout(String username) {
+        LOGGER.info(String.format("Player %s ran out of time, ending his turn", username));
+        try {
+            if (gameController.getGameState() == GameState.TAKING_CARD) {
+                takeDevelopmentCard(username, gameController.getDevelopmentCardBeingTaken().getId(), Collections.emptyList());
+            }
+            endTurn(username);
+        }
+        catch (ActionNotAllowedException e) {
+            LOGGER.warning("Cannot end the turn of " + username + ": " + e.getMessage());
+        }
     }
 
-    private class GameStartTimeout implements Runnable {
-        @Override
-        @SuppressWarnings("squid:S2142") // Suppress "InterruptedException should not be ignored" warning
-        public void run() {
-            // The time when the timer was started, needed to handle exceptions
-            long startTime;
-            long remainingTime = gameStartTimeout;
-
-            while (true) {
-                startTime = System.currentTimeMillis();
-                try {
-                    Thread.sleep(remainingTime);
-                    startGame();
-                    break;
+    /**
+     * Some players didn't decide in time whether to be excommunicated, they are excommunicated
+     */
+    private void onExcommunicationTimeout() {
+        // The last decision starts the next round
+        for (Player player : new ArrayList<>(gameController.getPlayersWithPendingExcommunicationDecision())) {
+            LOGGER.info(String.format("Player %s didn't decide about the excommunication in time", player.getUsername()));
+            try {
+                decideExcommunication(player.getUsername(), true);
+            }
+            catch (ActionNotAllowedException e) {
+                LOGGER.warning("Cannot decide the excommunication of " + player.getUsername() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /* ----------------------------------------------------------------
+     * Bots
+     * ---------------------------------------------------------------- */
+
+    /**
+     * Fills the empty seats with bots, up to the minimum players of the settings
+     */
+    private void addBots() {
+        int bot = 1;
+        while (connections.size() < botSettings.getMinimumPlayers()) {
+            String username = "Bot " + bot++;
+            if (connections.stream().noneMatch(connection -> connection.getUsername().equals(username))) {
+                connections.add(new BotConnection(username));
+                botSeats.add(username);
+            }
+        }
+    }
+
+    private boolean isBot(String username) {
+        for (ClientConnection connection : connections) {
+            if (connection.getUsername().equals(username)) return connection instanceof BotConnection;
+        }
+        return false;
+    }
+
+    /**
+     * Makes the choices of the bots the game is waiting for. The choices are posted to the mailbox,
+     * so that they're made after the command being run, through the same methods the players call.
+     * Like a timeout, a choice is discarded if the game has moved to another phase in the meantime.
+     */
+    private void letBotsChoose() {
+        switch (gameController.getGameState()) {
+            case DRAFTING_BONUS_TILES: {
+                String username = getGame().getCurrentPlayer().getUsername();
+                if (isBot(username)) {
+                    postBotChoice(() -> choosePersonalBonusTile(username, getGame().getAvailablePersonalBonusTiles().get(0).getId()));
+                }
+                break;
+            }
+            case DRAFTING_LEADER_CARDS:
+                for (Player player : flow.getPlayersThatHaveToDraft()) {
+                    if (isBot(player.getUsername())) {
+                        postBotChoice(() -> chooseLeaderCard(player.getUsername(), flow.getLeaderCardsToChooseFrom(player).get(0).getId()));
+                    }
                 }
-                catch (InterruptedException e) {
-                    // If somehow the thread is woken up early compute the
-                    // remaining time and go back to sleep again
-                    remainingTime = remainingTime - (System.currentTimeMillis() - startTime);
+                break;
+            case PLAYER_TURN:
+            case TAKING_CARD: {
+                String username = getGame().getCurrentPlayer().getUsername();
+                if (isBot(username)) {
+                    postBotChoice(() -> startBotTurn(username));
                 }
+                break;
+            }
+            case VATICAN_REPORT:
+                for (Player player : gameController.getPlayersWithPendingExcommunicationDecision()) {
+                    if (isBot(player.getUsername())) {
+                        postBotChoice(() -> decideExcommunication(player.getUsername(), false));
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Posts a choice of a bot to the mailbox, to be made only if the game is still in the same phase
+     *
+     * @param choice the choice, calling the methods of this class
+     */
+    private void postBotChoice(GameMailbox.Command choice) {
+        int generation = timeoutGeneration;
+        mailbox.post(() -> {
+            if (generation != timeoutGeneration) return;
+            try {
+                choice.execute();
+            }
+            catch (ActionNotAllowedException e) {
+                LOGGER.warning("A choice of a bot has been refused: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Starts the search of the move of a bot, and makes the move when the search is over.
+     * A bot that has already placed its family member (it has just taken the seat of a player) takes the card
+     * and ends its turn.
+     *
+     * @param username the username of the bot
+     */
+    private void startBotTurn(String username) throws ActionNotAllowedException {
+        List<Move> moves = gameController.getAllowedMoves();
+        if (moves.size() == 1) {
+            playBotMove(username, moves.get(0));
+            return;
+        }
+
+        // The search doesn't use the random decisions of the game, they would not be replayed by the journal
+        int generation = timeoutGeneration;
+        botSearch.search(gameController, moves, ThreadLocalRandom.current().nextLong())
+                 .thenAccept(move -> mailbox.post(() -> {
+                     if (generation != timeoutGeneration) return;
+                     try {
+                         playBotMove(username, move);
+                     }
+                     catch (ActionNotAllowedException e) {
+                         LOGGER.warning("A move of a bot has been refused: " + e.getMessage());
+                     }
+                 }));
+    }
+
+    /**
+     * Makes the move of a bot and ends its turn, even if the move is refused
+     *
+     * @param username the username of the bot
+     * @param move the move
+     */
+    private void playBotMove(String username, Move move) throws ActionNotAllowedException {
+        try {
+            if (!move.isPass()) placeBotFamilyMember(username, move);
+        }
+        catch (ActionNotAllowedException e) {
+            LOGGER.warning(String.format("The move of bot %s has been refused, it passes: %s", username, e.getMessage()));
+        }
+
+        if (gameController.getGameState() == GameState.TAKING_CARD) {
+            DevelopmentCard card = gameController.getDevelopmentCardBeingTaken();
+            takeDevelopmentCard(username, card.getId(), MctsSearch.chooseCardPrivileges(getGame(), card));
+        }
+        endTurn(username);
+    }
+
+    private void placeBotFamilyMember(String username, Move move) throws ActionNotAllowedException {
+        if (move.getServants() > 0) {
+            spendServants(username, move.getServants());
+        }
+
+        if (move.isFloor()) {
+            goToFloor(username, move.getActionSpace().getId(), move.getFamilyMember(), move.getPayment(), move.getCouncilPrivileges());
+        }
+        else {
+            goToActionSpace(username, move.getActionSpace().getId(), move.getFamilyMember(), move.getCouncilPrivileges());
+        }
+    }
+
+    /* ----------------------------------------------------------------
+     * Journal and recovery
+     * ---------------------------------------------------------------- */
+
+    /**
+     * Creates the journal of the game, starting with the seed, the players and the bots
+     *
+     * @param usernames the usernames of the players, in the order they joined
+     */
+    private void startJournal(List<String> usernames) {
+        if (journalStore == null) return;
+
+        try {
+            journal = journalStore.create();
+            journal.append(JournalCommand.gameStarted(random.getSeed(), usernames, botSeats));
+            LOGGER.info("Journaling the game in " + journal.getGameId());
+        }
+        catch (IOException e) {
+            LOGGER.warning("Cannot create the journal, the game won't be recovered after a restart: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends a command accepted by the game to the journal
+     *
+     * @param command the encoded command
+     */
+    private void journal(byte[] command) {
+        if (journal != null) journal.append(command);
+    }
+
+    /**
+     * The journal references the personal bonus tiles and the leader cards by their position in the catalog,
+     * because their UUIDs change when the server is restarted
+     *
+     * @param catalogObjects the objects in the catalog
+     * @param getId the function returning the id of an object
+     * @param id the id of the object
+     * @return the position of the object in the catalog
+     */
+    private static <T> int getCatalogPosition(List<T> catalogObjects, Function<T, UUID> getId, UUID id) {
+        for (int i = 0; i < catalogObjects.size(); i++) {
+            if (getId.apply(catalogObjects.get(i)).equals(id)) return i;
+        }
+        throw new NoSuchElementException("Object " + id + " is not in the catalog");
+    }
+
+    /**
+     * Saves a snapshot of the game in the journal, so that a recovery replays only the commands that follow.
+     * The random decisions are reseeded even if there's no journal, so that a game replayed from the commands
+     * makes the same decisions as the game that has been journaled.
+     */
+    private void saveSnapshot() {
+        long reseed = random.reseed();
+        if (journal == null) return;
+
+        journal.snapshot(new GameSnapshot(gameController, gameObjectIds, stateSequence, random.getSeed(), reseed));
+    }
+
+    private void restoreSnapshot(GameSnapshot snapshot) {
+        gameController = snapshot.getGameController();
+        flow = new GameFlow(gameController, random, new FlowListener());
+        gameObjectIds = snapshot.getGameObjectIds();
+        eventEncoder = new GameEventEncoder(gameObjectIds);
+
+        publishedState = GameStateSnapshot.capture(getGame(), gameObjectIds);
+        stateSequence = snapshot.getStateSequence();
+    }
+
+    private void deleteJournal() {
+        if (journal == null) return;
+
+        journal.delete();
+        journal = null;
+    }
+
+    /**
+     * @return the usernames of the players of the game (the game has been recovered after a restart of the server)
+     */
+    public List<String> getUsernames() {
+        return getGame().getPlayers().stream().map(Player::getUsername).collect(Collectors.toList());
+    }
+
+    /**
+     * @param username the username of a player of the game
+     * @return true if a bot has taken the seat (the player doesn't go back to the game when he logs in again)
+     */
+    public boolean isBotSeat(String username) {
+        return botSeats.contains(username);
+    }
+
+    /**
+     * Reattaches a player to the game after a restart of the server,
+     * sending him the state of the game and what he has to choose, if anything
+     *
+     * @param clientConnection the new connection of the player
+     */
+    public void reattachPlayer(ClientConnection clientConnection) {
+        String username = clientConnection.getUsername();
+        LOGGER.info(String.format("Player %s is back in the game", username));
+
+        connections.add(clientConnection);
+        clientConnection.enterGame(this);
+        clientConnection.getOutboundQueue().setDropListener(reason -> mailbox.post(() -> handleConnectionDropped(clientConnection, reason)));
+
+        if (publishedState != null) {
+            try {
+                sendGameConfiguration(username);
+            }
+            catch (ActionNotAllowedException e) {
+                // Never happens, the state has been published with the configuration
+                LOGGER.warning("Cannot send the game configuration: " + e.getMessage());
             }
         }
+
+        Player player = getGame().getPlayers().stream()
+                                 .filter(p -> p.getUsername().equals(username))
+                                 .findFirst()
+                                 .orElseThrow(NoSuchElementException::new);
+        switch (gameController.getGameState()) {
+            case DRAFTING_BONUS_TILES:
+                if (player.equals(getGame().getCurrentPlayer())) {
+                    draftNextBonusTile();
+                }
+                else {
+                    sendToPlayer(username, client -> client.showWaitingMessage("Wait for other players to choose a bonus tile"));
+                }
+                break;
+            case DRAFTING_LEADER_CARDS:
+                if (flow.getPlayersThatHaveToDraft().contains(player)) {
+                    askToChooseLeaderCard(player);
+                }
+                else {
+                    sendToPlayer(username, client -> client.showWaitingMessage("Waiting for other players to choose..."));
+                }
+                break;
+            case TAKING_CARD:
+                if (player.equals(getGame().getCurrentPlayer())) {
+                    UUID cardId = gameController.getDevelopmentCardBeingTaken().getId();
+                    sendToPlayer(username, client -> client.askWhichImmediateResourcesToTake(cardId));
+                }
+                break;
+            default:
+                // The turns and the vatican report go on from the state of the controller sent with the configuration
+                break;
+        }
+    }
+
+    /**
+     * Utility method to get the game from the game controller
+     *
+     * @return
+     */
+    private Game getGame() {
+        return gameController.getGame();
     }
 }
@@ -1,9 +1,14 @@
 package server;
 
+import server.bot.BotSettings;
+
 import java.util.logging.Logger;
 
 /**
  * This is the class responsible for launching the server
+ * <p>
+ * It can be run from the command line: ServerMain [minimum players],
+ * where the seats left empty when a game starts are taken by bots up to the minimum players
  */
 public class ServerMain {
     private static final Logger LOGGER = Logger.getLogger("Server Launcher");
@@ -17,6 +22,12 @@ public class ServerMain {
     public static void main(String[] args) {
         LOGGER.info("Starting Lorenzo il Magnifico Server..");
 
+        if (args.length > 0) {
+            int minimumPlayers = Integer.parseInt(args[0]);
+            BotSettings.setDefault(BotSettings.getDefault().withMinimumPlayers(minimumPlayers));
+            LOGGER.info(String.format("The games start with at least %d players, adding bots", minimumPlayers));
+        }
+
         Server s = new Server();
         s.start();
     }
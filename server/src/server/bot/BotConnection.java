@@ -0,0 +1,83 @@
+package server.bot;
+
+import model.card.leader.LeaderCard;
+import model.player.PersonalBonusTile;
+import server.ClientConnection;
+import server.OutboundQueue;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This class is the connection of a bot, which takes the seat of a player in a game.
+ * <p>
+ * The bot has no client: the {@link server.ServerGameController} makes its choices when the game is waiting
+ * for them, so the messages for the player are discarded instead of being queued.
+ */
+public class BotConnection extends ClientConnection {
+    /**
+     * @param username the username of the bot, the one of the player it replaces if any
+     */
+    public BotConnection(String username) {
+        super(username);
+    }
+
+    @Override
+    public void send(OutboundQueue.Message message) {
+        // There's no client to send the message to
+    }
+
+    @Override
+    public void onDisconnected() {
+        // The bot is not in the lobby
+    }
+
+    /* ----------------------------------------------------------------------
+     * Server to client interface
+     * ---------------------------------------------------------------------- */
+
+    @Override
+    public void pingClient() {
+        // There's no client
+    }
+
+    @Override
+    public void abortGame(String errorMessage) {
+        // There's no client
+    }
+
+    @Override
+    public void askToChoosePersonalBonusTile(List<PersonalBonusTile> personalBonusTiles) {
+        // There's no client
+    }
+
+    @Override
+    public void askToChooseLeaderCard(List<LeaderCard> leaderCards) {
+        // There's no client
+    }
+
+    @Override
+    public void askWhichImmediateResourcesToTake(UUID cardId) {
+        // There's no client
+    }
+
+    @Override
+    public void showWaitingMessage(String message) {
+        // There's no client
+    }
+
+    @Override
+    public void setGameConfiguration(byte[] configuration) {
+        // There's no client
+    }
+
+    @Override
+    public void onGameEvent(byte[] event) {
+        // There's no client
+    }
+
+    @Override
+    public void onGameStateDelta(byte[] delta) {
+        // There's no client
+    }
+}
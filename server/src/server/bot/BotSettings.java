@@ -0,0 +1,95 @@
+package server.bot;
+
+/**
+ * This class holds the settings of the bots: how long and how wide they search for a move,
+ * and how many seats of a table are filled with bots when the game starts.
+ * <p>
+ * The settings are immutable, the default ones are used by the games created after they're set.
+ */
+public class BotSettings {
+    /**
+     * The settings used by the games of the server, which don't add bots to the tables
+     */
+    private static volatile BotSettings defaultSettings = new BotSettings(1000, 0, 2, 10000, 0);
+
+    /**
+     * The time (in milliseconds) a bot thinks about a move
+     */
+    private final int moveTime;
+
+    /**
+     * The iterations of each worker for a move, 0 to search until the move time expires
+     */
+    private final int iterations;
+
+    /**
+     * The searches run in parallel for a move, each on its own copy of the game
+     */
+    private final int workers;
+
+    /**
+     * The nodes of the tree of each worker, which bound the memory used by a search
+     * (a node keeps the moves of its position, about 2 KB)
+     */
+    private final int maxNodes;
+
+    /**
+     * The players a game starts with: the seats left empty when the game starts are taken by bots
+     */
+    private final int minimumPlayers;
+
+    /**
+     * @param moveTime the time (in milliseconds) a bot thinks about a move
+     * @param iterations the iterations of each worker for a move, 0 to search until the move time expires
+     * @param workers the searches run in parallel for a move
+     * @param maxNodes the nodes of the tree of each worker
+     * @param minimumPlayers the players a game starts with, adding bots (0 for no bots)
+     */
+    public BotSettings(int moveTime, int iterations, int workers, int maxNodes, int minimumPlayers) {
+        if (moveTime <= 0 || iterations < 0 || workers <= 0 || maxNodes <= 0 || minimumPlayers < 0 || minimumPlayers > 4) {
+            throw new IllegalArgumentException("Invalid bot settings");
+        }
+
+        this.moveTime = moveTime;
+        this.iterations = iterations;
+        this.workers = workers;
+        this.maxNodes = maxNodes;
+        this.minimumPlayers = minimumPlayers;
+    }
+
+    /**
+     * @param minimumPlayers the players a game starts with, adding bots (0 for no bots)
+     * @return the same settings with another minimum number of players
+     */
+    public BotSettings withMinimumPlayers(int minimumPlayers) {
+        return new BotSettings(moveTime, iterations, workers, maxNodes, minimumPlayers);
+    }
+
+    public static BotSettings getDefault() {
+        return defaultSettings;
+    }
+
+    public static void setDefault(BotSettings settings) {
+        defaultSettings = settings;
+    }
+
+    public int getMoveTime() {
+        return moveTime;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    public int getMinimumPlayers() {
+        return minimumPlayers;
+    }
+}
@@ -0,0 +1,483 @@
+package server.bot;
+
+import gamecontroller.GameController;
+import gamecontroller.Move;
+import gamecontroller.ZobristHash;
+import gamecontroller.exceptions.ActionNotAllowedException;
+import gamecontroller.utils.GameRandom;
+import model.Game;
+import model.card.development.DevelopmentCard;
+import model.card.effects.ImmediateResourcesEffect;
+import model.player.Player;
+import model.resource.ObtainableResource;
+import model.resource.ObtainableResourceSet;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class chooses the move of a bot with a Monte Carlo tree search (UCT).
+ * <p>
+ * The search is parallelized at the root: each worker copies the game and grows its own tree,
+ * and the visits of the moves of the root are summed when all the workers are done.
+ * A worker copies the game only once: every iteration plays its moves from a savepoint of the copy
+ * and rolls them back (see {@link GameController#savepoint()}).
+ * The workers share a {@link TranspositionTable}: a position is valued with the visits of all the workers,
+ * and of all the orders of moves that reach it.
+ * <p>
+ * The search stops at the end of the round, where the game draws new cards and throws the dice:
+ * the moves below the tree are played at random (passing only when there's no other move) and the round
+ * is scored with the victory points the players would have if the game ended there.
+ * The reward of a player grows with his margin over the best of the other players.
+ * <p>
+ * The workers of all the bots share a thread for each processor and every tree has a maximum number of nodes.
+ * A tree exists only while its worker is running, so many bots on the same server make the searches shallower,
+ * but never use more threads or more memory: a search waiting for a thread holds only its copy of the game.
+ */
+public class MctsSearch {
+    private static final Logger LOGGER = Logger.getLogger("MctsSearch");
+
+    /**
+     * The threads running the searches, shared by all the bots.
+     * The searches never block, so there's no need for more threads than processors.
+     */
+    private static final ExecutorService SEARCHERS = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+        Thread thread = new Thread(runnable, "MctsSearch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The exploration constant of UCT, for rewards between 0 and 1
+     */
+    private static final double EXPLORATION = 1.0;
+
+    /**
+     * The margin (in victory points) over the best of the other players that gives a reward of about 0.73
+     */
+    private static final double REWARD_SCALE = 5.0;
+
+    /**
+     * The victory points a military point and a faith point are worth at the end of a round:
+     * the military points are needed for the territories and get victory points at the end of the game,
+     * the faith points avoid the excommunications
+     */
+    private static final double MILITARY_POINT_VALUE = 0.25;
+    private static final double FAITH_POINT_VALUE = 0.5;
+
+    private final BotSettings settings;
+    private final Executor executor;
+
+    /**
+     * @param settings the settings of the search
+     */
+    public MctsSearch(BotSettings settings) {
+        this(settings, SEARCHERS);
+    }
+
+    /**
+     * @param settings the settings of the search
+     * @param executor the threads running the workers
+     */
+    public MctsSearch(BotSettings settings, Executor executor) {
+        this.settings = settings;
+        this.executor = executor;
+    }
+
+    /**
+     * Searches the move of the current player. The game is copied before this method returns,
+     * so it can be changed while the search is running.
+     *
+     * @param gameController the controller of the game, in the turn of the player
+     * @param moves the allowed moves of the player, the last one is the pass
+     * @param seed the seed of the random moves of the search
+     * @return the chosen move (one of the given moves), completed when the search is over
+     */
+    public CompletableFuture<Move> search(GameController gameController, List<Move> moves, long seed) {
+        if (moves.size() == 1) return CompletableFuture.completedFuture(moves.get(0));
+
+        byte[] game;
+        try {
+            game = copy(gameController);
+        }
+        catch (IOException e) {
+            LOGGER.warning("Cannot copy the game, the move is chosen at random: " + e.getMessage());
+            return CompletableFuture.completedFuture(chooseRandomMove(moves, seed));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getMoveTime());
+        TranspositionTable table = new TranspositionTable(settings.getMaxNodes() * settings.getWorkers());
+        List<CompletableFuture<SearchTree>> workers = new ArrayList<>(settings.getWorkers());
+        for (int i = 0; i < settings.getWorkers(); i++) {
+            long workerSeed = seed + (i + 1) * 0x9E3779B97F4A7C15L;
+            workers.add(CompletableFuture.supplyAsync(() -> grow(game, table, deadline, workerSeed), executor));
+        }
+
+        return CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[workers.size()]))
+                                .thenApply(done -> chooseMove(moves, workers, seed));
+    }
+
+    /**
+     * Returns the council privileges a bot chooses for the immediate resources of a card: the first ones of the game
+     *
+     * @param game the game
+     * @param card the card being taken
+     * @return the council privileges
+     */
+    public static List<ObtainableResourceSet> chooseCardPrivileges(Game game, DevelopmentCard card) {
+        int count = 0;
+        for (ImmediateResourcesEffect e : card.getEffectsContainer().getEffectsImplementing(ImmediateResourcesEffect.class)) {
+            count += e.getObtainableResourceSet().getObtainedAmount(ObtainableResource.COUNCIL_PRIVILEGES);
+        }
+        if (count == 0) return Collections.emptyList();
+
+        List<ObtainableResourceSet> allowedPrivileges = game.getAllowedCouncilPrivileges();
+        return new ArrayList<>(allowedPrivileges.subList(0, Math.min(count, allowedPrivileges.size())));
+    }
+
+    /**
+     * Grows the tree of a worker until the iterations are over or the time expires
+     *
+     * @return the tree, null if the worker has failed or started after the time had already expired
+     */
+    private SearchTree grow(byte[] game, TranspositionTable table, long deadline, long seed) {
+        // The bots are more than the threads: the move is late already
+        if (deadline - System.nanoTime() <= 0) return null;
+
+        try {
+            SearchTree tree = new SearchTree(readCopy(game), table, seed, settings.getMaxNodes());
+            int iterations = settings.getIterations();
+            do {
+                tree.iterate();
+            }
+            while ((iterations == 0 || tree.iterations < iterations) && deadline - System.nanoTime() > 0);
+
+            LOGGER.fine(String.format("Searched %d iterations, %d nodes", tree.iterations, tree.nodes));
+            return tree;
+        }
+        catch (IOException | ClassNotFoundException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "A search worker has failed", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the most visited move of the roots of the trees, a random move if no tree has been grown
+     */
+    private static Move chooseMove(List<Move> moves, List<CompletableFuture<SearchTree>> workers, long seed) {
+        long[] visits = new long[moves.size()];
+        for (CompletableFuture<SearchTree> worker : workers) {
+            SearchTree tree = worker.join();
+            if (tree != null) tree.addRootVisits(moves, visits);
+        }
+
+        int best = -1;
+        for (int i = 0; i < visits.length; i++) {
+            if (visits[i] > 0 && (best < 0 || visits[i] > visits[best])) best = i;
+        }
+        return best >= 0 ? moves.get(best) : chooseRandomMove(moves, seed);
+    }
+
+    /**
+     * @return a random move, the pass only if there's no other move
+     */
+    private static Move chooseRandomMove(List<Move> moves, long seed) {
+        if (moves.size() == 1) return moves.get(0);
+        return moves.get(new GameRandom(seed).nextInt(moves.size() - 1));
+    }
+
+    private static byte[] copy(GameController gameController) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(gameController);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static GameController readCopy(byte[] game) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(game))) {
+            return (GameController) in.readObject();
+        }
+    }
+
+    /**
+     * @return true if the moves are the same, even if they come from different copies of the game
+     */
+    private static boolean isSameMove(Move a, Move b) {
+        if (a.isPass() || b.isPass()) return a.isPass() == b.isPass();
+
+        return a.getActionSpace().getId().equals(b.getActionSpace().getId())
+                && a.getFamilyMember() == b.getFamilyMember()
+                && a.getServants() == b.getServants()
+                && Objects.equals(a.getPayment(), b.getPayment())
+                && Objects.equals(a.getCouncilPrivileges(), b.getCouncilPrivileges());
+    }
+
+    /* ----------------------------------------------------------------
+     * Search tree
+     * ---------------------------------------------------------------- */
+
+    /**
+     * A position of the tree, reached by the moves from the root
+     */
+    private static final class Node {
+        /**
+         * The hash of the position, with the turns started in the round
+         */
+        private final long hash;
+
+        /**
+         * The index of the player that moved to this position
+         */
+        private final int mover;
+
+        /**
+         * The moves of the player moving in this position, in the order the children are expanded,
+         * null until the position is reached again after being added to the tree
+         */
+        private List<Move> moves;
+        private Node[] children;
+        private int expanded;
+
+        private int visits;
+
+        /**
+         * The sum of the rewards of each player (in turn order) in the iterations through this position
+         */
+        private final double[] rewards;
+
+        Node(long hash, int mover, int players) {
+            this.hash = hash;
+            this.mover = mover;
+            this.rewards = new double[players];
+        }
+    }
+
+    /**
+     * The tree of a worker, grown on its own copy of the game
+     */
+    private static final class SearchTree {
+        private final GameController gameController;
+        private final TranspositionTable table;
+
+        /**
+         * The players in turn order, which doesn't change during the round
+         */
+        private final List<Player> players;
+        private final GameRandom random;
+        private final int maxNodes;
+
+        private final Node root;
+        private final List<Node> path = new ArrayList<>();
+        private int nodes = 1;
+        private int iterations;
+
+        /**
+         * The index of the player moving in the position being played
+         */
+        private int currentPlayer;
+
+        SearchTree(GameController gameController, TranspositionTable table, long seed, int maxNodes) {
+            this.gameController = gameController;
+            this.table = table;
+            this.players = new ArrayList<>(gameController.getGame().getPlayers());
+            this.random = new GameRandom(seed);
+            this.maxNodes = maxNodes;
+            this.currentPlayer = players.indexOf(gameController.getGame().getCurrentPlayer());
+
+            // The hash is computed before the first savepoint, so that the rollbacks restore it instead of discarding it
+            this.root = new Node(getPositionHash(), -1, players.size());
+        }
+
+        /**
+         * Plays the moves of the tree down to a new position, scores the rest of the round
+         * and rolls the game back to the root
+         */
+        void iterate() {
+            int savepoint = gameController.savepoint();
+            int rootPlayer = currentPlayer;
+
+            path.clear();
+            path.add(root);
+            double[] rewards = descend();
+            for (Node node : path) {
+                node.visits++;
+                for (int i = 0; i < rewards.length; i++) {
+                    node.rewards[i] += rewards[i];
+                }
+                if (node != root) table.add(node.hash, rewards[node.mover]);
+            }
+
+            gameController.rollbackTo(savepoint);
+            currentPlayer = rootPlayer;
+            iterations++;
+        }
+
+        /**
+         * Selects the moves of the tree until a position with moves still to try, and adds one of them
+         *
+         * @return the rewards of the players
+         */
+        private double[] descend() {
+            Node node = root;
+            while (true) {
+                if (node.moves == null) {
+                    node.moves = generateMoves();
+                    if (node.moves.size() > 1) random.shuffle(node.moves);
+                    node.children = new Node[node.moves.size()];
+                }
+
+                if (node.expanded < node.children.length && nodes < maxNodes) {
+                    int mover = currentPlayer;
+                    boolean roundOver = play(node.moves.get(node.expanded));
+                    Node child = new Node(getPositionHash(), mover, players.size());
+                    node.children[node.expanded++] = child;
+                    nodes++;
+                    path.add(child);
+                    return roundOver ? evaluate() : rollout();
+                }
+
+                // The tree is full
+                if (node.expanded == 0) return rollout();
+
+                int move = select(node);
+                boolean roundOver = play(node.moves.get(move));
+                node = node.children[move];
+                path.add(node);
+                if (roundOver) return evaluate();
+            }
+        }
+
+        /**
+         * @return the expanded move with the best upper confidence bound for the player moving.
+         * The value of a move is the one in the transposition table when it has more visits than the tree
+         */
+        private int select(Node node) {
+            double logVisits = Math.log(node.visits);
+            int best = 0;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < node.expanded; i++) {
+                Node child = node.children[i];
+                double mean = child.rewards[currentPlayer] / child.visits;
+                long statistics = table.get(child.hash);
+                int sharedVisits = TranspositionTable.getVisits(statistics);
+                if (sharedVisits > child.visits) {
+                    mean = TranspositionTable.getRewards(statistics) / sharedVisits;
+                }
+
+                double value = mean + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                if (value > bestValue) {
+                    best = i;
+                    bestValue = value;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Plays random moves until the end of the round
+         *
+         * @return the rewards of the players
+         */
+        private double[] rollout() {
+            while (true) {
+                List<Move> moves = generateMoves();
+                Move move = moves.size() == 1 ? moves.get(0) : moves.get(random.nextInt(moves.size() - 1));
+                if (play(move)) return evaluate();
+            }
+        }
+
+        /**
+         * @return the hash of the position: the same game with a different number of turns left is another position
+         */
+        private long getPositionHash() {
+            return gameController.getStateHash() ^ ZobristHash.turnsStarted(gameController.getTurnsStartedInRound());
+        }
+
+        private List<Move> generateMoves() {
+            List<Move> moves = gameController.getAllowedMoves();
+            return moves.size() > 1 ? moves : new ArrayList<>(moves);
+        }
+
+        /**
+         * Plays a move and starts the turn of the next player
+         *
+         * @return true if the round is over
+         */
+        private boolean play(Move move) {
+            String username = players.get(currentPlayer).getUsername();
+            try {
+                if (!move.isPass()) placeFamilyMember(username, move);
+
+                if (gameController.isLastTurnOfRound()) return true;
+
+                currentPlayer = (currentPlayer + 1) % players.size();
+                gameController.startPlayerTurn(players.get(currentPlayer).getUsername());
+                return false;
+            }
+            catch (ActionNotAllowedException e) {
+                throw new IllegalStateException("The game controller refused a move of the search: " + e.getMessage(), e);
+            }
+        }
+
+        private void placeFamilyMember(String username, Move move) throws ActionNotAllowedException {
+            if (move.getServants() > 0) {
+                gameController.spendServants(username, move.getServants());
+            }
+
+            if (!move.isFloor()) {
+                gameController.goToActionSpace(username, move.getActionSpace().getId(), move.getFamilyMember(), move.getCouncilPrivileges());
+                return;
+            }
+
+            gameController.goToFloor(username, move.getFamilyMember(), move.getActionSpace().getId(), move.getPayment(), move.getCouncilPrivileges());
+            DevelopmentCard card = gameController.getDevelopmentCardBeingTaken();
+            gameController.takeDevelopmentCard(username, card.getId(), chooseCardPrivileges(gameController.getGame(), card));
+        }
+
+        /**
+         * @return the rewards of the players for the victory points they would have if the game ended now
+         */
+        private double[] evaluate() {
+            double[] scores = new double[players.size()];
+            for (int i = 0; i < scores.length; i++) {
+                Player player = players.get(i);
+                scores[i] = player.getResources().getAmount(ObtainableResource.VICTORY_POINTS)
+                        + gameController.getEndOfGameVictoryPoints(player)
+                        + MILITARY_POINT_VALUE * player.getResources().getAmount(ObtainableResource.MILITARY_POINTS)
+                        + FAITH_POINT_VALUE * player.getResources().getAmount(ObtainableResource.FAITH_POINTS);
+            }
+
+            double[] rewards = new double[scores.length];
+            for (int i = 0; i < scores.length; i++) {
+                double bestOpponent = Double.NEGATIVE_INFINITY;
+                for (int j = 0; j < scores.length; j++) {
+                    if (j != i) bestOpponent = Math.max(bestOpponent, scores[j]);
+                }
+                rewards[i] = 1 / (1 + Math.exp((bestOpponent - scores[i]) / REWARD_SCALE));
+            }
+            return rewards;
+        }
+
+        /**
+         * Adds the visits of the moves of the root to the visits of the same moves of the game being searched
+         */
+        void addRootVisits(List<Move> moves, long[] visits) {
+            for (int i = 0; i < root.expanded; i++) {
+                Move move = root.moves.get(i);
+                for (int j = 0; j < moves.size(); j++) {
+                    if (isSameMove(move, moves.get(j))) {
+                        visits[j] += root.children[i].visits;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+}
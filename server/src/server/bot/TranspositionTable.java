@@ -0,0 +1,81 @@
+package server.bot;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class keeps the statistics of the positions reached by a search, by their Zobrist hash
+ * (see {@link gamecontroller.ZobristHash}), so that the workers of a search share what they learn
+ * about a position, even when they reach it with a different order of moves.
+ * <p>
+ * The table has a fixed number of entries and takes no locks. An entry is made of two longs:
+ * the statistics, and the hash xored with the statistics. An entry half written by a thread doesn't match
+ * the hash of the position when another thread reads it, so it's read as missing.
+ * Two threads updating the same entry at once can lose a visit, which doesn't matter to a search.
+ * A new position takes the entry of the one it collides with.
+ */
+public class TranspositionTable {
+    /**
+     * The statistics are packed in a long: the visits in the highest 24 bits,
+     * the sum of the rewards (between 0 and 1) in fixed point in the others
+     */
+    private static final int VISITS_SHIFT = 40;
+    private static final long REWARDS_MASK = (1L << VISITS_SHIFT) - 1;
+    private static final double REWARD_UNIT = 1 << 10;
+
+    private final AtomicLongArray entries;
+    private final int mask;
+
+    /**
+     * @param size the minimum number of entries, rounded up to a power of two
+     */
+    public TranspositionTable(int size) {
+        int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.entries = new AtomicLongArray(capacity * 2);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds a visit of a position
+     *
+     * @param hash the hash of the position
+     * @param reward the reward of the player that moved to the position, between 0 and 1
+     */
+    public void add(long hash, double reward) {
+        int index = ((int) hash & mask) * 2;
+        long statistics = entries.get(index + 1);
+        long check = entries.get(index);
+
+        long visit = (1L << VISITS_SHIFT) + Math.round(reward * REWARD_UNIT);
+        statistics = (check ^ statistics) == hash ? statistics + visit : visit;
+
+        entries.set(index + 1, statistics);
+        entries.set(index, hash ^ statistics);
+    }
+
+    /**
+     * @param hash the hash of the position
+     * @return the packed statistics of the position, 0 if the position is not in the table
+     */
+    public long get(long hash) {
+        int index = ((int) hash & mask) * 2;
+        long statistics = entries.get(index + 1);
+        long check = entries.get(index);
+        return (check ^ statistics) == hash ? statistics : 0;
+    }
+
+    /**
+     * @param statistics the statistics returned by get()
+     * @return the visits of the position
+     */
+    public static int getVisits(long statistics) {
+        return (int) (statistics >>> VISITS_SHIFT);
+    }
+
+    /**
+     * @param statistics the statistics returned by get()
+     * @return the sum of the rewards of the visits of the position
+     */
+    public static double getRewards(long statistics) {
+        return (statistics & REWARDS_MASK) / REWARD_UNIT;
+    }
+}
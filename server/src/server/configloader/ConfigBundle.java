@@ -0,0 +1,188 @@
+package server.configloader;
+
+import model.Game;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * This class represents a precompiled configuration bundle.
+ * <p>
+ * A bundle contains the game configuration already deserialized from the json files and validated,
+ * so that the server doesn't have to parse the json files (and resolve the effects) at startup.
+ * It's produced by {@link ConfigBundleCompiler} and has the following format:
+ * <pre>
+ * int  magic number
+ * int  format version
+ * long fingerprint of the json files the bundle was compiled from
+ * int  game start timeout (milliseconds)
+ * int  move timeout (milliseconds)
+ * int  payload length
+ * long CRC32 of the payload
+ * ...  payload (the serialized game)
+ * </pre>
+ * A bundle is stale when the fingerprint doesn't match the json files in the configuration directory.
+ */
+public class ConfigBundle {
+    public static final String FILE_NAME = "configuration.bundle";
+
+    static final int MAGIC = 0x4C4D4342;
+    static final int FORMAT_VERSION = 2;
+
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 4 + 8;
+
+    private final int gameStartTimeout;
+    private final int moveTimeout;
+    private final Game game;
+
+    public ConfigBundle(int gameStartTimeout, int moveTimeout, Game game) {
+        this.gameStartTimeout = gameStartTimeout;
+        this.moveTimeout = moveTimeout;
+        this.game = game;
+    }
+
+    /**
+     * Computes the fingerprint of the json files in a configuration directory
+     *
+     * @param configDirectory the configuration directory
+     * @return the fingerprint of the configuration files
+     * @throws IOException if a configuration file cannot be read
+     */
+    public static long fingerprint(String configDirectory) throws IOException {
+        CRC32 crc = new CRC32();
+        for (String fileName : ConfigLoader.CONFIGURATION_FILES) {
+            crc.update(fileName.getBytes("UTF-8"));
+            crc.update(Files.readAllBytes(Paths.get(configDirectory, fileName)));
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writes this bundle to a file
+     *
+     * @param file the destination file
+     * @param fingerprint the fingerprint of the json files this bundle was compiled from
+     * @throws IOException if the bundle cannot be written
+     */
+    public void write(Path file, long fingerprint) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(payload)) {
+            out.writeObject(game);
+        }
+        byte[] payloadBytes = payload.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(payloadBytes);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(fingerprint);
+            out.writeInt(gameStartTimeout);
+            out.writeInt(moveTimeout);
+            out.writeInt(payloadBytes.length);
+            out.writeLong(crc.getValue());
+            out.write(payloadBytes);
+        }
+    }
+
+    /**
+     * Reads a bundle by memory mapping it
+     *
+     * @param file the bundle file
+     * @param expectedFingerprint the fingerprint of the current json files
+     * @return the bundle
+     * @throws IOException if the bundle cannot be read, is corrupted, was written with another format version
+     *                     or is stale
+     */
+    public static ConfigBundle read(Path file, long expectedFingerprint) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Configuration bundle is truncated");
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a configuration bundle");
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported configuration bundle version " + version);
+            }
+            if (buffer.getLong() != expectedFingerprint) {
+                throw new IOException("Configuration bundle is stale");
+            }
+            int gameStartTimeout = buffer.getInt();
+            int moveTimeout = buffer.getInt();
+            int payloadLength = buffer.getInt();
+            long payloadCrc = buffer.getLong();
+            if (payloadLength < 0 || payloadLength != buffer.remaining()) {
+                throw new IOException("Configuration bundle is truncated");
+            }
+
+            ByteBuffer payload = buffer.slice();
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if (crc.getValue() != payloadCrc) {
+                throw new IOException("Configuration bundle is corrupted");
+            }
+
+            try (ObjectInputStream in = new ObjectInputStream(new ByteBufferInputStream(payload))) {
+                return new ConfigBundle(gameStartTimeout, moveTimeout, (Game) in.readObject());
+            }
+            catch (ClassNotFoundException | ClassCastException e) {
+                throw new IOException("Configuration bundle doesn't contain a game", e);
+            }
+        }
+    }
+
+    public int getGameStartTimeout() {
+        return gameStartTimeout;
+    }
+
+    public int getMoveTimeout() {
+        return moveTimeout;
+    }
+
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * An input stream reading from a byte buffer
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) return -1;
+
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
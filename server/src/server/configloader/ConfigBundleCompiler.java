@@ -0,0 +1,196 @@
+package server.configloader;
+
+import model.Excommunication;
+import model.Game;
+import model.board.Board;
+import model.board.Tower;
+import model.board.actionspace.ActionSpace;
+import model.card.Card;
+import model.card.development.DevelopmentCard;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * This is the tool that compiles the json configuration files into a {@link ConfigBundle}.
+ * <p>
+ * The configuration is validated before being written, so that errors in the json files
+ * are found when the bundle is built instead of when a game is started.
+ * <p>
+ * Usage: ConfigBundleCompiler [configuration directory] [output file]
+ */
+public class ConfigBundleCompiler {
+    private static final Logger LOGGER = Logger.getLogger("ConfigBundleCompiler");
+
+    private static final int PERIODS = 3;
+    private static final int FLOORS_PER_TOWER = 4;
+    private static final int ROUNDS_PER_PERIOD = 2;
+    private static final int MAX_PLAYERS = 4;
+    private static final int LEADER_CARDS_PER_PLAYER = 4;
+
+    /**
+     * This class is not designed to be instantiated
+     */
+    private ConfigBundleCompiler() {
+    }
+
+    public static void main(String[] args) {
+        String configDirectory = args.length > 0 ? args[0] : "configuration";
+        Path output = args.length > 1 ? Paths.get(args[1]) : Paths.get(configDirectory, ConfigBundle.FILE_NAME);
+
+        try {
+            compile(configDirectory, output);
+        }
+        catch (IOException | IllegalStateException e) {
+            LOGGER.severe("Cannot compile the configuration bundle: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Loads, validates and compiles the configuration
+     *
+     * @param configDirectory the configuration directory
+     * @param output the bundle file to write
+     * @throws IOException if the configuration cannot be loaded or the bundle cannot be written
+     * @throws IllegalStateException if the configuration is not valid
+     */
+    public static void compile(String configDirectory, Path output) throws IOException {
+        long fingerprint = ConfigBundle.fingerprint(configDirectory);
+
+        ConfigLoader configLoader = new ConfigLoader(configDirectory);
+        configLoader.loadConfiguration();
+
+        List<String> errors = validate(configLoader.getGame(), configLoader.getGameStartTimeout(), configLoader.getMoveTimeout());
+        if (!errors.isEmpty()) {
+            errors.forEach(LOGGER::severe);
+            throw new IllegalStateException(errors.size() + " configuration errors");
+        }
+
+        new ConfigBundle(configLoader.getGameStartTimeout(), configLoader.getMoveTimeout(), configLoader.getGame()).write(output, fingerprint);
+        LOGGER.info(String.format("Configuration bundle written to %s (fingerprint %08x)", output, fingerprint));
+    }
+
+    /**
+     * Validates a configuration
+     *
+     * @param game the game loaded from the configuration
+     * @param gameStartTimeout the game start timeout
+     * @param moveTimeout the move timeout
+     * @return the list of errors found, empty if the configuration is valid
+     */
+    public static List<String> validate(Game game, int gameStartTimeout, int moveTimeout) {
+        List<String> errors = new ArrayList<>();
+
+        if (gameStartTimeout <= 0) {
+            errors.add("The game start timeout must be positive");
+        }
+        if (moveTimeout <= 0) {
+            errors.add("The move timeout must be positive");
+        }
+
+        validateDeck("territory", game.getAvailableTerritoryCards(), errors);
+        validateDeck("building", game.getAvailableBuildingCards(), errors);
+        validateDeck("character", game.getAvailableCharacterCards(), errors);
+        validateDeck("venture", game.getAvailableVentureCards(), errors);
+
+        validateNames("leader", game.getAvailableLeaderCards(), errors);
+        if (game.getAvailableLeaderCards().size() < MAX_PLAYERS * LEADER_CARDS_PER_PLAYER) {
+            errors.add("There must be at least " + MAX_PLAYERS * LEADER_CARDS_PER_PLAYER + " leader cards");
+        }
+
+        for (int period = 1; period <= PERIODS; period++) {
+            int currentPeriod = period;
+            if (game.getAvailableExcommunications().stream().noneMatch(e -> e.getPeriod() == currentPeriod)) {
+                errors.add("There are no excommunications for period " + period);
+            }
+        }
+        for (Excommunication excommunication : game.getAvailableExcommunications()) {
+            if (excommunication.getEffectsContainer() == null) {
+                errors.add("An excommunication of period " + excommunication.getPeriod() + " has no effects");
+            }
+        }
+
+        if (game.getAvailablePersonalBonusTiles().size() < MAX_PLAYERS) {
+            errors.add("There must be at least " + MAX_PLAYERS + " personal bonus tiles");
+        }
+
+        if (game.getAllowedCouncilPrivileges().isEmpty()) {
+            errors.add("There are no council privileges");
+        }
+
+        validateBoard(game.getBoard(), errors);
+
+        return errors;
+    }
+
+    private static void validateDeck(String deckName, List<? extends DevelopmentCard> deck, List<String> errors) {
+        validateNames(deckName, deck, errors);
+
+        int[] cardsPerPeriod = new int[PERIODS + 1];
+        for (DevelopmentCard card : deck) {
+            if (card.getPeriod() < 1 || card.getPeriod() > PERIODS) {
+                errors.add(String.format("The %s card %s has an invalid period (%d)", deckName, card.getName(), card.getPeriod()));
+            }
+            else {
+                cardsPerPeriod[card.getPeriod()]++;
+            }
+        }
+
+        for (int period = 1; period <= PERIODS; period++) {
+            if (cardsPerPeriod[period] < FLOORS_PER_TOWER * ROUNDS_PER_PERIOD) {
+                errors.add(String.format("There are only %d %s cards for period %d, %d are needed",
+                        cardsPerPeriod[period], deckName, period, FLOORS_PER_TOWER * ROUNDS_PER_PERIOD));
+            }
+        }
+    }
+
+    private static void validateNames(String deckName, List<? extends Card> deck, List<String> errors) {
+        Set<String> names = new HashSet<>();
+        for (Card card : deck) {
+            if (card.getName() == null || card.getName().isEmpty()) {
+                errors.add("A " + deckName + " card has no name");
+            }
+            else if (!names.add(card.getName())) {
+                errors.add("The " + deckName + " card " + card.getName() + " is defined twice");
+            }
+        }
+    }
+
+    private static void validateBoard(Board board, List<String> errors) {
+        if (board == null) {
+            errors.add("The board is missing");
+            return;
+        }
+
+        Map<String, ActionSpace> actionSpaces = new LinkedHashMap<>();
+        actionSpaces.put("council palace", board.getCouncilPalace());
+        actionSpaces.put("small production area", board.getSmallProductionArea());
+        actionSpaces.put("big production area", board.getBigProductionArea());
+        actionSpaces.put("small harvest area", board.getSmallHarvestArea());
+        actionSpaces.put("big harvest area", board.getBigHarvestArea());
+        actionSpaces.put("market 1", board.getMarket1());
+        actionSpaces.put("market 2", board.getMarket2());
+        actionSpaces.put("market 3", board.getMarket3());
+        actionSpaces.put("market 4", board.getMarket4());
+        actionSpaces.forEach((name, actionSpace) -> {
+            if (actionSpace == null) {
+                errors.add("The board has no " + name);
+            }
+        });
+
+        Map<String, Tower<?>> towers = new LinkedHashMap<>();
+        towers.put("territory", board.getTerritoryTower());
+        towers.put("character", board.getCharacterTower());
+        towers.put("building", board.getBuildingTower());
+        towers.put("venture", board.getVentureTower());
+        towers.forEach((name, tower) -> {
+            if (tower == null || tower.getFloors() == null || tower.getFloors().size() != FLOORS_PER_TOWER) {
+                errors.add("The " + name + " tower must have " + FLOORS_PER_TOWER + " floors");
+            }
+        });
+    }
+}
@@ -23,14 +23,26 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * This is the helper class used for loading configuration from json files
  */
 public class ConfigLoader {
+    /**
+     * The files read from the configuration directory
+     */
+    public static final List<String> CONFIGURATION_FILES = Collections.unmodifiableList(Arrays.asList(
+            "timeouts.json", "bonusTiles.json", "territoryCards.json", "buildingCards.json",
+            "characterCards.json", "ventureCards.json", "leaderCards.json", "excommunications.json",
+            "councilPrivileges.json", "board.json"));
+
     private String configDirectory;
 
     private int gameStartTimeout;
+    private int moveTimeout;
     private Game game;
 
     public ConfigLoader(String configDirectory) {
@@ -137,6 +149,9 @@ public class ConfigLoader {
             if ("startTimeout".equals(key)) {
                 this.gameStartTimeout = Integer.parseInt(val) * 1000;
             }
+            else if ("moveTimeout".equals(key)) {
+                this.moveTimeout = Integer.parseInt(val) * 1000;
+            }
         }
         reader.close();
         timeoutFileReader.close();
@@ -146,6 +161,10 @@ public class ConfigLoader {
         return gameStartTimeout;
     }
 
+    public int getMoveTimeout() {
+        return moveTimeout;
+    }
+
     public Game getGame() {
         return game;
     }
@@ -0,0 +1,181 @@
+package server.configloader;
+
+import model.Excommunication;
+import model.Game;
+import model.board.Board;
+import model.card.development.BuildingCard;
+import model.card.development.CharacterCard;
+import model.card.development.TerritoryCard;
+import model.card.development.VentureCard;
+import model.card.leader.LeaderCard;
+import model.player.PersonalBonusTile;
+import model.resource.ObtainableResourceSet;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * This class holds the configuration of the game, loaded once per process
+ * and shared between all the games.
+ * <p>
+ * Cards, excommunications, personal bonus tiles and council privileges are never modified
+ * during a game, so every game references the same instances and only gets its own lists
+ * (the players keep which of their cards have been activated, see {@link model.player.Player#hasActivated}).
+ * The board (occupants, cards on the floors) and the leader cards (state of the once per round effects)
+ * change during a game, so they are kept as templates and each game gets its own copies,
+ * which share with the templates everything that is never modified.
+ */
+public class GameCatalog {
+    private static final Logger LOGGER = Logger.getLogger("GameCatalog");
+
+    private static final String DEFAULT_CONFIG_DIRECTORY = "configuration";
+
+    private static GameCatalog instance;
+
+    private final int gameStartTimeout;
+    private final int moveTimeout;
+
+    private final List<TerritoryCard> territoryCards;
+    private final List<BuildingCard> buildingCards;
+    private final List<CharacterCard> characterCards;
+    private final List<VentureCard> ventureCards;
+    private final List<Excommunication> excommunications;
+    private final List<PersonalBonusTile> personalBonusTiles;
+    private final List<ObtainableResourceSet> councilPrivileges;
+
+    private final List<LeaderCard> leaderCardsTemplate;
+    private final Board boardTemplate;
+
+    private GameCatalog(Game game, int gameStartTimeout, int moveTimeout) {
+        this.gameStartTimeout = gameStartTimeout;
+        this.moveTimeout = moveTimeout;
+
+        territoryCards = Collections.unmodifiableList(new ArrayList<>(game.getAvailableTerritoryCards()));
+        buildingCards = Collections.unmodifiableList(new ArrayList<>(game.getAvailableBuildingCards()));
+        characterCards = Collections.unmodifiableList(new ArrayList<>(game.getAvailableCharacterCards()));
+        ventureCards = Collections.unmodifiableList(new ArrayList<>(game.getAvailableVentureCards()));
+        excommunications = Collections.unmodifiableList(new ArrayList<>(game.getAvailableExcommunications()));
+        personalBonusTiles = Collections.unmodifiableList(new ArrayList<>(game.getAvailablePersonalBonusTiles()));
+        councilPrivileges = Collections.unmodifiableList(new ArrayList<>(game.getAllowedCouncilPrivileges()));
+
+        leaderCardsTemplate = Collections.unmodifiableList(new ArrayList<>(game.getAvailableLeaderCards()));
+        boardTemplate = game.getBoard();
+    }
+
+    /**
+     * Returns the catalog loaded from the default configuration directory,
+     * loading it the first time this method is called
+     *
+     * @return the shared catalog
+     * @throws IOException if the configuration cannot be loaded
+     */
+    public static synchronized GameCatalog getInstance() throws IOException {
+        if (instance == null) {
+            instance = load(DEFAULT_CONFIG_DIRECTORY);
+        }
+        return instance;
+    }
+
+    /**
+     * Loads a catalog from a configuration directory.
+     * If the directory contains an up to date configuration bundle it's used,
+     * otherwise the json files are parsed.
+     *
+     * @param configDirectory the directory containing the configuration files
+     * @return the loaded catalog
+     * @throws IOException if the configuration cannot be loaded
+     */
+    public static GameCatalog load(String configDirectory) throws IOException {
+        Path bundleFile = Paths.get(configDirectory, ConfigBundle.FILE_NAME);
+        if (Files.exists(bundleFile)) {
+            try {
+                ConfigBundle bundle = ConfigBundle.read(bundleFile, ConfigBundle.fingerprint(configDirectory));
+                return new GameCatalog(bundle.getGame(), bundle.getGameStartTimeout(), bundle.getMoveTimeout());
+            }
+            catch (IOException e) {
+                LOGGER.warning("Cannot use the configuration bundle (" + e.getMessage() + "), loading json files");
+            }
+        }
+
+        ConfigLoader configLoader = new ConfigLoader(configDirectory);
+        configLoader.loadConfiguration();
+        return new GameCatalog(configLoader.getGame(), configLoader.getGameStartTimeout(), configLoader.getMoveTimeout());
+    }
+
+    /**
+     * Creates a new game backed by this catalog.
+     * The returned game can be modified freely without affecting other games.
+     *
+     * @return a new game, ready to be started
+     */
+    public Game newGame() {
+        Game game = new Game();
+
+        game.setAvailableTerritoryCards(new ArrayList<>(territoryCards));
+        game.setAvailableBuildingCards(new ArrayList<>(buildingCards));
+        game.setAvailableCharacterCards(new ArrayList<>(characterCards));
+        game.setAvailableVentureCards(new ArrayList<>(ventureCards));
+        game.setAvailableExcommunications(new ArrayList<>(excommunications));
+        game.setAvailablePersonalBonusTiles(new ArrayList<>(personalBonusTiles));
+        game.setCouncilPrivileges(new ArrayList<>(councilPrivileges));
+
+        List<LeaderCard> leaderCards = new ArrayList<>(leaderCardsTemplate.size());
+        for (LeaderCard leaderCard : leaderCardsTemplate) {
+            leaderCards.add(new LeaderCard(leaderCard));
+        }
+        game.setAvailableLeaderCards(leaderCards);
+
+        game.setBoard(boardTemplate.copy());
+
+        return game;
+    }
+
+    public int getGameStartTimeout() {
+        return gameStartTimeout;
+    }
+
+    public int getMoveTimeout() {
+        return moveTimeout;
+    }
+
+    public List<TerritoryCard> getTerritoryCards() {
+        return territoryCards;
+    }
+
+    public List<BuildingCard> getBuildingCards() {
+        return buildingCards;
+    }
+
+    public List<CharacterCard> getCharacterCards() {
+        return characterCards;
+    }
+
+    public List<VentureCard> getVentureCards() {
+        return ventureCards;
+    }
+
+    public List<Excommunication> getExcommunications() {
+        return excommunications;
+    }
+
+    public List<PersonalBonusTile> getPersonalBonusTiles() {
+        return personalBonusTiles;
+    }
+
+    public List<ObtainableResourceSet> getCouncilPrivileges() {
+        return councilPrivileges;
+    }
+
+    /**
+     * @return the templates of the leader cards, the games get their own copies
+     */
+    public List<LeaderCard> getLeaderCards() {
+        return leaderCardsTemplate;
+    }
+}
@@ -220,7 +220,7 @@ public class EffectDeserializer implements JsonDeserializer<EffectInterface> {
                 break;
             }
             case "ObtainedResourceSetModifier": {
-                ObtainableResource resource = context.deserialize(jsonEffect.get("resource"), ObtainableResource.class);
+                ObtainableResource resource = context.deserialize(jsonEffect.get("resourceType"), ObtainableResource.class);
                 int qty = jsonEffect.get("quantity").getAsInt();
                 effect = new ObtainableResourceSetModifierEffect(resource, qty);
                 break;
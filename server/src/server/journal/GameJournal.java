@@ -0,0 +1,298 @@
+package server.journal;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * This class is the journal of a game: the commands of the players accepted by the game, in order,
+ * and a snapshot of the game taken at the beginning of the last round.
+ * <p>
+ * The journal is a memory mapped file, made of a header (magic number and version) followed by the commands.
+ * Every command is written as its length, the CRC32 of its bytes and its bytes. The mapped region is
+ * zero filled, so the commands end at the first zero length; a command cut by a crash is detected by its CRC.
+ * When the mapped region is full the file is mapped again, twice as large.
+ * <p>
+ * The game calls {@link #append(byte[])} and {@link #snapshot(GameSnapshot)}, which only queue the writes:
+ * the file is written by the {@link JournalWriter} thread.
+ */
+public class GameJournal {
+    private static final Logger LOGGER = Logger.getLogger("GameJournal");
+
+    static final String JOURNAL_EXTENSION = ".journal";
+    static final String SNAPSHOT_EXTENSION = ".snapshot";
+
+    private static final int MAGIC = 0x4C4A4E4C;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int INITIAL_SIZE = 64 * 1024;
+
+    private final UUID gameId;
+    private final Path journalFile;
+    private final Path snapshotFile;
+    private final JournalWriter writer;
+
+    /**
+     * The commands found in the file when the journal was opened
+     */
+    private final List<byte[]> recoveredCommands;
+
+    /**
+     * The number of commands appended, including the recovered ones (used only by the game)
+     */
+    private int commands;
+
+    /* The mapped file, used only by the writer thread */
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private boolean dirty;
+
+    private GameJournal(UUID gameId, Path directory, JournalWriter writer, List<byte[]> recoveredCommands, int position) throws IOException {
+        this.gameId = gameId;
+        this.journalFile = directory.resolve(gameId + JOURNAL_EXTENSION);
+        this.snapshotFile = directory.resolve(gameId + SNAPSHOT_EXTENSION);
+        this.writer = writer;
+        this.recoveredCommands = Collections.unmodifiableList(recoveredCommands);
+        this.commands = recoveredCommands.size();
+
+        channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map(Math.max(INITIAL_SIZE, channel.size()));
+        buffer.position(position);
+    }
+
+    /**
+     * Creates the journal of a new game
+     *
+     * @param directory the directory of the journals
+     * @param writer the writer of the journals
+     * @return the new journal
+     * @throws IOException if the file cannot be created
+     */
+    static GameJournal create(Path directory, JournalWriter writer) throws IOException {
+        GameJournal journal = new GameJournal(UUID.randomUUID(), directory, writer, new ArrayList<>(), 0);
+        journal.buffer.putInt(MAGIC).putInt(VERSION);
+        journal.dirty = true;
+        return journal;
+    }
+
+    /**
+     * Opens the journal of a game that was being played when the server stopped, reading its commands.
+     * The commands after the first invalid one (written only in part) are discarded.
+     *
+     * @param journalFile the journal file
+     * @param writer the writer of the journals
+     * @return the journal
+     * @throws IOException if the file cannot be read or is not a journal
+     */
+    static GameJournal open(Path journalFile, JournalWriter writer) throws IOException {
+        String fileName = journalFile.getFileName().toString();
+        UUID gameId;
+        try {
+            gameId = UUID.fromString(fileName.substring(0, fileName.length() - JOURNAL_EXTENSION.length()));
+        }
+        catch (IllegalArgumentException e) {
+            throw new IOException("Not a journal: " + fileName, e);
+        }
+
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(journalFile));
+        if (data.remaining() < HEADER_SIZE || data.getInt() != MAGIC || data.getInt() != VERSION) {
+            throw new IOException("Not a journal: " + fileName);
+        }
+
+        List<byte[]> commands = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        while (data.remaining() >= RECORD_HEADER_SIZE) {
+            int start = data.position();
+            int length = data.getInt();
+            int checksum = data.getInt();
+            if (length <= 0 || length > data.remaining()) {
+                data.position(start);
+                break;
+            }
+
+            byte[] command = new byte[length];
+            data.get(command);
+            crc.reset();
+            crc.update(command, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                LOGGER.warning(String.format("Keeping the first %d commands of game %s, the next one was cut by a crash", commands.size(), gameId));
+                data.position(start);
+                break;
+            }
+            commands.add(command);
+        }
+
+        GameJournal journal = new GameJournal(gameId, journalFile.getParent(), writer, commands, data.position());
+
+        // Clear what's left of a command cut by a crash, so that the next commands don't run into it
+        for (int i = data.position(); i < data.limit(); i++) {
+            journal.buffer.put(i, (byte) 0);
+        }
+        journal.buffer.force();
+        return journal;
+    }
+
+    public UUID getGameId() {
+        return gameId;
+    }
+
+    /**
+     * @return the commands found in the journal when it was opened (none for a new journal)
+     */
+    public List<byte[]> getRecoveredCommands() {
+        return recoveredCommands;
+    }
+
+    /* ----------------------------------------------------------------
+     * Methods called by the game, they only queue the writes
+     * ---------------------------------------------------------------- */
+
+    /**
+     * Appends a command to the journal
+     *
+     * @param command the encoded command
+     */
+    public void append(byte[] command) {
+        commands++;
+        writer.submit(() -> {
+            write(command);
+            return this;
+        });
+    }
+
+    /**
+     * Saves a snapshot of the game, replacing the previous one.
+     * The snapshot is serialized right away, so the game can go on changing.
+     *
+     * @param snapshot the snapshot, taken after the last command appended
+     */
+    public void snapshot(GameSnapshot snapshot) {
+        snapshot.setSequence(commands);
+
+        byte[] serializedSnapshot;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(snapshot);
+            }
+            serializedSnapshot = bytes.toByteArray();
+        }
+        catch (IOException e) {
+            LOGGER.warning(String.format("Cannot save a snapshot of game %s: %s", gameId, e.getMessage()));
+            return;
+        }
+
+        writer.submit(() -> {
+            writeSnapshot(serializedSnapshot);
+            return null;
+        });
+    }
+
+    /**
+     * Closes the journal and deletes its files, for a game that is over
+     */
+    public void delete() {
+        writer.submit(() -> {
+            close();
+            Files.deleteIfExists(snapshotFile);
+            Files.deleteIfExists(journalFile);
+            return null;
+        });
+    }
+
+    /**
+     * Reads the snapshot saved with the journal
+     *
+     * @return the snapshot, or null if there's no valid snapshot
+     */
+    public GameSnapshot readSnapshot() {
+        if (!Files.exists(snapshotFile)) return null;
+
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            GameSnapshot snapshot = (GameSnapshot) in.readObject();
+            if (snapshot.getSequence() > recoveredCommands.size()) {
+                LOGGER.warning(String.format("The snapshot of game %s is ahead of its journal, ignoring it", gameId));
+                return null;
+            }
+            return snapshot;
+        }
+        catch (IOException | ClassNotFoundException | ClassCastException e) {
+            LOGGER.warning(String.format("Cannot read the snapshot of game %s, ignoring it: %s", gameId, e.getMessage()));
+            return null;
+        }
+    }
+
+    /* ----------------------------------------------------------------
+     * Methods called by the writer thread
+     * ---------------------------------------------------------------- */
+
+    private void write(byte[] command) throws IOException {
+        if (buffer == null) throw new IOException("The journal of game " + gameId + " is closed");
+
+        int needed = RECORD_HEADER_SIZE + command.length;
+        if (buffer.remaining() < needed) {
+            force();
+            int position = buffer.position();
+            long size = buffer.capacity();
+            while (size - position < needed) {
+                size *= 2;
+            }
+            map(size);
+            buffer.position(position);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(command, 0, command.length);
+        buffer.putInt(command.length).putInt((int) crc.getValue()).put(command);
+        dirty = true;
+    }
+
+    private void writeSnapshot(byte[] serializedSnapshot) throws IOException {
+        // The commands before the snapshot must be on the disk before it
+        force();
+
+        Path temporaryFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (FileChannel snapshotChannel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer data = ByteBuffer.wrap(serializedSnapshot);
+            while (data.hasRemaining()) {
+                snapshotChannel.write(data);
+            }
+            snapshotChannel.force(true);
+        }
+        Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Forces the commands written to the disk
+     */
+    void force() {
+        if (!dirty) return;
+        buffer.force();
+        dirty = false;
+    }
+
+    private void close() throws IOException {
+        if (buffer == null) return;
+        force();
+        buffer = null;
+        channel.close();
+    }
+
+    private void map(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) throw new IOException("The journal of game " + gameId + " is too large");
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+}
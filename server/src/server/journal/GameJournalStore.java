@@ -0,0 +1,119 @@
+package server.journal;
+
+import server.ServerGameController;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * This class keeps the journals of the games being played in a directory,
+ * so that the games can be recovered when the server is restarted.
+ * <p>
+ * The journal of a game is created when the game starts and deleted when it's over.
+ * The journals found in the directory when the server starts belong to the games interrupted by the restart.
+ */
+public class GameJournalStore {
+    private static final Logger LOGGER = Logger.getLogger("GameJournalStore");
+
+    /**
+     * The store used by the games created by the server, null if the games are not journaled
+     */
+    private static GameJournalStore defaultStore;
+
+    private final Path directory;
+    private final JournalWriter writer = new JournalWriter();
+
+    /**
+     * @param directory the directory of the journals, created if it doesn't exist
+     * @throws IOException if the directory cannot be created
+     */
+    public GameJournalStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+
+        // Give the writer a chance to force the last commands on a clean shutdown
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "JournalFlush"));
+    }
+
+    public static synchronized GameJournalStore getDefault() {
+        return defaultStore;
+    }
+
+    public static synchronized void setDefault(GameJournalStore store) {
+        defaultStore = store;
+    }
+
+    /**
+     * Creates the journal of a new game
+     *
+     * @return the journal
+     * @throws IOException if the journal cannot be created
+     */
+    public GameJournal create() throws IOException {
+        return GameJournal.create(directory, writer);
+    }
+
+    /**
+     * Opens the journal of a game left in the directory, reading its commands
+     *
+     * @param gameId the id of the game
+     * @return the journal
+     * @throws IOException if the journal cannot be read or is not a journal
+     */
+    public GameJournal open(UUID gameId) throws IOException {
+        return GameJournal.open(getJournalFile(gameId), writer);
+    }
+
+    /**
+     * @param gameId the id of a game
+     * @return the file of the journal of the game
+     */
+    public Path getJournalFile(UUID gameId) {
+        return directory.resolve(gameId + GameJournal.JOURNAL_EXTENSION);
+    }
+
+    /**
+     * Recovers the games that were being played when the server stopped.
+     * The games that cannot be recovered are logged and their journals are left in the directory.
+     *
+     * @return the recovered games, waiting for their players to reconnect
+     */
+    public List<ServerGameController> recoverGames() {
+        List<ServerGameController> games = new ArrayList<>();
+
+        try (DirectoryStream<Path> journalFiles = Files.newDirectoryStream(directory, "*" + GameJournal.JOURNAL_EXTENSION)) {
+            for (Path journalFile : journalFiles) {
+                try {
+                    GameJournal journal = GameJournal.open(journalFile, writer);
+                    games.add(ServerGameController.recover(journal));
+                    LOGGER.info(String.format("Recovered game %s (%d commands)", journal.getGameId(), journal.getRecoveredCommands().size()));
+                }
+                catch (IOException | RuntimeException e) {
+                    LOGGER.severe(String.format("Cannot recover the game of %s: %s", journalFile.getFileName(), e));
+                }
+            }
+        }
+        catch (IOException e) {
+            LOGGER.severe("Cannot list the game journals: " + e.getMessage());
+        }
+
+        return games;
+    }
+
+    /**
+     * Waits until the commands journaled so far are on the disk
+     */
+    public void flush() {
+        try {
+            writer.flush();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
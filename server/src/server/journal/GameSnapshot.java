@@ -0,0 +1,73 @@
+package server.journal;
+
+import gamecontroller.GameController;
+import network.codec.GameObjectIds;
+
+import java.io.Serializable;
+
+/**
+ * This class holds the state of a game at the beginning of a round, saved next to its journal.
+ * <p>
+ * The game controller and the ids are serialized together so that the ids keep referencing
+ * the objects of the game. The state of the random decisions is the seed it has been restarted from.
+ */
+public class GameSnapshot implements Serializable {
+    private final GameController gameController;
+    private final GameObjectIds gameObjectIds;
+
+    /**
+     * The sequence number of the last game state delta sent to the players
+     */
+    private final int stateSequence;
+
+    private final long seed;
+    private final long reseed;
+
+    /**
+     * The number of commands in the journal when the snapshot was taken
+     */
+    private int sequence;
+
+    /**
+     * @param gameController the controller of the game
+     * @param gameObjectIds the ids of the objects of the game
+     * @param stateSequence the sequence number of the last game state delta
+     * @param seed the seed of the random decisions of the game
+     * @param reseed the seed the random decisions have been restarted from
+     */
+    public GameSnapshot(GameController gameController, GameObjectIds gameObjectIds, int stateSequence, long seed, long reseed) {
+        this.gameController = gameController;
+        this.gameObjectIds = gameObjectIds;
+        this.stateSequence = stateSequence;
+        this.seed = seed;
+        this.reseed = reseed;
+    }
+
+    public GameController getGameController() {
+        return gameController;
+    }
+
+    public GameObjectIds getGameObjectIds() {
+        return gameObjectIds;
+    }
+
+    public int getStateSequence() {
+        return stateSequence;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getReseed() {
+        return reseed;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    void setSequence(int sequence) {
+        this.sequence = sequence;
+    }
+}
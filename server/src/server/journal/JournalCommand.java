@@ -0,0 +1,313 @@
+package server.journal;
+
+import gamecontroller.GameIndex;
+import gamecontroller.exceptions.ActionNotAllowedException;
+import model.player.FamilyMemberColor;
+import model.resource.ObtainableResourceSet;
+import model.resource.RequiredResourceSet;
+import network.codec.WireReader;
+import network.codec.WireWriter;
+import server.ServerGameController;
+import server.configloader.GameCatalog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * This class encodes the commands of the players written to the journal of a game, and replays them.
+ * <p>
+ * The commands use the binary wire format of the game events: a byte with the type of the command
+ * followed by its arguments. The players are referenced by username. The game objects are referenced
+ * by their position, which doesn't change when the server is restarted (their UUIDs do):
+ * the floors, action spaces and development cards by their index in the {@link GameIndex} of the game,
+ * the personal bonus tiles and the leader cards by their position in the {@link GameCatalog}.
+ */
+public class JournalCommand {
+    enum Type {
+        GAME_STARTED,
+        CHOOSE_PERSONAL_BONUS_TILE,
+        CHOOSE_LEADER_CARD,
+        SPEND_SERVANTS,
+        GO_TO_FLOOR,
+        TAKE_DEVELOPMENT_CARD,
+        GO_TO_ACTION_SPACE,
+        END_TURN,
+        DECIDE_EXCOMMUNICATION,
+        BOT_TOOK_SEAT
+    }
+
+    /**
+     * This class is not designed to be instantiated
+     */
+    private JournalCommand() {
+    }
+
+    /* ----------------------------------------------------------------
+     * Encoding
+     * ---------------------------------------------------------------- */
+
+    /**
+     * The first command of every journal
+     *
+     * @param seed the seed of the random decisions of the game
+     * @param usernames the usernames of the players, in the order they joined
+     * @param bots the usernames of the bots that took the empty seats
+     * @return the encoded command
+     */
+    public static byte[] gameStarted(long seed, List<String> usernames, Set<String> bots) {
+        WireWriter writer = header(Type.GAME_STARTED).writeLong(seed)
+                                                     .writeVarInt(usernames.size());
+        for (String username : usernames) {
+            writer.writeString(username)
+                  .writeBoolean(bots.contains(username));
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * @param username the username of the player
+     * @param personalBonusTile the position of the bonus tile in the catalog
+     * @return the encoded command
+     */
+    public static byte[] choosePersonalBonusTile(String username, int personalBonusTile) {
+        return header(Type.CHOOSE_PERSONAL_BONUS_TILE).writeString(username)
+                                                      .writeVarInt(personalBonusTile)
+                                                      .toByteArray();
+    }
+
+    /**
+     * @param username the username of the player
+     * @param leaderCard the position of the leader card in the catalog
+     * @return the encoded command
+     */
+    public static byte[] chooseLeaderCard(String username, int leaderCard) {
+        return header(Type.CHOOSE_LEADER_CARD).writeString(username)
+                                              .writeVarInt(leaderCard)
+                                              .toByteArray();
+    }
+
+    public static byte[] spendServants(String username, int servants) {
+        return header(Type.SPEND_SERVANTS).writeString(username)
+                                          .writeVarInt(servants)
+                                          .toByteArray();
+    }
+
+    /**
+     * @param username the username of the player
+     * @param floor the index of the floor in the game index
+     * @param familyMember the family member placed
+     * @param paymentForCard the resources used to pay for the card
+     * @param councilPrivileges the council privileges chosen
+     * @return the encoded command
+     */
+    public static byte[] goToFloor(String username, int floor, FamilyMemberColor familyMember,
+                                   RequiredResourceSet paymentForCard, List<ObtainableResourceSet> councilPrivileges) {
+        return header(Type.GO_TO_FLOOR).writeString(username)
+                                       .writeVarInt(floor)
+                                       .writeByte(familyMember.ordinal())
+                                       .writeRequiredResourceSet(paymentForCard)
+                                       .writeObtainableResourceSets(councilPrivileges)
+                                       .toByteArray();
+    }
+
+    /**
+     * @param username the username of the player
+     * @param card the index of the card in the game index
+     * @param councilPrivileges the council privileges chosen
+     * @return the encoded command
+     */
+    public static byte[] takeDevelopmentCard(String username, int card, List<ObtainableResourceSet> councilPrivileges) {
+        return header(Type.TAKE_DEVELOPMENT_CARD).writeString(username)
+                                                 .writeVarInt(card)
+                                                 .writeObtainableResourceSets(councilPrivileges)
+                                                 .toByteArray();
+    }
+
+    /**
+     * @param username the username of the player
+     * @param actionSpace the index of the action space in the game index
+     * @param familyMember the family member placed
+     * @param councilPrivileges the council privileges chosen
+     * @return the encoded command
+     */
+    public static byte[] goToActionSpace(String username, int actionSpace, FamilyMemberColor familyMember,
+                                         List<ObtainableResourceSet> councilPrivileges) {
+        return header(Type.GO_TO_ACTION_SPACE).writeString(username)
+                                              .writeVarInt(actionSpace)
+                                              .writeByte(familyMember.ordinal())
+                                              .writeObtainableResourceSets(councilPrivileges)
+                                              .toByteArray();
+    }
+
+    public static byte[] endTurn(String username) {
+        return header(Type.END_TURN).writeString(username).toByteArray();
+    }
+
+    public static byte[] decideExcommunication(String username, Boolean beExcommunicated) {
+        return header(Type.DECIDE_EXCOMMUNICATION).writeString(username)
+                                                  .writeBoolean(beExcommunicated)
+                                                  .toByteArray();
+    }
+
+    /**
+     * @param username the username of the player whose connection has dropped
+     * @return the encoded command
+     */
+    public static byte[] botTookSeat(String username) {
+        return header(Type.BOT_TOOK_SEAT).writeString(username).toByteArray();
+    }
+
+    private static WireWriter header(Type type) {
+        return new WireWriter().writeByte(type.ordinal());
+    }
+
+    /* ----------------------------------------------------------------
+     * Decoding and replay
+     * ---------------------------------------------------------------- */
+
+    /**
+     * Decodes the first command of a journal
+     *
+     * @param command the encoded command
+     * @return the start of the game
+     * @throws IOException if the command is not the start of a game
+     */
+    public static GameStart readGameStart(byte[] command) throws IOException {
+        WireReader reader = new WireReader(command);
+        if (reader.readEnum(Type.values()) != Type.GAME_STARTED) {
+            throw new IOException("The journal doesn't begin with the start of the game");
+        }
+
+        long seed = reader.readLong();
+        int players = reader.readVarInt();
+        List<String> usernames = new ArrayList<>(players);
+        Set<String> bots = new HashSet<>();
+        for (int i = 0; i < players; i++) {
+            String username = reader.readString();
+            usernames.add(username);
+            if (reader.readBoolean()) bots.add(username);
+        }
+        return new GameStart(seed, usernames, bots);
+    }
+
+    /**
+     * Finds the seats taken by bots in a journal: the empty seats at the start of the game and the seats
+     * of the players whose connection has dropped. Unlike the other commands, these are read from the whole
+     * journal, because a snapshot doesn't record the seats.
+     *
+     * @param commands the commands of the journal
+     * @return the usernames of the seats taken by bots
+     * @throws IOException if a command can't be decoded
+     */
+    public static Set<String> readBotSeats(List<byte[]> commands) throws IOException {
+        Set<String> bots = new HashSet<>(readGameStart(commands.get(0)).getBots());
+        for (int i = 1; i < commands.size(); i++) {
+            WireReader reader = new WireReader(commands.get(i));
+            if (reader.readEnum(Type.values()) == Type.BOT_TOOK_SEAT) {
+                bots.add(reader.readString());
+            }
+        }
+        return bots;
+    }
+
+    /**
+     * Applies a command to a game, as if the player had sent it again
+     *
+     * @param command the encoded command
+     * @param serverGameController the game
+     * @param gameIndex the index of the game objects
+     * @param catalog the catalog the game has been created from
+     * @throws IOException if the command can't be decoded
+     * @throws ActionNotAllowedException if the game doesn't accept the command (the journal doesn't match the game)
+     */
+    public static void replay(byte[] command, ServerGameController serverGameController, GameIndex gameIndex,
+                              GameCatalog catalog) throws IOException, ActionNotAllowedException {
+        WireReader reader = new WireReader(command);
+        Type type = reader.readEnum(Type.values());
+        if (type == Type.GAME_STARTED) {
+            throw new IOException("The game can be started only once");
+        }
+
+        String username = reader.readString();
+        switch (type) {
+            case CHOOSE_PERSONAL_BONUS_TILE:
+                serverGameController.choosePersonalBonusTile(username, get(catalog.getPersonalBonusTiles(), reader.readVarInt()).getId());
+                break;
+            case CHOOSE_LEADER_CARD:
+                serverGameController.chooseLeaderCard(username, get(catalog.getLeaderCards(), reader.readVarInt()).getId());
+                break;
+            case SPEND_SERVANTS:
+                serverGameController.spendServants(username, reader.readVarInt());
+                break;
+            case GO_TO_FLOOR: {
+                UUID floorId = gameIndex.getFloor(reader.readVarInt()).getId();
+                FamilyMemberColor familyMember = reader.readEnum(FamilyMemberColor.values());
+                RequiredResourceSet paymentForCard = reader.readRequiredResourceSet();
+                serverGameController.goToFloor(username, floorId, familyMember, paymentForCard, reader.readObtainableResourceSets());
+                break;
+            }
+            case TAKE_DEVELOPMENT_CARD: {
+                UUID cardId = gameIndex.getCard(reader.readVarInt()).getId();
+                serverGameController.takeDevelopmentCard(username, cardId, reader.readObtainableResourceSets());
+                break;
+            }
+            case GO_TO_ACTION_SPACE: {
+                UUID actionSpaceId = gameIndex.getActionSpace(reader.readVarInt()).getId();
+                FamilyMemberColor familyMember = reader.readEnum(FamilyMemberColor.values());
+                serverGameController.goToActionSpace(username, actionSpaceId, familyMember, reader.readObtainableResourceSets());
+                break;
+            }
+            case END_TURN:
+                serverGameController.endTurn(username);
+                break;
+            case DECIDE_EXCOMMUNICATION:
+                serverGameController.decideExcommunication(username, reader.readBoolean());
+                break;
+            case BOT_TOOK_SEAT:
+                // The bots are seated once the game is recovered, see readBotSeats
+                break;
+            default:
+                throw new IOException("Unknown command " + type);
+        }
+    }
+
+    private static <T> T get(List<T> list, int index) throws IOException {
+        if (index >= list.size()) throw new IOException("Unknown object " + index);
+        return list.get(index);
+    }
+
+    /**
+     * The first command of a journal
+     */
+    public static class GameStart {
+        private final long seed;
+        private final List<String> usernames;
+        private final Set<String> bots;
+
+        GameStart(long seed, List<String> usernames, Set<String> bots) {
+            this.seed = seed;
+            this.usernames = Collections.unmodifiableList(usernames);
+            this.bots = Collections.unmodifiableSet(bots);
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public List<String> getUsernames() {
+            return usernames;
+        }
+
+        /**
+         * @return the usernames of the bots that took the empty seats
+         */
+        public Set<String> getBots() {
+            return bots;
+        }
+    }
+}
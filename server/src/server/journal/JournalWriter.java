@@ -0,0 +1,105 @@
+package server.journal;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class writes the journals of all the games from a single background thread.
+ * <p>
+ * The games only queue their writes, so journaling never blocks a player's request.
+ * The writer takes all the writes queued at once and forces every journal written to the disk
+ * only once per batch (group commit): the busier the server, the more writes share the same force.
+ */
+class JournalWriter implements Runnable {
+    private static final Logger LOGGER = Logger.getLogger("JournalWriter");
+
+    /**
+     * A write to a journal, executed by the writer thread
+     */
+    interface Task {
+        /**
+         * @return the journal written by the task, forced at the end of the batch (null for none)
+         */
+        GameJournal execute() throws IOException;
+    }
+
+    private final BlockingQueue<Task> tasks = new LinkedBlockingQueue<>();
+
+    JournalWriter() {
+        Thread thread = new Thread(this, "JournalWriter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void submit(Task task) {
+        tasks.add(task);
+    }
+
+    /**
+     * Waits until all the writes queued so far are on the disk
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    void flush() throws InterruptedException {
+        Barrier barrier = new Barrier();
+        submit(barrier);
+        barrier.written.await();
+    }
+
+    /**
+     * A task that waits for the writes queued before it to be forced
+     */
+    private static class Barrier implements Task {
+        private final CountDownLatch written = new CountDownLatch(1);
+
+        @Override
+        public GameJournal execute() {
+            written.countDown();
+            return null;
+        }
+    }
+
+    @Override
+    public void run() {
+        List<Task> batch = new ArrayList<>();
+        Set<GameJournal> written = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        while (true) {
+            try {
+                batch.add(tasks.take());
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            tasks.drainTo(batch);
+
+            for (Task task : batch) {
+                // The writes before a barrier must be forced before releasing it
+                if (task instanceof Barrier) forceAll(written);
+
+                try {
+                    GameJournal journal = task.execute();
+                    if (journal != null) written.add(journal);
+                }
+                catch (IOException | RuntimeException e) {
+                    LOGGER.log(Level.SEVERE, "Cannot write to a game journal", e);
+                }
+            }
+            forceAll(written);
+            batch.clear();
+        }
+    }
+
+    private static void forceAll(Set<GameJournal> journals) {
+        for (GameJournal journal : journals) {
+            journal.force();
+        }
+        journals.clear();
+    }
+}
@@ -1,15 +1,11 @@
 package server.rmiserver;
 
 import network.ServerToClientInterface;
-import model.Game;
 import model.card.leader.LeaderCard;
-import model.player.FamilyMemberColor;
 import model.player.PersonalBonusTile;
-import model.resource.ObtainableResourceSet;
-import model.resource.RequiredResourceSet;
 import server.ClientConnection;
 import network.ClientToServerInterface;
-import server.ServerGameController;
+import server.Lobby;
 
 import java.rmi.Remote;
 import java.rmi.RemoteException;
@@ -30,8 +26,8 @@ public class RMIClientConnection extends ClientConnection implements ServerToCli
     private ServerToClientInterface client;
 
     @SuppressWarnings("squid:S1166") // Silence "Log or rethrow this exception", there's no problem if the object is already exported
-    public RMIClientConnection(List<ServerGameController> games, ServerToClientInterface client) {
-        super(games);
+    public RMIClientConnection(Lobby lobby, ServerToClientInterface client) {
+        super(lobby);
         this.client = client;
         try {
             UnicastRemoteObject.exportObject(this, 0);
@@ -76,65 +72,17 @@ public class RMIClientConnection extends ClientConnection implements ServerToCli
     }
 
     @Override
-    public void setGameConfiguration(Game game) throws RemoteException {
-        client.setGameConfiguration(game);
-    }
-
-    /* ----------------------------------------------------------------------
-     * Game events interface
-     * ---------------------------------------------------------------------- */
-    @Override
-    public void onPrepareNewRound() throws RemoteException {
-        client.onPrepareNewRound();
-    }
-
-    @Override
-    public void onPlayerTurnStarted(String username) throws RemoteException {
-        client.onPlayerTurnStarted(username);
-    }
-
-    @Override
-    public void onCardsDrawn(List<UUID> territoryCards, List<UUID> characterCards, List<UUID> buildingCards, List<UUID> ventureCards) throws RemoteException {
-        client.onCardsDrawn(territoryCards, characterCards, buildingCards, ventureCards);
-    }
-
-    @Override
-    public void onDiceThrown(int blackDie, int whiteDie, int orangeDie) throws RemoteException {
-        client.onDiceThrown(blackDie, whiteDie, orangeDie);
-    }
-
-    @Override
-    public void onPlayerOccupiesActionSpace(String username, UUID actionSpaceId, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> councilPrivileges) throws RemoteException {
-        client.onPlayerOccupiesActionSpace(username, actionSpaceId, familyMemberColor, councilPrivileges);
-    }
-
-    @Override
-    public void onPlayerOccupiesFloor(String username, UUID floorId, FamilyMemberColor familyMemberColor, List<ObtainableResourceSet> chosenPrivileges, RequiredResourceSet paymentForCard) throws RemoteException {
-        client.onPlayerOccupiesFloor(username, floorId, familyMemberColor, chosenPrivileges, paymentForCard);
-    }
-
-    @Override
-    public void onPlayerSpendsServants(String username, int servants) throws RemoteException {
-        client.onPlayerSpendsServants(username, servants);
-    }
-
-    @Override
-    public void onPlayerTakesDevelopmentCard(String username, UUID cardId, List<ObtainableResourceSet> councilPrivileges) throws RemoteException {
-        client.onPlayerTakesDevelopmentCard(username, cardId, councilPrivileges);
-    }
-
-    @Override
-    public void onStartVaticanReport() throws RemoteException {
-        client.onStartVaticanReport();
+    public void setGameConfiguration(byte[] configuration) throws RemoteException {
+        client.setGameConfiguration(configuration);
     }
 
     @Override
-    public void onPlayerDecidesExcommunication(String username, Boolean beExcommunicated) throws RemoteException {
-        client.onPlayerDecidesExcommunication(username, beExcommunicated);
+    public void onGameEvent(byte[] event) throws RemoteException {
+        client.onGameEvent(event);
     }
 
     @Override
-    public void onGameEnd() throws RemoteException {
-        client.onGameEnd();
+    public void onGameStateDelta(byte[] delta) throws RemoteException {
+        client.onGameStateDelta(delta);
     }
 }
@@ -2,14 +2,13 @@ package server.rmiserver;
 
 import network.RMIServerInterface;
 import network.ServerToClientInterface;
-import server.ServerGameController;
+import server.Lobby;
 import network.ClientToServerInterface;
 
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
-import java.util.List;
 import java.util.logging.Logger;
 
 public class RMIServer extends UnicastRemoteObject implements RMIServerInterface {
@@ -20,11 +19,11 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
     private boolean createLocalRegistry = true;
     private int REGISTRY_PORT = 1099;
     private int port;
-    private List<ServerGameController> games;
+    private Lobby lobby;
 
-    public RMIServer(int port, List<ServerGameController> games) throws RemoteException {
+    public RMIServer(int port, Lobby lobby) throws RemoteException {
         this.port = port;
-        this.games = games;
+        this.lobby = lobby;
 
         System.setProperty("java.rmi.server.useCodebaseOnly", "false");
 
@@ -48,6 +47,6 @@ public class RMIServer extends UnicastRemoteObject implements RMIServerInterface
 
     @Override
     public ClientToServerInterface getServerConnection(ServerToClientInterface client) throws RemoteException {
-        return new RMIClientConnection(games, client);
+        return new RMIClientConnection(lobby, client);
     }
 }
@@ -0,0 +1,57 @@
+package server.simulation;
+
+import server.configloader.GameCatalog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * This class creates and plays simulated games from a configuration catalog.
+ * <p>
+ * It can be run from the command line to measure how many games per second the engine plays:
+ * GameSimulator [games] [players] [seed]
+ */
+public class GameSimulator {
+    private static final Logger LOGGER = Logger.getLogger("GameSimulator");
+
+    private final GameCatalog catalog;
+
+    public GameSimulator(GameCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Plays a game
+     *
+     * @param policies the policies of the players, in the order of the players (player1, player2, ...)
+     * @param seed the seed of the game
+     * @return the result of the game
+     */
+    public SimulationResult play(List<PlayerPolicy> policies, long seed) {
+        return new SimulatedGame(catalog.newGame(), policies, seed).play();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+        GameSimulator simulator = new GameSimulator(GameCatalog.getInstance());
+
+        long playedMoves = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < games; i++) {
+            List<PlayerPolicy> policies = new ArrayList<>();
+            for (int j = 0; j < players; j++) {
+                policies.add(new RandomPolicy(seed + i * 31L + j));
+            }
+            playedMoves += simulator.play(policies, seed + i).getPlayedMoves();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        LOGGER.info(String.format("Played %d games (%d moves) in %d ms: %.0f games/s",
+                games, playedMoves, elapsed / 1000000, games * 1e9 / elapsed));
+    }
+}
@@ -0,0 +1,57 @@
+package server.simulation;
+
+import gamecontroller.GameController;
+import gamecontroller.Move;
+import gamecontroller.utils.GameRandom;
+import model.card.leader.LeaderCard;
+import model.player.PersonalBonusTile;
+import model.player.Player;
+import model.resource.ObtainableResourceSet;
+import server.bot.MctsSearch;
+
+import java.util.List;
+
+/**
+ * A policy that chooses the moves with the Monte Carlo tree search of the bots of the server,
+ * so that the bots can be measured against other policies.
+ * The other choices are the ones of the bots: the first bonus tile, the first leader card,
+ * the first council privileges and never the excommunication.
+ */
+public class MctsPolicy implements PlayerPolicy {
+    private final MctsSearch search;
+    private final GameRandom random;
+
+    /**
+     * @param search the search of the moves
+     * @param seed the seed of the random moves of the searches
+     */
+    public MctsPolicy(MctsSearch search, long seed) {
+        this.search = search;
+        this.random = new GameRandom(seed);
+    }
+
+    @Override
+    public PersonalBonusTile choosePersonalBonusTile(GameController gameController, Player player, List<PersonalBonusTile> availableBonusTiles) {
+        return availableBonusTiles.get(0);
+    }
+
+    @Override
+    public LeaderCard chooseLeaderCard(GameController gameController, Player player, List<LeaderCard> availableLeaderCards) {
+        return availableLeaderCards.get(0);
+    }
+
+    @Override
+    public Move chooseMove(GameController gameController, Player player, List<Move> moves) {
+        return search.search(gameController, moves, random.nextLong()).join();
+    }
+
+    @Override
+    public List<ObtainableResourceSet> chooseCouncilPrivileges(GameController gameController, Player player, List<ObtainableResourceSet> allowedPrivileges, int count) {
+        return allowedPrivileges.subList(0, Math.min(count, allowedPrivileges.size()));
+    }
+
+    @Override
+    public boolean decideExcommunication(GameController gameController, Player player) {
+        return false;
+    }
+}
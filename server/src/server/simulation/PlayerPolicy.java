@@ -0,0 +1,70 @@
+package server.simulation;
+
+import gamecontroller.GameController;
+import gamecontroller.Move;
+import model.card.leader.LeaderCard;
+import model.player.PersonalBonusTile;
+import model.player.Player;
+import model.resource.ObtainableResourceSet;
+
+import java.util.List;
+
+/**
+ * This interface represents the decisions of a player in a simulated game.
+ * <p>
+ * The policies get the game controller so that they can inspect the game,
+ * but they must not modify it: the choices are applied by {@link SimulatedGame}.
+ */
+public interface PlayerPolicy {
+    /**
+     * Called during the personal bonus tiles draft
+     *
+     * @param gameController the controller of the game
+     * @param player the player choosing
+     * @param availableBonusTiles the bonus tiles that can be chosen
+     * @return the chosen bonus tile
+     */
+    PersonalBonusTile choosePersonalBonusTile(GameController gameController, Player player, List<PersonalBonusTile> availableBonusTiles);
+
+    /**
+     * Called during the leader cards draft
+     *
+     * @param gameController the controller of the game
+     * @param player the player choosing
+     * @param availableLeaderCards the leader cards that can be chosen
+     * @return the chosen leader card
+     */
+    LeaderCard chooseLeaderCard(GameController gameController, Player player, List<LeaderCard> availableLeaderCards);
+
+    /**
+     * Called once or more in each turn of the player.
+     * The moves are checked by a {@link gamecontroller.MoveGenerator}, but if the chosen move
+     * turns out not to be allowed anyway it's removed from the list and the method is called again.
+     *
+     * @param gameController the controller of the game
+     * @param player the player whose turn it is
+     * @param moves the allowed moves, the last one is always {@link Move#pass()}
+     * @return the chosen move
+     */
+    Move chooseMove(GameController gameController, Player player, List<Move> moves);
+
+    /**
+     * Called when the player obtains council privileges
+     *
+     * @param gameController the controller of the game
+     * @param player the player choosing
+     * @param allowedPrivileges the council privileges of the game
+     * @param count the number of different privileges to choose
+     * @return the chosen privileges
+     */
+    List<ObtainableResourceSet> chooseCouncilPrivileges(GameController gameController, Player player, List<ObtainableResourceSet> allowedPrivileges, int count);
+
+    /**
+     * Called during the vatican report if the player has the faith points to avoid the excommunication
+     *
+     * @param gameController the controller of the game
+     * @param player the player deciding
+     * @return true if the player wants to be excommunicated (and keep his faith points)
+     */
+    boolean decideExcommunication(GameController gameController, Player player);
+}
@@ -0,0 +1,53 @@
+package server.simulation;
+
+import gamecontroller.GameController;
+import gamecontroller.Move;
+import gamecontroller.utils.GameRandom;
+import model.card.leader.LeaderCard;
+import model.player.PersonalBonusTile;
+import model.player.Player;
+import model.resource.ObtainableResourceSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A policy that makes every choice at random.
+ * It passes only when no other move is possible.
+ */
+public class RandomPolicy implements PlayerPolicy {
+    private final GameRandom random;
+
+    public RandomPolicy(long seed) {
+        this.random = new GameRandom(seed);
+    }
+
+    @Override
+    public PersonalBonusTile choosePersonalBonusTile(GameController gameController, Player player, List<PersonalBonusTile> availableBonusTiles) {
+        return random.pick(availableBonusTiles);
+    }
+
+    @Override
+    public LeaderCard chooseLeaderCard(GameController gameController, Player player, List<LeaderCard> availableLeaderCards) {
+        return random.pick(availableLeaderCards);
+    }
+
+    @Override
+    public Move chooseMove(GameController gameController, Player player, List<Move> moves) {
+        // The last move is the pass
+        if (moves.size() == 1) return moves.get(0);
+        return moves.get(random.nextInt(moves.size() - 1));
+    }
+
+    @Override
+    public List<ObtainableResourceSet> chooseCouncilPrivileges(GameController gameController, Player player, List<ObtainableResourceSet> allowedPrivileges, int count) {
+        List<ObtainableResourceSet> privileges = new ArrayList<>(allowedPrivileges);
+        random.shuffle(privileges, count);
+        return privileges.subList(0, Math.min(count, privileges.size()));
+    }
+
+    @Override
+    public boolean decideExcommunication(GameController gameController, Player player) {
+        return random.nextBoolean();
+    }
+}
@@ -0,0 +1,306 @@
+package server.simulation;
+
+import gamecontroller.GameController;
+import gamecontroller.GameState;
+import gamecontroller.Move;
+import gamecontroller.MoveGenerator;
+import gamecontroller.ValidationResult;
+import gamecontroller.exceptions.ActionNotAllowedException;
+import gamecontroller.utils.GameRandom;
+import model.Game;
+import model.board.actionspace.*;
+import model.card.development.DevelopmentCard;
+import model.card.effects.ImmediateResourcesEffect;
+import model.card.leader.LeaderCard;
+import model.player.PersonalBonusTile;
+import model.player.Player;
+import model.resource.ObtainableResource;
+import model.resource.ObtainableResourceSet;
+import server.GameFlow;
+
+import java.util.*;
+
+/**
+ * This class plays a complete game in-process, without network connections and without timeouts.
+ * <p>
+ * The flow is driven by the same {@link GameFlow} as the one of {@link server.ServerGameController}: bonus tiles
+ * and leader cards drafts, six rounds with a vatican report after each period, and the final scoring.
+ * The rules are applied by the {@link GameController}, the choices are made by a {@link PlayerPolicy} for each player,
+ * and every random draw (excommunications, turn order, drafts, cards and dice) comes from a {@link GameRandom}
+ * seeded with the seed of the game, so that a game can be replayed.
+ * <p>
+ * A simulated game can be played only once.
+ */
+public class SimulatedGame implements GameFlow.Listener {
+    private final GameController gameController = new GameController();
+    private final GameFlow flow;
+    private final Map<String, PlayerPolicy> policies = new HashMap<>();
+
+    /**
+     * The usernames in the order of the policies, and the players in the same order once the game has started
+     * (the game keeps them in turn order)
+     */
+    private final List<String> usernames = new ArrayList<>();
+    private final List<Player> players = new ArrayList<>();
+    private final long seed;
+
+    /**
+     * The choices the flow is waiting for, made one at a time by {@link #play()}
+     * instead of inside the callbacks of the flow, which would nest a call for each choice of the game
+     */
+    private final Deque<Choice> pendingChoices = new ArrayDeque<>();
+    private boolean ended;
+
+    /**
+     * The number of moves applied, and the number of moves rejected by the game controller
+     */
+    private int playedMoves;
+    private int rejectedMoves;
+
+    /**
+     * @param game a new game, such as the ones created by {@link server.configloader.GameCatalog#newGame()}
+     * @param policies the policies of the players, from 2 to 4
+     * @param seed the seed for the random draws of the game
+     */
+    public SimulatedGame(Game game, List<PlayerPolicy> policies, long seed) {
+        if (policies.size() < 2 || policies.size() > GameFlow.MAX_PLAYERS) {
+            throw new IllegalArgumentException("A game is played by 2 to " + GameFlow.MAX_PLAYERS + " players");
+        }
+
+        this.seed = seed;
+        for (int i = 0; i < policies.size(); i++) {
+            String username = "player" + (i + 1);
+            this.policies.put(username, policies.get(i));
+            this.usernames.add(username);
+        }
+
+        gameController.setGame(game);
+        flow = new GameFlow(gameController, new GameRandom(seed), this);
+    }
+
+    /**
+     * Plays the game until the end
+     *
+     * @return the result of the game
+     */
+    public SimulationResult play() {
+        if (gameController.getGameState() != GameState.WAITING_FOR_PLAYERS_TO_CONNECT) {
+            throw new IllegalStateException("The game has already been played");
+        }
+
+        try {
+            flow.start(usernames);
+            for (String username : usernames) {
+                players.add(gameController.getLocalPlayer(username));
+            }
+
+            while (!pendingChoices.isEmpty()) {
+                pendingChoices.poll().make();
+            }
+        }
+        catch (ActionNotAllowedException e) {
+            // The moves of the policies are checked before being applied, so this is a bug in the game flow
+            throw new IllegalStateException("The simulated game has been interrupted: " + e.getMessage(), e);
+        }
+
+        if (!ended) {
+            throw new IllegalStateException("The simulated game has stopped before the end");
+        }
+        return new SimulationResult(getGame(), players, seed, playedMoves, rejectedMoves);
+    }
+
+    /**
+     * A choice of a player, made through the flow
+     */
+    @FunctionalInterface
+    private interface Choice {
+        void make() throws ActionNotAllowedException;
+    }
+
+    /* ----------------------------------------------------------------
+     * Drafts
+     * ---------------------------------------------------------------- */
+
+    @Override
+    public void onPersonalBonusTileDraftTurn(Player player) {
+        pendingChoices.add(() -> {
+            List<PersonalBonusTile> availableBonusTiles = Collections.unmodifiableList(getGame().getAvailablePersonalBonusTiles());
+            PersonalBonusTile bonusTile = getPolicy(player).choosePersonalBonusTile(gameController, player, availableBonusTiles);
+            flow.choosePersonalBonusTile(player.getUsername(), bonusTile.getId());
+        });
+    }
+
+    @Override
+    public void onLeaderCardsDraftTurn() {
+        for (Player player : flow.getPlayersThatHaveToDraft()) {
+            pendingChoices.add(() -> {
+                LeaderCard leaderCard = getPolicy(player).chooseLeaderCard(gameController, player, flow.getLeaderCardsToChooseFrom(player));
+                flow.chooseLeaderCard(player.getUsername(), leaderCard.getId());
+            });
+        }
+    }
+
+    /* ----------------------------------------------------------------
+     * Turns
+     * ---------------------------------------------------------------- */
+
+    @Override
+    public void onPlayerTurnStarted(Player player) {
+        pendingChoices.add(() -> playTurn(player));
+    }
+
+    /**
+     * Plays the turn of a player: the policy chooses moves until one is allowed or it passes
+     */
+    private void playTurn(Player player) throws ActionNotAllowedException {
+        PlayerPolicy policy = getPolicy(player);
+        List<Move> moves = new MoveGenerator(gameController, player).generateMoves();
+        List<Move> unmodifiableMoves = Collections.unmodifiableList(moves);
+
+        while (true) {
+            Move move = policy.chooseMove(gameController, player, unmodifiableMoves);
+            if (move.isPass()) break;
+
+            if (tryMove(player, policy, move)) {
+                playedMoves++;
+                break;
+            }
+
+            rejectedMoves++;
+            if (!moves.remove(move)) {
+                throw new ActionNotAllowedException("The move chosen by " + player.getUsername() + " is not a candidate");
+            }
+        }
+
+        flow.endTurn(player.getUsername());
+    }
+
+    /**
+     * Applies a move through the game controller, after validating it so that a rejected move doesn't throw
+     *
+     * @return false if the game controller doesn't allow the move
+     */
+    private boolean tryMove(Player player, PlayerPolicy policy, Move move) throws ActionNotAllowedException {
+        String username = player.getUsername();
+        ActionSpace actionSpace = move.getActionSpace();
+
+        if (move.getServants() > 0) {
+            if (!player.getResources().hasAtLeast(move.getServants(), ObtainableResource.SERVANTS)) return false;
+            gameController.spendServants(username, move.getServants());
+        }
+
+        ValidationResult result;
+        if (move.isFloor()) {
+            result = gameController.validateGoToFloor(username, move.getFamilyMember(), actionSpace.getId(), move.getPayment(), move.getCouncilPrivileges());
+        }
+        else {
+            result = gameController.validateGoToActionSpace(username, actionSpace.getId(), move.getFamilyMember(), move.getCouncilPrivileges());
+        }
+        if (!result.isAllowed()) {
+            player.setSpentServants(0);
+            return false;
+        }
+
+        if (!move.isFloor()) {
+            gameController.goToActionSpace(username, actionSpace.getId(), move.getFamilyMember(), move.getCouncilPrivileges());
+            return true;
+        }
+        gameController.goToFloor(username, move.getFamilyMember(), actionSpace.getId(), move.getPayment(), move.getCouncilPrivileges());
+
+        // The family member is on the floor, the player takes the card
+        DevelopmentCard card = gameController.getDevelopmentCardBeingTaken();
+        int cardPrivileges = 0;
+        for (ImmediateResourcesEffect e : card.getEffectsContainer().getEffectsImplementing(ImmediateResourcesEffect.class)) {
+            cardPrivileges += e.getObtainableResourceSet().getObtainedAmount(ObtainableResource.COUNCIL_PRIVILEGES);
+        }
+        gameController.takeDevelopmentCard(username, card.getId(), chooseCouncilPrivileges(player, policy, cardPrivileges));
+        return true;
+    }
+
+    private List<ObtainableResourceSet> chooseCouncilPrivileges(Player player, PlayerPolicy policy, int count) throws ActionNotAllowedException {
+        if (count == 0) return Collections.emptyList();
+
+        List<ObtainableResourceSet> allowedPrivileges = Collections.unmodifiableList(getGame().getAllowedCouncilPrivileges());
+        List<ObtainableResourceSet> privileges = policy.chooseCouncilPrivileges(gameController, player, allowedPrivileges, count);
+        if (!gameController.validateCouncilPrivileges(privileges, count)) {
+            throw new ActionNotAllowedException("The council privileges chosen by " + player.getUsername() + " are not valid");
+        }
+        return privileges;
+    }
+
+    /* ----------------------------------------------------------------
+     * Vatican report
+     * ---------------------------------------------------------------- */
+
+    @Override
+    public void onVaticanReportStarted() {
+        for (Player player : gameController.getPlayersWithPendingExcommunicationDecision()) {
+            pendingChoices.add(() -> flow.decideExcommunication(player.getUsername(), getPolicy(player).decideExcommunication(gameController, player)));
+        }
+    }
+
+    /* ----------------------------------------------------------------
+     * Other events of the flow
+     * ---------------------------------------------------------------- */
+
+    @Override
+    public void onPersonalBonusTileChosen(Player player, UUID personalBonusTileId) {
+    }
+
+    @Override
+    public void onLeaderCardChosen(Player player, LeaderCard leaderCard) {
+    }
+
+    @Override
+    public void onDraftsConcluded() {
+    }
+
+    @Override
+    public void onNewRound() {
+    }
+
+    @Override
+    public void onDevelopmentCardsDrawn(List<UUID> territoryCardsIds, List<UUID> characterCardsIds, List<UUID> buildingCardsIds, List<UUID> ventureCardsIds) {
+    }
+
+    @Override
+    public void onDiceThrown(int blackDie, int whiteDie, int orangeDie) {
+    }
+
+    @Override
+    public void onRoundStarted() {
+    }
+
+    @Override
+    public void onTurnEnded(Player player) {
+    }
+
+    @Override
+    public void onExcommunicationDecided(Player player, boolean beExcommunicated) {
+    }
+
+    @Override
+    public void onGameEnded() {
+        ended = true;
+    }
+
+    /* ----------------------------------------------------------------
+     * Getters
+     * ---------------------------------------------------------------- */
+
+    private PlayerPolicy getPolicy(Player player) {
+        return policies.get(player.getUsername());
+    }
+
+    public Game getGame() {
+        return gameController.getGame();
+    }
+
+    public GameController getGameController() {
+        return gameController;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+}
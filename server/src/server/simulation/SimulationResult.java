@@ -0,0 +1,81 @@
+package server.simulation;
+
+import model.Game;
+import model.player.Player;
+import model.resource.ObtainableResource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class represents the outcome of a simulated game
+ */
+public class SimulationResult {
+    private final Game game;
+    private final long seed;
+    private final int playedMoves;
+    private final int rejectedMoves;
+
+    /**
+     * The players in the order of the policies
+     */
+    private final List<Player> players;
+
+    /**
+     * The players sorted by victory points, the winner first
+     */
+    private final List<Player> ranking;
+
+    SimulationResult(Game game, List<Player> players, long seed, int playedMoves, int rejectedMoves) {
+        this.game = game;
+        this.players = Collections.unmodifiableList(new ArrayList<>(players));
+        this.seed = seed;
+        this.playedMoves = playedMoves;
+        this.rejectedMoves = rejectedMoves;
+
+        // Sorting is stable: players with the same victory points keep the final turn order
+        List<Player> sortedPlayers = new ArrayList<>(game.getPlayers());
+        sortedPlayers.sort(Comparator.comparingInt(SimulationResult::getVictoryPoints).reversed());
+        this.ranking = Collections.unmodifiableList(sortedPlayers);
+    }
+
+    public static int getVictoryPoints(Player player) {
+        return player.getResources().getAmount(ObtainableResource.VICTORY_POINTS);
+    }
+
+    /**
+     * @return the game at the end, with the final score of the players
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the players in the order of their policies (player1, player2, ...)
+     */
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    public List<Player> getRanking() {
+        return ranking;
+    }
+
+    public Player getWinner() {
+        return ranking.get(0);
+    }
+
+    public int getPlayedMoves() {
+        return playedMoves;
+    }
+
+    public int getRejectedMoves() {
+        return rejectedMoves;
+    }
+}
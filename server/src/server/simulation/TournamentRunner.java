@@ -0,0 +1,253 @@
+package server.simulation;
+
+import model.player.Player;
+import server.bot.BotSettings;
+import server.bot.MctsSearch;
+import server.configloader.GameCatalog;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Logger;
+
+/**
+ * This class plays a batch of simulated games on all the cores, without going through the server.
+ * <p>
+ * The games are split between the workers of a fork-join pool. Every game gets its own game and controller
+ * from the shared catalog and its own seed, derived from the seed of the tournament and the number of the game,
+ * so a game of a tournament can be replayed alone.
+ * The outcome of every game is recorded in a {@link TournamentStatistics} and, if a writer is given,
+ * written as a csv line as soon as its batch is over, so that the results never have to be kept in memory.
+ * <p>
+ * It can be run from the command line, the first players can be played by the search of the bots
+ * (see {@link MctsPolicy}) and the others play at random:
+ * TournamentRunner [games] [players] [seed] [games csv file] [statistics csv file] [search players] [search iterations]
+ */
+public class TournamentRunner {
+    private static final Logger LOGGER = Logger.getLogger("TournamentRunner");
+
+    /**
+     * The games played by a single task, enough to make the cost of the task negligible
+     * and few enough to balance the load between the workers
+     */
+    private static final int GAMES_PER_TASK = 256;
+
+    /**
+     * This interface creates the policies of the players of a game
+     */
+    @FunctionalInterface
+    public interface PolicyFactory {
+        /**
+         * @param player the index of the player, from 0
+         * @param seed a seed for the policy, different for every player of every game
+         * @return the policy of the player
+         */
+        PlayerPolicy createPolicy(int player, long seed);
+    }
+
+    private final GameCatalog catalog;
+    private final int players;
+    private final PolicyFactory policyFactory;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param catalog the catalog the games are created from
+     * @param players the number of players of every game
+     * @param policyFactory the factory of the policies of the players
+     * @param pool the pool the games are played on
+     */
+    public TournamentRunner(GameCatalog catalog, int players, PolicyFactory policyFactory, ForkJoinPool pool) {
+        if (players < 2 || players > 4) {
+            throw new IllegalArgumentException("A game is played by 2 to 4 players");
+        }
+
+        this.catalog = catalog;
+        this.players = players;
+        this.policyFactory = policyFactory;
+        this.pool = pool;
+    }
+
+    /**
+     * Plays the games of the tournament and waits for them to finish
+     *
+     * @param games the number of games
+     * @param seed the seed of the tournament
+     * @param gamesWriter where a csv line is written for every game (null for no output)
+     * @return the statistics of the tournament
+     * @throws IOException if the games writer fails
+     */
+    public TournamentStatistics run(long games, long seed, Writer gamesWriter) throws IOException {
+        TournamentStatistics statistics = new TournamentStatistics(catalog, players);
+
+        if (gamesWriter != null) {
+            gamesWriter.write(getCsvHeader());
+        }
+
+        try {
+            pool.invoke(new TournamentTask(0, games, seed, statistics, gamesWriter));
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (gamesWriter != null) {
+            gamesWriter.flush();
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the seed of a game of a tournament.
+     * The game number is mixed (SplitMix64 finalizer) so that neighbouring games get unrelated seeds.
+     *
+     * @param seed the seed of the tournament
+     * @param game the number of the game
+     * @return the seed of the game
+     */
+    public static long getGameSeed(long seed, long game) {
+        long z = seed + (game + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Plays a game of the tournament
+     *
+     * @param game the number of the game
+     * @param seed the seed of the tournament
+     * @return the result of the game
+     */
+    public SimulationResult playGame(long game, long seed) {
+        long gameSeed = getGameSeed(seed, game);
+
+        List<PlayerPolicy> policies = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            policies.add(policyFactory.createPolicy(i, getGameSeed(gameSeed, i)));
+        }
+
+        return new SimulatedGame(catalog.newGame(), policies, gameSeed).play();
+    }
+
+    /* ----------------------------------------------------------------
+     * Csv output
+     * ---------------------------------------------------------------- */
+
+    private String getCsvHeader() {
+        StringBuilder header = new StringBuilder("game,seed,moves,winner");
+        for (int i = 1; i <= players; i++) {
+            header.append(",player").append(i).append("VictoryPoints");
+        }
+        return header.append('\n').toString();
+    }
+
+    /**
+     * Appends the csv line of a game: the victory points are in the order of the players (player1, player2, ...),
+     * not in the final turn order
+     */
+    private void appendCsvLine(StringBuilder lines, long game, SimulationResult result) {
+        lines.append(game).append(',')
+             .append(result.getSeed()).append(',')
+             .append(result.getPlayedMoves()).append(',')
+             .append(result.getWinner().getUsername());
+
+        for (Player player : result.getPlayers()) {
+            lines.append(',').append(SimulationResult.getVictoryPoints(player));
+        }
+
+        lines.append('\n');
+    }
+
+    /**
+     * Plays a range of games, splitting it in halves until it is small enough
+     */
+    private class TournamentTask extends RecursiveAction {
+        private final long from;
+        private final long to;
+        private final long seed;
+        private final transient TournamentStatistics statistics;
+        private final transient Writer gamesWriter;
+
+        TournamentTask(long from, long to, long seed, TournamentStatistics statistics, Writer gamesWriter) {
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+            this.statistics = statistics;
+            this.gamesWriter = gamesWriter;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > GAMES_PER_TASK) {
+                long middle = (from + to) >>> 1;
+                invokeAll(new TournamentTask(from, middle, seed, statistics, gamesWriter),
+                          new TournamentTask(middle, to, seed, statistics, gamesWriter));
+                return;
+            }
+
+            StringBuilder lines = gamesWriter == null ? null : new StringBuilder();
+            for (long game = from; game < to; game++) {
+                SimulationResult result = playGame(game, seed);
+                statistics.record(result);
+                if (lines != null) appendCsvLine(lines, game, result);
+            }
+
+            if (lines != null) {
+                try {
+                    synchronized (gamesWriter) {
+                        gamesWriter.write(lines.toString());
+                    }
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        String gamesFile = args.length > 3 ? args[3] : null;
+        String statisticsFile = args.length > 4 ? args[4] : "tournament.csv";
+        int searchPlayers = args.length > 5 ? Integer.parseInt(args[5]) : 0;
+        int searchIterations = args.length > 6 ? Integer.parseInt(args[6]) : 1000;
+
+        // A single worker with a fixed number of iterations, so that the games can be replayed
+        MctsSearch search = new MctsSearch(new BotSettings(Integer.MAX_VALUE, searchIterations, 1, searchIterations + 1, 0));
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        TournamentRunner runner = new TournamentRunner(GameCatalog.getInstance(), players, (player, policySeed) ->
+                player < searchPlayers ? new MctsPolicy(search, policySeed) : new RandomPolicy(policySeed), pool);
+
+        LOGGER.info(String.format("Playing %d games of %d players (%d searching) with seed %d on %d workers",
+                games, players, Math.min(searchPlayers, players), seed, pool.getParallelism()));
+
+        long start = System.nanoTime();
+        TournamentStatistics statistics;
+        if (gamesFile != null) {
+            try (Writer gamesWriter = newCsvWriter(gamesFile)) {
+                statistics = runner.run(games, seed, gamesWriter);
+            }
+        }
+        else {
+            statistics = runner.run(games, seed, null);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        try (Writer statisticsWriter = newCsvWriter(statisticsFile)) {
+            statistics.writeCsv(statisticsWriter);
+        }
+
+        LOGGER.info(String.format("Played %d games (%d moves) in %d ms: %.0f games/s",
+                statistics.getGames(), statistics.getMoves(), elapsed / 1000000, statistics.getGames() * 1e9 / elapsed));
+    }
+
+    private static Writer newCsvWriter(String fileName) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName), StandardCharsets.UTF_8), 1 << 16);
+    }
+}
@@ -0,0 +1,193 @@
+package server.simulation;
+
+import model.card.Card;
+import model.card.leader.LeaderCard;
+import model.player.PersonalBonusTile;
+import model.player.Player;
+import server.configloader.GameCatalog;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class accumulates the win rates of a tournament: how many times a player that had a leader card,
+ * a personal bonus tile or a development card has won.
+ * <p>
+ * The counters are created up front for everything in the catalog, so that recording a game
+ * never modifies the maps and many workers can record games at the same time without locking.
+ */
+public class TournamentStatistics {
+    public enum Category {
+        LEADER_CARD,
+        BONUS_TILE,
+        DEVELOPMENT_CARD
+    }
+
+    /**
+     * Games and wins of the players that had something
+     */
+    public static class Counter {
+        private final LongAdder games = new LongAdder();
+        private final LongAdder wins = new LongAdder();
+
+        private void record(boolean won) {
+            games.increment();
+            if (won) wins.increment();
+        }
+
+        public long getGames() {
+            return games.sum();
+        }
+
+        public long getWins() {
+            return wins.sum();
+        }
+
+        /**
+         * @return the fraction of games won, 0 if there are no games
+         */
+        public double getWinRate() {
+            long playedGames = getGames();
+            return playedGames == 0 ? 0 : (double) getWins() / playedGames;
+        }
+    }
+
+    private final LongAdder games = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+
+    /**
+     * Wins by position in the final turn order
+     */
+    private final LongAdder[] winsByPosition;
+
+    private final Map<Category, Map<String, Counter>> counters = new EnumMap<>(Category.class);
+
+    /**
+     * Labels of the bonus tiles ("Bonus tile 1", ...), by id
+     */
+    private final Map<UUID, String> bonusTileNames = new HashMap<>();
+
+    /**
+     * @param catalog the catalog the games are created from
+     * @param players the number of players of every game
+     */
+    public TournamentStatistics(GameCatalog catalog, int players) {
+        winsByPosition = new LongAdder[players];
+        for (int i = 0; i < players; i++) {
+            winsByPosition[i] = new LongAdder();
+        }
+
+        for (Category category : Category.values()) {
+            counters.put(category, new LinkedHashMap<>());
+        }
+
+        for (LeaderCard leaderCard : catalog.getLeaderCards()) {
+            counters.get(Category.LEADER_CARD).put(leaderCard.getName(), new Counter());
+        }
+
+        List<PersonalBonusTile> bonusTiles = catalog.getPersonalBonusTiles();
+        for (int i = 0; i < bonusTiles.size(); i++) {
+            String name = "Bonus tile " + (i + 1);
+            bonusTileNames.put(bonusTiles.get(i).getId(), name);
+            counters.get(Category.BONUS_TILE).put(name, new Counter());
+        }
+
+        List<Card> developmentCards = new ArrayList<>();
+        developmentCards.addAll(catalog.getTerritoryCards());
+        developmentCards.addAll(catalog.getBuildingCards());
+        developmentCards.addAll(catalog.getCharacterCards());
+        developmentCards.addAll(catalog.getVentureCards());
+        for (Card card : developmentCards) {
+            counters.get(Category.DEVELOPMENT_CARD).put(card.getName(), new Counter());
+        }
+    }
+
+    /**
+     * Records the outcome of a game.
+     * This method can be called by many threads at the same time.
+     *
+     * @param result the result of the game
+     */
+    public void record(SimulationResult result) {
+        games.increment();
+        moves.add(result.getPlayedMoves());
+
+        Player winner = result.getWinner();
+        List<Player> players = result.getGame().getPlayers();
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            boolean won = player.equals(winner);
+            if (won) winsByPosition[i].increment();
+
+            for (LeaderCard leaderCard : player.getAvailableLeaderCards()) {
+                record(Category.LEADER_CARD, leaderCard.getName(), won);
+            }
+            for (LeaderCard leaderCard : player.getPlayedLeaderCards()) {
+                record(Category.LEADER_CARD, leaderCard.getName(), won);
+            }
+
+            if (player.getBonusTile() != null) {
+                record(Category.BONUS_TILE, bonusTileNames.get(player.getBonusTile().getId()), won);
+            }
+
+            player.getTerritories().forEach(card -> record(Category.DEVELOPMENT_CARD, card.getName(), won));
+            player.getBuildings().forEach(card -> record(Category.DEVELOPMENT_CARD, card.getName(), won));
+            player.getCharacters().forEach(card -> record(Category.DEVELOPMENT_CARD, card.getName(), won));
+            player.getVentures().forEach(card -> record(Category.DEVELOPMENT_CARD, card.getName(), won));
+        }
+    }
+
+    private void record(Category category, String name, boolean won) {
+        Counter counter = counters.get(category).get(name);
+        if (counter != null) counter.record(won);
+    }
+
+    public long getGames() {
+        return games.sum();
+    }
+
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    /**
+     * @param position the position in the final turn order, starting from 0
+     * @return the games won by the player in that position
+     */
+    public long getWinsByPosition(int position) {
+        return winsByPosition[position].sum();
+    }
+
+    /**
+     * @param category the category
+     * @return the counters of the category, by name
+     */
+    public Map<String, Counter> getCounters(Category category) {
+        return Collections.unmodifiableMap(counters.get(category));
+    }
+
+    /**
+     * Writes the statistics as csv: category, name, games, wins, win rate
+     *
+     * @param writer the writer
+     * @throws IOException if the writer fails
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write("category,name,games,wins,winRate\n");
+        for (Map.Entry<Category, Map<String, Counter>> category : counters.entrySet()) {
+            for (Map.Entry<String, Counter> entry : category.getValue().entrySet()) {
+                Counter counter = entry.getValue();
+                writer.write(String.format(Locale.ROOT, "%s,%s,%d,%d,%.4f\n",
+                        category.getKey(), csvEscape(entry.getKey()), counter.getGames(), counter.getWins(), counter.getWinRate()));
+            }
+        }
+        writer.flush();
+    }
+
+    static String csvEscape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
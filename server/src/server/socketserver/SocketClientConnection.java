@@ -0,0 +1,479 @@
+package server.socketserver;
+
+import model.card.leader.LeaderCard;
+import model.player.FamilyMemberColor;
+import model.player.PersonalBonusTile;
+import model.resource.ObtainableResourceSet;
+import model.resource.RequiredResourceSet;
+import network.socket.EncodedMessage;
+import network.socket.SocketFrames;
+import network.socket.SocketRequest;
+import network.socket.SocketResponse;
+import server.ClientConnection;
+import server.Lobby;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class implements the ClientConnection class for sockets.
+ * <p>
+ * The I/O is performed by the {@link SocketServer} selector thread, which calls {@link #onReadable()}
+ * and {@link #onWritable()} when the channel is ready.
+ * Received requests are executed one at a time (in the order they were received) on the server workers.
+ * The calls on the ServerToClientInterface, which are made by the senders of the {@link server.OutboundQueue},
+ * return when the frame has been written on the channel, so that a client that stops reading
+ * is seen by the queue as stuck. The frames waiting to be written are bounded in size.
+ * The commands on the game are queued in the mailbox of the game and answered when the game has run them,
+ * so the workers never wait for a game.
+ */
+public class SocketClientConnection extends ClientConnection {
+    private static final Logger LOGGER = Logger.getLogger("SocketClientConnection");
+
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * The maximum number of bytes waiting to be written before the client is dropped
+     * (a single frame bigger than this is accepted when nothing else is waiting)
+     */
+    private static final long MAX_OUTBOX_BYTES = 4L * 1024 * 1024;
+
+    /**
+     * The maximum time (in milliseconds) a call on the ServerToClientInterface waits for its frame to be written
+     */
+    private static final long WRITE_TIMEOUT = 30000;
+
+    private final SocketServer server;
+
+    private final SocketChannel channel;
+
+    private final SelectionKey key;
+
+    /**
+     * The buffer incoming data is read into. Only touched by the selector thread
+     */
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    /**
+     * Frames waiting to be written on the channel
+     */
+    private final Queue<OutgoingFrame> outbox = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The bytes of the frames in the outbox
+     */
+    private final AtomicLong outboxBytes = new AtomicLong();
+
+    /**
+     * Frames received and waiting to be executed
+     */
+    private final Queue<byte[]> inbox = new ConcurrentLinkedQueue<>();
+
+    /**
+     * True if a worker is executing the requests in the inbox
+     */
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    private volatile boolean closed = false;
+
+    public SocketClientConnection(Lobby lobby, SocketServer server, SocketChannel channel, SelectionKey key) {
+        super(lobby);
+        this.server = server;
+        this.channel = channel;
+        this.key = key;
+    }
+
+    /* ----------------------------------------------------------------------
+     * Network I/O
+     * ---------------------------------------------------------------------- */
+
+    /**
+     * Reads the available data and extracts all the complete frames
+     *
+     * @throws IOException if the connection has been closed or a frame is not valid
+     */
+    void onReadable() throws IOException {
+        if (channel.read(readBuffer) < 0) throw new IOException("Connection closed by the client");
+
+        readBuffer.flip();
+        while (readBuffer.remaining() >= SocketFrames.HEADER_SIZE) {
+            int length = readBuffer.getInt(readBuffer.position());
+            SocketFrames.checkLength(length);
+
+            if (readBuffer.remaining() < SocketFrames.HEADER_SIZE + length) break;
+
+            readBuffer.position(readBuffer.position() + SocketFrames.HEADER_SIZE);
+            byte[] payload = new byte[length];
+            readBuffer.get(payload);
+            inbox.add(payload);
+        }
+        readBuffer.compact();
+
+        // Make room for frames bigger than the buffer
+        if (readBuffer.position() >= SocketFrames.HEADER_SIZE) {
+            int frameSize = SocketFrames.HEADER_SIZE + readBuffer.getInt(0);
+            if (frameSize > readBuffer.capacity()) {
+                readBuffer.flip();
+                readBuffer = ByteBuffer.allocate(frameSize).put(readBuffer);
+            }
+        }
+
+        scheduleDrain();
+    }
+
+    /**
+     * Writes as many queued frames as the channel accepts
+     *
+     * @throws IOException
+     */
+    void onWritable() throws IOException {
+        OutgoingFrame frame;
+        while ((frame = outbox.peek()) != null) {
+            channel.write(frame.buffer);
+            if (frame.buffer.hasRemaining()) return;
+            outbox.poll();
+            outboxBytes.addAndGet(-frame.buffer.limit());
+            frame.written.complete(null);
+        }
+        key.interestOps(SelectionKey.OP_READ);
+
+        // A frame may have been added after the last peek, make sure it's not forgotten
+        if (!outbox.isEmpty()) key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Called by the selector thread after {@link SocketServer#requestWrite(SocketClientConnection)}
+     */
+    void enableWriteInterest() {
+        if (key.isValid()) key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Closes the connection. Further calls on this connection will throw a RemoteException
+     */
+    void close() {
+        closed = true;
+        onDisconnected();
+        key.cancel();
+        try {
+            channel.close();
+        }
+        catch (IOException e) {
+            LOGGER.log(Level.FINE, "Error while closing the channel", e);
+        }
+        failOutbox();
+    }
+
+    /**
+     * Discards the frames waiting to be written, failing the calls waiting for them
+     */
+    private void failOutbox() {
+        OutgoingFrame frame;
+        while ((frame = outbox.poll()) != null) {
+            outboxBytes.addAndGet(-frame.buffer.limit());
+            frame.written.completeExceptionally(new RemoteException("Connection closed"));
+        }
+    }
+
+    /**
+     * Queues a response for sending, without waiting for it to be written
+     *
+     * @param response the response to send
+     * @throws RemoteException if the connection is closed, the response can't be serialized
+     *                         or too much data is waiting to be written
+     */
+    private void send(SocketResponse response) throws RemoteException {
+        try {
+            write(SocketFrames.encode(response));
+        }
+        catch (IOException e) {
+            throw new RemoteException("Can't serialize the message", e);
+        }
+    }
+
+    /**
+     * Sends an already encoded message, waiting for it to be written
+     *
+     * @param message the message to send
+     * @throws RemoteException if the connection is closed or the client is not reading
+     */
+    private void send(EncodedMessage message) throws RemoteException {
+        awaitWritten(write(SocketFrames.encode(message)));
+    }
+
+    /**
+     * Queues a frame for writing
+     *
+     * @param buffer the frame
+     * @return completed when the frame has been written on the channel
+     * @throws RemoteException if the connection is closed or too much data is waiting to be written
+     */
+    private CompletableFuture<Void> write(ByteBuffer buffer) throws RemoteException {
+        if (closed) throw new RemoteException("Connection closed");
+
+        int size = buffer.remaining();
+        long queuedBytes = outboxBytes.getAndAdd(size);
+        if (queuedBytes > 0 && queuedBytes + size > MAX_OUTBOX_BYTES) {
+            outboxBytes.addAndGet(-size);
+            getOutboundQueue().drop("The client is not reading its messages");
+            throw new RemoteException("Too much data waiting to be sent");
+        }
+
+        OutgoingFrame frame = new OutgoingFrame(buffer);
+        outbox.add(frame);
+
+        // The connection may have been closed while the frame was being added
+        if (closed) failOutbox();
+        else server.requestWrite(this);
+
+        return frame.written;
+    }
+
+    /**
+     * Waits for a frame to be written on the channel
+     *
+     * @param written completed when the frame has been written
+     * @throws RemoteException if the connection has been closed or the frame isn't written in time
+     */
+    private static void awaitWritten(CompletableFuture<Void> written) throws RemoteException {
+        try {
+            written.get(WRITE_TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrupted while sending a message", e);
+        }
+        catch (ExecutionException e) {
+            throw new RemoteException("Can't send the message", e.getCause());
+        }
+        catch (TimeoutException e) {
+            throw new RemoteException("The client is not reading its messages", e);
+        }
+    }
+
+    /**
+     * Sends a call to the client
+     *
+     * @param method    the name of the ServerToClientInterface method
+     * @param arguments the arguments
+     * @throws RemoteException
+     */
+    private void call(String method, Object... arguments) throws RemoteException {
+        ByteBuffer frame;
+        try {
+            frame = SocketFrames.encode(new SocketRequest(SocketRequest.NO_RESPONSE, method, arguments));
+        }
+        catch (IOException e) {
+            throw new RemoteException("Can't serialize the message", e);
+        }
+        awaitWritten(write(frame));
+    }
+
+    /* ----------------------------------------------------------------------
+     * Request execution
+     * ---------------------------------------------------------------------- */
+
+    private void scheduleDrain() {
+        if (!inbox.isEmpty() && draining.compareAndSet(false, true)) {
+            server.execute(this::drainInbox);
+        }
+    }
+
+    /**
+     * Executes the received requests in order.
+     * Only one worker at a time runs this method for a given connection.
+     */
+    private void drainInbox() {
+        byte[] payload;
+        while (!closed && (payload = inbox.poll()) != null) {
+            try {
+                handleRequest((SocketRequest) SocketFrames.decode(payload));
+            }
+            catch (IOException | ClassCastException e) {
+                LOGGER.log(Level.WARNING, "Received an invalid request", e);
+            }
+        }
+        draining.set(false);
+
+        // A request may have arrived after the inbox was found empty
+        scheduleDrain();
+    }
+
+    /**
+     * Executes a request and sends back the outcome
+     *
+     * @param request the request
+     */
+    @SuppressWarnings("squid:S2221") // Silence "Catch a list of specific exception subtypes instead", the client has to know about any failure
+    private void handleRequest(SocketRequest request) {
+        CompletableFuture<Void> result;
+        try {
+            result = dispatch(request);
+        }
+        catch (Exception e) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+        }
+
+        if (!request.expectsResponse()) return;
+
+        result.whenComplete((ignored, exception) -> {
+            // The failures of the dependent stages are wrapped, the client has to get the original one
+            Throwable failure = exception instanceof CompletionException ? exception.getCause() : exception;
+            try {
+                send(new SocketResponse(request.getId(), (Exception) failure));
+            }
+            catch (RemoteException e) {
+                LOGGER.log(Level.FINE, "Can't send the response", e);
+            }
+        });
+    }
+
+    /**
+     * Executes a request. The commands on the game, and joining a game, are only queued in the mailbox of the game,
+     * the other requests are executed right away.
+     *
+     * @param request the request
+     * @return the outcome of the request
+     * @throws Exception if the request fails right away
+     */
+    private CompletableFuture<Void> dispatch(SocketRequest request) throws Exception {
+        String username = getUsername();
+        switch (request.getMethod()) {
+            case "loginPlayer":
+                return login(request.getArgument(0));
+            case "joinFirstAvailableGame":
+                return joinGame(false);
+            case "createAndJoinGame":
+                return joinGame(true);
+            case "choosePersonalBonusTile": {
+                UUID personalBonusTileId = request.getArgument(0);
+                return submit(game -> game.choosePersonalBonusTile(username, personalBonusTileId));
+            }
+            case "chooseLeaderCard": {
+                UUID leaderCardId = request.getArgument(0);
+                return submit(game -> game.chooseLeaderCard(username, leaderCardId));
+            }
+            case "spendServants": {
+                int servants = request.<Integer>getArgument(0);
+                return submit(game -> game.spendServants(username, servants));
+            }
+            case "goToActionSpace": {
+                UUID actionSpaceId = request.getArgument(0);
+                FamilyMemberColor familyMemberColor = request.getArgument(1);
+                List<ObtainableResourceSet> chosenPrivileges = request.getArgument(2);
+                return submit(game -> game.goToActionSpace(username, actionSpaceId, familyMemberColor, chosenPrivileges));
+            }
+            case "goToFloor": {
+                UUID floorId = request.getArgument(0);
+                FamilyMemberColor familyMemberColor = request.getArgument(1);
+                List<ObtainableResourceSet> councilPrivileges = request.getArgument(2);
+                RequiredResourceSet paymentForCard = request.getArgument(3);
+                return submit(game -> game.goToFloor(username, floorId, familyMemberColor, paymentForCard, councilPrivileges));
+            }
+            case "takeDevelopmentCard": {
+                UUID cardId = request.getArgument(0);
+                List<ObtainableResourceSet> councilPrivileges = request.getArgument(1);
+                return submit(game -> game.takeDevelopmentCard(username, cardId, councilPrivileges));
+            }
+            case "discardLeaderCard":
+                discardLeaderCard(request.getArgument(0), request.getArgument(1));
+                break;
+            case "playLeaderCard":
+                playLeaderCard(request.getArgument(0));
+                break;
+            case "endTurn":
+                return submit(game -> game.endTurn(username));
+            case "decideExcommunication": {
+                Boolean beExcommunicated = request.getArgument(0);
+                return submit(game -> game.decideExcommunication(username, beExcommunicated));
+            }
+            case "requestResync":
+                return submit(game -> game.sendGameConfiguration(username));
+            default:
+                throw new IllegalArgumentException("Unknown method " + request.getMethod());
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /* ----------------------------------------------------------------------
+     * Server to client interface
+     * ---------------------------------------------------------------------- */
+
+    @Override
+    public void pingClient() throws RemoteException {
+        call("pingClient");
+    }
+
+    @Override
+    public void abortGame(String errorMessage) throws RemoteException {
+        call("abortGame", errorMessage);
+    }
+
+    @Override
+    public void askToChoosePersonalBonusTile(List<PersonalBonusTile> personalBonusTiles) throws RemoteException {
+        call("askToChoosePersonalBonusTile", personalBonusTiles);
+    }
+
+    @Override
+    public void askToChooseLeaderCard(List<LeaderCard> leaderCards) throws RemoteException {
+        call("askToChooseLeaderCard", leaderCards);
+    }
+
+    @Override
+    public void askWhichImmediateResourcesToTake(UUID cardId) throws RemoteException {
+        call("askWhichImmediateResourcesToTake", cardId);
+    }
+
+    @Override
+    public void showWaitingMessage(String message) throws RemoteException {
+        call("showWaitingMessage", message);
+    }
+
+    @Override
+    public void setGameConfiguration(byte[] configuration) throws RemoteException {
+        call("setGameConfiguration", configuration);
+    }
+
+    @Override
+    public void onGameEvent(byte[] event) throws RemoteException {
+        send(new EncodedMessage(EncodedMessage.Type.GAME_EVENT, event));
+    }
+
+    @Override
+    public void onGameStateDelta(byte[] delta) throws RemoteException {
+        send(new EncodedMessage(EncodedMessage.Type.STATE_DELTA, delta));
+    }
+
+    /**
+     * A frame waiting to be written on the channel
+     */
+    private static class OutgoingFrame {
+        private final ByteBuffer buffer;
+
+        /**
+         * Completed by the selector thread when the frame has been written
+         */
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        private OutgoingFrame(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+}
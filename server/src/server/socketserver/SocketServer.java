@@ -0,0 +1,142 @@
+package server.socketserver;
+
+import server.Lobby;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class implements a non blocking socket server.
+ * <p>
+ * A single thread multiplexes all the client sockets with a selector: it accepts new connections,
+ * reads incoming frames and flushes the outgoing ones.
+ * Requests are then executed by a small pool of worker threads, so that the number of threads
+ * doesn't grow with the number of connected clients.
+ */
+public class SocketServer implements Runnable {
+    private static final Logger LOGGER = Logger.getLogger("SocketServer");
+
+    private final int port;
+
+    /**
+     * The players and the games, shared with the other servers
+     */
+    private final Lobby lobby;
+
+    /**
+     * The threads executing the requests received from the clients
+     */
+    private final ExecutorService workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Connections with data waiting to be written.
+     * Other threads can't touch the selection keys safely, so they enqueue the connection here
+     * and wake up the selector.
+     */
+    private final Queue<SocketClientConnection> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    private Selector selector;
+
+    public SocketServer(int port, Lobby lobby) {
+        this.port = port;
+        this.lobby = lobby;
+    }
+
+    @Override
+    public void run() {
+        try (Selector sel = Selector.open();
+             ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            selector = sel;
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            LOGGER.info(String.format("Socket server listening on port %d", port));
+
+            while (!Thread.currentThread().isInterrupted()) {
+                selector.select();
+                registerPendingWrites();
+                handleSelectedKeys();
+            }
+        }
+        catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Socket server terminated", e);
+        }
+        finally {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Called by the connections (from any thread) when there's new data to send
+     *
+     * @param connection the connection with data to send
+     */
+    void requestWrite(SocketClientConnection connection) {
+        pendingWrites.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Called by the connections when a request has been received and has to be executed
+     *
+     * @param task the task
+     */
+    void execute(Runnable task) {
+        workers.execute(task);
+    }
+
+    private void registerPendingWrites() {
+        SocketClientConnection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            connection.enableWriteInterest();
+        }
+    }
+
+    private void handleSelectedKeys() {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+
+            if (!key.isValid()) continue;
+
+            if (key.isAcceptable()) {
+                accept((ServerSocketChannel) key.channel());
+                continue;
+            }
+
+            SocketClientConnection connection = (SocketClientConnection) key.attachment();
+            try {
+                if (key.isReadable()) connection.onReadable();
+                if (key.isValid() && key.isWritable()) connection.onWritable();
+            }
+            catch (IOException | CancelledKeyException e) {
+                LOGGER.log(Level.FINE, "Closing socket connection", e);
+                connection.close();
+            }
+        }
+    }
+
+    private void accept(ServerSocketChannel serverChannel) {
+        try {
+            SocketChannel channel = serverChannel.accept();
+            if (channel == null) return;
+
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new SocketClientConnection(lobby, this, channel, key));
+        }
+        catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to accept a socket connection", e);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package server.timer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class runs the timeouts of all the games from a single thread.
+ * <p>
+ * The timeouts are kept in a wheel of buckets, each covering one tick: scheduling and cancelling a timeout
+ * are O(1), and the thread only looks at the bucket of the current tick. A timeout further away
+ * than a turn of the wheel stays in its bucket for the remaining rounds.
+ * The timeouts fire up to one tick late, which is fine for timeouts measured in seconds.
+ * <p>
+ * The tasks are run by the timer thread, so they must be short.
+ */
+public class HashedWheelTimer {
+    private static final Logger LOGGER = Logger.getLogger("HashedWheelTimer");
+
+    private static final long DEFAULT_TICK_MILLIS = 100;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+
+    /**
+     * The timeouts scheduled and cancelled since the last tick, moved to (and removed from) the wheel
+     * by the timer thread, so that the buckets are never touched by other threads
+     */
+    private final Queue<Timeout> scheduledTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+
+    private final long startTime;
+
+    /**
+     * The number of ticks elapsed, used only by the timer thread
+     */
+    private long tick;
+
+    /**
+     * @param tickDuration the duration of a tick (the precision of the timeouts)
+     * @param unit the unit of the tick duration
+     * @param wheelSize the number of buckets, rounded up to a power of two
+     * @param name the name of the timer thread
+     */
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int wheelSize, String name) {
+        if (tickDuration <= 0) throw new IllegalArgumentException("The tick duration must be positive");
+        if (wheelSize <= 0 || wheelSize > 1 << 30) throw new IllegalArgumentException("Invalid wheel size " + wheelSize);
+
+        tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) size <<= 1;
+        wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        mask = size - 1;
+        startTime = System.nanoTime();
+
+        Thread thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return the timer shared by all the games, with ticks of 100 ms
+     */
+    public static HashedWheelTimer getShared() {
+        return SharedTimerHolder.TIMER;
+    }
+
+    private static class SharedTimerHolder {
+        private static final HashedWheelTimer TIMER = new HashedWheelTimer(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS,
+                DEFAULT_WHEEL_SIZE, "GameTimer");
+    }
+
+    /**
+     * Schedules a task
+     *
+     * @param task the task, run by the timer thread
+     * @param delay the time to wait before running the task
+     * @param unit the unit of the delay
+     * @return the timeout, that can be cancelled until the task runs
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + unit.toNanos(Math.max(delay, 0)));
+        scheduledTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /* ----------------------------------------------------------------
+     * Methods called by the timer thread
+     * ---------------------------------------------------------------- */
+
+    private void run() {
+        while (true) {
+            if (!waitForNextTick()) return;
+
+            removeCancelledTimeouts();
+            addScheduledTimeouts();
+            wheel[(int) (tick & mask)].expire(tick);
+            tick++;
+        }
+    }
+
+    /**
+     * @return false if the thread has been interrupted
+     */
+    private boolean waitForNextTick() {
+        long deadline = (tick + 1) * tickNanos;
+        while (true) {
+            long sleepNanos = deadline - (System.nanoTime() - startTime);
+            if (sleepNanos <= 0) return true;
+
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private void addScheduledTimeouts() {
+        Timeout timeout;
+        while ((timeout = scheduledTimeouts.poll()) != null) {
+            if (timeout.state.get() != Timeout.PENDING) continue;
+
+            // A timeout already expired fires at this tick
+            long expirationTick = Math.max(timeout.deadline / tickNanos, tick);
+            timeout.expirationTick = expirationTick;
+            wheel[(int) (expirationTick & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelledTimeouts() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) timeout.bucket.remove(timeout);
+        }
+    }
+
+    /**
+     * A task scheduled on the timer
+     */
+    public final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+
+        /**
+         * The time the task has to run at, in nanoseconds since the timer started
+         */
+        private final long deadline;
+
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        /* The position in the wheel, used only by the timer thread */
+        private long expirationTick;
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timeout. It does nothing if the task has already run (or is running).
+         *
+         * @return true if the timeout has been cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) return false;
+
+            cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(PENDING, EXPIRED)) return;
+
+            try {
+                task.run();
+            }
+            catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "A timeout task failed", e);
+            }
+        }
+    }
+
+    /**
+     * The timeouts expiring at the same tick of the wheel, in a doubly linked list
+     */
+    private static class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = timeout;
+                tail = timeout;
+            }
+            else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.previous != null) timeout.previous.next = timeout.next;
+            else head = timeout.next;
+
+            if (timeout.next != null) timeout.next.previous = timeout.previous;
+            else tail = timeout.previous;
+
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        /**
+         * Runs the timeouts expiring at this tick, leaving the ones of the next rounds
+         *
+         * @param tick the current tick
+         */
+        private void expire(long tick) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.expirationTick <= tick) {
+                    remove(timeout);
+                    timeout.expire();
+                }
+                timeout = next;
+            }
+        }
+    }
+}
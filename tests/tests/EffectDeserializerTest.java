@@ -8,12 +8,15 @@ import model.card.effects.EffectsContainer;
 import model.card.effects.ImmediateResourcesEffect;
 import model.card.effects.ObtainableResourceSetModifierEffect;
 import model.card.effects.interfaces.EffectInterface;
+import model.resource.ObtainableResource;
 import model.resource.ObtainableResourceSet;
 import model.resource.RequiredResourceSet;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import server.configloader.deserializers.*;
 
+import java.util.Collections;
+
 import static org.junit.Assert.assertTrue;
 
 
@@ -44,7 +47,7 @@ public class EffectDeserializerTest {
                 .create();
 
         ImmediateResourcesEffect effect = deserializeEffect(testCase);
-        assertTrue(effect.getObtainableResourceSet().equals(new ObtainableResourceSet(0, 0, 0, 0, 0, 0, 0, 5)));
+        assertTrue(effect.getObtainableResourceSet().equals(new ObtainableResourceSet(Collections.singletonMap(ObtainableResource.VICTORY_POINTS, 5))));
     }
 
 
@@ -0,0 +1,153 @@
+package tests;
+
+import gamecontroller.GameEventsInterface;
+import model.Game;
+import model.card.development.DevelopmentCard;
+import model.player.FamilyMemberColor;
+import model.player.Player;
+import model.resource.*;
+import network.codec.GameEventDecoder;
+import network.codec.GameEventEncoder;
+import network.codec.GameObjectIds;
+import org.junit.Before;
+import org.junit.Test;
+import server.configloader.ConfigLoader;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class GameEventCodecTest {
+    private Game game;
+
+    private GameEventEncoder encoder;
+
+    private GameEventDecoder decoder;
+
+    @Before
+    public void setupGame() throws IOException {
+        ConfigLoader configLoader = new ConfigLoader("configuration");
+        configLoader.loadConfiguration();
+        game = configLoader.getGame();
+        game.addPlayer(new Player("alice"));
+        game.addPlayer(new Player("bob"));
+
+        GameObjectIds ids = new GameObjectIds(game);
+        encoder = new GameEventEncoder(ids);
+        decoder = new GameEventDecoder(ids);
+    }
+
+    @Test
+    public void testEventsWithoutArguments() throws IOException {
+        assertEquals(Collections.singletonList("onPrepareNewRound"), decode(encoder.prepareNewRound()));
+        assertEquals(Collections.singletonList("onStartVaticanReport"), decode(encoder.startVaticanReport()));
+        assertEquals(Collections.singletonList("onGameEnd"), decode(encoder.gameEnd()));
+    }
+
+    @Test
+    public void testCardsDrawn() throws IOException {
+        List<UUID> territoryCards = cardIds(game.getAvailableTerritoryCards().subList(0, 4));
+        List<UUID> characterCards = cardIds(game.getAvailableCharacterCards().subList(4, 8));
+        List<UUID> buildingCards = cardIds(game.getAvailableBuildingCards().subList(0, 4));
+        List<UUID> ventureCards = Collections.emptyList();
+
+        assertEquals(Arrays.asList("onCardsDrawn", territoryCards, characterCards, buildingCards, ventureCards),
+                decode(encoder.cardsDrawn(territoryCards, characterCards, buildingCards, ventureCards)));
+    }
+
+    @Test
+    public void testDiceThrownAndServants() throws IOException {
+        assertEquals(Arrays.asList("onDiceThrown", 1, 6, 3), decode(encoder.diceThrown(1, 6, 3)));
+        assertEquals(Arrays.asList("onPlayerTurnStarted", "bob"), decode(encoder.playerTurnStarted("bob")));
+        assertEquals(Arrays.asList("onPlayerSpendsServants", "alice", 7), decode(encoder.playerSpendsServants("alice", 7)));
+        assertEquals(Arrays.asList("onPlayerSpendsServants", "alice", -2), decode(encoder.playerSpendsServants("alice", -2)));
+    }
+
+    @Test
+    public void testPlayerOccupiesActionSpace() throws IOException {
+        UUID actionSpaceId = game.getActionSpaces().get(game.getActionSpaces().size() - 1).getId();
+        List<ObtainableResourceSet> privileges = game.getAllowedCouncilPrivileges().subList(0, 2);
+
+        assertEquals(Arrays.asList("onPlayerOccupiesActionSpace", "alice", actionSpaceId, FamilyMemberColor.ORANGE, privileges),
+                decode(encoder.playerOccupiesActionSpace("alice", actionSpaceId, FamilyMemberColor.ORANGE, privileges)));
+        assertEquals(Arrays.asList("onPlayerOccupiesActionSpace", "bob", actionSpaceId, FamilyMemberColor.NEUTRAL, null),
+                decode(encoder.playerOccupiesActionSpace("bob", actionSpaceId, FamilyMemberColor.NEUTRAL, null)));
+    }
+
+    @Test
+    public void testPlayerOccupiesFloor() throws IOException {
+        UUID floorId = game.getFloors().get(5).getId();
+        RequiredResourceSet payment = new RequiredResourceSet(Collections.singletonMap(ObtainableResource.GOLD, 3));
+
+        assertEquals(Arrays.asList("onPlayerOccupiesFloor", "bob", floorId, FamilyMemberColor.BLACK, Collections.emptyList(), payment),
+                decode(encoder.playerOccupiesFloor("bob", floorId, FamilyMemberColor.BLACK, Collections.emptyList(), payment)));
+        assertEquals(Arrays.asList("onPlayerOccupiesFloor", "bob", floorId, FamilyMemberColor.WHITE, null, null),
+                decode(encoder.playerOccupiesFloor("bob", floorId, FamilyMemberColor.WHITE, null, null)));
+    }
+
+    @Test
+    public void testPlayerTakesDevelopmentCard() throws IOException {
+        UUID cardId = game.getAvailableVentureCards().get(game.getAvailableVentureCards().size() - 1).getId();
+        List<ObtainableResourceSet> privileges = Collections.singletonList(game.getAllowedCouncilPrivileges().get(0));
+
+        assertEquals(Arrays.asList("onPlayerTakesDevelopmentCard", "alice", cardId, privileges),
+                decode(encoder.playerTakesDevelopmentCard("alice", cardId, privileges)));
+    }
+
+    @Test
+    public void testPlayerDecidesExcommunication() throws IOException {
+        assertEquals(Arrays.asList("onPlayerDecidesExcommunication", "alice", true), decode(encoder.playerDecidesExcommunication("alice", true)));
+        assertEquals(Arrays.asList("onPlayerDecidesExcommunication", "bob", false), decode(encoder.playerDecidesExcommunication("bob", false)));
+        assertEquals(Arrays.asList("onPlayerDecidesExcommunication", "bob", null), decode(encoder.playerDecidesExcommunication("bob", null)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnsupportedVersion() throws IOException {
+        byte[] event = encoder.diceThrown(1, 2, 3);
+        event[0] = (byte) (GameEventEncoder.VERSION + 1);
+        decode(event);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedEvent() throws IOException {
+        byte[] event = encoder.playerTurnStarted("alice");
+        decode(Arrays.copyOf(event, event.length - 1));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidId() throws IOException {
+        byte[] event = encoder.playerTurnStarted("alice");
+        event[event.length - 1] = 100;
+        decode(event);
+    }
+
+    /**
+     * Decodes an event
+     *
+     * @param event the encoded event
+     * @return the name of the method of the listener that has been called, followed by its arguments
+     * @throws IOException if the event is not valid
+     */
+    private List<Object> decode(byte[] event) throws IOException {
+        List<Object> call = new ArrayList<>();
+        GameEventsInterface listener = (GameEventsInterface) Proxy.newProxyInstance(
+                GameEventsInterface.class.getClassLoader(),
+                new Class<?>[]{GameEventsInterface.class},
+                (proxy, method, args) -> {
+                    call.add(method.getName());
+                    if (args != null) call.addAll(Arrays.asList(args));
+                    return null;
+                });
+
+        decoder.decode(event, listener);
+        return call;
+    }
+
+    private static List<UUID> cardIds(List<? extends DevelopmentCard> cards) {
+        return cards.stream().map(DevelopmentCard::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,476 @@
+package tests;
+
+import gamecontroller.GameController;
+import gamecontroller.GameState;
+import gamecontroller.utils.GameRandom;
+import model.Game;
+import model.board.actionspace.Floor;
+import model.card.leader.LeaderCard;
+import model.player.PersonalBonusTile;
+import model.player.Player;
+import network.codec.GameObjectIds;
+import network.sync.GameConfiguration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import server.ClientConnection;
+import server.GameFlow;
+import server.Lobby;
+import server.ServerGameController;
+import server.configloader.GameCatalog;
+import server.journal.GameJournal;
+import server.journal.GameJournalStore;
+import server.journal.GameSnapshot;
+import server.journal.JournalCommand;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+
+public class GameJournalTest {
+    /**
+     * The size of the header of the journal and of each command
+     */
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    /**
+     * How long the tests wait for something that should happen
+     */
+    private static final long WAIT_SECONDS = 5;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private GameJournalStore store;
+
+    @Before
+    public void setupStore() throws IOException {
+        directory = folder.getRoot().toPath();
+        store = new GameJournalStore(directory);
+    }
+
+    @Test
+    public void testCommandsAreRecovered() throws Exception {
+        GameJournal journal = store.create();
+        List<byte[]> commands = commands(20, 30);
+        commands.forEach(journal::append);
+        store.flush();
+
+        GameJournal reopened = reopen(journal);
+        assertEquals(journal.getGameId(), reopened.getGameId());
+        assertCommands(commands, reopened.getRecoveredCommands());
+    }
+
+    @Test
+    public void testJournalGrows() throws Exception {
+        GameJournal journal = store.create();
+        // Many times the initial mapped region
+        List<byte[]> commands = commands(100, 4000);
+        commands.forEach(journal::append);
+        store.flush();
+
+        assertCommands(commands, reopen(journal).getRecoveredCommands());
+    }
+
+    @Test
+    public void testCommandCutByCrashIsDiscarded() throws Exception {
+        GameJournal journal = store.create();
+        List<byte[]> commands = commands(10, 50);
+        commands.forEach(journal::append);
+        store.flush();
+
+        // The last command was being written: only the first half of its bytes made it to the disk
+        int lastCommand = commandPosition(commands, commands.size() - 1);
+        zero(journal, lastCommand + RECORD_HEADER_SIZE + commands.get(9).length / 2, commands.get(9).length / 2);
+
+        GameJournal reopened = reopen(journal);
+        assertCommands(commands.subList(0, 9), reopened.getRecoveredCommands());
+
+        // The next commands take the place of the discarded one, and nothing of it is left behind them
+        List<byte[]> moreCommands = commands(3, 10);
+        moreCommands.forEach(reopened::append);
+        store.flush();
+
+        List<byte[]> expected = new ArrayList<>(commands.subList(0, 9));
+        expected.addAll(moreCommands);
+        assertCommands(expected, reopen(reopened).getRecoveredCommands());
+    }
+
+    @Test
+    public void testCommandWithOnlyItsHeaderIsDiscarded() throws Exception {
+        GameJournal journal = store.create();
+        List<byte[]> commands = commands(5, 50);
+        commands.forEach(journal::append);
+        store.flush();
+
+        // The length of the last command is larger than what's left of the file
+        int lastCommand = commandPosition(commands, commands.size() - 1);
+        write(journal, lastCommand, ByteBuffer.allocate(4).putInt(Integer.MAX_VALUE));
+        assertCommands(commands.subList(0, 4), reopen(journal).getRecoveredCommands());
+
+        // Or its bytes are all missing
+        write(journal, lastCommand, ByteBuffer.allocate(4).putInt(50));
+        zero(journal, lastCommand + RECORD_HEADER_SIZE, 50);
+        assertCommands(commands.subList(0, 4), reopen(journal).getRecoveredCommands());
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAJournal() throws IOException {
+        UUID gameId = UUID.randomUUID();
+        Files.write(store.getJournalFile(gameId), "not a journal".getBytes(StandardCharsets.UTF_8));
+        store.open(gameId);
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        GameJournal journal = store.create();
+        List<byte[]> commands = commands(4, 20);
+        commands.forEach(journal::append);
+        journal.snapshot(new GameSnapshot(new GameController(), null, 7, 42, 43));
+        journal.append(commands(1, 20).get(0));
+        store.flush();
+
+        GameSnapshot snapshot = reopen(journal).readSnapshot();
+        assertNotNull(snapshot);
+        assertEquals(4, snapshot.getSequence());
+        assertEquals(7, snapshot.getStateSequence());
+        assertEquals(42, snapshot.getSeed());
+        assertEquals(43, snapshot.getReseed());
+    }
+
+    @Test
+    public void testSnapshotAheadOfJournalIsIgnored() throws Exception {
+        GameJournal journal = store.create();
+        List<byte[]> commands = commands(4, 20);
+        commands.forEach(journal::append);
+        journal.snapshot(new GameSnapshot(new GameController(), null, 0, 42, 42));
+        store.flush();
+
+        // The last command before the snapshot has been lost
+        zero(journal, commandPosition(commands, 3) + RECORD_HEADER_SIZE, commands.get(3).length);
+
+        GameJournal reopened = reopen(journal);
+        assertEquals(3, reopened.getRecoveredCommands().size());
+        assertNull(reopened.readSnapshot());
+    }
+
+    @Test
+    public void testDelete() throws Exception {
+        GameJournal journal = store.create();
+        journal.append(commands(1, 10).get(0));
+        journal.snapshot(new GameSnapshot(new GameController(), null, 0, 42, 42));
+        journal.delete();
+        store.flush();
+
+        try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testGameIsRecoveredWithoutTheCutCommand() throws Exception {
+        GameJournal journal = store.create();
+        List<byte[]> commands = Arrays.asList(JournalCommand.gameStarted(42, Arrays.asList("alice", "bob"), Collections.emptySet()),
+                                              JournalCommand.endTurn("alice"));
+        commands.forEach(journal::append);
+        store.flush();
+
+        // The second command was not allowed anyway (the players are drafting their bonus tiles)
+        try {
+            ServerGameController.recover(reopen(journal));
+            fail("The journal does not match the game");
+        }
+        catch (IOException e) {
+            // Expected
+        }
+
+        // Once the command is cut by a crash only the start of the game is left
+        zero(journal, commandPosition(commands, 1) + RECORD_HEADER_SIZE, commands.get(1).length);
+        ServerGameController game = ServerGameController.recover(reopen(journal));
+
+        assertEquals(42, game.getSeed());
+        List<String> usernames = new ArrayList<>(game.getUsernames());
+        usernames.sort(String::compareTo);
+        assertEquals(Arrays.asList("alice", "bob"), usernames);
+    }
+
+    @Test
+    public void testBotSeatsAreRecovered() throws Exception {
+        GameJournal journal = store.create();
+        journal.append(JournalCommand.gameStarted(42, Arrays.asList("alice", "bob", "Bot 1"), Collections.singleton("Bot 1")));
+        journal.append(JournalCommand.botTookSeat("bob"));
+        store.flush();
+
+        ServerGameController game = ServerGameController.recover(reopen(journal));
+        assertFalse(game.isBotSeat("alice"));
+        assertTrue(game.isBotSeat("bob"));
+        assertTrue(game.isBotSeat("Bot 1"));
+
+        // Only the player whose seat is still free goes back to the game
+        Lobby lobby = new Lobby();
+        lobby.addRecoveredGame(game);
+        assertSame(game, lobby.takeRecoveredGame("alice"));
+        assertNull(lobby.takeRecoveredGame("bob"));
+    }
+
+    @Test
+    public void testReattachedPlayerGetsTheCurrentGame() throws Exception {
+        GameJournal journal = store.create();
+        List<String> usernames = Arrays.asList("alice", "bob");
+        journal.append(JournalCommand.gameStarted(42, usernames, Collections.emptySet()));
+
+        // The journal is written by the same flow as the one of the server, with the same seed
+        GameCatalog catalog = GameCatalog.getInstance();
+        GameController gameController = new GameController();
+        gameController.setGame(catalog.newGame());
+        Game game = gameController.getGame();
+        GameRandom random = new GameRandom(42);
+        JournalingListener listener = new JournalingListener(journal, catalog, game, random);
+        GameFlow flow = new GameFlow(gameController, random, listener);
+
+        flow.start(usernames);
+        while (gameController.getGameState() == GameState.DRAFTING_BONUS_TILES) {
+            flow.choosePersonalBonusTile(game.getCurrentPlayer().getUsername(), game.getAvailablePersonalBonusTiles().get(0).getId());
+        }
+        while (gameController.getGameState() == GameState.DRAFTING_LEADER_CARDS) {
+            for (Player player : new ArrayList<>(flow.getPlayersThatHaveToDraft())) {
+                flow.chooseLeaderCard(player.getUsername(), flow.getLeaderCardsToChooseFrom(player).get(0).getId());
+            }
+        }
+
+        // Halfway through the first round
+        for (int i = 0; i < 3; i++) {
+            flow.endTurn(game.getCurrentPlayer().getUsername());
+        }
+        store.flush();
+
+        ServerGameController recovered = ServerGameController.recover(reopen(journal));
+        String currentPlayer = game.getCurrentPlayer().getUsername();
+        ReattachedConnection connection = new ReattachedConnection(currentPlayer);
+        recovered.submit(() -> recovered.reattachPlayer(connection)).get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        // The player gets the game as it is now, and goes on with his turn
+        GameConfiguration configuration = GameConfiguration.deserialize(connection.configuration.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        GameController clientController = configuration.getGameController();
+        Game clientGame = clientController.getGame();
+        assertEquals(GameState.PLAYER_TURN, clientController.getGameState());
+        assertEquals(currentPlayer, clientGame.getCurrentPlayer().getUsername());
+        assertEquals(1, clientGame.getCurrentRound());
+        assertEquals(gameController.getStateHash(), clientController.getStateHash());
+        for (int i = 0; i < game.getFloors().size(); i++) {
+            assertEquals(game.getFloors().get(i).getCard().getId(), clientGame.getFloors().get(i).getCard().getId());
+        }
+
+        // The ids are the ones assigned when the game configuration was first sent
+        for (Floor floor : clientGame.getFloors()) {
+            UUID cardId = floor.getCard().getId();
+            assertEquals(listener.startIds.getCardId(cardId), configuration.getIds().getCardId(cardId));
+        }
+    }
+
+    /* ----------------------------------------------------------------
+     * Helpers
+     * ---------------------------------------------------------------- */
+
+    private GameJournal reopen(GameJournal journal) throws IOException {
+        return store.open(journal.getGameId());
+    }
+
+    /**
+     * @return commands of different lengths and contents, from 1 to maxLength bytes
+     */
+    private static List<byte[]> commands(int count, int maxLength) {
+        List<byte[]> commands = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            byte[] command = new byte[1 + (i * 7919) % maxLength];
+            for (int j = 0; j < command.length; j++) {
+                command[j] = (byte) (i * 31 + j);
+            }
+            commands.add(command);
+        }
+        return commands;
+    }
+
+    /**
+     * @return the position of a command in the journal file
+     */
+    private static int commandPosition(List<byte[]> commands, int index) {
+        int position = HEADER_SIZE;
+        for (int i = 0; i < index; i++) {
+            position += RECORD_HEADER_SIZE + commands.get(i).length;
+        }
+        return position;
+    }
+
+    private void zero(GameJournal journal, int position, int length) throws IOException {
+        write(journal, position, ByteBuffer.allocate(length));
+    }
+
+    private void write(GameJournal journal, int position, ByteBuffer data) throws IOException {
+        data.rewind();
+        try (FileChannel channel = FileChannel.open(store.getJournalFile(journal.getGameId()), StandardOpenOption.WRITE)) {
+            channel.write(data, position);
+        }
+    }
+
+    private static void assertCommands(List<byte[]> expected, List<byte[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals("Command " + i, expected.get(i), actual.get(i));
+        }
+    }
+
+    /**
+     * Journals the choices made through a game flow, like the server does
+     */
+    private static class JournalingListener implements GameFlow.Listener {
+        private final GameJournal journal;
+        private final GameCatalog catalog;
+        private final Game game;
+        private final GameRandom random;
+
+        /**
+         * The ids assigned when the drafts are over, when the server sends the game configuration
+         */
+        private GameObjectIds startIds;
+
+        JournalingListener(GameJournal journal, GameCatalog catalog, Game game, GameRandom random) {
+            this.journal = journal;
+            this.catalog = catalog;
+            this.game = game;
+            this.random = random;
+        }
+
+        @Override
+        public void onPersonalBonusTileDraftTurn(Player player) {
+        }
+
+        @Override
+        public void onPersonalBonusTileChosen(Player player, UUID personalBonusTileId) {
+            List<UUID> ids = new ArrayList<>();
+            catalog.getPersonalBonusTiles().forEach(bonusTile -> ids.add(bonusTile.getId()));
+            journal.append(JournalCommand.choosePersonalBonusTile(player.getUsername(), ids.indexOf(personalBonusTileId)));
+        }
+
+        @Override
+        public void onLeaderCardsDraftTurn() {
+        }
+
+        @Override
+        public void onLeaderCardChosen(Player player, LeaderCard leaderCard) {
+            List<UUID> ids = new ArrayList<>();
+            catalog.getLeaderCards().forEach(card -> ids.add(card.getId()));
+            journal.append(JournalCommand.chooseLeaderCard(player.getUsername(), ids.indexOf(leaderCard.getId())));
+        }
+
+        @Override
+        public void onDraftsConcluded() {
+            startIds = new GameObjectIds(game);
+        }
+
+        @Override
+        public void onNewRound() {
+        }
+
+        @Override
+        public void onDevelopmentCardsDrawn(List<UUID> territoryCardsIds, List<UUID> characterCardsIds, List<UUID> buildingCardsIds, List<UUID> ventureCardsIds) {
+        }
+
+        @Override
+        public void onDiceThrown(int blackDie, int whiteDie, int orangeDie) {
+        }
+
+        @Override
+        public void onPlayerTurnStarted(Player player) {
+        }
+
+        @Override
+        public void onRoundStarted() {
+            // The server reseeds its random decisions when it saves the snapshot of a round
+            random.reseed();
+        }
+
+        @Override
+        public void onTurnEnded(Player player) {
+            journal.append(JournalCommand.endTurn(player.getUsername()));
+        }
+
+        @Override
+        public void onVaticanReportStarted() {
+        }
+
+        @Override
+        public void onExcommunicationDecided(Player player, boolean beExcommunicated) {
+            journal.append(JournalCommand.decideExcommunication(player.getUsername(), beExcommunicated));
+        }
+
+        @Override
+        public void onGameEnded() {
+        }
+    }
+
+    /**
+     * The connection of a player coming back to a recovered game, keeping the game configuration it gets
+     */
+    private static class ReattachedConnection extends ClientConnection {
+        private final CompletableFuture<byte[]> configuration = new CompletableFuture<>();
+
+        ReattachedConnection(String username) {
+            super(username);
+        }
+
+        @Override
+        public void pingClient() {
+        }
+
+        @Override
+        public void abortGame(String errorMessage) {
+        }
+
+        @Override
+        public void askToChoosePersonalBonusTile(List<PersonalBonusTile> personalBonusTiles) {
+        }
+
+        @Override
+        public void askToChooseLeaderCard(List<LeaderCard> leaderCards) {
+        }
+
+        @Override
+        public void askWhichImmediateResourcesToTake(UUID cardId) {
+        }
+
+        @Override
+        public void showWaitingMessage(String message) {
+        }
+
+        @Override
+        public void setGameConfiguration(byte[] configuration) {
+            this.configuration.complete(configuration);
+        }
+
+        @Override
+        public void onGameEvent(byte[] event) {
+        }
+
+        @Override
+        public void onGameStateDelta(byte[] delta) {
+        }
+    }
+}
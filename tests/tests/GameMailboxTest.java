@@ -0,0 +1,133 @@
+package tests;
+
+import gamecontroller.exceptions.ActionNotAllowedException;
+import org.junit.Test;
+import server.GameMailbox;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class GameMailboxTest {
+    /**
+     * How long the tests wait for something that should happen
+     */
+    private static final long WAIT_SECONDS = 5;
+
+    @Test
+    public void testTasksRunInOrderOneAtATime() throws Exception {
+        GameMailbox mailbox = new GameMailbox();
+        int threads = 4;
+        int tasksPerThread = 500;
+
+        // Each thread queues its own tasks in order
+        List<List<Integer>> runs = new ArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        List<CompletableFuture<Void>> lastTasks = new ArrayList<>();
+        ExecutorService submitters = Executors.newFixedThreadPool(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            List<Integer> run = new ArrayList<>();
+            runs.add(run);
+            lastTasks.add(CompletableFuture.supplyAsync(() -> {
+                CompletableFuture<Void> last = null;
+                for (int i = 0; i < tasksPerThread; i++) {
+                    int task = i;
+                    last = mailbox.submit(() -> {
+                        if (running.incrementAndGet() > 1) overlaps.incrementAndGet();
+                        run.add(task);
+                        running.decrementAndGet();
+                    });
+                }
+                return last;
+            }, submitters).thenCompose(last -> last));
+        }
+
+        CompletableFuture.allOf(lastTasks.toArray(new CompletableFuture[0])).get(WAIT_SECONDS, TimeUnit.SECONDS);
+        submitters.shutdown();
+
+        assertEquals(0, overlaps.get());
+        for (List<Integer> run : runs) {
+            assertEquals(tasksPerThread, run.size());
+            for (int i = 0; i < tasksPerThread; i++) {
+                assertEquals(i, (int) run.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testFailedCommandCompletesExceptionally() throws Exception {
+        GameMailbox mailbox = new GameMailbox();
+
+        CompletableFuture<Void> refused = mailbox.submit(() -> {
+            throw new ActionNotAllowedException("Not your turn");
+        });
+        CompletableFuture<Void> failed = mailbox.submit(() -> {
+            throw new IllegalStateException("Bug in the game");
+        });
+        CountDownLatch posted = new CountDownLatch(1);
+        mailbox.post(() -> {
+            throw new IllegalStateException("Bug in a timeout");
+        });
+        mailbox.post(posted::countDown);
+        CompletableFuture<Void> next = mailbox.submit(() -> { });
+
+        assertCause(ActionNotAllowedException.class, refused);
+        assertCause(IllegalStateException.class, failed);
+
+        // The mailbox goes on after the failures
+        assertTrue(posted.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        next.get(WAIT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testMailboxGivesBackItsThreadAfterABatch() {
+        // The drains are run by hand, one at a time
+        Queue<Runnable> drains = new ArrayDeque<>();
+        GameMailbox mailbox = new GameMailbox(drains::add);
+
+        AtomicInteger executed = new AtomicInteger();
+        int tasks = 200;
+        for (int i = 0; i < tasks; i++) {
+            mailbox.post(executed::incrementAndGet);
+        }
+        assertEquals(1, drains.size());
+
+        // A drain runs a batch and schedules another drain for the tasks left
+        int batches = 0;
+        int previouslyExecuted = 0;
+        while (!drains.isEmpty()) {
+            drains.poll().run();
+            batches++;
+
+            assertTrue(executed.get() > previouslyExecuted);
+            assertTrue(drains.size() <= 1);
+            assertEquals(executed.get() < tasks, drains.size() == 1);
+            previouslyExecuted = executed.get();
+        }
+        assertEquals(tasks, executed.get());
+        assertTrue(batches > 1);
+
+        // The next task schedules a drain again
+        mailbox.post(executed::incrementAndGet);
+        assertEquals(1, drains.size());
+        drains.poll().run();
+        assertEquals(tasks + 1, executed.get());
+    }
+
+    private static void assertCause(Class<? extends Throwable> expected, CompletableFuture<Void> result) throws Exception {
+        try {
+            result.get(WAIT_SECONDS, TimeUnit.SECONDS);
+            fail("The command should have failed");
+        }
+        catch (ExecutionException e) {
+            assertTrue(expected.isInstance(e.getCause()));
+        }
+    }
+}
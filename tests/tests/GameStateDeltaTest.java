@@ -0,0 +1,265 @@
+package tests;
+
+import gamecontroller.GameController;
+import model.Game;
+import model.board.actionspace.ActionSpace;
+import model.board.actionspace.Floor;
+import model.card.development.DevelopmentCard;
+import model.player.FamilyMemberColor;
+import model.player.Player;
+import model.player.PlayerColor;
+import model.resource.ObtainableResource;
+import network.codec.GameObjectIds;
+import network.sync.GameConfiguration;
+import network.sync.GameStateDelta;
+import network.sync.GameStateSnapshot;
+import network.sync.GameStateSynchronizer;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import server.configloader.ConfigLoader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class GameStateDeltaTest {
+    /**
+     * The configuration of the game and the ids of the server, built before the first cards are drawn
+     */
+    private static byte[] configuration;
+    private static GameObjectIds serverIds;
+
+    /**
+     * The configuration sent again in the middle of the game, and the sequence number of the last delta it covers
+     */
+    private static byte[] resyncConfiguration;
+    private static int resyncSequence;
+
+    /**
+     * The deltas published during the game, and the state of the game when each of them was published
+     */
+    private static final List<GameStateDelta> deltas = new ArrayList<>();
+    private static final List<GameStateSnapshot> snapshots = new ArrayList<>();
+
+    private Game clientGame;
+    private GameObjectIds clientIds;
+    private AtomicInteger resyncRequests;
+    private GameStateSynchronizer synchronizer;
+
+    @BeforeClass
+    public static void playGame() throws IOException {
+        ConfigLoader configLoader = new ConfigLoader("configuration");
+        configLoader.loadConfiguration();
+        Game game = configLoader.getGame();
+        List<String> usernames = Arrays.asList("alice", "bob", "carol");
+        for (int i = 0; i < usernames.size(); i++) {
+            Player player = new Player(usernames.get(i));
+            player.setColor(PlayerColor.values()[i]);
+            game.addPlayer(player);
+        }
+
+        GameController gameController = new GameController();
+        gameController.setGame(game);
+
+        // Like the server, the configuration is sent before the first cards are drawn
+        serverIds = new GameObjectIds(game);
+        configuration = GameConfiguration.serialize(gameController, serverIds, 0);
+
+        List<Player> players = game.getPlayers();
+        List<ActionSpace> actionSpaces = game.getActionSpaces();
+        List<Floor> floors = game.getFloors();
+        List<List<? extends DevelopmentCard>> decks = Arrays.asList(game.getAvailableTerritoryCards(),
+                game.getAvailableBuildingCards(), game.getAvailableCharacterCards(), game.getAvailableVentureCards());
+        ObtainableResource[] resources = ObtainableResource.values();
+        FamilyMemberColor[] colors = FamilyMemberColor.values();
+
+        // Changes every part of the state the deltas carry, in a random order, publishing after each change
+        Random random = new Random(42);
+        publish(game);
+        for (int change = 1; change <= 200; change++) {
+            Player player = players.get(random.nextInt(players.size()));
+            FamilyMemberColor color = colors[random.nextInt(colors.length)];
+            switch (random.nextInt(5)) {
+                case 0:
+                    player.getResources().addResource(resources[random.nextInt(resources.length)], random.nextInt(7) - 2);
+                    break;
+                case 1:
+                    actionSpaces.get(random.nextInt(actionSpaces.size())).addOccupant(player, color);
+                    break;
+                case 2:
+                    floors.get(random.nextInt(floors.size())).addOccupant(player, color);
+                    break;
+                case 3: {
+                    // The floors are listed tower by tower, four floors for each tower
+                    int floor = random.nextInt(floors.size());
+                    List<? extends DevelopmentCard> deck = decks.get(floor / 4);
+                    floors.get(floor).setCard(random.nextInt(4) == 0 ? null : deck.get(random.nextInt(deck.size())));
+                    break;
+                }
+                default:
+                    game.setBlackDie(1 + random.nextInt(6));
+                    game.setWhiteDie(1 + random.nextInt(6));
+                    game.setOrangeDie(1 + random.nextInt(6));
+            }
+
+            // A new round clears the board
+            if (change % 50 == 0) {
+                actionSpaces.forEach(ActionSpace::removeAllOccupants);
+                floors.forEach(ActionSpace::removeAllOccupants);
+            }
+            publish(game);
+
+            if (change == 100) {
+                resyncSequence = deltas.size();
+                resyncConfiguration = GameConfiguration.serialize(gameController, serverIds, resyncSequence);
+            }
+        }
+    }
+
+    /**
+     * Publishes the changes since the last delta, like the server does
+     */
+    private static void publish(Game game) {
+        GameStateSnapshot previous = snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+        GameStateSnapshot snapshot = GameStateSnapshot.capture(game, serverIds);
+        GameStateDelta delta = snapshot.diff(previous, deltas.size() + 1);
+        if (delta.isEmpty()) return;
+
+        deltas.add(delta);
+        snapshots.add(snapshot);
+    }
+
+    @Before
+    public void setupClient() throws IOException {
+        resyncRequests = new AtomicInteger();
+        receiveConfiguration(configuration);
+    }
+
+    /**
+     * Replaces the game of the client with a configuration, like the clients do
+     */
+    private void receiveConfiguration(byte[] configuration) throws IOException {
+        GameConfiguration gameConfiguration = GameConfiguration.deserialize(configuration);
+        clientGame = gameConfiguration.getGame();
+        clientIds = gameConfiguration.getIds();
+        synchronizer = new GameStateSynchronizer(gameConfiguration, resyncRequests::incrementAndGet);
+    }
+
+    @Test
+    public void testGamePublishesDeltas() {
+        assertTrue(deltas.size() > 50);
+        assertTrue(deltas.get(0).isFull());
+        assertFalse(deltas.get(1).isFull());
+    }
+
+    @Test
+    public void testEncodingRoundTrip() throws IOException {
+        for (GameStateDelta delta : deltas) {
+            byte[] encoded = delta.encode();
+            GameStateDelta decoded = GameStateDelta.decode(encoded);
+
+            assertEquals(delta.getSequence(), decoded.getSequence());
+            assertEquals(delta.isFull(), decoded.isFull());
+            assertArrayEquals(encoded, decoded.encode());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedDelta() throws IOException {
+        byte[] encoded = deltas.get(0).encode();
+        GameStateDelta.decode(Arrays.copyOf(encoded, encoded.length - 1));
+    }
+
+    @Test
+    public void testClientFollowsServer() throws IOException {
+        for (int i = 0; i < deltas.size(); i++) {
+            synchronizer.onDelta(deltas.get(i).encode());
+            assertSameState(snapshots.get(i));
+        }
+
+        assertEquals(deltas.size(), synchronizer.getLastSequence());
+        assertEquals(0, resyncRequests.get());
+    }
+
+    @Test
+    public void testMissedDeltaRequestsResync() throws IOException {
+        int missed = resyncSequence / 2;
+        for (int i = 0; i < missed; i++) {
+            synchronizer.onDelta(deltas.get(i).encode());
+        }
+
+        // The next partial deltas are applied anyway, but only one resync is requested
+        for (int i = missed + 1; i < resyncSequence; i++) {
+            synchronizer.onDelta(deltas.get(i).encode());
+        }
+        assertEquals(1, resyncRequests.get());
+        assertEquals(resyncSequence, synchronizer.getLastSequence());
+
+        // The configuration sent by the server covers the deltas up to the last one it has published
+        receiveConfiguration(resyncConfiguration);
+        assertSameState(snapshots.get(resyncSequence - 1));
+
+        for (int i = resyncSequence; i < deltas.size(); i++) {
+            synchronizer.onDelta(deltas.get(i).encode());
+        }
+        assertSameState(snapshots.get(snapshots.size() - 1));
+        assertEquals(1, resyncRequests.get());
+    }
+
+    @Test
+    public void testConfigurationKeepsTheIdsOfTheStart() throws IOException {
+        receiveConfiguration(resyncConfiguration);
+        assertEquals(resyncSequence, synchronizer.getLastSequence());
+
+        for (int i = 0; i < serverIds.getPlayersCount(); i++) {
+            assertEquals(serverIds.getUsername(i), clientIds.getUsername(i));
+            assertSame(clientGame.getPlayers().get(i), clientIds.getLocalPlayer(i));
+        }
+        for (int i = 0; i < serverIds.getFloorsCount(); i++) {
+            assertEquals(serverIds.getFloor(i), clientIds.getFloor(i));
+            assertSame(clientGame.getFloors().get(i), clientIds.getLocalFloor(i));
+        }
+
+        // The deltas the configuration covers are ignored, the next ones are applied
+        for (int i = 0; i < deltas.size(); i++) {
+            synchronizer.onDelta(deltas.get(i).encode());
+        }
+        assertSameState(snapshots.get(snapshots.size() - 1));
+        assertEquals(0, resyncRequests.get());
+    }
+
+    @Test
+    public void testDeltasCoveredByFullDeltaAreIgnored() throws IOException {
+        int full = deltas.size() / 2;
+        synchronizer.onDelta(snapshots.get(full).diff(null, full + 1).encode());
+        assertEquals(full + 1, synchronizer.getLastSequence());
+
+        // Late partial deltas must not take the client back (the first delta is the initial full state)
+        for (int i = full; i >= 1; i--) {
+            synchronizer.onDelta(deltas.get(i).encode());
+        }
+        assertSameState(snapshots.get(full));
+        assertEquals(full + 1, synchronizer.getLastSequence());
+        assertEquals(0, resyncRequests.get());
+    }
+
+    @Test
+    public void testFullDeltaReplacesState() throws IOException {
+        // Applying the full state twice is the same as applying it once
+        GameStateDelta last = snapshots.get(snapshots.size() - 1).diff(null, deltas.size());
+        synchronizer.onDelta(last.encode());
+        synchronizer.onDelta(last.encode());
+        assertSameState(snapshots.get(snapshots.size() - 1));
+    }
+
+    private void assertSameState(GameStateSnapshot expected) {
+        assertTrue(GameStateSnapshot.capture(clientGame, clientIds).diff(expected, 0).isEmpty());
+    }
+}
@@ -0,0 +1,175 @@
+package tests;
+
+import org.junit.Before;
+import org.junit.Test;
+import server.timer.HashedWheelTimer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+
+public class HashedWheelTimerTest {
+    private static final long TICK_MILLIS = 10;
+
+    /**
+     * A turn of the wheel lasts 80 ms
+     */
+    private static final int WHEEL_SIZE = 8;
+
+    /**
+     * How long the tests wait for something that should happen
+     */
+    private static final long WAIT_SECONDS = 5;
+
+    private HashedWheelTimer timer;
+
+    @Before
+    public void setupTimer() {
+        timer = new HashedWheelTimer(TICK_MILLIS, TimeUnit.MILLISECONDS, WHEEL_SIZE, "TestTimer");
+    }
+
+    @Test
+    public void testTimeoutExpiresAfterItsDelay() throws InterruptedException {
+        assertExpiresAfter(50);
+    }
+
+    @Test
+    public void testTimeoutLongerThanAWheelTurn() throws InterruptedException {
+        // It's in the bucket of its tick since the first turn, it must be left there for the next ones
+        assertExpiresAfter(TICK_MILLIS * WHEEL_SIZE * 3 + 25);
+    }
+
+    @Test
+    public void testTimeoutWithoutDelay() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(2);
+        timer.newTimeout(expired::countDown, 0, TimeUnit.MILLISECONDS);
+        timer.newTimeout(expired::countDown, -1, TimeUnit.MILLISECONDS);
+        assertTrue(expired.await(WAIT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancelledTimeoutDoesNotExpire() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        HashedWheelTimer.Timeout cancelledBeforeTick = timer.newTimeout(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+        assertTrue(cancelledBeforeTick.cancel());
+
+        // Cancelled once it's in the wheel
+        HashedWheelTimer.Timeout cancelledInWheel = timer.newTimeout(runs::incrementAndGet, 100, TimeUnit.MILLISECONDS);
+        Thread.sleep(40);
+        assertTrue(cancelledInWheel.cancel());
+        assertFalse(cancelledInWheel.cancel());
+
+        // A timeout expiring after them tells when they would have expired
+        CountDownLatch expired = new CountDownLatch(1);
+        timer.newTimeout(expired::countDown, 150, TimeUnit.MILLISECONDS);
+        assertTrue(expired.await(WAIT_SECONDS, TimeUnit.SECONDS));
+
+        assertEquals(0, runs.get());
+        assertTrue(cancelledBeforeTick.isCancelled());
+        assertTrue(cancelledInWheel.isCancelled());
+        assertFalse(cancelledInWheel.isExpired());
+    }
+
+    @Test
+    public void testExpiredTimeoutCannotBeCancelled() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(1);
+        HashedWheelTimer.Timeout timeout = timer.newTimeout(expired::countDown, 20, TimeUnit.MILLISECONDS);
+        assertTrue(expired.await(WAIT_SECONDS, TimeUnit.SECONDS));
+
+        assertFalse(timeout.cancel());
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.isCancelled());
+    }
+
+    @Test
+    public void testCancellingOneTimeoutKeepsTheOthersOfItsBucket() throws InterruptedException {
+        List<Integer> expiredTimeouts = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch expired = new CountDownLatch(4);
+        List<HashedWheelTimer.Timeout> timeouts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int id = i;
+            timeouts.add(timer.newTimeout(() -> {
+                expiredTimeouts.add(id);
+                expired.countDown();
+            }, 60, TimeUnit.MILLISECONDS));
+        }
+        Thread.sleep(20);
+
+        // Remove one from the middle of the list of the bucket
+        timeouts.get(2).cancel();
+        assertTrue(expired.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        Thread.sleep(3 * TICK_MILLIS);
+
+        List<Integer> sortedTimeouts = new ArrayList<>(expiredTimeouts);
+        Collections.sort(sortedTimeouts);
+        assertEquals(Arrays.asList(0, 1, 3, 4), sortedTimeouts);
+    }
+
+    @Test
+    public void testTimeoutsExpireInTheOrderOfTheirTicks() throws InterruptedException {
+        List<Long> expiredTimeouts = Collections.synchronizedList(new ArrayList<>());
+        long[] delays = {170, 20, 90, 250, 50, 130};
+        CountDownLatch expired = new CountDownLatch(delays.length);
+        for (long delay : delays) {
+            timer.newTimeout(() -> {
+                expiredTimeouts.add(delay);
+                expired.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        assertTrue(expired.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        List<Long> sortedTimeouts = new ArrayList<>(expiredTimeouts);
+        Collections.sort(sortedTimeouts);
+        assertEquals(sortedTimeouts, expiredTimeouts);
+    }
+
+    @Test
+    public void testFailingTaskDoesNotStopTheTimer() throws InterruptedException {
+        timer.newTimeout(() -> {
+            throw new IllegalStateException("Expected by the test");
+        }, 10, TimeUnit.MILLISECONDS);
+
+        CountDownLatch expired = new CountDownLatch(1);
+        timer.newTimeout(expired::countDown, 50, TimeUnit.MILLISECONDS);
+        assertTrue(expired.await(WAIT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testTaskCanScheduleAnotherTimeout() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(1);
+        timer.newTimeout(() -> timer.newTimeout(expired::countDown, 30, TimeUnit.MILLISECONDS), 30, TimeUnit.MILLISECONDS);
+        assertTrue(expired.await(WAIT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTickDuration() {
+        new HashedWheelTimer(0, TimeUnit.MILLISECONDS, WHEEL_SIZE, "InvalidTimer");
+    }
+
+    /**
+     * Checks that a timeout doesn't expire before its delay, and not much later
+     */
+    private void assertExpiresAfter(long delayMillis) throws InterruptedException {
+        AtomicLong expiredAt = new AtomicLong();
+        CountDownLatch expired = new CountDownLatch(1);
+
+        long scheduledAt = System.nanoTime();
+        timer.newTimeout(() -> {
+            expiredAt.set(System.nanoTime());
+            expired.countDown();
+        }, delayMillis, TimeUnit.MILLISECONDS);
+
+        assertTrue(expired.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(expiredAt.get() - scheduledAt);
+        assertTrue("Expired after " + elapsedMillis + " ms", elapsedMillis >= delayMillis);
+        assertTrue("Expired after " + elapsedMillis + " ms", elapsedMillis < delayMillis + TICK_MILLIS * WHEEL_SIZE);
+    }
+}
@@ -0,0 +1,191 @@
+package tests;
+
+import gamecontroller.exceptions.LoginException;
+import gamecontroller.exceptions.NoAvailableGamesException;
+import model.card.leader.LeaderCard;
+import model.player.PersonalBonusTile;
+import org.junit.Before;
+import org.junit.Test;
+import server.ClientConnection;
+import server.Lobby;
+import server.ServerGameController;
+
+import java.rmi.RemoteException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+
+public class LobbyTest {
+    /**
+     * How long the tests wait for something that should happen
+     */
+    private static final long WAIT_SECONDS = 5;
+
+    private Lobby lobby;
+
+    @Before
+    public void setupLobby() {
+        lobby = new Lobby();
+    }
+
+    @Test
+    public void testUsernameIsReservedUntilLogout() throws Exception {
+        TestConnection alice = new TestConnection(lobby);
+        alice.loginPlayer("alice");
+
+        TestConnection impostor = new TestConnection(lobby);
+        try {
+            impostor.loginPlayer("alice");
+            fail("The username is taken");
+        }
+        catch (LoginException e) {
+            // Expected
+        }
+
+        // Another connection can't free the username
+        lobby.logout("alice", impostor);
+        assertLoginRefused("alice");
+
+        alice.onDisconnected();
+        impostor.loginPlayer("alice");
+        assertEquals("alice", impostor.getUsername());
+    }
+
+    @Test
+    public void testNoAvailableGames() throws Exception {
+        try {
+            lobby.joinFirstAvailableGame(login("alice")).get(WAIT_SECONDS, TimeUnit.SECONDS);
+            fail("There's no game to join");
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NoAvailableGamesException);
+        }
+    }
+
+    @Test
+    public void testJoinsTheOldestGame() throws Exception {
+        ServerGameController first = lobby.createAndJoinGame(login("alice")).get(WAIT_SECONDS, TimeUnit.SECONDS);
+        lobby.createAndJoinGame(login("bob")).get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertSame(first, lobby.joinFirstAvailableGame(login("carol")).get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(2, first.getConnections().size());
+    }
+
+    @Test
+    public void testGameThatFillsUpWhileJoiningIsSkipped() throws Exception {
+        ServerGameController first = lobby.createAndJoinGame(login("alice")).get(WAIT_SECONDS, TimeUnit.SECONDS);
+        ServerGameController second = lobby.createAndJoinGame(login("bob")).get(WAIT_SECONDS, TimeUnit.SECONDS);
+
+        // The first game is still joinable when the player picks it, and full when his turn in the mailbox comes
+        List<TestConnection> others = Arrays.asList(login("dave"), login("erin"), login("frank"));
+        CountDownLatch picked = new CountDownLatch(1);
+        first.submit(() -> {
+            await(picked);
+            for (TestConnection connection : others) {
+                first.addPlayer(connection);
+            }
+        });
+        TestConnection carol = login("carol");
+        CompletableFuture<ServerGameController> joined = lobby.joinFirstAvailableGame(carol);
+        picked.countDown();
+
+        assertSame(second, joined.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(4, first.getConnections().size());
+        assertFalse(first.getConnections().contains(carol));
+        assertTrue(second.getConnections().contains(carol));
+
+        // The full game has left the queue
+        assertSame(second, lobby.joinFirstAvailableGame(login("grace")).get(WAIT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    /* ----------------------------------------------------------------
+     * Helpers
+     * ---------------------------------------------------------------- */
+
+    private TestConnection login(String username) throws LoginException {
+        TestConnection connection = new TestConnection(lobby);
+        connection.loginPlayer(username);
+        return connection;
+    }
+
+    private void assertLoginRefused(String username) {
+        try {
+            login(username);
+            fail("The username " + username + " is taken");
+        }
+        catch (LoginException e) {
+            // Expected
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(WAIT_SECONDS, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A connection whose client ignores the messages of the server
+     */
+    private static class TestConnection extends ClientConnection {
+        TestConnection(Lobby lobby) {
+            super(lobby);
+        }
+
+        @Override
+        public void loginPlayer(String username) throws LoginException {
+            try {
+                super.loginPlayer(username);
+            }
+            catch (RemoteException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void pingClient() {
+        }
+
+        @Override
+        public void abortGame(String errorMessage) {
+        }
+
+        @Override
+        public void askToChoosePersonalBonusTile(List<PersonalBonusTile> personalBonusTiles) {
+        }
+
+        @Override
+        public void askToChooseLeaderCard(List<LeaderCard> leaderCards) {
+        }
+
+        @Override
+        public void askWhichImmediateResourcesToTake(UUID cardId) {
+        }
+
+        @Override
+        public void showWaitingMessage(String message) {
+        }
+
+        @Override
+        public void setGameConfiguration(byte[] configuration) {
+        }
+
+        @Override
+        public void onGameEvent(byte[] event) {
+        }
+
+        @Override
+        public void onGameStateDelta(byte[] delta) {
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package tests;
+
+import gamecontroller.GameController;
+import gamecontroller.Move;
+import gamecontroller.utils.GameRandom;
+import model.player.Player;
+import org.junit.Test;
+import server.bot.BotSettings;
+import server.bot.MctsSearch;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+
+public class MctsSearchTest {
+    private static final long SEED = 42;
+
+    /**
+     * How long the tests wait for something that should happen
+     */
+    private static final long WAIT_SECONDS = 5;
+
+    @Test
+    public void testSingleMoveIsChosenWithoutSearching() throws Exception {
+        MctsSearch search = new MctsSearch(new BotSettings(1000, 0, 2, 100, 0),
+                                           task -> fail("There's nothing to search"));
+        ObservedRandomPolicy.play(2, SEED, seed -> new ObservedRandomPolicy(seed) {
+            @Override
+            protected void beforeMove(GameController gameController, Player player, List<Move> moves) {
+                Move pass = moves.get(moves.size() - 1);
+                CompletableFuture<Move> move = search.search(gameController, Collections.singletonList(pass), seed);
+                assertTrue(move.isDone());
+                assertSame(pass, move.join());
+            }
+        });
+    }
+
+    @Test
+    public void testRandomMoveIsChosenWhenTheTimeHasExpired() throws Exception {
+        // The workers run by hand, after the time of the move has expired
+        Queue<Runnable> workers = new ArrayDeque<>();
+        MctsSearch search = new MctsSearch(new BotSettings(1, 0, 2, 100, 0), workers::add);
+        assertSearchedOnce(new ObservedRandomPolicy(SEED) {
+            @Override
+            protected void beforeMove(GameController gameController, Player player, List<Move> moves) throws Exception {
+                CompletableFuture<Move> move = search.search(gameController, moves, SEED);
+                Thread.sleep(10);
+                assertEquals(2, workers.size());
+                while (!workers.isEmpty()) {
+                    workers.poll().run();
+                }
+
+                // No tree has been grown: the move is random, but never the pass
+                Move expected = moves.get(new GameRandom(SEED).nextInt(moves.size() - 1));
+                assertSame(expected, move.get(WAIT_SECONDS, TimeUnit.SECONDS));
+                assertFalse(expected.isPass());
+            }
+        });
+    }
+
+    @Test
+    public void testSearchChoosesOneOfTheMoves() throws Exception {
+        MctsSearch search = new MctsSearch(new BotSettings(60000, 50, 2, 100, 0), Runnable::run);
+        assertSearchedOnce(new ObservedRandomPolicy(SEED) {
+            @Override
+            protected void beforeMove(GameController gameController, Player player, List<Move> moves) throws Exception {
+                Move move = search.search(gameController, moves, SEED).get(WAIT_SECONDS, TimeUnit.SECONDS);
+                assertTrue(moves.stream().anyMatch(allowed -> allowed == move));
+            }
+        });
+    }
+
+    /**
+     * Plays a game where the first player to have more than one move runs the test before choosing it
+     */
+    private static void assertSearchedOnce(ObservedRandomPolicy test) throws Exception {
+        boolean[] searched = new boolean[1];
+        ObservedRandomPolicy.play(2, SEED, seed -> new ObservedRandomPolicy(seed) {
+            @Override
+            protected void beforeMove(GameController gameController, Player player, List<Move> moves) throws Exception {
+                if (searched[0] || moves.size() < 2) return;
+
+                searched[0] = true;
+                test.beforeMove(gameController, player, moves);
+            }
+        });
+        assertTrue(searched[0]);
+    }
+}
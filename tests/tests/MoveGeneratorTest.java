@@ -0,0 +1,144 @@
+package tests;
+
+import gamecontroller.GameController;
+import gamecontroller.Move;
+import gamecontroller.ValidationResult;
+import model.Game;
+import model.board.actionspace.ActionSpace;
+import model.board.actionspace.Floor;
+import model.player.FamilyMemberColor;
+import model.player.Player;
+import model.resource.ObtainableResource;
+import model.resource.ObtainableResourceSet;
+import model.resource.RequiredResourceSet;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class MoveGeneratorTest {
+    private static final int GAMES = 4;
+
+    @Test
+    public void testGeneratedMovesAreTheOnesTheGameControllerAllows() throws IOException {
+        AtomicInteger allowedMoves = new AtomicInteger();
+        AtomicInteger rejectedCandidates = new AtomicInteger();
+
+        for (long seed = 1; seed <= GAMES; seed++) {
+            ObservedRandomPolicy.play(2 + (int) seed % 3, seed, policySeed -> new ObservedRandomPolicy(policySeed) {
+                @Override
+                protected void beforeMove(GameController gameController, Player player, List<Move> moves) throws Exception {
+                    List<Move> generatedMoves = gameController.getAllowedMoves();
+                    assertEquals(moves.size(), generatedMoves.size());
+                    assertTrue(generatedMoves.get(generatedMoves.size() - 1).isPass());
+
+                    for (Move move : generatedMoves) {
+                        if (move.isPass()) continue;
+
+                        assertEquals(move.toString(), ValidationResult.ALLOWED, validate(gameController, player, move));
+                        allowedMoves.incrementAndGet();
+                    }
+
+                    for (Move candidate : candidates(gameController.getGame(), player)) {
+                        if (isGenerated(candidate, generatedMoves)) continue;
+
+                        // Not even spending more servants makes it allowed
+                        int servants = player.getResources().getAmount(ObtainableResource.SERVANTS);
+                        for (int spentServants = player.getSpentServants(); spentServants <= servants; spentServants++) {
+                            Move move = withServants(candidate, spentServants);
+                            assertNotEquals(move.toString(), ValidationResult.ALLOWED, validate(gameController, player, move));
+                        }
+                        rejectedCandidates.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        assertTrue(allowedMoves.get() > 1000);
+        assertTrue(rejectedCandidates.get() > 1000);
+    }
+
+    /* ----------------------------------------------------------------
+     * Helpers
+     * ---------------------------------------------------------------- */
+
+    /**
+     * Validates the move after spending its servants, leaving the game as it was
+     */
+    private static ValidationResult validate(GameController gameController, Player player, Move move) throws Exception {
+        int savepoint = gameController.savepoint();
+        try {
+            if (move.getServants() > 0) {
+                gameController.spendServants(player.getUsername(), move.getServants());
+            }
+
+            if (move.isFloor()) {
+                return gameController.validateGoToFloor(player.getUsername(), move.getFamilyMember(), move.getActionSpace().getId(),
+                                                        move.getPayment(), move.getCouncilPrivileges());
+            }
+            return gameController.validateGoToActionSpace(player.getUsername(), move.getActionSpace().getId(),
+                                                          move.getFamilyMember(), move.getCouncilPrivileges());
+        }
+        finally {
+            gameController.rollbackTo(savepoint);
+        }
+    }
+
+    /**
+     * @return a placement of every available family member in every action space, with every payment of the card
+     * of the floors and the first council privileges the action space gives
+     */
+    private static List<Move> candidates(Game game, Player player) {
+        List<Move> candidates = new ArrayList<>();
+        for (FamilyMemberColor familyMember : FamilyMemberColor.values()) {
+            if (!player.getAvailableFamilyMembers().contains(familyMember)) continue;
+
+            for (Floor floor : game.getFloors()) {
+                List<RequiredResourceSet> payments = floor.getCard() == null ? null : floor.getCard().getRequiredResourceSet();
+                if (payments == null || payments.isEmpty()) {
+                    payments = Collections.singletonList(new RequiredResourceSet());
+                }
+                for (RequiredResourceSet payment : payments) {
+                    candidates.add(Move.goToFloor(floor, familyMember, 0, payment, privileges(game, player, floor)));
+                }
+            }
+            for (ActionSpace actionSpace : game.getActionSpaces()) {
+                candidates.add(Move.goToActionSpace(actionSpace, familyMember, 0, privileges(game, player, actionSpace)));
+            }
+        }
+        return candidates;
+    }
+
+    private static List<ObtainableResourceSet> privileges(Game game, Player player, ActionSpace actionSpace) {
+        ObtainableResourceSet bonus = player.getResourceModifiers().getEffectiveBonus(actionSpace.getBonus());
+        int privileges = bonus == null ? 0 : bonus.getObtainedAmount(ObtainableResource.COUNCIL_PRIVILEGES);
+        List<ObtainableResourceSet> allowedPrivileges = game.getAllowedCouncilPrivileges();
+        return allowedPrivileges.subList(0, Math.min(privileges, allowedPrivileges.size()));
+    }
+
+    private static boolean isGenerated(Move candidate, List<Move> moves) {
+        for (Move move : moves) {
+            if (!move.isPass()
+                    && move.getActionSpace() == candidate.getActionSpace()
+                    && move.getFamilyMember() == candidate.getFamilyMember()
+                    && move.getCouncilPrivileges().equals(candidate.getCouncilPrivileges())
+                    && (move.getPayment() == candidate.getPayment() || move.getPayment().equals(candidate.getPayment()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Move withServants(Move move, int servants) {
+        if (move.isFloor()) {
+            return Move.goToFloor((Floor) move.getActionSpace(), move.getFamilyMember(), servants, move.getPayment(), move.getCouncilPrivileges());
+        }
+        return Move.goToActionSpace(move.getActionSpace(), move.getFamilyMember(), servants, move.getCouncilPrivileges());
+    }
+}
@@ -0,0 +1,125 @@
+package tests;
+
+import gamecontroller.GameController;
+import gamecontroller.Move;
+import gamecontroller.exceptions.ActionNotAllowedException;
+import model.card.development.DevelopmentCard;
+import model.card.effects.ImmediateResourcesEffect;
+import model.player.Player;
+import model.resource.ObtainableResource;
+import server.configloader.GameCatalog;
+import server.simulation.GameSimulator;
+import server.simulation.PlayerPolicy;
+import server.simulation.RandomPolicy;
+import server.simulation.SimulationResult;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A random policy that lets a test inspect the game every time a player has to choose a move
+ * or to decide his excommunication, before the choice is made.
+ * <p>
+ * The tests can do anything to the game as long as they leave it as they found it,
+ * for example applying moves and rolling them back.
+ */
+class ObservedRandomPolicy extends RandomPolicy {
+    ObservedRandomPolicy(long seed) {
+        super(seed);
+    }
+
+    /**
+     * Plays a game with observed random policies
+     *
+     * @param players the number of players
+     * @param seed the seed of the game and of the policies
+     * @param policyFactory creates the policy of each player from its seed
+     * @return the result of the game
+     * @throws IOException if the configuration of the game cannot be loaded
+     */
+    static SimulationResult play(int players, long seed, PolicyFactory policyFactory) throws IOException {
+        List<PlayerPolicy> policies = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            policies.add(policyFactory.create(seed * 31 + i));
+        }
+        return new GameSimulator(GameCatalog.getInstance()).play(policies, seed);
+    }
+
+    /**
+     * Applies a move like a simulated game does, taking the card of a floor with the first council privileges
+     *
+     * @param gameController the controller of the game
+     * @param player the player whose turn it is
+     * @param move a move that is not a pass, allowed in the current state
+     * @throws ActionNotAllowedException if the game controller doesn't allow the move
+     */
+    static void applyMove(GameController gameController, Player player, Move move) throws ActionNotAllowedException {
+        String username = player.getUsername();
+        if (move.getServants() > 0) {
+            gameController.spendServants(username, move.getServants());
+        }
+
+        UUID actionSpaceId = move.getActionSpace().getId();
+        if (!move.isFloor()) {
+            gameController.goToActionSpace(username, actionSpaceId, move.getFamilyMember(), move.getCouncilPrivileges());
+            return;
+        }
+        gameController.goToFloor(username, move.getFamilyMember(), actionSpaceId, move.getPayment(), move.getCouncilPrivileges());
+
+        DevelopmentCard card = gameController.getDevelopmentCardBeingTaken();
+        int privileges = 0;
+        for (ImmediateResourcesEffect effect : card.getEffectsContainer().getEffectsImplementing(ImmediateResourcesEffect.class)) {
+            privileges += effect.getObtainableResourceSet().getObtainedAmount(ObtainableResource.COUNCIL_PRIVILEGES);
+        }
+        gameController.takeDevelopmentCard(username, card.getId(), gameController.getGame().getAllowedCouncilPrivileges().subList(0, privileges));
+    }
+
+    @Override
+    public Move chooseMove(GameController gameController, Player player, List<Move> moves) {
+        try {
+            beforeMove(gameController, player, moves);
+        }
+        catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return super.chooseMove(gameController, player, moves);
+    }
+
+    @Override
+    public boolean decideExcommunication(GameController gameController, Player player) {
+        try {
+            beforeExcommunication(gameController, player);
+        }
+        catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return super.decideExcommunication(gameController, player);
+    }
+
+    /**
+     * Called when the player has to choose a move
+     *
+     * @param gameController the controller of the game
+     * @param player the player whose turn it is
+     * @param moves the allowed moves
+     * @throws Exception if the test fails
+     */
+    protected void beforeMove(GameController gameController, Player player, List<Move> moves) throws Exception {
+    }
+
+    /**
+     * Called when the player has to decide whether to be excommunicated
+     *
+     * @param gameController the controller of the game
+     * @param player the player deciding
+     * @throws Exception if the test fails
+     */
+    protected void beforeExcommunication(GameController gameController, Player player) throws Exception {
+    }
+
+    interface PolicyFactory {
+        PlayerPolicy create(long seed);
+    }
+}
@@ -0,0 +1,160 @@
+package tests;
+
+import gamecontroller.GameController;
+import gamecontroller.Move;
+import model.Game;
+import model.board.Board;
+import model.board.Occupancy;
+import model.board.Tower;
+import model.board.actionspace.ActionSpace;
+import model.board.actionspace.CouncilPalace;
+import model.board.actionspace.Floor;
+import model.player.FamilyMemberColor;
+import model.player.Player;
+import model.player.PlayerColor;
+import model.util.Tuple;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class OccupancyTest {
+    @Test
+    public void testEveryFamilyMemberHasItsOwnBit() {
+        long allBits = 0;
+        for (PlayerColor color : PlayerColor.values()) {
+            Player player = player(color);
+            long playerBits = 0;
+
+            for (FamilyMemberColor familyMember : FamilyMemberColor.values()) {
+                long bit = Occupancy.of(player, familyMember);
+                assertEquals(1, Long.bitCount(bit));
+                assertEquals(0, allBits & bit);
+                allBits |= bit;
+                playerBits |= bit;
+            }
+
+            assertEquals(playerBits, Occupancy.of(player));
+            assertEquals(playerBits & ~Occupancy.of(player, FamilyMemberColor.NEUTRAL), Occupancy.coloredOf(player));
+        }
+        assertEquals(PlayerColor.values().length * FamilyMemberColor.values().length, Long.bitCount(allBits));
+    }
+
+    @Test
+    public void testColorRule() {
+        Player red = player(PlayerColor.RED);
+        Player blue = player(PlayerColor.BLUE);
+
+        for (FamilyMemberColor familyMember : FamilyMemberColor.values()) {
+            boolean colored = familyMember != FamilyMemberColor.NEUTRAL;
+
+            // The neutral family member can always join, a colored one only the neutral family member of the player
+            assertFalse(Occupancy.breaksColorRule(0, red, familyMember));
+            assertFalse(Occupancy.breaksColorRule(Occupancy.of(red, FamilyMemberColor.NEUTRAL), red, familyMember));
+            assertFalse(Occupancy.breaksColorRule(Occupancy.of(blue), red, familyMember));
+            assertEquals(colored, Occupancy.breaksColorRule(Occupancy.of(red, FamilyMemberColor.BLACK), red, familyMember));
+            assertEquals(colored, Occupancy.breaksColorRule(Occupancy.of(red) | Occupancy.of(blue), red, familyMember));
+        }
+    }
+
+    @Test
+    public void testOccupancyFollowsTheOccupants() {
+        Player red = player(PlayerColor.RED);
+        Player yellow = player(PlayerColor.YELLOW);
+        ActionSpace councilPalace = new CouncilPalace(null, 1);
+
+        councilPalace.addOccupant(red, FamilyMemberColor.WHITE);
+        councilPalace.addOccupant(yellow, FamilyMemberColor.NEUTRAL);
+        councilPalace.addOccupant(red, FamilyMemberColor.NEUTRAL);
+        assertEquals(Occupancy.of(red, FamilyMemberColor.WHITE)
+                             | Occupancy.of(yellow, FamilyMemberColor.NEUTRAL)
+                             | Occupancy.of(red, FamilyMemberColor.NEUTRAL), councilPalace.getOccupancy());
+
+        // A copy changes on its own
+        ActionSpace copy = councilPalace.copy();
+        copy.removeAllOccupants();
+        assertEquals(3, councilPalace.getOccupants().size());
+        assertEquals(occupancyOfOccupants(councilPalace), councilPalace.getOccupancy());
+
+        councilPalace.removeLastOccupant();
+        assertEquals(Occupancy.of(red, FamilyMemberColor.WHITE) | Occupancy.of(yellow, FamilyMemberColor.NEUTRAL),
+                     councilPalace.getOccupancy());
+        assertTrue(councilPalace.isOccupied());
+
+        councilPalace.removeAllOccupants();
+        assertEquals(0, councilPalace.getOccupancy());
+        assertFalse(councilPalace.isOccupied());
+        assertFalse(copy.isOccupied());
+    }
+
+    @Test
+    public void testOccupancyMatchesTheOccupantsDuringTheGames() throws IOException {
+        AtomicInteger checkedMoves = new AtomicInteger();
+
+        for (long seed = 1; seed <= 3; seed++) {
+            ObservedRandomPolicy.play(4, seed, policySeed -> new ObservedRandomPolicy(policySeed) {
+                @Override
+                protected void beforeMove(GameController gameController, Player player, List<Move> moves) throws Exception {
+                    Game game = gameController.getGame();
+                    assertOccupancyMatchesTheOccupants(game);
+
+                    for (Move move : moves) {
+                        if (move.isPass()) continue;
+
+                        int savepoint = gameController.savepoint();
+                        ObservedRandomPolicy.applyMove(gameController, player, move);
+                        assertOccupancyMatchesTheOccupants(game);
+                        assertNotEquals(0, move.getActionSpace().getOccupancy() & Occupancy.of(player, move.getFamilyMember()));
+                        gameController.rollbackTo(savepoint);
+
+                        assertOccupancyMatchesTheOccupants(game);
+                        checkedMoves.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        assertTrue(checkedMoves.get() > 1000);
+    }
+
+    /* ----------------------------------------------------------------
+     * Helpers
+     * ---------------------------------------------------------------- */
+
+    private static Player player(PlayerColor color) {
+        Player player = new Player(color.name().toLowerCase());
+        player.setColor(color);
+        return player;
+    }
+
+    private static long occupancyOfOccupants(ActionSpace actionSpace) {
+        long occupancy = 0;
+        for (Tuple<Player, FamilyMemberColor> occupant : actionSpace.getOccupants()) {
+            occupancy |= Occupancy.of(occupant.first, occupant.second);
+        }
+        return occupancy;
+    }
+
+    private static void assertOccupancyMatchesTheOccupants(Game game) {
+        for (ActionSpace actionSpace : game.getActionSpaces()) {
+            assertEquals(actionSpace.getShortDescriptionForChoosing(), occupancyOfOccupants(actionSpace), actionSpace.getOccupancy());
+        }
+
+        Board board = game.getBoard();
+        for (Tower<?> tower : Arrays.asList(board.getTerritoryTower(), board.getCharacterTower(),
+                                            board.getBuildingTower(), board.getVentureTower())) {
+            long towerOccupancy = 0;
+            for (Floor<?> floor : tower.getFloors()) {
+                assertEquals(floor.getShortDescriptionForChoosing(), occupancyOfOccupants(floor), floor.getOccupancy());
+                towerOccupancy |= floor.getOccupancy();
+            }
+            assertEquals(towerOccupancy, tower.getOccupancy());
+            assertEquals(towerOccupancy != 0, tower.isOccupied());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package tests;
+
+import org.junit.Before;
+import org.junit.Test;
+import server.OutboundQueue;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class OutboundQueueTest {
+    /**
+     * The number of messages that can wait to be sent, OutboundQueue.MAX_DEPTH
+     */
+    private static final int MAX_DEPTH = 1000;
+
+    /**
+     * How long the tests wait for something that should happen
+     */
+    private static final long WAIT_SECONDS = 5;
+
+    private OutboundQueue queue;
+    private CompletableFuture<String> dropReason;
+    private AtomicInteger drops;
+
+    @Before
+    public void setupQueue() {
+        // The messages don't use the client
+        queue = new OutboundQueue(null);
+        dropReason = new CompletableFuture<>();
+        drops = new AtomicInteger();
+        queue.setDropListener(reason -> {
+            drops.incrementAndGet();
+            dropReason.complete(reason);
+        });
+    }
+
+    @Test
+    public void testMessagesAreSentInOrder() throws Exception {
+        List<Integer> sent = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch allSent = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            int message = i;
+            queue.enqueue(client -> {
+                sent.add(message);
+                allSent.countDown();
+            });
+        }
+
+        assertTrue(allSent.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, (int) sent.get(i));
+        }
+        assertFalse(queue.isDropped());
+    }
+
+    @Test
+    public void testClientIsDroppedWhenTooManyMessagesAreWaiting() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.enqueue(client -> {
+            sending.countDown();
+            await(release);
+        });
+        assertTrue(sending.await(WAIT_SECONDS, TimeUnit.SECONDS));
+
+        // The message being sent is not waiting anymore
+        for (int i = 0; i < MAX_DEPTH; i++) {
+            queue.enqueue(client -> { });
+        }
+        assertFalse(queue.isDropped());
+        assertEquals(MAX_DEPTH, queue.getDepth());
+
+        queue.enqueue(client -> { });
+        assertTrue(queue.isDropped());
+        assertTrue(dropReason.get(WAIT_SECONDS, TimeUnit.SECONDS).startsWith("Too many messages"));
+        assertEquals(0, queue.getDepth());
+        assertEquals(MAX_DEPTH, queue.getMaxDepth());
+
+        // The messages queued after the drop are discarded
+        queue.enqueue(client -> fail("The client has been dropped"));
+        assertEquals(0, queue.getDepth());
+        release.countDown();
+        assertEquals(1, drops.get());
+    }
+
+    @Test
+    public void testClientIsDroppedWhenASendFails() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger sent = new AtomicInteger();
+        queue.enqueue(client -> {
+            await(release);
+            sent.incrementAndGet();
+        });
+        queue.enqueue(client -> {
+            throw new RemoteException("Connection reset");
+        });
+        queue.enqueue(client -> sent.incrementAndGet());
+        release.countDown();
+
+        assertTrue(dropReason.get(WAIT_SECONDS, TimeUnit.SECONDS).contains("Connection reset"));
+        assertTrue(queue.isDropped());
+        assertEquals(1, sent.get());
+        assertEquals(1, queue.getSentMessages());
+    }
+
+    @Test
+    public void testClientIsDroppedWhenAMessageThrows() throws Exception {
+        queue.enqueue(client -> {
+            throw new IllegalStateException("Bug in the message");
+        });
+
+        assertTrue(dropReason.get(WAIT_SECONDS, TimeUnit.SECONDS).contains("Bug in the message"));
+        assertTrue(queue.isDropped());
+
+        queue.drop("Dropped again");
+        assertEquals(1, drops.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(WAIT_SECONDS, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
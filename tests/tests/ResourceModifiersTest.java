@@ -0,0 +1,251 @@
+package tests;
+
+import model.Game;
+import model.card.Card;
+import model.card.development.BuildingCard;
+import model.card.development.DevelopmentCard;
+import model.card.development.TerritoryCard;
+import model.card.effects.DevelopmentCardRequiredResourceSetModifierEffect;
+import model.card.effects.FloorBonusResourcesSetterEffect;
+import model.card.effects.ObtainableResourceSetModifierEffect;
+import model.card.effects.interfaces.EffectInterface;
+import model.player.Player;
+import model.resource.*;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import server.configloader.GameCatalog;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Checks the folded modifiers against the effects applied one by one, as the game controller used to:
+ * the bonus setters, then the obtainable resource modifiers, then the discounts, in the order of the player effects.
+ */
+public class ResourceModifiersTest {
+    private static final int COMBINATIONS = 500;
+
+    private static final List<FloorBonusResourcesSetterEffect> bonusSetterEffects = new ArrayList<>();
+    private static final List<ObtainableResourceSetModifierEffect> obtainedModifierEffects = new ArrayList<>();
+    private static final List<DevelopmentCardRequiredResourceSetModifierEffect> costModifierEffects = new ArrayList<>();
+
+    private static final List<ObtainableResourceSet> bonuses = new ArrayList<>();
+    private static final List<DevelopmentCard> cards = new ArrayList<>();
+
+    @BeforeClass
+    public static void loadCatalog() throws IOException {
+        GameCatalog catalog = GameCatalog.getInstance();
+
+        List<Card> catalogCards = new ArrayList<>();
+        catalogCards.addAll(catalog.getTerritoryCards());
+        catalogCards.addAll(catalog.getBuildingCards());
+        catalogCards.addAll(catalog.getCharacterCards());
+        catalogCards.addAll(catalog.getVentureCards());
+        catalogCards.addAll(catalog.getLeaderCards());
+        List<EffectInterface> effects = new ArrayList<>();
+        catalogCards.forEach(card -> effects.addAll(card.getEffectsContainer().getEffects()));
+        catalog.getExcommunications().forEach(excommunication -> effects.addAll(excommunication.getEffectsContainer().getEffects()));
+
+        for (EffectInterface effect : effects) {
+            if (effect instanceof FloorBonusResourcesSetterEffect) bonusSetterEffects.add((FloorBonusResourcesSetterEffect) effect);
+            if (effect instanceof ObtainableResourceSetModifierEffect) obtainedModifierEffects.add((ObtainableResourceSetModifierEffect) effect);
+            if (effect instanceof DevelopmentCardRequiredResourceSetModifierEffect) costModifierEffects.add((DevelopmentCardRequiredResourceSetModifierEffect) effect);
+        }
+
+        Game game = catalog.newGame();
+        game.getActionSpaces().forEach(actionSpace -> bonuses.add(actionSpace.getBonus()));
+        game.getFloors().forEach(floor -> bonuses.add(floor.getBonus()));
+        cards.addAll(catalog.getTerritoryCards());
+        cards.addAll(catalog.getBuildingCards());
+        cards.addAll(catalog.getCharacterCards());
+        cards.addAll(catalog.getVentureCards());
+    }
+
+    @Test
+    public void testCatalogHasEveryKindOfModifier() {
+        assertFalse(bonusSetterEffects.isEmpty());
+        assertFalse(obtainedModifierEffects.isEmpty());
+        assertFalse(costModifierEffects.isEmpty());
+    }
+
+    @Test
+    public void testModifiersOfTheCatalogMatchTheEffectsAppliedOneByOne() {
+        Random random = new Random(42);
+        for (int combination = 0; combination < COMBINATIONS; combination++) {
+            // The same effect can be drawn twice, like two cards with the same effect
+            List<FloorBonusResourcesSetterEffect> setters = draw(random, bonusSetterEffects);
+            List<ObtainableResourceSetModifierEffect> modifiers = draw(random, obtainedModifierEffects);
+            List<DevelopmentCardRequiredResourceSetModifierEffect> discounts = draw(random, costModifierEffects);
+
+            assertSameResults(random, setters, modifiers, discounts);
+        }
+    }
+
+    @Test
+    public void testLastBonusSetterWins() {
+        ObtainableResourceSet first = resources(ObtainableResource.GOLD, 2);
+        ObtainableResourceSet last = resources(ObtainableResource.WOOD, 1);
+        ResourceModifiers resourceModifiers = ResourceModifiers.of(
+                Arrays.asList(new FloorBonusResourcesSetterEffect(first), new FloorBonusResourcesSetterEffect(last)),
+                Collections.emptyList(), Collections.emptyList());
+
+        assertEquals(last, resourceModifiers.getEffectiveBonus(resources(ObtainableResource.STONE, 3)));
+        assertSameResults(new Random(1), Arrays.asList(new FloorBonusResourcesSetterEffect(first), new FloorBonusResourcesSetterEffect(last)),
+                          Collections.emptyList(), Collections.emptyList());
+    }
+
+    @Test
+    public void testObtainableModifiersAreSummed() {
+        List<ObtainableResourceSetModifierEffect> modifiers = Arrays.asList(
+                new ObtainableResourceSetModifierEffect(ObtainableResource.MILITARY_POINTS, -1),
+                new ObtainableResourceSetModifierEffect(ObtainableResource.GOLD, 2),
+                new ObtainableResourceSetModifierEffect(ObtainableResource.MILITARY_POINTS, -1));
+        ResourceModifiers resourceModifiers = ResourceModifiers.of(Collections.emptyList(), modifiers, Collections.emptyList());
+
+        ObtainableResourceSet bonus = resourceModifiers.getEffectiveBonus(resources(ObtainableResource.MILITARY_POINTS, 3));
+        assertEquals(1, bonus.getObtainedAmount(ObtainableResource.MILITARY_POINTS));
+        assertEquals(2, bonus.getObtainedAmount(ObtainableResource.GOLD));
+        assertSameResults(new Random(2), Collections.emptyList(), modifiers, Collections.emptyList());
+    }
+
+    @Test
+    public void testDiscountsChangeOnlyTheRequiredResources() {
+        // The discount on the gold doesn't make the cost of the card give gold
+        RequiredResourceSet discount = new RequiredResourceSet();
+        discount.setRequiredAmount(ObtainableResource.GOLD, -3);
+        discount.setRequiredAmount(ObtainableResource.WOOD, -1);
+        List<DevelopmentCardRequiredResourceSetModifierEffect> discounts = Arrays.asList(
+                new DevelopmentCardRequiredResourceSetModifierEffect(discount, BuildingCard.class),
+                new DevelopmentCardRequiredResourceSetModifierEffect(discount, BuildingCard.class));
+        ResourceModifiers resourceModifiers = ResourceModifiers.of(Collections.emptyList(), Collections.emptyList(), discounts);
+
+        DevelopmentCard card = cards.stream().filter(c -> c instanceof BuildingCard).findFirst().orElseThrow(NoSuchElementException::new);
+        RequiredResourceSet cost = new RequiredResourceSet();
+        cost.setRequiredAmount(ObtainableResource.WOOD, 3);
+
+        ObtainedResourceSet resources = new ObtainedResourceSet(new Player("alice"));
+        resources.setResourceQty(ObtainableResource.WOOD, 1);
+        assertTrue(resourceModifiers.canPay(resources, cost, card));
+        resourceModifiers.pay(resources, cost, card);
+        assertEquals(0, resources.getAmount(ObtainableResource.WOOD));
+        assertEquals(0, resources.getAmount(ObtainableResource.GOLD));
+
+        assertSameResults(new Random(3), Collections.emptyList(), Collections.emptyList(), discounts);
+    }
+
+    @Test
+    public void testDiscountBelowZeroIsPaidLikeTheEffects() {
+        // The second discount takes the wood below zero: the player can pay, and gets the difference back
+        RequiredResourceSet discount = new RequiredResourceSet();
+        discount.setRequiredAmount(ObtainableResource.WOOD, -2);
+        List<DevelopmentCardRequiredResourceSetModifierEffect> discounts = Arrays.asList(
+                new DevelopmentCardRequiredResourceSetModifierEffect(discount, TerritoryCard.class),
+                new DevelopmentCardRequiredResourceSetModifierEffect(discount, TerritoryCard.class));
+        ResourceModifiers resourceModifiers = ResourceModifiers.of(Collections.emptyList(), Collections.emptyList(), discounts);
+
+        DevelopmentCard card = cards.stream().filter(c -> c instanceof TerritoryCard).findFirst().orElseThrow(NoSuchElementException::new);
+        RequiredResourceSet cost = new RequiredResourceSet();
+        cost.setRequiredAmount(ObtainableResource.WOOD, 3);
+
+        ObtainedResourceSet resources = new ObtainedResourceSet(new Player("alice"));
+        ObtainedResourceSet expected = new ObtainedResourceSet(resources);
+        RequiredResourceSet effectiveCost = applyOneByOne(cost, card, discounts);
+        assertEquals(-1, effectiveCost.getRequiredAmount(ObtainableResource.WOOD));
+
+        assertEquals(expected.has(effectiveCost), resourceModifiers.canPay(resources, cost, card));
+        expected.subtractResources(effectiveCost);
+        resourceModifiers.pay(resources, cost, card);
+        assertResources(expected, resources);
+    }
+
+    /* ----------------------------------------------------------------
+     * Helpers
+     * ---------------------------------------------------------------- */
+
+    /**
+     * Checks the bonuses of every action space and floor, and the payments of every card for random resources
+     */
+    private static void assertSameResults(Random random, List<FloorBonusResourcesSetterEffect> setters,
+                                          List<ObtainableResourceSetModifierEffect> modifiers,
+                                          List<DevelopmentCardRequiredResourceSetModifierEffect> discounts) {
+        ResourceModifiers resourceModifiers = ResourceModifiers.of(setters, modifiers, discounts);
+        Player player = new Player("alice");
+
+        for (ObtainableResourceSet bonus : bonuses) {
+            ObtainableResourceSet expectedBonus = applyOneByOne(bonus, setters, modifiers);
+            assertEquals(expectedBonus, resourceModifiers.getEffectiveBonus(bonus));
+
+            ObtainedResourceSet resources = randomResources(random, player);
+            ObtainedResourceSet expected = new ObtainedResourceSet(resources);
+            expected.addResources(expectedBonus);
+            resourceModifiers.addEffectiveBonus(resources, bonus);
+            assertResources(expected, resources);
+        }
+
+        for (DevelopmentCard card : cards) {
+            if (card.getRequiredResourceSet() == null) continue;
+
+            for (RequiredResourceSet cost : card.getRequiredResourceSet()) {
+                RequiredResourceSet effectiveCost = applyOneByOne(cost, card, discounts);
+                ObtainedResourceSet resources = randomResources(random, player);
+                assertEquals(resources.has(effectiveCost), resourceModifiers.canPay(resources, cost, card));
+
+                ObtainedResourceSet expected = new ObtainedResourceSet(resources);
+                expected.subtractResources(effectiveCost);
+                resourceModifiers.pay(resources, cost, card);
+                assertResources(expected, resources);
+            }
+        }
+    }
+
+    private static ObtainableResourceSet applyOneByOne(ObtainableResourceSet bonus, List<FloorBonusResourcesSetterEffect> setters,
+                                                      List<ObtainableResourceSetModifierEffect> modifiers) {
+        for (FloorBonusResourcesSetterEffect e : setters) {
+            bonus = e.setObtainedResourceSet();
+        }
+        for (ObtainableResourceSetModifierEffect e : modifiers) {
+            bonus = e.modifyResources(bonus);
+        }
+        return bonus;
+    }
+
+    private static RequiredResourceSet applyOneByOne(RequiredResourceSet cost, DevelopmentCard card,
+                                                     List<DevelopmentCardRequiredResourceSetModifierEffect> discounts) {
+        for (DevelopmentCardRequiredResourceSetModifierEffect e : discounts) {
+            cost = e.modifyResources(cost, card);
+        }
+        return cost;
+    }
+
+    private static <T> List<T> draw(Random random, List<T> effects) {
+        List<T> drawn = new ArrayList<>();
+        int count = random.nextInt(4);
+        for (int i = 0; i < count; i++) {
+            drawn.add(effects.get(random.nextInt(effects.size())));
+        }
+        return drawn;
+    }
+
+    private static ObtainedResourceSet randomResources(Random random, Player player) {
+        ObtainedResourceSet resources = new ObtainedResourceSet(player);
+        for (ObtainableResource resource : ObtainableResource.values()) {
+            resources.setResourceQty(resource, random.nextInt(8));
+        }
+        return resources;
+    }
+
+    private static ObtainableResourceSet resources(ObtainableResource resource, int qty) {
+        ObtainableResourceSet resources = new ObtainableResourceSet();
+        resources.addResource(resource, qty);
+        return resources;
+    }
+
+    private static void assertResources(ObtainedResourceSet expected, ObtainedResourceSet actual) {
+        for (ObtainableResource resource : ObtainableResource.values()) {
+            assertEquals(resource.toString(), expected.getAmount(resource), actual.getAmount(resource));
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package tests;
+
+import model.Game;
+import model.player.Player;
+import model.resource.*;
+import org.junit.Test;
+import server.configloader.GameCatalog;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+
+public class ResourceSetTest {
+    /*
+     * Written by the map based resource sets, before they were backed by arrays:
+     * 10 REQUIRED_MILITARY_POINTS and 3 GOLD
+     */
+    private static final String MAP_BASED_REQUIRED_RESOURCE_SET = "rO0ABXNyACJtb2RlbC5yZXNvdXJjZS5SZXF1aXJlZFJlc291cmNlU2V09A6QDQ4Jnf4CAAFMABFyZXF1aXJlZFJlc291cmNlc3QAD0xqYXZhL3V0aWwvTWFwO3hwc3IAEWphdmEudXRpbC5IYXNoTWFwBQfawcMWYNEDAAJGAApsb2FkRmFjdG9ySQAJdGhyZXNob2xkeHA/QAAAAAAAA3cIAAAABAAAAAJ+cgAhbW9kZWwucmVzb3VyY2UuT2J0YWluYWJsZVJlc291cmNlAAAAAAAAAAASAAB4cgAOamF2YS5sYW5nLkVudW0AAAAAAAAAABIAAHhwdAAER09MRHNyABFqYXZhLmxhbmcuSW50ZWdlchLioKT3gYc4AgABSQAFdmFsdWV4cgAQamF2YS5sYW5nLk51bWJlcoaslR0LlOCLAgAAeHAAAAADfnIAH21vZGVsLnJlc291cmNlLlJlcXVpcmVkUmVzb3VyY2UAAAAAAAAAABIAAHhxAH4ABnQAGFJFUVVJUkVEX01JTElUQVJZX1BPSU5UU3NxAH4ACQAAAAp4";
+
+    /*
+     * 2 WOOD and 5 VICTORY_POINTS, plus 2 VICTORY_POINTS for each REQUIRED_BUILDING_CARDS
+     */
+    private static final String MAP_BASED_OBTAINABLE_RESOURCE_SET = "rO0ABXNyACRtb2RlbC5yZXNvdXJjZS5PYnRhaW5hYmxlUmVzb3VyY2VTZXSoERroUWXKKQIAAkwAEW9idGFpbmVkUmVzb3VyY2VzdAAPTGphdmEvdXRpbC9NYXA7TAATcmVzb3VyY2VNdWx0aXBsaWVyc3QAE0xqYXZhL3V0aWwvSGFzaE1hcDt4cHNyABFqYXZhLnV0aWwuSGFzaE1hcAUH2sHDFmDRAwACRgAKbG9hZEZhY3RvckkACXRocmVzaG9sZHhwP0AAAAAAAAN3CAAAAAQAAAACfnIAIW1vZGVsLnJlc291cmNlLk9idGFpbmFibGVSZXNvdXJjZQAAAAAAAAAAEgAAeHIADmphdmEubGFuZy5FbnVtAAAAAAAAAAASAAB4cHQADlZJQ1RPUllfUE9JTlRTc3IAEWphdmEubGFuZy5JbnRlZ2VyEuKgpPeBhzgCAAFJAAV2YWx1ZXhyABBqYXZhLmxhbmcuTnVtYmVyhqyVHQuU4IsCAAB4cAAAAAV+cQB+AAZ0AARXT09Ec3EAfgAKAAAAAnhzcQB+AAQ/QAAAAAAAAXcIAAAAAgAAAAFzcgAibW9kZWwucmVzb3VyY2UuUmVxdWlyZWRSZXNvdXJjZVNldPQOkA0OCZ3+AgABTAARcmVxdWlyZWRSZXNvdXJjZXNxAH4AAXhwc3EAfgAEP0AAAAAAAAF3CAAAAAIAAAABfnIAH21vZGVsLnJlc291cmNlLlJlcXVpcmVkUmVzb3VyY2UAAAAAAAAAABIAAHhxAH4AB3QAF1JFUVVJUkVEX0JVSUxESU5HX0NBUkRTc3EAfgAKAAAAAXhzcQB+AABzcQB+AAQ/QAAAAAAAAXcIAAAAAgAAAAFxAH4ACHEAfgAPeHNxAH4ABD9AAAAAAAAAdwgAAAAQAAAAAHh4";
+
+    /*
+     * 5 GOLD and 3 SERVANTS, without a player
+     */
+    private static final String MAP_BASED_OBTAINED_RESOURCE_SET = "rO0ABXNyACJtb2RlbC5yZXNvdXJjZS5PYnRhaW5lZFJlc291cmNlU2V0mt1MRG4yIwECAAJMAAZwbGF5ZXJ0ABVMbW9kZWwvcGxheWVyL1BsYXllcjtMAAlyZXNvdXJjZXN0AA9MamF2YS91dGlsL01hcDt4cHBzcgARamF2YS51dGlsLkhhc2hNYXAFB9rBwxZg0QMAAkYACmxvYWRGYWN0b3JJAAl0aHJlc2hvbGR4cD9AAAAAAAAMdwgAAAAQAAAAAn5yACFtb2RlbC5yZXNvdXJjZS5PYnRhaW5hYmxlUmVzb3VyY2UAAAAAAAAAABIAAHhyAA5qYXZhLmxhbmcuRW51bQAAAAAAAAAAEgAAeHB0AARHT0xEc3IAEWphdmEubGFuZy5JbnRlZ2VyEuKgpPeBhzgCAAFJAAV2YWx1ZXhyABBqYXZhLmxhbmcuTnVtYmVyhqyVHQuU4IsCAAB4cAAAAAV+cQB+AAZ0AAhTRVJWQU5UU3NxAH4ACgAAAAN4";
+
+    /* ----------------------------------------------------------------
+     * Serialized form
+     * ---------------------------------------------------------------- */
+
+    @Test
+    public void testReadsMapBasedRequiredResourceSet() throws Exception {
+        assertEquals(militaryRequirement(), deserialize(MAP_BASED_REQUIRED_RESOURCE_SET));
+    }
+
+    @Test
+    public void testReadsMapBasedObtainableResourceSet() throws Exception {
+        assertEquals(woodAndVictoryPoints(), deserialize(MAP_BASED_OBTAINABLE_RESOURCE_SET));
+    }
+
+    @Test
+    public void testReadsMapBasedObtainedResourceSet() throws Exception {
+        ObtainedResourceSet resources = (ObtainedResourceSet) deserialize(MAP_BASED_OBTAINED_RESOURCE_SET);
+
+        assertEquals(5, resources.getAmount(ObtainableResource.GOLD));
+        assertEquals(3, resources.getAmount(ObtainableResource.SERVANTS));
+        assertEquals(0, resources.getAmount(ObtainableResource.WOOD));
+    }
+
+    @Test
+    public void testSerializedFieldsAreTheMapBasedOnes() {
+        assertSerializedFields(RequiredResourceSet.class, -860592093036700162L, "requiredResources", Map.class);
+        assertSerializedFields(ObtainableResourceSet.class, -6336253615633216983L, "obtainedResources", Map.class, "resourceMultipliers", HashMap.class);
+        assertSerializedFields(ObtainedResourceSet.class, -7287584765225327871L, "player", Player.class, "resources", Map.class);
+    }
+
+    @Test
+    public void testSerializationRoundTrip() throws Exception {
+        assertEquals(militaryRequirement(), deserialize(serialize(militaryRequirement())));
+        assertEquals(woodAndVictoryPoints(), deserialize(serialize(woodAndVictoryPoints())));
+        assertEquals(new ObtainableResourceSet(), deserialize(serialize(new ObtainableResourceSet())));
+
+        Player player = new Player("alice");
+        player.getResources().setResourceQty(ObtainableResource.FAITH_POINTS, 7);
+        Player deserializedPlayer = (Player) deserialize(serialize(player));
+        assertEquals(7, deserializedPlayer.getResources().getAmount(ObtainableResource.FAITH_POINTS));
+        assertTrue(deserializedPlayer.getResources().has(new RequiredResourceSet(Collections.singletonMap(ObtainableResource.FAITH_POINTS, 7))));
+    }
+
+    /* ----------------------------------------------------------------
+     * Arithmetic and requirements
+     * ---------------------------------------------------------------- */
+
+    @Test
+    public void testMapsHoldOnlyNonZeroAmounts() {
+        Map<ObtainableResource, Integer> resources = new HashMap<>();
+        resources.put(ObtainableResource.GOLD, 0);
+        resources.put(ObtainableResource.STONE, 2);
+
+        ObtainableResourceSet resourceSet = new ObtainableResourceSet(resources);
+        assertEquals(Collections.singletonMap(ObtainableResource.STONE, 2), resourceSet.getObtainedResources());
+        assertEquals(new ObtainableResourceSet(Collections.singletonMap(ObtainableResource.STONE, 2)), resourceSet);
+        assertEquals(new ObtainableResourceSet(Collections.singletonMap(ObtainableResource.STONE, 2)).hashCode(), resourceSet.hashCode());
+        assertTrue(new RequiredResourceSet(Collections.singletonMap(ObtainableResource.GOLD, 0)).isEmpty());
+    }
+
+    @Test
+    public void testAddAndSubtract() {
+        ObtainedResourceSet resources = new ObtainedResourceSet(new Player("alice"));
+        resources.addResources(new ObtainableResourceSet(Collections.singletonMap(ObtainableResource.GOLD, 5)));
+        resources.addResource(ObtainableResource.COUNCIL_PRIVILEGES, 2);
+        resources.subtractResources(new RequiredResourceSet(Collections.singletonMap(ObtainableResource.GOLD, 3)));
+
+        assertEquals(2, resources.getAmount(ObtainableResource.GOLD));
+        // Council privileges are converted, never kept
+        assertEquals(0, resources.getAmount(ObtainableResource.COUNCIL_PRIVILEGES));
+
+        resources.setResourceQty(ObtainableResource.WOOD, 4);
+        assertEquals(4, resources.getAmount(ObtainableResource.WOOD));
+    }
+
+    @Test
+    public void testRequirements() {
+        Player player = new Player("alice");
+        ObtainedResourceSet resources = player.getResources();
+        resources.setResourceQty(ObtainableResource.MILITARY_POINTS, 10);
+        resources.setResourceQty(ObtainableResource.GOLD, 2);
+
+        assertTrue(resources.has(new RequiredResourceSet()));
+        assertTrue(resources.has(new RequiredResourceSet(Collections.singletonMap(RequiredResource.REQUIRED_MILITARY_POINTS, 10))));
+        assertFalse(resources.has(new RequiredResourceSet(Collections.singletonMap(RequiredResource.REQUIRED_MILITARY_POINTS, 11))));
+        assertFalse(resources.has(militaryRequirement()));
+        assertTrue(resources.hasAtLeast(2, ObtainableResource.GOLD));
+        assertFalse(resources.hasAtLeast(3, ObtainableResource.GOLD));
+    }
+
+    @Test
+    public void testDiscountedRequirementsAreFulfilled() {
+        ObtainedResourceSet resources = new ObtainedResourceSet(new Player("alice"));
+
+        Map<ResourceType, Integer> discounted = new HashMap<>();
+        discounted.put(ObtainableResource.GOLD, 0);
+        discounted.put(ObtainableResource.WOOD, -1);
+        assertTrue(resources.has(new RequiredResourceSet(discounted)));
+    }
+
+    @Test
+    public void testCardRequirementsAndMultipliers() throws IOException {
+        Game game = GameCatalog.getInstance().newGame();
+        Player player = new Player("alice");
+        player.addDevelopmentCard(game.getAvailableBuildingCards().get(0));
+        player.addDevelopmentCard(game.getAvailableBuildingCards().get(1));
+        player.addDevelopmentCard(game.getAvailableTerritoryCards().get(0));
+
+        assertTrue(player.getResources().has(new RequiredResourceSet(Collections.singletonMap(RequiredResource.REQUIRED_BUILDING_CARDS, 2))));
+        assertFalse(player.getResources().has(new RequiredResourceSet(Collections.singletonMap(RequiredResource.REQUIRED_TERRITORY_CARDS, 2))));
+        assertTrue(player.getResources().has(new RequiredResourceSet(Collections.singletonMap(RequiredResource.REQUIRED_SAME_TYPE_CARDS, 2))));
+
+        // 2 victory points for each building card, on top of 5 victory points and 2 wood
+        player.getResources().addResources(woodAndVictoryPoints());
+        assertEquals(9, player.getResources().getAmount(ObtainableResource.VICTORY_POINTS));
+        assertEquals(2, player.getResources().getAmount(ObtainableResource.WOOD));
+    }
+
+    /* ----------------------------------------------------------------
+     * Helpers
+     * ---------------------------------------------------------------- */
+
+    private static RequiredResourceSet militaryRequirement() {
+        Map<ResourceType, Integer> requirement = new HashMap<>();
+        requirement.put(RequiredResource.REQUIRED_MILITARY_POINTS, 10);
+        requirement.put(ObtainableResource.GOLD, 3);
+        return new RequiredResourceSet(requirement);
+    }
+
+    private static ObtainableResourceSet woodAndVictoryPoints() {
+        Map<ObtainableResource, Integer> resources = new HashMap<>();
+        resources.put(ObtainableResource.WOOD, 2);
+        resources.put(ObtainableResource.VICTORY_POINTS, 5);
+
+        Map<RequiredResourceSet, ObtainableResourceSet> multipliers = new HashMap<>();
+        multipliers.put(new RequiredResourceSet(Collections.singletonMap(RequiredResource.REQUIRED_BUILDING_CARDS, 1)),
+                new ObtainableResourceSet(Collections.singletonMap(ObtainableResource.VICTORY_POINTS, 2)));
+        return new ObtainableResourceSet(resources, multipliers);
+    }
+
+    private static void assertSerializedFields(Class<?> serializableClass, long serialVersionUID, Object... nameAndType) {
+        ObjectStreamClass streamClass = ObjectStreamClass.lookup(serializableClass);
+        assertEquals(serialVersionUID, streamClass.getSerialVersionUID());
+        assertEquals(nameAndType.length / 2, streamClass.getFields().length);
+        for (int i = 0; i < nameAndType.length; i += 2) {
+            ObjectStreamField field = streamClass.getField((String) nameAndType[i]);
+            assertNotNull(field);
+            assertEquals(nameAndType[i + 1], field.getType());
+        }
+    }
+
+    private static String serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    private static Object deserialize(String serialized) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(serialized)))) {
+            return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package tests;
+
+import org.junit.Test;
+import server.bot.TranspositionTable;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.Assert.*;
+
+
+public class TranspositionTableTest {
+    private static final int SIZE = 16;
+
+    /**
+     * The hashes of two positions that take the same entry of the table
+     */
+    private static final long HASH = 0x5DEECE66DL;
+    private static final long COLLIDING_HASH = HASH ^ (1L << 40);
+
+    @Test
+    public void testStatisticsArePacked() {
+        TranspositionTable table = new TranspositionTable(SIZE);
+        table.add(HASH, 1);
+        table.add(HASH, 0.5);
+        table.add(HASH, 0);
+
+        long statistics = table.get(HASH);
+        assertEquals(3, TranspositionTable.getVisits(statistics));
+        assertEquals(1.5, TranspositionTable.getRewards(statistics), 1e-9);
+    }
+
+    @Test
+    public void testManyVisitsDontOverflowIntoTheRewards() {
+        TranspositionTable table = new TranspositionTable(SIZE);
+        int visits = 100000;
+        for (int i = 0; i < visits; i++) {
+            table.add(HASH, 1);
+        }
+
+        long statistics = table.get(HASH);
+        assertEquals(visits, TranspositionTable.getVisits(statistics));
+        assertEquals(visits, TranspositionTable.getRewards(statistics), 1e-9);
+    }
+
+    @Test
+    public void testMissingPositionIsEmpty() {
+        TranspositionTable table = new TranspositionTable(SIZE);
+        assertEquals(0, table.get(HASH));
+        assertEquals(0, TranspositionTable.getVisits(0));
+        assertEquals(0, TranspositionTable.getRewards(0), 0);
+    }
+
+    @Test
+    public void testCollidingPositionTakesTheEntry() {
+        TranspositionTable table = new TranspositionTable(SIZE);
+        table.add(HASH, 1);
+        table.add(HASH, 1);
+        assertEquals(0, table.get(COLLIDING_HASH));
+
+        table.add(COLLIDING_HASH, 0.25);
+        assertEquals(0, table.get(HASH));
+        long statistics = table.get(COLLIDING_HASH);
+        assertEquals(1, TranspositionTable.getVisits(statistics));
+        assertEquals(0.25, TranspositionTable.getRewards(statistics), 1e-9);
+    }
+
+    @Test
+    public void testTornEntryIsMissing() throws Exception {
+        TranspositionTable table = new TranspositionTable(SIZE);
+        table.add(HASH, 1);
+
+        // Another thread has written the statistics of the colliding position, but not its check yet
+        TranspositionTable other = new TranspositionTable(SIZE);
+        other.add(COLLIDING_HASH, 0.5);
+        int index = ((int) HASH & (SIZE - 1)) * 2;
+        getEntries(table).set(index + 1, getEntries(other).get(index + 1));
+
+        assertEquals(0, table.get(HASH));
+        assertEquals(0, table.get(COLLIDING_HASH));
+
+        // The next visit starts the entry again
+        table.add(HASH, 1);
+        assertEquals(1, TranspositionTable.getVisits(table.get(HASH)));
+    }
+
+    private static AtomicLongArray getEntries(TranspositionTable table) throws ReflectiveOperationException {
+        Field entries = TranspositionTable.class.getDeclaredField("entries");
+        entries.setAccessible(true);
+        return (AtomicLongArray) entries.get(table);
+    }
+}
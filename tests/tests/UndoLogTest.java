@@ -0,0 +1,264 @@
+package tests;
+
+import gamecontroller.GameController;
+import gamecontroller.Move;
+import gamecontroller.ZobristHash;
+import model.board.actionspace.ActionSpace;
+import model.board.actionspace.Floor;
+import model.card.effects.*;
+import model.card.effects.interfaces.EffectInterface;
+import model.card.effects.interfaces.FamilyMemberValueSetterEffectInterface;
+import model.card.effects.interfaces.OncePerRoundEffectInterface;
+import model.player.Player;
+import model.resource.ObtainableResource;
+import model.resource.RequiredResourceSet;
+import model.resource.ResourceModifiers;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class UndoLogTest {
+    private static final int GAMES = 3;
+
+    /**
+     * The effect interfaces the game controller looks up
+     */
+    private static final List<Class<? extends EffectInterface>> INDEXED_EFFECTS = Arrays.asList(
+            ActionValueModifierEffect.class, DevelopmentCardRequiredResourceSetModifierEffect.class,
+            DoubleOccupationCostIgnoreEffect.class, EndOfGameResourcesEffect.class, FamilyMemberValueModifierEffect.class,
+            FamilyMemberValueSetterEffectInterface.class, FloorBonusResourcesSetterEffect.class,
+            IgnoreEndOfGameVictoryPointsFromDevelopmentCardsEffect.class, ImmediateResourcesEffect.class,
+            InhibitActionSpaceEffect.class, ObtainableResourceSetModifierEffect.class, OncePerRoundEffectInterface.class,
+            ServantsValueMultiplierEffect.class, SkipMilitaryPointsRequirementEffect.class, SkipOccupationCheckEffect.class);
+
+    @Test
+    public void testRollbackRestoresTheGame() throws IOException {
+        AtomicInteger rolledBackMoves = new AtomicInteger();
+        AtomicInteger rolledBackDecisions = new AtomicInteger();
+
+        for (long seed = 1; seed <= GAMES; seed++) {
+            ObservedRandomPolicy.play(4, seed, policySeed -> new ObservedRandomPolicy(policySeed) {
+                @Override
+                protected void beforeMove(GameController gameController, Player player, List<Move> moves) throws Exception {
+                    byte[] state = serialize(gameController);
+                    long stateHash = gameController.getStateHash();
+
+                    for (Move move : moves) {
+                        if (move.isPass()) continue;
+
+                        int savepoint = gameController.savepoint();
+                        ObservedRandomPolicy.applyMove(gameController, player, move);
+                        assertNotEquals("The move changes the game: " + move, stateHash, gameController.getStateHash());
+                        gameController.rollbackTo(savepoint);
+
+                        assertEquals("Hash after rolling back " + move, stateHash, gameController.getStateHash());
+                        assertArrayEquals("State after rolling back " + move, state, serialize(gameController));
+                        rolledBackMoves.incrementAndGet();
+                    }
+                }
+
+                @Override
+                protected void beforeExcommunication(GameController gameController, Player player) throws Exception {
+                    if (!gameController.canPlayerDecideHisExcommunication(player.getUsername())) return;
+
+                    byte[] state = serialize(gameController);
+                    long stateHash = gameController.getStateHash();
+
+                    for (boolean beExcommunicated : new boolean[]{true, false}) {
+                        int savepoint = gameController.savepoint();
+                        gameController.decideExcommunication(player.getUsername(), beExcommunicated);
+                        gameController.rollbackTo(savepoint);
+
+                        assertEquals(stateHash, gameController.getStateHash());
+                        assertArrayEquals(state, serialize(gameController));
+                        rolledBackDecisions.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        assertTrue(rolledBackMoves.get() > 1000);
+        assertTrue(rolledBackDecisions.get() > 0);
+    }
+
+    @Test
+    public void testNestedSavepoints() throws IOException {
+        AtomicInteger nestedRollbacks = new AtomicInteger();
+
+        ObservedRandomPolicy.play(3, 7, policySeed -> new ObservedRandomPolicy(policySeed) {
+            @Override
+            protected void beforeMove(GameController gameController, Player player, List<Move> moves) throws Exception {
+                if (!player.getResources().hasAtLeast(1, ObtainableResource.SERVANTS)) return;
+                Move move = moves.get(0);
+                if (move.isPass() || move.getServants() > 0) return;
+
+                byte[] state = serialize(gameController);
+                long stateHash = gameController.getStateHash();
+
+                int outerSavepoint = gameController.savepoint();
+                gameController.spendServants(player.getUsername(), 1);
+                byte[] stateWithServants = serialize(gameController);
+                long stateHashWithServants = gameController.getStateHash();
+
+                int innerSavepoint = gameController.savepoint();
+                ObservedRandomPolicy.applyMove(gameController, player, move);
+                gameController.rollbackTo(innerSavepoint);
+
+                assertEquals(stateHashWithServants, gameController.getStateHash());
+                assertArrayEquals(stateWithServants, serialize(gameController));
+
+                gameController.rollbackTo(outerSavepoint);
+                assertEquals(stateHash, gameController.getStateHash());
+                assertArrayEquals(state, serialize(gameController));
+                nestedRollbacks.incrementAndGet();
+            }
+        });
+
+        assertTrue(nestedRollbacks.get() > 0);
+    }
+
+    @Test
+    public void testCommittedChangesCannotBeRolledBack() throws IOException {
+        AtomicInteger commits = new AtomicInteger();
+
+        ObservedRandomPolicy.play(2, 3, policySeed -> new ObservedRandomPolicy(policySeed) {
+            @Override
+            protected void beforeMove(GameController gameController, Player player, List<Move> moves) {
+                if (commits.get() > 0) return;
+
+                // Committing nothing leaves the game as it is
+                int savepoint = gameController.savepoint();
+                gameController.commit();
+                try {
+                    gameController.rollbackTo(savepoint);
+                    fail("The savepoint has been committed");
+                }
+                catch (IllegalStateException e) {
+                    // Expected
+                }
+                assertEquals(ZobristHash.of(gameController.getGame()), gameController.getStateHash());
+                commits.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, commits.get());
+    }
+
+    @Test
+    public void testRollbackDiscardsOnlyTheEffectsOfTheRemovedCards() throws IOException {
+        AtomicInteger rolledBackCards = new AtomicInteger();
+        AtomicInteger keptLists = new AtomicInteger();
+
+        for (long seed = 1; seed <= GAMES; seed++) {
+            ObservedRandomPolicy.play(3, seed, policySeed -> new ObservedRandomPolicy(policySeed) {
+                @Override
+                protected void beforeMove(GameController gameController, Player player, List<Move> moves) throws Exception {
+                    for (Move move : moves) {
+                        if (move.isPass()) continue;
+
+                        List<List<?>> effects = getIndexedEffects(player);
+                        ResourceModifiers resourceModifiers = player.getResourceModifiers();
+                        List<EffectInterface> allEffects = player.getAllEffects();
+
+                        int savepoint = gameController.savepoint();
+                        ObservedRandomPolicy.applyMove(gameController, player, move);
+                        List<EffectInterface> newEffects = new ArrayList<>(player.getAllEffects());
+                        newEffects.removeAll(allEffects);
+                        gameController.rollbackTo(savepoint);
+
+                        assertEffectsIndexed(gameController, player);
+                        if (move.isFloor()) rolledBackCards.incrementAndGet();
+
+                        // The lists of the interfaces the card doesn't implement are still the same lists
+                        for (int i = 0; i < INDEXED_EFFECTS.size(); i++) {
+                            Class<? extends EffectInterface> effectInterface = INDEXED_EFFECTS.get(i);
+                            if (newEffects.stream().noneMatch(effectInterface::isInstance)) {
+                                assertSame(effects.get(i), player.getEffectsImplementing(effectInterface));
+                                keptLists.incrementAndGet();
+                            }
+                        }
+                        if (newEffects.stream().noneMatch(UndoLogTest::isResourceModifier)) {
+                            assertSame(resourceModifiers, player.getResourceModifiers());
+                        }
+                    }
+                }
+
+                @Override
+                protected void beforeExcommunication(GameController gameController, Player player) throws Exception {
+                    if (!gameController.canPlayerDecideHisExcommunication(player.getUsername())) return;
+
+                    getIndexedEffects(player);
+                    int savepoint = gameController.savepoint();
+                    gameController.decideExcommunication(player.getUsername(), true);
+                    gameController.rollbackTo(savepoint);
+
+                    assertEffectsIndexed(gameController, player);
+                }
+            });
+        }
+
+        assertTrue(rolledBackCards.get() > 100);
+        assertTrue(keptLists.get() > 1000);
+    }
+
+    private static List<List<?>> getIndexedEffects(Player player) {
+        List<List<?>> effects = new ArrayList<>();
+        for (Class<? extends EffectInterface> effectInterface : INDEXED_EFFECTS) {
+            effects.add(player.getEffectsImplementing(effectInterface));
+        }
+        return effects;
+    }
+
+    /**
+     * Checks the index and the resource modifiers of the player against the ones built from scratch
+     */
+    private static void assertEffectsIndexed(GameController gameController, Player player) {
+        List<EffectInterface> allEffects = player.getAllEffects();
+        for (Class<? extends EffectInterface> effectInterface : INDEXED_EFFECTS) {
+            List<EffectInterface> expected = new ArrayList<>();
+            for (EffectInterface effect : allEffects) {
+                if (effectInterface.isInstance(effect)) expected.add(effect);
+            }
+            assertEquals(effectInterface.getSimpleName(), expected, player.getEffectsImplementing(effectInterface));
+        }
+
+        ResourceModifiers expected = ResourceModifiers.of(player.getEffectsImplementing(FloorBonusResourcesSetterEffect.class),
+                                                          player.getEffectsImplementing(ObtainableResourceSetModifierEffect.class),
+                                                          player.getEffectsImplementing(DevelopmentCardRequiredResourceSetModifierEffect.class));
+        for (ActionSpace actionSpace : gameController.getGame().getActionSpaces()) {
+            assertEquals(expected.getEffectiveBonus(actionSpace.getBonus()), player.getResourceModifiers().getEffectiveBonus(actionSpace.getBonus()));
+        }
+        for (Floor floor : gameController.getGame().getFloors()) {
+            assertEquals(expected.getEffectiveBonus(floor.getBonus()), player.getResourceModifiers().getEffectiveBonus(floor.getBonus()));
+            if (floor.getCard() == null || floor.getCard().getRequiredResourceSet() == null) continue;
+
+            for (RequiredResourceSet cost : floor.getCard().getRequiredResourceSet()) {
+                assertEquals(expected.canPay(player.getResources(), cost, floor.getCard()),
+                             player.getResourceModifiers().canPay(player.getResources(), cost, floor.getCard()));
+            }
+        }
+    }
+
+    private static boolean isResourceModifier(EffectInterface effect) {
+        return effect instanceof FloorBonusResourcesSetterEffect
+                || effect instanceof ObtainableResourceSetModifierEffect
+                || effect instanceof DevelopmentCardRequiredResourceSetModifierEffect;
+    }
+
+    private static byte[] serialize(GameController gameController) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(gameController);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,205 @@
+package tests;
+
+import model.resource.*;
+import network.codec.WireReader;
+import network.codec.WireWriter;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+
+public class WireCodecTest {
+    @Test
+    public void testVarIntRoundTrip() throws IOException {
+        int[] values = {0, 1, 127, 128, 255, 16383, 16384, 2097151, 2097152, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+
+        WireWriter writer = new WireWriter();
+        for (int value : values) {
+            writer.writeVarInt(value);
+        }
+
+        WireReader reader = new WireReader(writer.toByteArray());
+        for (int value : values) {
+            assertEquals(value, reader.readVarInt());
+        }
+        assertFalse(reader.hasRemaining());
+    }
+
+    @Test
+    public void testSmallVarIntsTakeOneByte() {
+        assertEquals(1, new WireWriter().writeVarInt(0).toByteArray().length);
+        assertEquals(1, new WireWriter().writeVarInt(127).toByteArray().length);
+        assertEquals(2, new WireWriter().writeVarInt(128).toByteArray().length);
+        assertEquals(1, new WireWriter().writeSignedVarInt(-1).toByteArray().length);
+        assertEquals(5, new WireWriter().writeVarInt(-1).toByteArray().length);
+    }
+
+    @Test
+    public void testSignedVarIntRoundTrip() throws IOException {
+        int[] values = {0, 1, -1, 63, -64, 64, -65, 1000, -1000, Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+        WireWriter writer = new WireWriter();
+        for (int value : values) {
+            writer.writeSignedVarInt(value);
+        }
+
+        WireReader reader = new WireReader(writer.toByteArray());
+        for (int value : values) {
+            assertEquals(value, reader.readSignedVarInt());
+        }
+        assertFalse(reader.hasRemaining());
+    }
+
+    @Test
+    public void testPrimitivesRoundTrip() throws IOException {
+        byte[] message = new WireWriter().writeBoolean(true)
+                                         .writeBoolean(false)
+                                         .writeBoolean(null)
+                                         .writeLong(0L)
+                                         .writeLong(-1L)
+                                         .writeLong(0x0123456789ABCDEFL)
+                                         .writeLong(Long.MIN_VALUE)
+                                         .writeString("")
+                                         .writeString("Lorenzo il Magnifico")
+                                         .writeString("città è 中文")
+                                         .writeNullableLength(true, 0)
+                                         .writeNullableLength(false, 0)
+                                         .writeNullableLength(false, 300)
+                                         .toByteArray();
+
+        WireReader reader = new WireReader(message);
+        assertEquals(Boolean.TRUE, reader.readBoolean());
+        assertEquals(Boolean.FALSE, reader.readBoolean());
+        assertNull(reader.readBoolean());
+        assertEquals(0L, reader.readLong());
+        assertEquals(-1L, reader.readLong());
+        assertEquals(0x0123456789ABCDEFL, reader.readLong());
+        assertEquals(Long.MIN_VALUE, reader.readLong());
+        assertEquals("", reader.readString());
+        assertEquals("Lorenzo il Magnifico", reader.readString());
+        assertEquals("città è 中文", reader.readString());
+        assertEquals(-1, reader.readNullableLength());
+        assertEquals(0, reader.readNullableLength());
+        assertEquals(300, reader.readNullableLength());
+        assertFalse(reader.hasRemaining());
+    }
+
+    @Test
+    public void testResourceTypesRoundTrip() throws IOException {
+        WireWriter writer = new WireWriter();
+        for (ObtainableResource resource : ObtainableResource.values()) {
+            writer.writeResourceType(resource);
+        }
+        for (RequiredResource resource : RequiredResource.values()) {
+            writer.writeResourceType(resource);
+        }
+
+        WireReader reader = new WireReader(writer.toByteArray());
+        for (ObtainableResource resource : ObtainableResource.values()) {
+            assertEquals(resource, reader.readResourceType());
+        }
+        for (RequiredResource resource : RequiredResource.values()) {
+            assertEquals(resource, reader.readResourceType());
+        }
+    }
+
+    @Test
+    public void testRequiredResourceSetRoundTrip() throws IOException {
+        Map<ResourceType, Integer> resources = new HashMap<>();
+        resources.put(ObtainableResource.GOLD, 3);
+        resources.put(ObtainableResource.SERVANTS, -2);
+        resources.put(RequiredResource.REQUIRED_MILITARY_POINTS, 10);
+        resources.put(RequiredResource.REQUIRED_TERRITORY_CARDS, 1);
+        RequiredResourceSet resourceSet = new RequiredResourceSet(resources);
+
+        assertEquals(resourceSet, roundTrip(resourceSet));
+        assertEquals(new RequiredResourceSet(), roundTrip(new RequiredResourceSet()));
+        assertNull(roundTrip((RequiredResourceSet) null));
+    }
+
+    @Test
+    public void testObtainableResourceSetRoundTrip() throws IOException {
+        Map<ObtainableResource, Integer> resources = new EnumMap<>(ObtainableResource.class);
+        resources.put(ObtainableResource.WOOD, 2);
+        resources.put(ObtainableResource.FAITH_POINTS, -1);
+        resources.put(ObtainableResource.VICTORY_POINTS, 200);
+
+        Map<ResourceType, Integer> multiplier = new HashMap<>();
+        multiplier.put(RequiredResource.REQUIRED_BUILDING_CARDS, 1);
+        Map<RequiredResourceSet, ObtainableResourceSet> multipliers = new HashMap<>();
+        multipliers.put(new RequiredResourceSet(multiplier),
+                new ObtainableResourceSet(Collections.singletonMap(ObtainableResource.VICTORY_POINTS, 2)));
+
+        ObtainableResourceSet resourceSet = new ObtainableResourceSet(resources, multipliers);
+
+        assertEquals(resourceSet, roundTrip(resourceSet));
+        assertEquals(new ObtainableResourceSet(), roundTrip(new ObtainableResourceSet()));
+        assertNull(roundTrip((ObtainableResourceSet) null));
+    }
+
+    @Test
+    public void testObtainableResourceSetsRoundTrip() throws IOException {
+        List<ObtainableResourceSet> resourceSets = Arrays.asList(
+                new ObtainableResourceSet(Collections.singletonMap(ObtainableResource.GOLD, 2)),
+                new ObtainableResourceSet(),
+                null);
+
+        byte[] message = new WireWriter().writeObtainableResourceSets(resourceSets)
+                                         .writeObtainableResourceSets(Collections.emptyList())
+                                         .writeObtainableResourceSets(null)
+                                         .toByteArray();
+
+        WireReader reader = new WireReader(message);
+        assertEquals(resourceSets, reader.readObtainableResourceSets());
+        assertEquals(Collections.emptyList(), reader.readObtainableResourceSets());
+        assertNull(reader.readObtainableResourceSets());
+        assertFalse(reader.hasRemaining());
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedVarInt() throws IOException {
+        byte[] message = new WireWriter().writeVarInt(16384).toByteArray();
+        new WireReader(Arrays.copyOf(message, message.length - 1)).readVarInt();
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedString() throws IOException {
+        byte[] message = new WireWriter().writeString("truncated").toByteArray();
+        new WireReader(Arrays.copyOf(message, message.length - 1)).readString();
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedResourceSet() throws IOException {
+        ObtainableResourceSet resourceSet = new ObtainableResourceSet(Collections.singletonMap(ObtainableResource.GOLD, 2));
+        byte[] message = new WireWriter().writeObtainableResourceSet(resourceSet).toByteArray();
+        new WireReader(Arrays.copyOf(message, message.length - 1)).readObtainableResourceSet();
+    }
+
+    @Test(expected = IOException.class)
+    public void testMalformedVarInt() throws IOException {
+        new WireReader(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01}).readVarInt();
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownResource() throws IOException {
+        new WireReader(new byte[]{(byte) ObtainableResource.values().length}).readResourceType();
+    }
+
+    private static RequiredResourceSet roundTrip(RequiredResourceSet resourceSet) throws IOException {
+        WireReader reader = new WireReader(new WireWriter().writeRequiredResourceSet(resourceSet).toByteArray());
+        RequiredResourceSet decoded = reader.readRequiredResourceSet();
+        assertFalse(reader.hasRemaining());
+        return decoded;
+    }
+
+    private static ObtainableResourceSet roundTrip(ObtainableResourceSet resourceSet) throws IOException {
+        WireReader reader = new WireReader(new WireWriter().writeObtainableResourceSet(resourceSet).toByteArray());
+        ObtainableResourceSet decoded = reader.readObtainableResourceSet();
+        assertFalse(reader.hasRemaining());
+        return decoded;
+    }
+}
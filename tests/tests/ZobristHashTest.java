@@ -0,0 +1,119 @@
+package tests;
+
+import gamecontroller.GameController;
+import gamecontroller.Move;
+import gamecontroller.ZobristHash;
+import model.Game;
+import model.player.Player;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class ZobristHashTest {
+    private static final int GAMES = 3;
+
+    @Test
+    public void testIncrementalHashMatchesTheHashFromScratch() throws IOException {
+        AtomicInteger checkedMoves = new AtomicInteger();
+        AtomicInteger checkedDecisions = new AtomicInteger();
+
+        for (long seed = 1; seed <= GAMES; seed++) {
+            ObservedRandomPolicy.play(2 + (int) seed % 3, seed, policySeed -> new ObservedRandomPolicy(policySeed) {
+                @Override
+                protected void beforeMove(GameController gameController, Player player, List<Move> moves) throws Exception {
+                    // The turns started since the start of the round have been hashed incrementally
+                    long stateHash = gameController.getStateHash();
+                    assertEquals(ZobristHash.of(gameController.getGame()), stateHash);
+
+                    for (Move move : moves) {
+                        if (move.isPass()) continue;
+
+                        int savepoint = gameController.savepoint();
+                        ObservedRandomPolicy.applyMove(gameController, player, move);
+                        assertEquals("Hash after " + move, ZobristHash.of(gameController.getGame()), gameController.getStateHash());
+                        assertNotEquals("Hash after " + move, stateHash, gameController.getStateHash());
+                        gameController.rollbackTo(savepoint);
+
+                        assertEquals("Hash after rolling back " + move, stateHash, gameController.getStateHash());
+                        checkedMoves.incrementAndGet();
+                    }
+                }
+
+                @Override
+                protected void beforeExcommunication(GameController gameController, Player player) throws Exception {
+                    if (!gameController.canPlayerDecideHisExcommunication(player.getUsername())) return;
+
+                    long stateHash = gameController.getStateHash();
+                    assertEquals(ZobristHash.of(gameController.getGame()), stateHash);
+
+                    for (boolean beExcommunicated : new boolean[]{true, false}) {
+                        int savepoint = gameController.savepoint();
+                        gameController.decideExcommunication(player.getUsername(), beExcommunicated);
+                        assertEquals(ZobristHash.of(gameController.getGame()), gameController.getStateHash());
+                        gameController.rollbackTo(savepoint);
+
+                        assertEquals(stateHash, gameController.getStateHash());
+                        checkedDecisions.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        assertTrue(checkedMoves.get() > 1000);
+        assertTrue(checkedDecisions.get() > 0);
+    }
+
+    @Test
+    public void testCopyOfTheGameHasTheSameHash() throws IOException {
+        // The client receives a serialized copy of the game: the keys must not depend on the identity of the objects
+        AtomicInteger checkedCopies = new AtomicInteger();
+
+        ObservedRandomPolicy.play(4, 11, policySeed -> new ObservedRandomPolicy(policySeed) {
+            @Override
+            protected void beforeMove(GameController gameController, Player player, List<Move> moves) throws Exception {
+                assertEquals(gameController.getStateHash(), ZobristHash.of(copy(gameController.getGame())));
+                checkedCopies.incrementAndGet();
+            }
+        });
+
+        assertTrue(checkedCopies.get() > 0);
+    }
+
+    @Test
+    public void testDecisionsHaveDifferentHashes() throws IOException {
+        // Every decision of a game is taken in a different state, so the hashes should not collide
+        Set<Long> hashes = new HashSet<>();
+        AtomicInteger decisions = new AtomicInteger();
+
+        ObservedRandomPolicy.play(4, 5, policySeed -> new ObservedRandomPolicy(policySeed) {
+            @Override
+            protected void beforeMove(GameController gameController, Player player, List<Move> moves) {
+                hashes.add(gameController.getStateHash() ^ ZobristHash.turnsStarted(gameController.getTurnsStartedInRound()));
+                decisions.incrementAndGet();
+            }
+        });
+
+        assertEquals(decisions.get(), hashes.size());
+    }
+
+    private static Game copy(Game game) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(game);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (Game) in.readObject();
+        }
+    }
+}